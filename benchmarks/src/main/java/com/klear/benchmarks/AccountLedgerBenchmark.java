@@ -0,0 +1,74 @@
+package com.klear.benchmarks;
+
+import com.klear.account.ledger.AccountLedger;
+import com.klear.model.order.Side;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hold-and-settle throughput of the account ledger with four threads, all trading for
+ * one large account (every hold contends on the same cash counter) or each for its own
+ * accounts. An operation holds a buy's cash and settles it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountLedgerBenchmark {
+
+    private static final int ORDER_IDS = 4096;
+
+    @State(Scope.Benchmark)
+    public static class Ledger {
+        final AccountLedger ledger = new AccountLedger(Long.MAX_VALUE / 4, false);
+        final AtomicInteger threads = new AtomicInteger();
+    }
+
+    @State(Scope.Thread)
+    public static class Orders {
+        final String[] orderIds = new String[ORDER_IDS];
+        final String[] ownAccounts = new String[64];
+        int next;
+
+        @Setup
+        public void setUp(Ledger ledger) {
+            int thread = ledger.threads.getAndIncrement();
+            for (int i = 0; i < ORDER_IDS; i++) {
+                orderIds[i] = "T" + thread + "-" + i;
+            }
+            for (int i = 0; i < ownAccounts.length; i++) {
+                ownAccounts[i] = "T" + thread + "-CLIENT" + i;
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean oneAccount(Ledger ledger, Orders orders) {
+        String orderId = orders.orderIds[orders.next++ & (ORDER_IDS - 1)];
+        ledger.ledger.reserve(orderId, "BIG", "AAPL", Side.BUY, 100, 150.00);
+        return ledger.ledger.settle(orderId, 100, 150.00);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean manyAccounts(Ledger ledger, Orders orders) {
+        int i = orders.next++;
+        String orderId = orders.orderIds[i & (ORDER_IDS - 1)];
+        ledger.ledger.reserve(orderId, orders.ownAccounts[i & 63], "AAPL", Side.BUY, 100, 150.00);
+        return ledger.ledger.settle(orderId, 100, 150.00);
+    }
+}
@@ -0,0 +1,128 @@
+package com.klear.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.klear.communication.core.BaseService;
+import com.klear.communication.core.ServiceClientMessage;
+import com.klear.model.order.OrderStatus;
+import com.klear.model.queue.QueueItem;
+import com.klear.model.queue.QueueItemTypes;
+import com.klear.model.trade.Trade;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.klear.communication.core.ServiceClientMessageTypes.SEND;
+
+/**
+ * Cost of the shared stage pipeline (decode, dispatch, encode, publish) with a
+ * trivial stage and a publisher that never touches the network, in the standard
+ * (Jackson) and pooled (flyweight codec) processing modes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BaseServiceBenchmark {
+
+    private StubService service;
+    private StubService pooledService;
+    private ServiceClientMessage message;
+    private Object payload;
+    private QueueItem queueItem;
+    private String json;
+
+    @Setup
+    public void setUp() throws Exception {
+        service = new StubService();
+        pooledService = new StubService();
+        pooledService.pooled();
+        ObjectMapper objectMapper = new ObjectMapper();
+        Trade trade = BenchmarkFixtures.newTrade("6f8e3bb7-01ec-4ecf-81e7-f548be295485", OrderStatus.UNKNOWN);
+        json = objectMapper.writeValueAsString(
+                new ServiceClientMessage(SEND, "account_service_channel_RET_0", (Object) trade));
+        message = objectMapper.readValue(json, ServiceClientMessage.class);
+        payload = message.getPayload();
+        queueItem = new QueueItem(QueueItemTypes.VALIDATION, message);
+    }
+
+    @Benchmark
+    public void processQueueItem() {
+        // processQueueItem turns the message into a reply in place; rewind it.
+        message.setType(SEND);
+        message.setPayload(payload);
+        service.process(queueItem);
+    }
+
+    @Benchmark
+    public void receiveAndProcess() {
+        service.onReceive("account_service_channel_OUT", json);
+        service.process(service.poll());
+    }
+
+    @Benchmark
+    public void receiveAndProcessPooled() {
+        pooledService.onReceive("account_service_channel_OUT", json);
+        pooledService.process(pooledService.poll());
+    }
+
+    static final class StubService extends BaseService {
+
+        StubService() {
+            this.jedisPub = new BenchmarkFixtures.NullPublisher();
+        }
+
+        void pooled() {
+            enablePooledProcessing(1024);
+        }
+
+        QueueItem poll() {
+            return queue.poll();
+        }
+
+        void process(QueueItem queueItem) {
+            processQueueItem(queueItem);
+        }
+
+        @Override
+        protected String getServiceName() {
+            return "StubService";
+        }
+
+        @Override
+        protected String getChannelName() {
+            return "stub_service_channel";
+        }
+
+        @Override
+        protected String getRedisHost() {
+            return "localhost";
+        }
+
+        @Override
+        protected int getRedisPort() {
+            return 6379;
+        }
+
+        @Override
+        protected QueueItemTypes getQueueItemType() {
+            return QueueItemTypes.VALIDATION;
+        }
+
+        @Override
+        protected Trade processTrade(Trade trade) {
+            trade.setStatus(OrderStatus.VALIDATED);
+            return trade;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.klear.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares a JMH JSON result file (-rf json) against a committed baseline and
+ * reports score and allocation (gc.alloc.rate.norm from -prof gc) regressions.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.klear.benchmarks.BaselineComparator \
+ *     benchmarks/baselines/baseline.json results.json 10
+ * </pre>
+ *
+ * Exits with status 1 when any benchmark regressed by more than the threshold percentage.
+ */
+public class BaselineComparator {
+
+    static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+
+    /** Allocation changes below this many bytes per operation are treated as noise. */
+    static final double ALLOC_NOISE_BYTES = 16.0;
+
+    private final double thresholdPercent;
+
+    public BaselineComparator(double thresholdPercent) {
+        this.thresholdPercent = thresholdPercent;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparator <baseline.json> <current.json> [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonNode baseline = objectMapper.readTree(new File(args[0]));
+        JsonNode current = objectMapper.readTree(new File(args[1]));
+
+        List<String> regressions = new BaselineComparator(threshold).compare(baseline, current);
+        if (!regressions.isEmpty()) {
+            System.out.println();
+            System.out.println(regressions.size() + " regression(s) beyond " + threshold + "%:");
+            regressions.forEach(r -> System.out.println("  " + r));
+            System.exit(1);
+        }
+        System.out.println();
+        System.out.println("No regressions beyond " + threshold + "%");
+    }
+
+    /**
+     * Prints a side-by-side table and returns a description of every regression found.
+     */
+    public List<String> compare(JsonNode baseline, JsonNode current) {
+        Map<String, JsonNode> baselineByKey = index(baseline);
+        Map<String, JsonNode> currentByKey = index(current);
+        List<String> regressions = new ArrayList<>();
+
+        System.out.printf("%-70s %14s %14s %8s %12s %12s%n",
+                "Benchmark", "Baseline", "Current", "Delta%", "B/op base", "B/op now");
+        for (Map.Entry<String, JsonNode> entry : currentByKey.entrySet()) {
+            String key = entry.getKey();
+            JsonNode now = entry.getValue();
+            JsonNode base = baselineByKey.get(key);
+            if (base == null) {
+                System.out.printf("%-70s %14s %14.3f %8s%n", key, "-", score(now), "new");
+                continue;
+            }
+
+            double baseScore = score(base);
+            double nowScore = score(now);
+            double delta = percentChange(baseScore, nowScore);
+            boolean higherIsBetter = "thrpt".equals(now.path("mode").asText());
+            double worsening = higherIsBetter ? -delta : delta;
+            if (worsening > thresholdPercent) {
+                regressions.add(String.format("%s score %.3f -> %.3f %s (%+.1f%%)",
+                        key, baseScore, nowScore, unit(now), delta));
+            }
+
+            double baseAlloc = alloc(base);
+            double nowAlloc = alloc(now);
+            if (!Double.isNaN(baseAlloc) && !Double.isNaN(nowAlloc)
+                    && nowAlloc - baseAlloc > ALLOC_NOISE_BYTES
+                    && percentChange(baseAlloc, nowAlloc) > thresholdPercent) {
+                regressions.add(String.format("%s allocation %.1f -> %.1f B/op", key, baseAlloc, nowAlloc));
+            }
+
+            System.out.printf("%-70s %14.3f %14.3f %+8.1f %12.1f %12.1f%n",
+                    key, baseScore, nowScore, delta, baseAlloc, nowAlloc);
+        }
+        return regressions;
+    }
+
+    private static Map<String, JsonNode> index(JsonNode results) {
+        Map<String, JsonNode> byKey = new LinkedHashMap<>();
+        for (JsonNode result : results) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            JsonNode params = result.path("params");
+            Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> param = fields.next();
+                key.append(':').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            byKey.put(key.toString(), result);
+        }
+        return byKey;
+    }
+
+    private static double score(JsonNode result) {
+        return result.path("primaryMetric").path("score").asDouble();
+    }
+
+    private static String unit(JsonNode result) {
+        return result.path("primaryMetric").path("scoreUnit").asText();
+    }
+
+    private static double alloc(JsonNode result) {
+        JsonNode metric = result.path("secondaryMetrics").path(ALLOC_METRIC);
+        return metric.isMissingNode() ? Double.NaN : metric.path("score").asDouble();
+    }
+
+    private static double percentChange(double base, double now) {
+        if (base == 0.0) {
+            return now == 0.0 ? 0.0 : 100.0;
+        }
+        return (now - base) / base * 100.0;
+    }
+}
@@ -0,0 +1,94 @@
+package com.klear.benchmarks;
+
+import com.klear.communication.client.AccountServiceClient;
+import com.klear.communication.client.ClearingServiceClient;
+import com.klear.communication.client.ExecutionServiceClient;
+import com.klear.communication.client.SettlementServiceClient;
+import com.klear.model.order.Order;
+import com.klear.model.order.OrderStatus;
+import com.klear.model.trade.Trade;
+import redis.clients.jedis.Jedis;
+
+import java.lang.reflect.Field;
+
+/**
+ * Shared test data and Redis-free stand-ins used by the benchmarks.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    static Order newOrder(String clientId, String symbol, int quantity, double price) {
+        Order order = new Order();
+        order.setClientId(clientId);
+        order.setStockSymbol(symbol);
+        order.setQuantity(quantity);
+        order.setPrice(price);
+        return order;
+    }
+
+    static Trade newTrade(String orderId, OrderStatus status) {
+        Trade trade = new Trade(orderId, newOrder("CLIENT123", "AAPL", 100, 150.0), status);
+        trade.setExecutedPrice(150.0);
+        trade.setExecutedTimestamp(1_700_000_000_000L);
+        trade.setNettedAmount(15_000.0);
+        return trade;
+    }
+
+    static void setField(Object target, String name, Object value) {
+        Class<?> type = target.getClass();
+        while (type != null) {
+            try {
+                Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                type = type.getSuperclass();
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot set field " + name, e);
+            }
+        }
+        throw new IllegalArgumentException("No field " + name + " on " + target.getClass());
+    }
+
+    /**
+     * Jedis connection that never connects; publish is a no-op.
+     */
+    static final class NullPublisher extends Jedis {
+        @Override
+        public long publish(String channel, String message) {
+            return 0L;
+        }
+
+        @Override
+        public long publish(byte[] channel, byte[] message) {
+            return 0L;
+        }
+    }
+
+    static final class NullAccountServiceClient extends AccountServiceClient {
+        @Override
+        public void send(Trade trade) {
+        }
+    }
+
+    static final class NullExecutionServiceClient extends ExecutionServiceClient {
+        @Override
+        public void send(Trade trade) {
+        }
+    }
+
+    static final class NullClearingServiceClient extends ClearingServiceClient {
+        @Override
+        public void send(Trade trade) {
+        }
+    }
+
+    static final class NullSettlementServiceClient extends SettlementServiceClient {
+        @Override
+        public void send(Trade trade) {
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.klear.benchmarks;
+
+import com.klear.communication.core.DedupWindow;
+import com.klear.communication.core.ServiceClientMessage;
+import com.klear.model.order.OrderStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Duplicate detection per message: deriving the message ID from a UUID order ID and a
+ * status, and checking a new ID and a duplicate against a dedup window of four full
+ * 262,144-ID generations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DedupWindowBenchmark {
+
+    private static final int CAPACITY = 262_144;
+    private static final int ORDER_IDS = 1024;
+
+    private final String[] orderIds = new String[ORDER_IDS];
+    private DedupWindow window;
+    private long nextId;
+    private long seenId;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < ORDER_IDS; i++) {
+            orderIds[i] = UUID.randomUUID().toString();
+        }
+        // A window an hour long only rotates when a generation fills
+        window = new DedupWindow(3_600_000, 4, CAPACITY, 0);
+        for (nextId = 1; nextId <= 4L * CAPACITY - 1; nextId++) {
+            window.firstSeen(ServiceClientMessage.messageIdOf(Long.toString(nextId), OrderStatus.UNKNOWN), 0);
+        }
+        seenId = ServiceClientMessage.messageIdOf(Long.toString(nextId - 1), OrderStatus.UNKNOWN);
+    }
+
+    @Benchmark
+    public long messageId() {
+        return ServiceClientMessage.messageIdOf(orderIds[next++ & (ORDER_IDS - 1)], OrderStatus.VALIDATED);
+    }
+
+    @Benchmark
+    public boolean firstSeenNew() {
+        return window.firstSeen(nextId++ * 0x9E3779B97F4A7C15L | 1, 0);
+    }
+
+    @Benchmark
+    public boolean firstSeenDuplicate() {
+        return window.firstSeen(seenId, 0);
+    }
+}
@@ -0,0 +1,75 @@
+package com.klear.benchmarks;
+
+import com.klear.communication.core.ServiceClientMessage;
+import com.klear.communication.core.TradeMessageCodec;
+import com.klear.model.order.Order;
+import com.klear.model.order.OrderStatus;
+import com.klear.model.trade.Trade;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static com.klear.communication.core.ServiceClientMessageTypes.SEND;
+
+/**
+ * Pooled-mode codec cost of a cleared trade priced at 150.37 for 137 shares, with
+ * prices and amounts as doubles or as fixed-point ticks at scale 2.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FixedPointCodecBenchmark {
+
+    @Param({"double", "fixed"})
+    public String prices;
+
+    private final TradeMessageCodec codec = new TradeMessageCodec();
+    private final ServiceClientMessage decoded = new ServiceClientMessage();
+    private final Trade decodedTrade = new Trade();
+    private final Order decodedOrder = new Order();
+    private ServiceClientMessage message;
+    private String json;
+
+    @Setup
+    public void setUp() {
+        Trade trade = BenchmarkFixtures.newTrade("6f8e3bb7-01ec-4ecf-81e7-f548be295485", OrderStatus.CLEARED);
+        trade.getOrder().setQuantity(137);
+        trade.getOrder().setPrice(150.37);
+        trade.setExecutedQuantity(137);
+        trade.setExecutedPrice(150.37);
+        trade.setNettedAmount(137 * 150.37);
+        if ("fixed".equals(prices)) {
+            trade.getOrder().setPriceTicks(15037);
+            trade.getOrder().setPriceScale(2);
+            trade.setExecutedPriceTicks(15037);
+            trade.setNettedAmountTicks(137 * 15037L);
+        }
+        message = new ServiceClientMessage(SEND, "settlement_service_channel_RET_0", (Object) trade);
+        json = new String(codec.encode(message), StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return codec.encode(message);
+    }
+
+    @Benchmark
+    public Trade decode() {
+        codec.decode(json, decoded, decodedTrade, decodedOrder);
+        return decodedTrade;
+    }
+}
@@ -0,0 +1,83 @@
+package com.klear.benchmarks;
+
+import com.klear.clearing.margin.MarginEngine;
+import com.klear.clearing.margin.ScenarioGrid;
+import com.klear.model.order.Side;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Portfolio margin with 10,000 participants holding four of eight symbols, over 500
+ * scenarios: the incremental check of one cleared trade, and a full revaluation of every
+ * participant on the common fork/join pool (as many threads as the machine has cores).
+ */
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MarginEngineBenchmark {
+
+    private static final String[] SYMBOLS = {"AAPL", "MSFT", "GOOG", "AMZN", "META", "NVDA", "TSLA", "JPM"};
+    private static final int TRADES = 4096;
+
+    @Param({"10000"})
+    public int participants;
+
+    @Param({"500"})
+    public int scenarios;
+
+    private MarginEngine engine;
+    private final String[] clientIds = new String[TRADES];
+    private final String[] symbols = new String[TRADES];
+    private final Side[] sides = new Side[TRADES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        engine = new MarginEngine(ScenarioGrid.generated(scenarios, 0.02, 42), 0.99, 0, ForkJoinPool.commonPool());
+        SplittableRandom random = new SplittableRandom(42);
+        String[] ids = new String[participants];
+        for (int i = 0; i < participants; i++) {
+            ids[i] = "CLIENT" + i;
+            for (int p = 0; p < 4; p++) {
+                engine.apply(ids[i], SYMBOLS[(i + p * 3) % SYMBOLS.length], Side.BUY, 100 + random.nextInt(900),
+                        100.00 + random.nextInt(50));
+            }
+        }
+        for (int i = 0; i < TRADES; i++) {
+            clientIds[i] = ids[random.nextInt(participants)];
+            symbols[i] = SYMBOLS[random.nextInt(SYMBOLS.length)];
+            sides[i] = random.nextBoolean() ? Side.BUY : Side.SELL;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean applyTrade() {
+        int i = next;
+        next = (i + 1) & (TRADES - 1);
+        return engine.apply(clientIds[i], symbols[i], sides[i], 10, 125.00);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public double recalculateAll() {
+        engine.recalculateAll();
+        return engine.margin("CLIENT0");
+    }
+}
@@ -0,0 +1,108 @@
+package com.klear.benchmarks;
+
+import com.klear.clearing.netting.NettingEngine;
+import com.klear.clearing.netting.NettingWindow;
+import com.klear.model.order.Side;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of netting a trade into an open window, and latency of closing a window holding
+ * {@code positions} client and symbol pairs (the listener reads every obligation, as the
+ * clearing service's publisher does).
+ */
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NettingEngineBenchmark {
+
+    private static final String[] SYMBOLS = {"AAPL", "MSFT", "GOOG", "AMZN", "META", "NVDA", "TSLA", "JPM"};
+    private static final int TRADES = 4096;
+
+    private static long readAll(NettingWindow window) {
+        long sum = 0;
+        for (int i = 0; i < window.obligationCount(); i++) {
+            sum += window.netQuantity(i) + window.netCashCents(i) + window.participant(i).length();
+        }
+        return sum;
+    }
+
+    @State(Scope.Thread)
+    public static class OpenWindow {
+        @Param({"1000", "10000"})
+        public int clients;
+
+        NettingEngine engine;
+        final String[] clientIds = new String[TRADES];
+        final String[] symbols = new String[TRADES];
+        final Side[] sides = new Side[TRADES];
+        int next;
+
+        @Setup
+        public void setUp() {
+            // No limits but positions: the window closes only when every pair has traded
+            engine = new NettingEngine(0, 0, clients * SYMBOLS.length, NettingEngineBenchmark::readAll);
+            SplittableRandom random = new SplittableRandom(42);
+            for (int i = 0; i < TRADES; i++) {
+                clientIds[i] = "CLIENT" + random.nextInt(clients);
+                symbols[i] = SYMBOLS[random.nextInt(SYMBOLS.length)];
+                sides[i] = random.nextBoolean() ? Side.BUY : Side.SELL;
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class FullWindow {
+        @Param({"1000", "100000"})
+        public int positions;
+
+        NettingEngine engine;
+        String[] clientIds;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            engine = new NettingEngine(0, 0, positions, NettingEngineBenchmark::readAll);
+            clientIds = new String[positions];
+            for (int i = 0; i < positions; i++) {
+                clientIds[i] = "CLIENT" + i;
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void fill() {
+            for (int i = 0; i < positions; i++) {
+                engine.add(clientIds[i], "AAPL", (i & 1) == 0 ? Side.BUY : Side.SELL, 100, 150.00, 0);
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long add(OpenWindow state) {
+        int i = state.next;
+        state.next = (i + 1) & (TRADES - 1);
+        return state.engine.add(state.clientIds[i], state.symbols[i], state.sides[i], 100, 150.00, 0);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long closeWindow(FullWindow state) {
+        state.engine.flush(0);
+        return state.engine.lastCloseNanos();
+    }
+}
@@ -0,0 +1,150 @@
+package com.klear.benchmarks;
+
+import com.klear.execution.book.FillListener;
+import com.klear.execution.book.OrderBook;
+import com.klear.model.order.Side;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Add, cancel and match on a deep {@link OrderBook}: 1,000 price levels a side with 10
+ * orders of 100 each. Every invocation runs a batch of {@value #BATCH} operations, and an
+ * untimed per-invocation setup or teardown puts the book back into the same shape, so each
+ * score is operations per second against a book that neither drains nor grows.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderBookBenchmark {
+
+    static final int BATCH = 1000;
+
+    private static final int LEVELS_PER_SIDE = 1000;
+    private static final int ORDERS_PER_LEVEL = 10;
+    private static final long ORDER_QUANTITY = 100;
+    private static final long MID = 100_000;
+
+    @State(Scope.Thread)
+    public static class DeepBook {
+        OrderBook book;
+        final long[] passivePrices = new long[BATCH];
+        final int[] handles = new int[BATCH];
+
+        @Setup(Level.Trial)
+        public void fill() {
+            book = new OrderBook(4 * LEVELS_PER_SIDE, 4 * LEVELS_PER_SIDE * ORDERS_PER_LEVEL);
+            for (int level = 1; level <= LEVELS_PER_SIDE; level++) {
+                for (int i = 0; i < ORDERS_PER_LEVEL; i++) {
+                    book.add(Side.BUY, MID - level, ORDER_QUANTITY, null);
+                    book.add(Side.SELL, MID + level, ORDER_QUANTITY, null);
+                }
+            }
+            SplittableRandom random = new SplittableRandom(42);
+            for (int i = 0; i < BATCH; i++) {
+                passivePrices[i] = MID - 1 - random.nextInt(LEVELS_PER_SIDE);
+            }
+        }
+    }
+
+    public static class AddState extends DeepBook {
+        @TearDown(Level.Invocation)
+        public void removeAdded() {
+            for (int i = 0; i < BATCH; i++) {
+                book.cancel(handles[i]);
+            }
+        }
+    }
+
+    public static class CancelState extends DeepBook {
+        // Cancel in a shuffled order so most cancels unlink from the middle of a level
+        final int[] cancelOrder = new int[BATCH];
+
+        @Setup(Level.Trial)
+        public void shuffle() {
+            SplittableRandom random = new SplittableRandom(7);
+            for (int i = 0; i < BATCH; i++) {
+                cancelOrder[i] = i;
+            }
+            for (int i = BATCH - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int tmp = cancelOrder[i];
+                cancelOrder[i] = cancelOrder[j];
+                cancelOrder[j] = tmp;
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void addOrders() {
+            for (int i = 0; i < BATCH; i++) {
+                handles[i] = book.add(Side.BUY, passivePrices[i], ORDER_QUANTITY, null);
+            }
+        }
+    }
+
+    public static class MatchState extends DeepBook {
+        // Makers consumed by the batch, re-added in the teardown
+        final long[] filledPrices = new long[BATCH * 3];
+        int filledCount;
+        final FillListener fillListener = (ref, price, qty, remaining) -> {
+            if (remaining == 0) {
+                filledPrices[filledCount++] = price;
+            }
+        };
+
+        @TearDown(Level.Invocation)
+        public void replenish() {
+            for (int i = 0; i < filledCount; i++) {
+                book.add(Side.SELL, filledPrices[i], ORDER_QUANTITY, null);
+            }
+            filledCount = 0;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int add(AddState s) {
+        for (int i = 0; i < BATCH; i++) {
+            s.handles[i] = s.book.add(Side.BUY, s.passivePrices[i], ORDER_QUANTITY, null);
+        }
+        return s.handles[BATCH - 1];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public boolean cancel(CancelState s) {
+        boolean cancelled = true;
+        for (int i = 0; i < BATCH; i++) {
+            cancelled &= s.book.cancel(s.handles[s.cancelOrder[i]]);
+        }
+        return cancelled;
+    }
+
+    /**
+     * Market buys for three resting orders each, so the batch walks 300 price levels.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long match(MatchState s) {
+        long filled = 0;
+        for (int i = 0; i < BATCH; i++) {
+            filled += s.book.match(Side.BUY, OrderBook.marketLimit(Side.BUY), 3 * ORDER_QUANTITY, s.fillListener);
+        }
+        return filled;
+    }
+}
@@ -0,0 +1,110 @@
+package com.klear.benchmarks;
+
+import com.klear.execution.marketdata.Quote;
+import com.klear.execution.marketdata.QuoteCache;
+import com.klear.execution.marketdata.RandomWalkQuoteSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seqlock quote cache throughput: a feed writing updates, an execution thread reading
+ * quotes, both together on one symbol, and the synthetic random-walk source end to end.
+ * None of these should allocate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuoteCacheBenchmark {
+
+    private static final int SYMBOLS = 64;
+
+    @State(Scope.Benchmark)
+    public static class Cache {
+        QuoteCache cache;
+        RandomWalkQuoteSource source;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            cache = new QuoteCache(SYMBOLS);
+            List<String> symbols = new ArrayList<>();
+            for (int i = 0; i < SYMBOLS; i++) {
+                symbols.add("SYM" + i);
+            }
+            source = new RandomWalkQuoteSource(cache, symbols, 0.01, 1.0, 2.0, 42);
+            for (int i = 0; i < SYMBOLS; i++) {
+                source.publishNext();
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+        long sequence;
+        int index;
+
+        long next() {
+            index = (index + 1) & (SYMBOLS - 1);
+            return ++sequence;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Reader {
+        final Quote quote = new Quote();
+        int index;
+    }
+
+    @Benchmark
+    public long update(Cache cache, Writer writer) {
+        long n = writer.next();
+        cache.cache.update(writer.index, 100 + (n & 15) * 0.01, 100.02 + (n & 15) * 0.01, 500, 500, n);
+        return n;
+    }
+
+    @Benchmark
+    public double read(Cache cache, Reader reader) {
+        reader.index = (reader.index + 1) & (SYMBOLS - 1);
+        cache.cache.read(reader.index, reader.quote);
+        return reader.quote.getAsk();
+    }
+
+    @Benchmark
+    public boolean randomWalk(Cache cache) {
+        return cache.source.publishNext();
+    }
+
+    // One writer and one reader hammering the same symbol
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public long contendedUpdate(Cache cache, Writer writer) {
+        long n = ++writer.sequence;
+        cache.cache.update(0, 100 + (n & 15) * 0.01, 100.02 + (n & 15) * 0.01, 500, 500, n);
+        return n;
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public double contendedRead(Cache cache, Reader reader) {
+        cache.cache.read(0, reader.quote);
+        return reader.quote.getAsk();
+    }
+}
@@ -0,0 +1,121 @@
+package com.klear.benchmarks;
+
+import com.klear.clearing.netting.NettingEngine;
+import com.klear.communication.core.ServiceClientMessage;
+import com.klear.communication.core.TradeMessageCodec;
+import com.klear.model.order.Order;
+import com.klear.model.order.OrderStatus;
+import com.klear.model.order.Side;
+import com.klear.model.reference.ReferenceDictionary;
+import com.klear.model.trade.Trade;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.klear.communication.core.ServiceClientMessageTypes.SEND;
+
+/**
+ * Client and symbol names sent as strings versus reference dictionary codes: pooled codec
+ * encode and decode of one trade, and netting 4,096 trades across 10,000 clients and 500
+ * symbols (divide by 4,096 for the cost per trade).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReferenceCodeBenchmark {
+
+    private static final int CLIENTS = 10_000;
+    private static final int SYMBOLS = 500;
+    private static final int TRADES = 4096;
+
+    @Param({"names", "codes"})
+    public String encoding;
+
+    private TradeMessageCodec codec;
+    private final ServiceClientMessage decoded = new ServiceClientMessage();
+    private final Trade decodedTrade = new Trade();
+    private final Order decodedOrder = new Order();
+    private ServiceClientMessage message;
+    private String json;
+
+    private NettingEngine netting;
+    private final String[] clientIds = new String[TRADES];
+    private final int[] clientCodes = new int[TRADES];
+    private final String[] symbols = new String[TRADES];
+    private final int[] symbolCodes = new int[TRADES];
+
+    @Setup
+    public void setUp() {
+        List<String> clientNames = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            clientNames.add("CLIENT" + i);
+        }
+        List<String> symbolNames = new ArrayList<>();
+        for (int i = 0; i < SYMBOLS; i++) {
+            symbolNames.add("SYM" + i);
+        }
+        ReferenceDictionary dictionary = ReferenceDictionary.of(symbolNames, clientNames);
+        boolean codes = "codes".equals(encoding);
+
+        Trade trade = BenchmarkFixtures.newTrade("6f8e3bb7-01ec-4ecf-81e7-f548be295485", OrderStatus.CLEARED);
+        trade.getOrder().setClientId("CLIENT4242");
+        trade.getOrder().setStockSymbol("SYM123");
+        if (codes) {
+            dictionary.encode(trade.getOrder());
+        }
+        codec = new TradeMessageCodec(codes ? dictionary : null);
+        message = new ServiceClientMessage(SEND, "settlement_service_channel_RET_0", (Object) trade);
+        json = new String(codec.encode(message), StandardCharsets.UTF_8);
+
+        // The window only closes when it fills, so every add nets into a known pair
+        netting = new NettingEngine(0, 0, CLIENTS * SYMBOLS, window -> { });
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < TRADES; i++) {
+            int client = random.nextInt(CLIENTS);
+            int symbol = random.nextInt(SYMBOLS);
+            // Decoded names are the dictionary's instances in both cases
+            clientIds[i] = dictionary.client(client + 1);
+            symbols[i] = dictionary.symbol(symbol + 1);
+            clientCodes[i] = codes ? client + 1 : 0;
+            symbolCodes[i] = codes ? symbol + 1 : 0;
+        }
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return codec.encode(message);
+    }
+
+    @Benchmark
+    public Trade decode() {
+        codec.decode(json, decoded, decodedTrade, decodedOrder);
+        return decodedTrade;
+    }
+
+    @Benchmark
+    public long net() {
+        long id = 0;
+        for (int i = 0; i < TRADES; i++) {
+            id += netting.addNotional(clientIds[i], clientCodes[i], symbols[i], symbolCodes[i],
+                    (i & 1) == 0 ? Side.BUY : Side.SELL, 100, 1_500_000, 0);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,71 @@
+package com.klear.benchmarks;
+
+import com.klear.account.risk.RiskEngine;
+import com.klear.account.risk.RiskLimits;
+import com.klear.model.order.Side;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of the incremental pre-trade check across many active clients:
+ * each operation reserves an order against the client's running exposure and releases it
+ * again, so totals stay level. Reported percentiles include the p99 the check is held to.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RiskEngineBenchmark {
+
+    private static final String[] SYMBOLS = {"AAPL", "MSFT", "GOOG", "AMZN", "META", "NVDA", "TSLA", "JPM"};
+    private static final int ORDERS = 4096;
+
+    @Param({"1000", "10000"})
+    public int clients;
+
+    private RiskEngine engine;
+    private final String[] clientIds = new String[ORDERS];
+    private final String[] symbols = new String[ORDERS];
+    private final Side[] sides = new Side[ORDERS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        engine = new RiskEngine(RiskLimits.of(1e12, 1e12, 1_000_000_000L));
+        SplittableRandom random = new SplittableRandom(42);
+        String[] ids = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            ids[i] = "CLIENT" + i;
+            // Every client starts with some exposure
+            engine.reserve(ids[i], SYMBOLS[i % SYMBOLS.length], Side.BUY, 100, 150.00);
+        }
+        for (int i = 0; i < ORDERS; i++) {
+            clientIds[i] = ids[random.nextInt(clients)];
+            symbols[i] = SYMBOLS[random.nextInt(SYMBOLS.length)];
+            sides[i] = random.nextBoolean() ? Side.BUY : Side.SELL;
+        }
+    }
+
+    @Benchmark
+    public RiskEngine.Result reserveAndRelease() {
+        int i = next;
+        next = (i + 1) & (ORDERS - 1);
+        RiskEngine.Result result = engine.reserve(clientIds[i], symbols[i], sides[i], 100, 150.00);
+        engine.release(clientIds[i], symbols[i], sides[i], 100, 150.00);
+        return result;
+    }
+}
@@ -0,0 +1,68 @@
+package com.klear.benchmarks;
+
+import com.klear.account.rules.RuleTable;
+import com.klear.account.rules.RuleViolation;
+import com.klear.model.order.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of checking one order against compiled validation rules as the number of
+ * configured clients grows; it should stay flat. Every client has its own limit and a
+ * quarter also have per-symbol overrides.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RuleTableBenchmark {
+
+    private static final String[] SYMBOLS = {"AAPL", "MSFT", "GOOG", "AMZN", "META", "NVDA", "TSLA", "JPM"};
+    private static final int ORDERS = 1024;
+
+    @Param({"10", "100000"})
+    public int clients;
+
+    private RuleTable table;
+    private final Order[] orders = new Order[ORDERS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<String> lines = new ArrayList<>();
+        lines.add("* max_notional 5000000");
+        lines.add("symbol=TSLA max_quantity 2000");
+        for (int i = 0; i < clients; i++) {
+            lines.add("client=CLIENT" + i + " max_quantity " + (1000 + i % 9000));
+            if (i % 4 == 0) {
+                lines.add("client=CLIENT" + i + " symbol=" + SYMBOLS[i % SYMBOLS.length] + " max_price 500");
+            }
+        }
+        table = RuleTable.compile(lines, "benchmark");
+        for (int i = 0; i < ORDERS; i++) {
+            orders[i] = BenchmarkFixtures.newOrder("CLIENT" + (i * 7919 % clients), SYMBOLS[i % SYMBOLS.length], 100, 150.0);
+        }
+    }
+
+    @Benchmark
+    public RuleViolation check() {
+        int i = next;
+        next = (i + 1) & (ORDERS - 1);
+        return table.check(orders[i]);
+    }
+}
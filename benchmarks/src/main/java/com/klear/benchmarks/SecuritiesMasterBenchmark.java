@@ -0,0 +1,83 @@
+package com.klear.benchmarks;
+
+import com.klear.model.reference.Security;
+import com.klear.model.reference.SecurityStatus;
+import com.klear.model.reference.SecurityTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Securities master of 500,000 instruments: mapping and checking the 16 MB file, as done
+ * at startup and on every reload, and the per-order lookup of a symbol followed by reads
+ * of its status, lot size and tick size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SecuritiesMasterBenchmark {
+
+    private static final int SECURITIES = 500_000;
+    private static final int LOOKUPS = 1024;
+
+    private Path directory;
+    private Path file;
+    private SecurityTable table;
+    private final String[] symbols = new String[LOOKUPS];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("securities");
+        file = directory.resolve("securities.bin");
+        List<Security> securities = new ArrayList<>(SECURITIES);
+        for (int i = 0; i < SECURITIES; i++) {
+            securities.add(new Security("SYM" + i, 100, 1, 2, SecurityStatus.TRADING, 2));
+        }
+        SecurityTable.write(file, securities);
+        table = SecurityTable.open(file);
+        for (int i = 0; i < LOOKUPS; i++) {
+            symbols[i] = "SYM" + (i * 487L % SECURITIES);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public SecurityTable open() throws IOException {
+        return SecurityTable.open(file);
+    }
+
+    @Benchmark
+    public int lookup() {
+        int index = table.find(symbols[next++ & (LOOKUPS - 1)]);
+        if (table.status(index) != SecurityStatus.TRADING) {
+            return -1;
+        }
+        return table.lotSize(index) + table.tickSize(index);
+    }
+}
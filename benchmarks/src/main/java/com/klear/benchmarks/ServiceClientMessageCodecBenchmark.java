@@ -0,0 +1,61 @@
+package com.klear.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.klear.communication.core.ServiceClientMessage;
+import com.klear.model.order.OrderStatus;
+import com.klear.model.trade.Trade;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.klear.communication.core.ServiceClientMessageTypes.SEND;
+
+/**
+ * JSON encode/decode cost of the envelope every stage sends and receives.
+ * decodeTrade mirrors the payload round trip done in BaseService and ServiceClient.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ServiceClientMessageCodecBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ServiceClientMessage message;
+    private String json;
+
+    @Setup
+    public void setUp() throws Exception {
+        Trade trade = BenchmarkFixtures.newTrade("6f8e3bb7-01ec-4ecf-81e7-f548be295485", OrderStatus.CLEARED);
+        message = new ServiceClientMessage(SEND, "settlement_service_channel_RET_0", (Object) trade);
+        json = objectMapper.writeValueAsString(message);
+    }
+
+    @Benchmark
+    public String encode() throws Exception {
+        return objectMapper.writeValueAsString(message);
+    }
+
+    @Benchmark
+    public ServiceClientMessage decode() throws Exception {
+        return objectMapper.readValue(json, ServiceClientMessage.class);
+    }
+
+    @Benchmark
+    public Trade decodeTrade() throws Exception {
+        ServiceClientMessage decoded = objectMapper.readValue(json, ServiceClientMessage.class);
+        String payload = objectMapper.writeValueAsString(decoded.getPayload());
+        return objectMapper.readValue(payload, Trade.class);
+    }
+}
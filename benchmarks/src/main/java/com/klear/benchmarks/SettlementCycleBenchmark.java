@@ -0,0 +1,85 @@
+package com.klear.benchmarks;
+
+import com.klear.communication.core.BaseService.ReplyRoute;
+import com.klear.model.order.Order;
+import com.klear.model.order.OrderStatus;
+import com.klear.model.order.Side;
+import com.klear.model.trade.Trade;
+import com.klear.settlement.batch.CycleReport;
+import com.klear.settlement.batch.Depository;
+import com.klear.settlement.batch.DvpNetting;
+import com.klear.settlement.batch.SettlementCycle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Duration of one settlement cycle over a batch of cleared trades from 10,000 clients in
+ * eight symbols: parallel DvP netting on the common fork/join pool, settling the
+ * instructions and setting every trade's reply (the replier itself does nothing).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class SettlementCycleBenchmark {
+
+    private static final String[] SYMBOLS = {"AAPL", "MSFT", "GOOG", "AMZN", "META", "NVDA", "TSLA", "JPM"};
+    private static final ReplyRoute ROUTE = new ReplyRoute("trade_service_channel_RET", null);
+
+    @Param({"1000000"})
+    public int trades;
+
+    private Trade[] batch;
+    private SettlementCycle cycle;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        String[] clients = new String[10_000];
+        for (int i = 0; i < clients.length; i++) {
+            clients[i] = "CLIENT" + i;
+        }
+        batch = new Trade[trades];
+        for (int i = 0; i < trades; i++) {
+            Order order = new Order();
+            order.setClientId(clients[random.nextInt(clients.length)]);
+            order.setStockSymbol(SYMBOLS[random.nextInt(SYMBOLS.length)]);
+            order.setSide(random.nextBoolean() ? Side.BUY : Side.SELL);
+            order.setQuantity(1 + random.nextInt(500));
+            order.setPrice(100.00);
+            Trade trade = new Trade("ORDER-" + i, order, OrderStatus.CLEARED);
+            trade.setExecutedPrice(100.00);
+            trade.setNettedAmount(order.getQuantity() * 100.00);
+            batch[i] = trade;
+        }
+        cycle = new SettlementCycle(new DvpNetting(ForkJoinPool.commonPool()), new Depository(true));
+    }
+
+    @Setup(Level.Invocation)
+    public void fill() {
+        for (Trade trade : batch) {
+            cycle.add(trade, ROUTE);
+        }
+    }
+
+    @Benchmark
+    public CycleReport runCycle() {
+        return cycle.run((route, trade) -> { });
+    }
+}
@@ -0,0 +1,124 @@
+package com.klear.benchmarks;
+
+import com.klear.model.order.Side;
+import com.klear.settlement.ledger.SettlementLedger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Settlement ledger: posting 1,000 trades and committing them with one flush (divide by
+ * 1,000 for the cost per posting), posting and committing one trade at a time, and
+ * reopening a journal of 1,000,000 transactions, which replays it to rebuild balances.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SettlementLedgerBenchmark {
+
+    private static final int BATCH = 1_000;
+    private static final int RECOVERED = 1_000_000;
+    private static final int PARTICIPANTS = 10_000;
+    private static final int SYMBOLS = 500;
+
+    private Path directory;
+    private Path recoverDirectory;
+    private String[] participants;
+    private String[] symbols;
+    private SettlementLedger ledger;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("ledger");
+        participants = new String[PARTICIPANTS];
+        for (int i = 0; i < PARTICIPANTS; i++) {
+            participants[i] = "CLIENT" + i;
+        }
+        symbols = new String[SYMBOLS];
+        for (int i = 0; i < SYMBOLS; i++) {
+            symbols[i] = "SYM" + i;
+        }
+        recoverDirectory = directory.resolve("recover");
+        try (SettlementLedger full = SettlementLedger.open(recoverDirectory, 64 << 20)) {
+            for (int i = 0; i < RECOVERED; i++) {
+                post(full, i);
+            }
+            full.commit();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void openLedger() throws IOException {
+        ledger = SettlementLedger.open(directory.resolve("post"), 64 << 20);
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeLedger() throws IOException {
+        ledger.close();
+        delete(directory.resolve("post"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        delete(directory);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long postBatchAndCommit() {
+        for (int i = 0; i < BATCH; i++) {
+            post(ledger, next++);
+        }
+        ledger.commit();
+        return ledger.transactions();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long postAndCommitEach() {
+        long position = post(ledger, next++);
+        ledger.commit(position);
+        return position;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long recover() throws IOException {
+        try (SettlementLedger recovered = SettlementLedger.open(recoverDirectory, 64 << 20)) {
+            return recovered.transactions();
+        }
+    }
+
+    private long post(SettlementLedger target, int i) {
+        return target.postTrade("ORDER-" + i, participants[i % PARTICIPANTS], symbols[i % SYMBOLS],
+                (i & 1) == 0 ? Side.BUY : Side.SELL, 100 + i % 900, 1_500_000L + i);
+    }
+
+    private static void delete(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.klear.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.klear.communication.core.ServiceClientMessage;
+import com.klear.execution.service.ExecutionService;
+import com.klear.execution.shard.SymbolRouter;
+import com.klear.model.order.Order;
+import com.klear.model.order.OrderStatus;
+import com.klear.model.order.OrderType;
+import com.klear.model.order.Side;
+import com.klear.model.queue.QueueItem;
+import com.klear.model.queue.QueueItemTypes;
+import com.klear.model.trade.Trade;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import redis.clients.jedis.Jedis;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.klear.communication.core.ServiceClientMessageTypes.SEND;
+
+/**
+ * Multi-symbol order flow through a pooled, order-book {@link ExecutionService}, from
+ * {@code processQueueItem} to encoded replies, with the matching either on the worker
+ * ({@code shards = 0}) or spread over N shard threads. Each invocation feeds a batch of
+ * resting sells and the market buys that fill them across 64 symbols, and waits for every
+ * reply, so the score is trades completed per second. Scaling needs at least shards + 1
+ * free cores; with fewer the shards only add hand-off cost.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ShardedExecutionBenchmark {
+
+    static final int BATCH = 4096;
+
+    private static final int SYMBOLS = 64;
+
+    @Param({"0", "1", "2", "4"})
+    public int shards;
+
+    private ShardedExecution service;
+    private final AtomicLong published = new AtomicLong();
+    private final String[] messages = new String[BATCH];
+    private final QueueItem[] items = new QueueItem[BATCH];
+    private long expected;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        service = new ShardedExecution(published, shards);
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (int i = 0; i < BATCH; i++) {
+            // Pairs on the same symbol: a resting sell, then a market buy that fills it
+            boolean sell = i % 2 == 0;
+            Order order = BenchmarkFixtures.newOrder("CLIENT" + (i % 100), "SYM" + ((i / 2) % SYMBOLS), 100, 100.0);
+            order.setSide(sell ? Side.SELL : Side.BUY);
+            order.setOrderType(sell ? OrderType.LIMIT : OrderType.MARKET);
+            Trade trade = new Trade("ORDER-" + i, order, OrderStatus.VALIDATED);
+            messages[i] = objectMapper.writeValueAsString(
+                    new ServiceClientMessage(SEND, "execution_service_channel_RET_0", (Object) trade));
+            items[i] = new QueueItem(null, null);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long executeBatch() {
+        // One reply per trade, plus the acknowledgement of each sell as it rests
+        expected += BATCH + BATCH / 2;
+        for (int i = 0; i < BATCH; i++) {
+            QueueItem item = items[i];
+            item.reuse(QueueItemTypes.EXECUTION, messages[i]);
+            service.process(item);
+        }
+        while (published.get() < expected) {
+            Thread.yield();
+        }
+        return published.get();
+    }
+
+    static final class ShardedExecution extends ExecutionService {
+        private final AtomicLong published;
+
+        ShardedExecution(AtomicLong published, int shards) {
+            this.published = published;
+            this.jedisPub = new CountingPublisher(published);
+            enablePooledProcessing(BATCH);
+            enableOrderBook(0.01, 65536);
+            if (shards > 0) {
+                enableShards(new SymbolRouter(shards, Map.of(), 0, 1.5), 8192);
+            }
+        }
+
+        void process(QueueItem queueItem) {
+            processQueueItem(queueItem);
+        }
+
+        @Override
+        protected ReplyPublisher newReplyPublisher() {
+            return new ReplyPublisher(new CountingPublisher(published));
+        }
+    }
+
+    static final class CountingPublisher extends Jedis {
+        private final AtomicLong published;
+
+        CountingPublisher(AtomicLong published) {
+            this.published = published;
+        }
+
+        @Override
+        public long publish(String channel, String message) {
+            published.incrementAndGet();
+            return 0L;
+        }
+
+        @Override
+        public long publish(byte[] channel, byte[] message) {
+            published.incrementAndGet();
+            return 0L;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.klear.benchmarks;
+
+import com.klear.account.service.AccountService;
+import com.klear.clearing.service.ClearingService;
+import com.klear.execution.service.ExecutionService;
+import com.klear.model.order.OrderStatus;
+import com.klear.model.trade.Trade;
+import com.klear.settlement.service.SettlementService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Business logic of each stage in isolation, without decode or publish.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StageProcessTradeBenchmark {
+
+    private final Account account = new Account();
+    private final Execution execution = new Execution();
+    private final Clearing clearing = new Clearing();
+    private final Settlement settlement = new Settlement();
+
+    private Trade validationTrade;
+    private Trade executionTrade;
+    private Trade clearingTrade;
+    private Trade settlementTrade;
+
+    @Setup
+    public void setUp() {
+        validationTrade = BenchmarkFixtures.newTrade("ORDER-1", OrderStatus.UNKNOWN);
+        executionTrade = BenchmarkFixtures.newTrade("ORDER-2", OrderStatus.VALIDATED);
+        clearingTrade = BenchmarkFixtures.newTrade("ORDER-3", OrderStatus.EXECUTED);
+        settlementTrade = BenchmarkFixtures.newTrade("ORDER-4", OrderStatus.CLEARED);
+    }
+
+    @Benchmark
+    public Trade account() {
+        return account.process(validationTrade);
+    }
+
+    @Benchmark
+    public Trade execution() {
+        return execution.process(executionTrade);
+    }
+
+    @Benchmark
+    public Trade clearing() {
+        return clearing.process(clearingTrade);
+    }
+
+    @Benchmark
+    public Trade settlement() {
+        return settlement.process(settlementTrade);
+    }
+
+    static final class Account extends AccountService {
+        Trade process(Trade trade) {
+            return processTrade(trade);
+        }
+    }
+
+    static final class Execution extends ExecutionService {
+        Trade process(Trade trade) {
+            return processTrade(trade);
+        }
+    }
+
+    static final class Clearing extends ClearingService {
+        Trade process(Trade trade) {
+            return processTrade(trade);
+        }
+    }
+
+    static final class Settlement extends SettlementService {
+        Trade process(Trade trade) {
+            return processTrade(trade);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.klear.benchmarks;
+
+import com.klear.trade.timer.HashedWheelTimer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stage timeouts with 1,000,000 outstanding: each operation schedules one timer one
+ * million simulated milliseconds out and advances the clock a millisecond, firing the
+ * timer scheduled a million operations earlier. {@code wheel} is the trade service's
+ * hashed wheel; {@code heap} is a priority queue of timer objects, as a delay queue or
+ * scheduled executor keeps them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Thread)
+public class StageTimerBenchmark {
+
+    private static final int OUTSTANDING = 1_000_000;
+    private static final String ORDER_ID = "6f8e3bb7-01ec-4ecf-81e7-f548be295485";
+
+    @Param({"wheel", "heap"})
+    public String timer;
+
+    private HashedWheelTimer wheel;
+    private PriorityQueue<Timeout> heap;
+    private long now;
+    private long fired;
+
+    private record Timeout(long deadline, Object payload, int tag) {
+    }
+
+    @Setup
+    public void setUp() {
+        if ("wheel".equals(timer)) {
+            wheel = new HashedWheelTimer(1, 1 << 20, OUTSTANDING * 2, 0);
+        } else {
+            heap = new PriorityQueue<>(OUTSTANDING * 2, (a, b) -> Long.compare(a.deadline, b.deadline));
+        }
+        for (now = 0; now < OUTSTANDING; now++) {
+            schedule();
+        }
+    }
+
+    @Benchmark
+    public long scheduleAndAdvance() {
+        schedule();
+        now++;
+        if (wheel != null) {
+            fired += wheel.advance(now, (payload, tag) -> { });
+        } else {
+            while (heap.peek().deadline <= now) {
+                heap.poll();
+                fired++;
+            }
+        }
+        return fired;
+    }
+
+    private void schedule() {
+        if (wheel != null) {
+            wheel.schedule(now + OUTSTANDING, ORDER_ID, 1);
+        } else {
+            heap.add(new Timeout(now + OUTSTANDING, ORDER_ID, 1));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.klear.benchmarks;
+
+import com.klear.model.analytics.AnalyticsSnapshot;
+import com.klear.model.order.Order;
+import com.klear.model.order.OrderStatus;
+import com.klear.model.trade.Trade;
+import com.klear.trade.analytics.TradeAnalytics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What analytics add to the trade service's callbacks, and what a snapshot of them costs.
+ * The trades come from 1,000 clients in 8 symbols; the record benchmarks cycle through
+ * 4,096 of them so every symbol and client is already known, as in a running service.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TradeAnalyticsBenchmark {
+
+    private static final String[] SYMBOLS = {"AAPL", "MSFT", "GOOG", "AMZN", "META", "NVDA", "TSLA", "JPM"};
+    private static final int TRADES = 4_096;
+
+    private TradeAnalytics analytics;
+    private Trade[] trades;
+    private int next;
+    private long now;
+
+    @Setup
+    public void setUp() {
+        analytics = new TradeAnalytics(60_000, 5);
+        trades = new Trade[TRADES];
+        Random random = new Random(42);
+        now = System.currentTimeMillis();
+        for (int i = 0; i < TRADES; i++) {
+            Order order = new Order();
+            order.setClientId("CLIENT-" + random.nextInt(1_000));
+            order.setStockSymbol(SYMBOLS[random.nextInt(SYMBOLS.length)]);
+            Trade trade = new Trade("ORDER-" + i, order, OrderStatus.EXECUTED);
+            trade.setExecutedQuantity(1 + random.nextInt(500));
+            trade.setExecutedPrice(100 + random.nextInt(10_000) / 100.0);
+            trades[i] = trade;
+        }
+        for (Trade trade : trades) {
+            analytics.recordExecution(trade, now);
+            analytics.recordSettlement(trade, now);
+        }
+    }
+
+    @Benchmark
+    public void recordExecution() {
+        analytics.recordExecution(trades[next++ & (TRADES - 1)], now);
+    }
+
+    @Benchmark
+    public void recordSettlement() {
+        analytics.recordSettlement(trades[next++ & (TRADES - 1)], now);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public AnalyticsSnapshot snapshot() {
+        return analytics.snapshot(now);
+    }
+}
@@ -0,0 +1,119 @@
+package com.klear.benchmarks;
+
+import com.klear.model.order.Order;
+import com.klear.model.order.OrderStatus;
+import com.klear.model.query.TradePage;
+import com.klear.model.query.TradeQuery;
+import com.klear.model.trade.Trade;
+import com.klear.trade.state.TradeIndex;
+import com.klear.trade.state.TradeSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trade queries against the trade service's indexes as the number of trades grows. The
+ * trades were submitted over a day by 1,000 clients in 8 symbols; one client has 200
+ * orders, a tenth of them open, and 1% of all trades failed in clearing. Each query reads
+ * one page of up to 100 trades.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Thread)
+public class TradeIndexBenchmark {
+
+    private static final String[] SYMBOLS = {"AAPL", "MSFT", "GOOG", "AMZN", "META", "NVDA", "TSLA", "JPM"};
+    private static final OrderStatus[] SETTLING = {OrderStatus.VALIDATED, OrderStatus.EXECUTED,
+            OrderStatus.CLEARED, OrderStatus.SETTLED};
+    private static final long DAY = 86_400_000;
+    private static final long START = 1_700_000_000_000L;
+
+    @Param({"100000", "1000000"})
+    public int trades;
+
+    private TradeIndex index;
+    private TradeQuery clientOpen;
+    private TradeQuery symbol;
+    private TradeQuery failedInClearingLastHour;
+
+    @Setup
+    public void setUp() {
+        Map<String, TradeSnapshot> snapshots = new ConcurrentHashMap<>();
+        index = new TradeIndex(60_000, snapshots::get);
+        Random random = new Random(42);
+        int clientOrderEvery = trades / 200;
+        for (int i = 1; i <= trades; i++) {
+            boolean client = i % clientOrderEvery == 0;
+            Order order = new Order();
+            order.setClientId(client ? "CLIENT-X" : "CLIENT-" + random.nextInt(1_000));
+            order.setStockSymbol(SYMBOLS[random.nextInt(SYMBOLS.length)]);
+            String orderId = "ORDER-" + i;
+            TradeSnapshot snapshot = new TradeSnapshot(new Trade(orderId, order, OrderStatus.UNKNOWN), i,
+                    START + DAY * i / trades);
+            snapshots.put(orderId, snapshot);
+            index.add(snapshot);
+
+            if (client && i / clientOrderEvery % 10 == 0) {
+                move(snapshots, snapshot, OrderStatus.VALIDATED);
+            } else if (random.nextInt(100) == 0) {
+                move(snapshots, snapshot, OrderStatus.FAILED);
+            } else {
+                for (OrderStatus status : SETTLING) {
+                    snapshot = move(snapshots, snapshot, status);
+                }
+            }
+        }
+
+        clientOpen = new TradeQuery();
+        clientOpen.setClientId("CLIENT-X");
+        clientOpen.setOpen(true);
+        symbol = new TradeQuery();
+        symbol.setStockSymbol("AAPL");
+        failedInClearingLastHour = new TradeQuery();
+        failedInClearingLastHour.setStatus(OrderStatus.FAILED);
+        failedInClearingLastHour.setFailureStage("CLEARING");
+        failedInClearingLastHour.setSinceMillis(START + DAY - 3_600_000);
+    }
+
+    private TradeSnapshot move(Map<String, TradeSnapshot> snapshots, TradeSnapshot snapshot, OrderStatus status) {
+        Trade reply = new Trade(snapshot.getTrade().getOrderId(), null, status);
+        if (status == OrderStatus.FAILED) {
+            reply.setFailureStage("CLEARING");
+        }
+        TradeSnapshot next = snapshot.next(reply);
+        snapshots.put(reply.getOrderId(), next);
+        index.moved(next);
+        return next;
+    }
+
+    @Benchmark
+    public TradePage clientOpenOrders() {
+        return index.query(clientOpen);
+    }
+
+    @Benchmark
+    public TradePage symbolPage() {
+        return index.query(symbol);
+    }
+
+    @Benchmark
+    public TradePage failedInClearingLastHour() {
+        return index.query(failedInClearingLastHour);
+    }
+}
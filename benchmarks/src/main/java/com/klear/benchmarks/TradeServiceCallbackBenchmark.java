@@ -0,0 +1,125 @@
+package com.klear.benchmarks;
+
+import com.klear.model.order.OrderStatus;
+import com.klear.model.trade.Trade;
+import com.klear.trade.service.TradeService;
+import com.klear.trade.state.TradeSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TradeService callbacks racing each other and status readers over a shared
+ * concurrentTradeStatusMap. A small order population keeps threads on the same entries.
+ * In {@code mixed} each order is soon past the replies, which are then ignored; in
+ * {@code lifecycle} a further thread keeps putting orders back to their first snapshot,
+ * so that replies keep moving orders on and compete for the same compare-and-sets.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class TradeServiceCallbackBenchmark {
+
+    @Param({"64", "65536"})
+    public int orders;
+
+    private TradeService tradeService;
+    private Map<String, TradeSnapshot> map;
+    private String[] orderIds;
+    private TradeSnapshot[] submitted;
+    private Trade[] validatedReplies;
+    private Trade[] executedReplies;
+
+    @Setup
+    public void setUp() {
+        tradeService = new TradeService();
+        BenchmarkFixtures.setField(tradeService, "accountServiceClient", new BenchmarkFixtures.NullAccountServiceClient());
+        BenchmarkFixtures.setField(tradeService, "executionServiceClient", new BenchmarkFixtures.NullExecutionServiceClient());
+        BenchmarkFixtures.setField(tradeService, "clearingServiceClient", new BenchmarkFixtures.NullClearingServiceClient());
+        BenchmarkFixtures.setField(tradeService, "settlementServiceClient", new BenchmarkFixtures.NullSettlementServiceClient());
+
+        map = new ConcurrentHashMap<>();
+        BenchmarkFixtures.setField(tradeService, "concurrentTradeStatusMap", map);
+
+        orderIds = new String[orders];
+        submitted = new TradeSnapshot[orders];
+        validatedReplies = new Trade[orders];
+        executedReplies = new Trade[orders];
+        for (int i = 0; i < orders; i++) {
+            String orderId = "ORDER-" + i;
+            orderIds[i] = orderId;
+            submitted[i] = new TradeSnapshot(BenchmarkFixtures.newTrade(orderId, OrderStatus.UNKNOWN));
+            map.put(orderId, submitted[i]);
+            validatedReplies[i] = BenchmarkFixtures.newTrade(orderId, OrderStatus.VALIDATED);
+            executedReplies[i] = BenchmarkFixtures.newTrade(orderId, OrderStatus.EXECUTED);
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public void onValidation() {
+        tradeService.onValidation(validatedReplies[ThreadLocalRandom.current().nextInt(orders)]);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public void onExecution() {
+        tradeService.onExecution(executedReplies[ThreadLocalRandom.current().nextInt(orders)]);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public OrderStatus getOrderStatus() {
+        return tradeService.getOrderStatus(orderIds[ThreadLocalRandom.current().nextInt(orders)]);
+    }
+
+    @Benchmark
+    @Group("lifecycle")
+    @GroupThreads(2)
+    public void lifecycleOnValidation() {
+        tradeService.onValidation(validatedReplies[ThreadLocalRandom.current().nextInt(orders)]);
+    }
+
+    @Benchmark
+    @Group("lifecycle")
+    @GroupThreads(2)
+    public void lifecycleOnExecution() {
+        tradeService.onExecution(executedReplies[ThreadLocalRandom.current().nextInt(orders)]);
+    }
+
+    @Benchmark
+    @Group("lifecycle")
+    @GroupThreads(1)
+    public OrderStatus lifecycleGetOrderStatus() {
+        return tradeService.getOrderStatus(orderIds[ThreadLocalRandom.current().nextInt(orders)]);
+    }
+
+    @Benchmark
+    @Group("lifecycle")
+    @GroupThreads(1)
+    public void lifecycleResubmit() {
+        int i = ThreadLocalRandom.current().nextInt(orders);
+        map.put(orderIds[i], submitted[i]);
+    }
+}
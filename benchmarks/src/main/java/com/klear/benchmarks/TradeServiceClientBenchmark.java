@@ -0,0 +1,67 @@
+package com.klear.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.klear.communication.core.ServiceClientMessageTypes;
+import com.klear.model.order.OrderStatus;
+import com.klear.services.JedisPubSubSync;
+import com.klear.services.TradeServiceClientMessage;
+import com.klear.trade.service.client.TradeServiceClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reply dispatch on the REST edge: decoding TradeService replies and waking the caller.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TradeServiceClientBenchmark {
+
+    private static final String CHANNEL = "trade_service_channel_RET_0";
+
+    private TradeServiceClient client;
+    private JedisPubSubSync subscriber;
+    private String submitReply;
+    private String statusReply;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        client = new TradeServiceClient();
+        subscriber = new JedisPubSubSync(client, new Object());
+        submitReply = objectMapper.writeValueAsString(new TradeServiceClientMessage(
+                ServiceClientMessageTypes.ORDER_SUBMIT, "", "6f8e3bb7-01ec-4ecf-81e7-f548be295485"));
+        statusReply = objectMapper.writeValueAsString(new TradeServiceClientMessage(
+                ServiceClientMessageTypes.ORDER_STATUS, "", OrderStatus.SETTLED));
+    }
+
+    @Benchmark
+    public OrderStatus statusReply() {
+        client.onReceive(CHANNEL, statusReply);
+        return client.orderStatus;
+    }
+
+    @Benchmark
+    public void submitReply() {
+        client.onReceive(CHANNEL, submitReply);
+    }
+
+    @Benchmark
+    public OrderStatus statusReplyViaSubscriber() {
+        subscriber.onMessage(CHANNEL, statusReply);
+        return client.orderStatus;
+    }
+}
@@ -0,0 +1,79 @@
+package com.klear.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BaselineComparatorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testNoRegressionWithinThreshold() throws Exception {
+        JsonNode baseline = result("avgt", 100.0, 48.0);
+        JsonNode current = result("avgt", 105.0, 48.0);
+
+        List<String> regressions = new BaselineComparator(10.0).compare(baseline, current);
+
+        assertTrue(regressions.isEmpty());
+    }
+
+    @Test
+    void testSlowerAverageTimeIsRegression() throws Exception {
+        JsonNode baseline = result("avgt", 100.0, 48.0);
+        JsonNode current = result("avgt", 150.0, 48.0);
+
+        List<String> regressions = new BaselineComparator(10.0).compare(baseline, current);
+
+        assertEquals(1, regressions.size());
+        assertTrue(regressions.get(0).contains("score"));
+    }
+
+    @Test
+    void testLowerThroughputIsRegression() throws Exception {
+        JsonNode baseline = result("thrpt", 1000.0, 48.0);
+        JsonNode current = result("thrpt", 500.0, 48.0);
+
+        List<String> regressions = new BaselineComparator(10.0).compare(baseline, current);
+
+        assertEquals(1, regressions.size());
+    }
+
+    @Test
+    void testAllocationIncreaseIsRegression() throws Exception {
+        JsonNode baseline = result("avgt", 100.0, 48.0);
+        JsonNode current = result("avgt", 100.0, 480.0);
+
+        List<String> regressions = new BaselineComparator(10.0).compare(baseline, current);
+
+        assertEquals(1, regressions.size());
+        assertTrue(regressions.get(0).contains("allocation"));
+    }
+
+    @Test
+    void testSmallAllocationChangeIsNoise() throws Exception {
+        JsonNode baseline = result("avgt", 100.0, 24.0);
+        JsonNode current = result("avgt", 100.0, 32.0);
+
+        List<String> regressions = new BaselineComparator(10.0).compare(baseline, current);
+
+        assertTrue(regressions.isEmpty());
+    }
+
+    private JsonNode result(String mode, double score, double allocBytes) throws Exception {
+        String json = """
+            [{
+                "benchmark": "com.klear.benchmarks.Example.run",
+                "mode": "%s",
+                "params": {"orders": "64"},
+                "primaryMetric": {"score": %s, "scoreUnit": "ns/op"},
+                "secondaryMetrics": {"gc.alloc.rate.norm": {"score": %s, "scoreUnit": "B/op"}}
+            }]
+            """.formatted(mode, score, allocBytes);
+        return objectMapper.readTree(json);
+    }
+}
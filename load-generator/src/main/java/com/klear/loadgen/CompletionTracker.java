@@ -0,0 +1,173 @@
+package com.klear.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Follows each submitted order to SETTLED or FAILED by tapping stage replies on the broker.
+ * <p>
+ * Latency is measured from the order's <em>intended</em> send time, so time spent waiting
+ * behind a stalled pipeline is counted (coordinated-omission corrected). The latency from the
+ * actual send time is kept alongside for comparison.
+ */
+public class CompletionTracker implements EmbeddedRedisServer.PublishListener, Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(CompletionTracker.class);
+
+    private static final byte[] SETTLED_MARKER = "\"status\":\"SETTLED\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FAILED_MARKER = "\"status\":\"FAILED\"".getBytes(StandardCharsets.US_ASCII);
+    private static final long MAX_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BlockingQueue<Completion> completions = new LinkedBlockingQueue<>();
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Completion> early = new ConcurrentHashMap<>();
+
+    private final Histogram correctedLatency = new ConcurrentHistogram(MAX_TRACKABLE_NANOS, 3);
+    private final Histogram uncorrectedLatency = new ConcurrentHistogram(MAX_TRACKABLE_NANOS, 3);
+    private final AtomicLong settled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong lastCompletedNanos = new AtomicLong();
+
+    private record InFlight(long intendedNanos, long sentNanos, boolean measured) {
+    }
+
+    private record Completion(byte[] message, long completedNanos, boolean settled) {
+    }
+
+    private record Resolved(String orderId, long completedNanos, boolean settled) {
+    }
+
+    /**
+     * Broker tap: keep only terminal replies, and defer JSON parsing to the tracker thread.
+     */
+    @Override
+    public void onPublish(String channel, byte[] message) {
+        if (!channel.contains("_RET_") || channel.startsWith("trade_service_channel")) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (contains(message, SETTLED_MARKER)) {
+            completions.add(new Completion(message, now, true));
+        } else if (contains(message, FAILED_MARKER)) {
+            completions.add(new Completion(message, now, false));
+        }
+    }
+
+    /**
+     * Records that an order was sent. Completions seen before registration are matched here.
+     */
+    public void register(String orderId, long intendedNanos, long sentNanos, boolean measured) {
+        inFlight.put(orderId, new InFlight(intendedNanos, sentNanos, measured));
+        Completion completion = early.remove(orderId);
+        if (completion != null) {
+            complete(orderId, completion.completedNanos(), completion.settled());
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Completion completion = completions.take();
+                String orderId = orderId(completion.message());
+                if (orderId == null) {
+                    continue;
+                }
+                if (!complete(orderId, completion.completedNanos(), completion.settled())) {
+                    early.put(orderId, completion);
+                    // register() may have run between the two calls above.
+                    if (inFlight.containsKey(orderId) && early.remove(orderId) != null) {
+                        complete(orderId, completion.completedNanos(), completion.settled());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean complete(String orderId, long completedNanos, boolean isSettled) {
+        InFlight order = inFlight.remove(orderId);
+        if (order == null) {
+            return false;
+        }
+        lastCompletedNanos.accumulateAndGet(completedNanos, Math::max);
+        if (isSettled) {
+            settled.incrementAndGet();
+        } else {
+            failed.incrementAndGet();
+        }
+        if (order.measured()) {
+            correctedLatency.recordValue(Math.min(MAX_TRACKABLE_NANOS, Math.max(0, completedNanos - order.intendedNanos())));
+            uncorrectedLatency.recordValue(Math.min(MAX_TRACKABLE_NANOS, Math.max(0, completedNanos - order.sentNanos())));
+        }
+        return true;
+    }
+
+    private String orderId(byte[] message) {
+        try {
+            JsonNode payload = objectMapper.readTree(message).path("payload");
+            return payload.path("orderId").asText(null);
+        } catch (IOException e) {
+            log.warn("Unparseable reply on tap", e);
+            return null;
+        }
+    }
+
+    public int getOutstanding() {
+        return inFlight.size();
+    }
+
+    /** Number of outstanding orders that were sent during the measured window. */
+    public long getMeasuredOutstanding() {
+        return inFlight.values().stream().filter(InFlight::measured).count();
+    }
+
+    public long getSettled() {
+        return settled.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /** {@link System#nanoTime()} of the latest completion, or 0 if nothing completed. */
+    public long getLastCompletedNanos() {
+        return lastCompletedNanos.get();
+    }
+
+    public Histogram getCorrectedLatency() {
+        return correctedLatency;
+    }
+
+    public Histogram getUncorrectedLatency() {
+        return uncorrectedLatency;
+    }
+
+    static boolean contains(byte[] haystack, byte[] needle) {
+        outer:
+        for (int i = 0, last = haystack.length - needle.length; i <= last; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (haystack[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,391 @@
+package com.klear.loadgen;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in for the subset of Redis the KLEAR services use: PUBLISH,
+ * SUBSCRIBE/UNSUBSCRIBE and the connection handshake Jedis performs.
+ * Lets the whole pipeline run in one JVM with no network or Docker.
+ */
+public class EmbeddedRedisServer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddedRedisServer.class);
+
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] OK = "+OK\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PONG = "+PONG\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MESSAGE = "message".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SUBSCRIBE = "subscribe".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] UNSUBSCRIBE = "unsubscribe".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Observes every PUBLISH on the broker thread that received it. Implementations must be cheap.
+     */
+    public interface PublishListener {
+        void onPublish(String channel, byte[] message);
+    }
+
+    private final Map<String, Set<ClientConnection>> subscriptions = new ConcurrentHashMap<>();
+    private final Set<ClientConnection> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger connectionCounter = new AtomicInteger();
+    private final ExecutorService connectionExecutor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "EmbeddedRedis-conn-" + connectionCounter.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile PublishListener publishListener;
+    private ServerSocket serverSocket;
+    private Thread acceptThread;
+    private volatile boolean running;
+
+    /**
+     * Binds to an ephemeral loopback port and starts accepting connections.
+     */
+    public void start() throws IOException {
+        start(0);
+    }
+
+    public void start(int port) throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        running = true;
+        acceptThread = new Thread(this::acceptLoop, "EmbeddedRedis-accept");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        log.info("Embedded Redis stand-in listening on port {}", getPort());
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public String getHost() {
+        return InetAddress.getLoopbackAddress().getHostAddress();
+    }
+
+    /**
+     * Blocks until at least {@code count} channels starting with {@code prefix} have a subscriber.
+     * Services subscribe on background threads, so callers wait here before publishing.
+     */
+    public void awaitChannels(String prefix, int count, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (countChannels(prefix) < count) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Timed out waiting for " + count + " subscriber(s) on " + prefix + "*");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private int countChannels(String prefix) {
+        int count = 0;
+        for (Map.Entry<String, Set<ClientConnection>> entry : subscriptions.entrySet()) {
+            if (entry.getKey().startsWith(prefix) && !entry.getValue().isEmpty()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public void setPublishListener(PublishListener publishListener) {
+        this.publishListener = publishListener;
+    }
+
+    /**
+     * Delivers a message to every subscriber of the channel.
+     *
+     * @return the number of subscribers that received it.
+     */
+    public int publish(String channel, byte[] message) {
+        PublishListener listener = this.publishListener;
+        if (listener != null) {
+            listener.onPublish(channel, message);
+        }
+        Set<ClientConnection> subscribers = subscriptions.get(channel);
+        if (subscribers == null || subscribers.isEmpty()) {
+            return 0;
+        }
+        byte[] channelBytes = channel.getBytes(StandardCharsets.UTF_8);
+        int delivered = 0;
+        for (ClientConnection subscriber : subscribers) {
+            if (subscriber.deliver(channelBytes, message)) {
+                delivered++;
+            }
+        }
+        return delivered;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            log.debug("Error closing server socket", e);
+        }
+        for (ClientConnection connection : connections) {
+            connection.close();
+        }
+        connectionExecutor.shutdownNow();
+        log.info("Embedded Redis stand-in stopped");
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                ClientConnection connection = new ClientConnection(socket);
+                connections.add(connection);
+                connectionExecutor.execute(connection);
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Accept failed", e);
+                }
+            }
+        }
+    }
+
+    private final class ClientConnection implements Runnable {
+
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+        private final Set<String> channels = new CopyOnWriteArraySet<>();
+
+        ClientConnection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new BufferedInputStream(socket.getInputStream(), 64 * 1024);
+            this.out = new BufferedOutputStream(socket.getOutputStream(), 64 * 1024);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    List<byte[]> command = readCommand();
+                    if (command == null) {
+                        break;
+                    }
+                    if (!execute(command)) {
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                log.debug("Connection closed: {}", e.getMessage());
+            } finally {
+                close();
+            }
+        }
+
+        private boolean execute(List<byte[]> command) throws IOException {
+            String name = new String(command.get(0), StandardCharsets.US_ASCII).toUpperCase(Locale.ROOT);
+            switch (name) {
+                case "PUBLISH": {
+                    String channel = new String(command.get(1), StandardCharsets.UTF_8);
+                    int receivers = publish(channel, command.get(2));
+                    write(integerReply(receivers));
+                    return true;
+                }
+                case "SUBSCRIBE": {
+                    for (int i = 1; i < command.size(); i++) {
+                        String channel = new String(command.get(i), StandardCharsets.UTF_8);
+                        // Hold the output lock so no message can overtake the confirmation;
+                        // Jedis stops reading if a message arrives before it is subscribed.
+                        synchronized (out) {
+                            channels.add(channel);
+                            subscriptions.computeIfAbsent(channel, c -> new CopyOnWriteArraySet<>()).add(this);
+                            write(subscriptionReply(SUBSCRIBE, command.get(i), channels.size()));
+                        }
+                    }
+                    return true;
+                }
+                case "UNSUBSCRIBE": {
+                    List<String> targets = new ArrayList<>();
+                    if (command.size() == 1) {
+                        targets.addAll(channels);
+                    } else {
+                        for (int i = 1; i < command.size(); i++) {
+                            targets.add(new String(command.get(i), StandardCharsets.UTF_8));
+                        }
+                    }
+                    if (targets.isEmpty()) {
+                        write(subscriptionReply(UNSUBSCRIBE, null, 0));
+                    }
+                    for (String channel : targets) {
+                        unsubscribe(channel);
+                        write(subscriptionReply(UNSUBSCRIBE, channel.getBytes(StandardCharsets.UTF_8), channels.size()));
+                    }
+                    return true;
+                }
+                case "PING":
+                    write(PONG);
+                    return true;
+                case "QUIT":
+                    write(OK);
+                    return false;
+                case "CLIENT":
+                case "SELECT":
+                case "AUTH":
+                    write(OK);
+                    return true;
+                default:
+                    write(("-ERR unknown command '" + name + "'\r\n").getBytes(StandardCharsets.UTF_8));
+                    return true;
+            }
+        }
+
+        boolean deliver(byte[] channel, byte[] message) {
+            try {
+                synchronized (out) {
+                    writeArrayHeader(3);
+                    writeBulk(MESSAGE);
+                    writeBulk(channel);
+                    writeBulk(message);
+                    out.flush();
+                }
+                return true;
+            } catch (IOException e) {
+                close();
+                return false;
+            }
+        }
+
+        void close() {
+            if (!connections.remove(this)) {
+                return;
+            }
+            for (String channel : channels) {
+                unsubscribe(channel);
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.debug("Error closing connection", e);
+            }
+        }
+
+        private void unsubscribe(String channel) {
+            channels.remove(channel);
+            Set<ClientConnection> subscribers = subscriptions.get(channel);
+            if (subscribers != null) {
+                subscribers.remove(this);
+            }
+        }
+
+        private void write(byte[] reply) throws IOException {
+            synchronized (out) {
+                out.write(reply);
+                out.flush();
+            }
+        }
+
+        private byte[] subscriptionReply(byte[] kind, byte[] channel, int count) throws IOException {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            buffer.write(("*3\r\n$" + kind.length + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            buffer.write(kind);
+            buffer.write(CRLF);
+            if (channel == null) {
+                buffer.write("$-1\r\n".getBytes(StandardCharsets.US_ASCII));
+            } else {
+                buffer.write(("$" + channel.length + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                buffer.write(channel);
+                buffer.write(CRLF);
+            }
+            buffer.write(integerReply(count));
+            return buffer.toByteArray();
+        }
+
+        private void writeArrayHeader(int size) throws IOException {
+            out.write('*');
+            out.write(Integer.toString(size).getBytes(StandardCharsets.US_ASCII));
+            out.write(CRLF);
+        }
+
+        private void writeBulk(byte[] value) throws IOException {
+            out.write('$');
+            out.write(Integer.toString(value.length).getBytes(StandardCharsets.US_ASCII));
+            out.write(CRLF);
+            out.write(value);
+            out.write(CRLF);
+        }
+
+        /**
+         * Reads one RESP array of bulk strings, or an inline command. Returns null on EOF.
+         */
+        private List<byte[]> readCommand() throws IOException {
+            int prefix = in.read();
+            if (prefix == -1) {
+                return null;
+            }
+            if (prefix != '*') {
+                String inline = (char) prefix + readLine();
+                List<byte[]> parts = new ArrayList<>();
+                for (String part : inline.trim().split("\\s+")) {
+                    parts.add(part.getBytes(StandardCharsets.UTF_8));
+                }
+                return parts;
+            }
+            int count = Integer.parseInt(readLine());
+            List<byte[]> parts = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                if (in.read() != '$') {
+                    throw new IOException("Protocol error: expected bulk string");
+                }
+                int length = Integer.parseInt(readLine());
+                byte[] value = in.readNBytes(length);
+                if (value.length != length) {
+                    throw new EOFException();
+                }
+                in.skipNBytes(2);
+                parts.add(value);
+            }
+            return parts;
+        }
+
+        private String readLine() throws IOException {
+            StringBuilder line = new StringBuilder();
+            int c;
+            while ((c = in.read()) != '\r') {
+                if (c == -1) {
+                    throw new EOFException();
+                }
+                line.append((char) c);
+            }
+            in.read();
+            return line.toString();
+        }
+    }
+
+    private static byte[] integerReply(long value) {
+        return (":" + value + "\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,118 @@
+package com.klear.loadgen;
+
+import com.klear.TradeServiceApplication;
+import com.klear.account.AccountServiceApplication;
+import com.klear.clearing.ClearingServiceApplication;
+import com.klear.execution.ExecutionServiceApplication;
+import com.klear.settlement.SettlementServiceApplication;
+import com.klear.trade.service.client.TradeServiceClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the account, execution, clearing, settlement and trade services in one JVM
+ * against an {@link EmbeddedRedisServer}, each in its own Spring context exactly as
+ * its {@code *Application} class would start it.
+ */
+public class InProcessCluster implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(InProcessCluster.class);
+
+    private static final long SUBSCRIBE_TIMEOUT_MILLIS = 30_000;
+
+    private final EmbeddedRedisServer redis = new EmbeddedRedisServer();
+    private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+    private final Map<String, Object> extraProperties;
+    private final List<TradeServiceClient> clients = new ArrayList<>();
+    private ConfigurableApplicationContext tradeServiceContext;
+
+    public InProcessCluster() {
+        this(Map.of());
+    }
+
+    /**
+     * @param extraProperties properties applied to every service, on top of the Redis settings.
+     */
+    public InProcessCluster(Map<String, Object> extraProperties) {
+        this.extraProperties = extraProperties;
+    }
+
+    public EmbeddedRedisServer getRedis() {
+        return redis;
+    }
+
+    public void start() throws IOException, InterruptedException {
+        redis.start();
+
+        contexts.add(startService(AccountServiceApplication.class));
+        contexts.add(startService(ExecutionServiceApplication.class));
+        contexts.add(startService(ClearingServiceApplication.class));
+        contexts.add(startService(SettlementServiceApplication.class));
+        for (String stage : new String[]{"account", "execution", "clearing", "settlement"}) {
+            redis.awaitChannels(stage + "_service_channel_OUT", 1, SUBSCRIBE_TIMEOUT_MILLIS);
+        }
+
+        tradeServiceContext = startService(TradeServiceApplication.class);
+        contexts.add(tradeServiceContext);
+        redis.awaitChannels("trade_service_channel_OUT", 1, SUBSCRIBE_TIMEOUT_MILLIS);
+        for (String stage : new String[]{"account", "execution", "clearing", "settlement"}) {
+            redis.awaitChannels(stage + "_service_channel_RET_", 1, SUBSCRIBE_TIMEOUT_MILLIS);
+        }
+        log.info("In-process cluster started on embedded Redis port {}", redis.getPort());
+    }
+
+    /**
+     * Creates a TradeServiceClient (the same bean the REST controller uses) and waits
+     * until its reply channel is subscribed.
+     */
+    public synchronized TradeServiceClient newClient() {
+        TradeServiceClient client = tradeServiceContext.getBean(TradeServiceClient.class);
+        clients.add(client);
+        try {
+            redis.awaitChannels("trade_service_channel_RET_", clients.size(), SUBSCRIBE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return client;
+    }
+
+    private ConfigurableApplicationContext startService(Class<?> application) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("redis_ip", redis.getHost());
+        properties.put("redis_port", redis.getPort());
+        properties.putAll(extraProperties);
+
+        // Passed as command-line arguments so they override each module's application.properties.
+        String[] args = properties.entrySet().stream()
+                .map(e -> "--" + e.getKey() + "=" + e.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(application)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .registerShutdownHook(false)
+                .run(args);
+    }
+
+    @Override
+    public synchronized void close() {
+        // Prototype-scoped clients are not destroyed by their context.
+        for (TradeServiceClient client : clients) {
+            client.shutdown();
+        }
+        for (int i = contexts.size() - 1; i >= 0; i--) {
+            contexts.get(i).close();
+        }
+        redis.close();
+    }
+}
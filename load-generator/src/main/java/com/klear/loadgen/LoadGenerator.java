@@ -0,0 +1,99 @@
+package com.klear.loadgen;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Open-loop end-to-end load test of the full pipeline, hermetically in one JVM.
+ *
+ * <pre>
+ * mvn -pl load-generator exec:java -Dexec.args="--rate 2000 --duration 30"
+ * </pre>
+ *
+ * Options: {@code --rate} orders/s, {@code --warmup} and {@code --duration} seconds,
+ * {@code --workers} concurrent TradeServiceClients, {@code --clients} distinct client IDs,
+ * {@code --drain} seconds to wait for stragglers, and repeated {@code --property name=value}
+ * pairs passed to every service.
+ */
+public class LoadGenerator {
+
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9, 99.99};
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        Map<String, Object> serviceProperties = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String name = args[i].replaceFirst("^--", "");
+            if (name.equals("property")) {
+                String[] pair = args[i + 1].split("=", 2);
+                serviceProperties.put(pair[0], pair[1]);
+            } else {
+                options.put(name, args[i + 1]);
+            }
+        }
+        int rate = Integer.parseInt(options.getOrDefault("rate", "1000"));
+        long warmup = Long.parseLong(options.getOrDefault("warmup", "5"));
+        long duration = Long.parseLong(options.getOrDefault("duration", "20"));
+        int workers = Integer.parseInt(options.getOrDefault("workers", "16"));
+        int clients = Integer.parseInt(options.getOrDefault("clients", "1000"));
+        long drain = Long.parseLong(options.getOrDefault("drain", "10"));
+
+        int exitCode;
+        try (InProcessCluster cluster = new InProcessCluster(serviceProperties)) {
+            cluster.start();
+            CompletionTracker tracker = new CompletionTracker();
+            cluster.getRedis().setPublishListener(tracker);
+            Thread trackerThread = new Thread(tracker, "LoadGen-tracker");
+            trackerThread.setDaemon(true);
+            trackerThread.start();
+
+            OpenLoopDriver driver = new OpenLoopDriver(cluster::newClient, tracker, workers, clients);
+            long runStart = System.nanoTime();
+            long measuredOrders = driver.run(rate, warmup, duration);
+            long sendEnd = System.nanoTime();
+
+            long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(drain);
+            while (tracker.getOutstanding() > 0 && System.nanoTime() < drainDeadline) {
+                Thread.sleep(10);
+            }
+
+            report(rate, warmup, duration, measuredOrders, runStart, sendEnd, driver, tracker);
+            exitCode = tracker.getOutstanding() == 0 && driver.getSendErrors() == 0 ? 0 : 1;
+        }
+        // Stage processing threads are non-daemon and never exit on their own.
+        System.exit(exitCode);
+    }
+
+    private static void report(int rate, long warmup, long duration, long measuredOrders,
+                               long runStart, long sendEnd, OpenLoopDriver driver, CompletionTracker tracker) {
+        Histogram corrected = tracker.getCorrectedLatency();
+        Histogram uncorrected = tracker.getUncorrectedLatency();
+        double sendSeconds = (sendEnd - runStart) / 1e9;
+
+        System.out.println();
+        System.out.println("==== KLEAR open-loop load test ====");
+        System.out.printf("Target rate          : %,d orders/s (warmup %ds, measured %ds)%n", rate, warmup, duration);
+        System.out.printf("Achieved send rate   : %,.0f orders/s%n", (warmup + duration) * rate / sendSeconds);
+        System.out.printf("Measured orders      : %,d%n", measuredOrders);
+        System.out.printf("Completed (measured) : %,d%n", corrected.getTotalCount());
+        // Completions over the time they actually took, so a saturated pipeline shows its real capacity
+        double completeSeconds = (Math.max(sendEnd, tracker.getLastCompletedNanos()) - runStart) / 1e9;
+        System.out.printf("Throughput           : %,.0f completed orders/s%n",
+                (tracker.getSettled() + tracker.getFailed()) / completeSeconds);
+        System.out.printf("Settled / Failed     : %,d / %,d%n", tracker.getSettled(), tracker.getFailed());
+        System.out.printf("Outstanding          : %,d (measured %,d)%n", tracker.getOutstanding(), tracker.getMeasuredOutstanding());
+        System.out.printf("Late sends (>1ms)    : %,d%n", driver.getLateSends());
+        System.out.printf("Send errors          : %,d%n", driver.getSendErrors());
+        System.out.println();
+        System.out.printf("%-12s %16s %16s%n", "Percentile", "Corrected (ms)", "Uncorrected (ms)");
+        for (double percentile : PERCENTILES) {
+            System.out.printf("%-12s %16.3f %16.3f%n", "p" + percentile,
+                    corrected.getValueAtPercentile(percentile) / 1e6,
+                    uncorrected.getValueAtPercentile(percentile) / 1e6);
+        }
+        System.out.printf("%-12s %16.3f %16.3f%n", "max", corrected.getMaxValue() / 1e6, uncorrected.getMaxValue() / 1e6);
+    }
+}
@@ -0,0 +1,128 @@
+package com.klear.loadgen;
+
+import com.klear.model.order.Order;
+import com.klear.services.TradeServiceClientInterface;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Submits orders on a fixed arrival schedule regardless of how fast the system answers.
+ * <p>
+ * Each order has an intended send time {@code start + i / rate}. A worker pool (one
+ * blocking TradeServiceClient per worker) sends it as soon as a worker is free; if the
+ * pipeline stalls, orders queue up here and their wait shows up in the corrected latency.
+ */
+public class OpenLoopDriver {
+
+    private static final Logger log = LoggerFactory.getLogger(OpenLoopDriver.class);
+
+    private static final String[] SYMBOLS = {"AAPL", "MSFT", "GOOG", "AMZN", "META", "NVDA", "TSLA", "JPM"};
+
+    private final Supplier<TradeServiceClientInterface> clientFactory;
+    private final CompletionTracker tracker;
+    private final int workers;
+    private final int clients;
+    private final AtomicLong sendErrors = new AtomicLong();
+    private final AtomicLong lateSends = new AtomicLong();
+
+    public OpenLoopDriver(Supplier<TradeServiceClientInterface> clientFactory, CompletionTracker tracker,
+                          int workers, int clients) {
+        this.clientFactory = clientFactory;
+        this.tracker = tracker;
+        this.workers = workers;
+        this.clients = clients;
+    }
+
+    /**
+     * Runs the schedule and returns the number of orders issued in the measured window.
+     */
+    public long run(int ratePerSecond, long warmupSeconds, long durationSeconds) throws InterruptedException {
+        AtomicInteger workerCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "LoadGen-worker-" + workerCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        ThreadLocal<TradeServiceClientInterface> client = ThreadLocal.withInitial(clientFactory);
+
+        // Connect every worker's client up front so setup cost does not land in the schedule.
+        CountDownLatch ready = new CountDownLatch(workers);
+        for (int i = 0; i < workers; i++) {
+            executor.execute(() -> {
+                client.get();
+                ready.countDown();
+                try {
+                    ready.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        ready.await();
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long total = (warmupSeconds + durationSeconds) * ratePerSecond;
+        long warmupCount = warmupSeconds * ratePerSecond;
+        long start = System.nanoTime();
+        log.info("Open-loop run: {} orders/s, warmup {}s, measure {}s, {} workers",
+                ratePerSecond, warmupSeconds, durationSeconds, workers);
+
+        for (long i = 0; i < total; i++) {
+            long intended = start + i * intervalNanos;
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            boolean measured = i >= warmupCount;
+            Order order = nextOrder(i);
+            executor.execute(() -> send(client.get(), order, intended, measured));
+        }
+
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        return total - warmupCount;
+    }
+
+    private void send(TradeServiceClientInterface client, Order order, long intended, boolean measured) {
+        long sent = System.nanoTime();
+        if (sent - intended > TimeUnit.MILLISECONDS.toNanos(1)) {
+            lateSends.incrementAndGet();
+        }
+        try {
+            String orderId = client.submitOrder(order);
+            tracker.register(orderId, intended, sent, measured);
+        } catch (RuntimeException e) {
+            sendErrors.incrementAndGet();
+            log.warn("Order submission failed", e);
+        }
+    }
+
+    private Order nextOrder(long sequence) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Order order = new Order();
+        order.setClientId("LOADGEN-" + (sequence % clients));
+        order.setStockSymbol(SYMBOLS[random.nextInt(SYMBOLS.length)]);
+        order.setQuantity(1 + random.nextInt(100));
+        order.setPrice(50.0 + random.nextInt(20_000) / 100.0);
+        return order;
+    }
+
+    public long getSendErrors() {
+        return sendErrors.get();
+    }
+
+    /** Orders whose send started more than 1 ms after their intended time. */
+    public long getLateSends() {
+        return lateSends.get();
+    }
+}
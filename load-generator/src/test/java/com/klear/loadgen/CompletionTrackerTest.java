@@ -0,0 +1,83 @@
+package com.klear.loadgen;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompletionTrackerTest {
+
+    private CompletionTracker tracker;
+    private Thread trackerThread;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new CompletionTracker();
+        trackerThread = new Thread(tracker);
+        trackerThread.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        trackerThread.interrupt();
+        trackerThread.join(1_000);
+    }
+
+    @Test
+    void testSettledReplyCompletesOrder() throws Exception {
+        long now = System.nanoTime();
+        tracker.register("ORDER-1", now - 2_000_000, now - 1_000_000, true);
+
+        tracker.onPublish("settlement_service_channel_RET_abc", reply("ORDER-1", "SETTLED"));
+
+        awaitOutstanding(0);
+        assertEquals(1, tracker.getSettled());
+        assertEquals(1, tracker.getCorrectedLatency().getTotalCount());
+        // Corrected latency is measured from the intended time, so it is never smaller.
+        assertTrue(tracker.getCorrectedLatency().getMaxValue() >= tracker.getUncorrectedLatency().getMaxValue());
+    }
+
+    @Test
+    void testFailureBeforeRegistrationIsMatched() throws Exception {
+        tracker.onPublish("account_service_channel_RET_abc", reply("ORDER-2", "FAILED"));
+        Thread.sleep(50);
+
+        long now = System.nanoTime();
+        tracker.register("ORDER-2", now, now, true);
+
+        awaitOutstanding(0);
+        assertEquals(1, tracker.getFailed());
+    }
+
+    @Test
+    void testIntermediateRepliesAndWarmupAreIgnored() throws Exception {
+        long now = System.nanoTime();
+        tracker.register("ORDER-3", now, now, false);
+
+        tracker.onPublish("execution_service_channel_RET_abc", reply("ORDER-3", "EXECUTED"));
+        tracker.onPublish("trade_service_channel_RET_abc", reply("ORDER-3", "SETTLED"));
+        Thread.sleep(50);
+        assertEquals(1, tracker.getOutstanding());
+
+        tracker.onPublish("settlement_service_channel_RET_abc", reply("ORDER-3", "SETTLED"));
+        awaitOutstanding(0);
+        assertEquals(0, tracker.getCorrectedLatency().getTotalCount());
+    }
+
+    private void awaitOutstanding(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (tracker.getOutstanding() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, tracker.getOutstanding());
+    }
+
+    private static byte[] reply(String orderId, String status) {
+        String json = "{\"type\":\"ON_RECEIVE\",\"returnChannel\":\"x\",\"payload\":{\"orderId\":\"" + orderId
+                + "\",\"status\":\"" + status + "\"}}";
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
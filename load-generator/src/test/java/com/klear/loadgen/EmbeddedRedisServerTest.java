@@ -0,0 +1,82 @@
+package com.klear.loadgen;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmbeddedRedisServerTest {
+
+    private EmbeddedRedisServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new EmbeddedRedisServer();
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void testPublishWithoutSubscribers() {
+        try (Jedis jedis = new Jedis(server.getHost(), server.getPort())) {
+            assertEquals(0L, jedis.publish("nobody_listening", "hello"));
+        }
+    }
+
+    @Test
+    void testPublishSubscribeRoundTrip() throws Exception {
+        List<String> received = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(2);
+        JedisPubSub subscriber = new JedisPubSub() {
+            @Override
+            public void onMessage(String channel, String message) {
+                received.add(channel + ":" + message);
+                latch.countDown();
+            }
+        };
+
+        Jedis jedisSub = new Jedis(server.getHost(), server.getPort());
+        Thread subscriberThread = new Thread(() -> jedisSub.subscribe(subscriber, "test_channel"));
+        subscriberThread.start();
+        server.awaitChannels("test_channel", 1, 5_000);
+
+        try (Jedis jedisPub = new Jedis(server.getHost(), server.getPort())) {
+            assertEquals(1L, jedisPub.publish("test_channel", "first"));
+            assertEquals(1L, jedisPub.publish("test_channel", "{\"status\":\"SETTLED\"}"));
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("test_channel:first", "test_channel:{\"status\":\"SETTLED\"}"), received);
+
+        subscriber.unsubscribe();
+        subscriberThread.join(5_000);
+        assertFalse(subscriberThread.isAlive());
+        jedisSub.close();
+    }
+
+    @Test
+    void testPublishListenerSeesMessages() {
+        List<String> tapped = new CopyOnWriteArrayList<>();
+        server.setPublishListener((channel, message) ->
+                tapped.add(channel + ":" + new String(message, StandardCharsets.UTF_8)));
+
+        try (Jedis jedis = new Jedis(server.getHost(), server.getPort())) {
+            jedis.publish("tap_channel", "payload");
+        }
+
+        assertEquals(List.of("tap_channel:payload"), tapped);
+    }
+}
@@ -0,0 +1,328 @@
+package com.klear.account.ledger;
+
+import com.klear.model.order.Side;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory cash and securities ledger with holds for orders in flight.
+ *
+ * Every account has a cash balance and, per symbol, a share balance; each balance has an
+ * "available" counterpart that excludes what open orders have on hold. Validating an order
+ * holds its cost (a buy) or its shares (a sell) by compare-and-set on the available amount,
+ * so concurrent orders for one account never overdraw it and never take a lock. The hold
+ * is then either settled, moving the executed amounts between cash and shares and freeing
+ * any excess, or released in full. Holds are keyed by order ID, and settling or releasing
+ * one is idempotent.
+ *
+ * Amounts are in cents and held at the order's limit price. A market buy carries no price
+ * to hold its cash at, so the account service refuses market buys while the ledger is on;
+ * a market sell holds its shares like any other sell.
+ *
+ * Thread-safe.
+ */
+public final class AccountLedger {
+
+    public enum Result {
+        RESERVED,
+        INSUFFICIENT_CASH,
+        INSUFFICIENT_POSITION,
+        DUPLICATE_ORDER
+    }
+
+    private static final class Account {
+        final AtomicLong cashBalance = new AtomicLong();
+        final AtomicLong cashAvailable = new AtomicLong();
+        final ConcurrentHashMap<String, Holding> holdings = new ConcurrentHashMap<>();
+
+        Holding holding(String symbol) {
+            Holding holding = holdings.get(symbol);
+            return holding != null ? holding : holdings.computeIfAbsent(symbol, s -> new Holding());
+        }
+    }
+
+    private static final class Holding {
+        final AtomicLong balance = new AtomicLong();
+        final AtomicLong available = new AtomicLong();
+    }
+
+    private static final class Hold {
+        final String accountId;
+        final Account account;
+        final String symbol;
+        final Side side;
+        final long cashCents;
+        final long shares;
+
+        Hold(String accountId, Account account, String symbol, Side side, long cashCents, long shares) {
+            this.accountId = accountId;
+            this.account = account;
+            this.symbol = symbol;
+            this.side = side;
+            this.cashCents = cashCents;
+            this.shares = shares;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Account> accounts = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Hold> holds = new ConcurrentHashMap<>();
+    private final long openingCashCents;
+    private final boolean allowShort;
+
+    /**
+     * @param openingCashCents cash an account starts with the first time it is seen
+     * @param allowShort       let sells hold more shares than are available
+     */
+    public AccountLedger(long openingCashCents, boolean allowShort) {
+        this.openingCashCents = openingCashCents;
+        this.allowShort = allowShort;
+    }
+
+    /**
+     * Holds what the order needs, or changes nothing and says what was missing. A missing
+     * side counts as a buy.
+     */
+    public Result reserve(String orderId, String accountId, String symbol, Side side, long quantity, double price) {
+        return reserveNotional(orderId, accountId, symbol, side, quantity, quantity * toCents(price));
+    }
+
+    /**
+     * {@link #reserve} for an order whose notional is already known in cents, as it is
+     * exactly for a fixed-point price.
+     */
+    public Result reserveNotional(String orderId, String accountId, String symbol, Side side, long quantity,
+                                  long notionalCents) {
+        Account account = account(accountId);
+        Hold hold;
+        if (side == Side.SELL) {
+            Holding holding = account.holding(symbol);
+            if (!take(holding.available, quantity, allowShort)) {
+                return Result.INSUFFICIENT_POSITION;
+            }
+            hold = new Hold(accountId, account, symbol, side, 0, quantity);
+        } else {
+            long cost = notionalCents;
+            if (!take(account.cashAvailable, cost, false)) {
+                return Result.INSUFFICIENT_CASH;
+            }
+            hold = new Hold(accountId, account, symbol, Side.BUY, cost, 0);
+        }
+        if (holds.putIfAbsent(orderId, hold) != null) {
+            giveBack(hold);
+            return Result.DUPLICATE_ORDER;
+        }
+        return Result.RESERVED;
+    }
+
+    /**
+     * Applies the executed trade to the order's account and frees the rest of its hold.
+     * Returns false if the order has no open hold.
+     */
+    public boolean settle(String orderId, long executedQuantity, double executedPrice) {
+        return settleNotional(orderId, executedQuantity, executedQuantity * toCents(executedPrice));
+    }
+
+    /**
+     * {@link #settle} for an execution whose notional is already known in cents.
+     */
+    public boolean settleNotional(String orderId, long executedQuantity, long notional) {
+        Hold hold = holds.remove(orderId);
+        if (hold == null) {
+            return false;
+        }
+        Account account = hold.account;
+        Holding holding = account.holding(hold.symbol);
+        if (hold.side == Side.SELL) {
+            holding.balance.addAndGet(-executedQuantity);
+            holding.available.addAndGet(hold.shares - executedQuantity);
+            account.cashBalance.addAndGet(notional);
+            account.cashAvailable.addAndGet(notional);
+        } else {
+            account.cashBalance.addAndGet(-notional);
+            account.cashAvailable.addAndGet(hold.cashCents - notional);
+            holding.balance.addAndGet(executedQuantity);
+            holding.available.addAndGet(executedQuantity);
+        }
+        return true;
+    }
+
+    /**
+     * Frees the order's hold untouched. Returns false if it has no open hold.
+     */
+    public boolean release(String orderId) {
+        Hold hold = holds.remove(orderId);
+        if (hold == null) {
+            return false;
+        }
+        giveBack(hold);
+        return true;
+    }
+
+    /**
+     * Adds cash (or withdraws it, if negative) outside of any order.
+     */
+    public void deposit(String accountId, long cents) {
+        Account account = account(accountId);
+        account.cashBalance.addAndGet(cents);
+        account.cashAvailable.addAndGet(cents);
+    }
+
+    /**
+     * Adds shares (or removes them, if negative) outside of any order.
+     */
+    public void transferShares(String accountId, String symbol, long shares) {
+        Holding holding = account(accountId).holding(symbol);
+        holding.balance.addAndGet(shares);
+        holding.available.addAndGet(shares);
+    }
+
+    public long cashBalanceCents(String accountId) {
+        Account account = accounts.get(accountId);
+        return account == null ? 0 : account.cashBalance.get();
+    }
+
+    public long cashAvailableCents(String accountId) {
+        Account account = accounts.get(accountId);
+        return account == null ? 0 : account.cashAvailable.get();
+    }
+
+    public long position(String accountId, String symbol) {
+        Holding holding = holding(accountId, symbol);
+        return holding == null ? 0 : holding.balance.get();
+    }
+
+    public long positionAvailable(String accountId, String symbol) {
+        Holding holding = holding(accountId, symbol);
+        return holding == null ? 0 : holding.available.get();
+    }
+
+    public int openHolds() {
+        return holds.size();
+    }
+
+    public int accountCount() {
+        return accounts.size();
+    }
+
+    /**
+     * Writes balances and open holds to {@code file}, replacing it atomically. Processing
+     * carries on while the snapshot is taken, so an order settling at that moment may be
+     * captured half-applied; each account's figures are otherwise as of the moment read.
+     */
+    public void writeSnapshot(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            out.write("# cash,account,balance_cents | position,account,symbol,shares | hold,order,account,symbol,side,cents,shares\n");
+            for (Map.Entry<String, Account> entry : accounts.entrySet()) {
+                Account account = entry.getValue();
+                out.write("cash," + entry.getKey() + "," + account.cashBalance.get() + "\n");
+                for (Map.Entry<String, Holding> holding : account.holdings.entrySet()) {
+                    out.write("position," + entry.getKey() + "," + holding.getKey() + ","
+                            + holding.getValue().balance.get() + "\n");
+                }
+            }
+            for (Map.Entry<String, Hold> entry : holds.entrySet()) {
+                Hold hold = entry.getValue();
+                out.write("hold," + entry.getKey() + "," + hold.accountId + "," + hold.symbol + "," + hold.side + ","
+                        + hold.cashCents + "," + hold.shares + "\n");
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Replaces this ledger's contents with a snapshot. Available amounts are recomputed
+     * as the balances less the restored holds.
+     */
+    public void loadSnapshot(Path file) throws IOException {
+        accounts.clear();
+        holds.clear();
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] f = line.split(",");
+                try {
+                    switch (f[0]) {
+                        case "cash" -> deposit(f[1], Long.parseLong(f[2]) - openingCashCents);
+                        case "position" -> transferShares(f[1], f[2], Long.parseLong(f[3]));
+                        case "hold" -> restoreHold(f[1], f[2], f[3], Side.valueOf(f[4]),
+                                Long.parseLong(f[5]), Long.parseLong(f[6]));
+                        default -> throw new IOException(file + ":" + lineNumber + ": unknown record " + f[0]);
+                    }
+                } catch (RuntimeException e) {
+                    throw new IOException(file + ":" + lineNumber + ": " + e, e);
+                }
+            }
+        }
+    }
+
+    private void restoreHold(String orderId, String accountId, String symbol, Side side, long cents, long shares) {
+        Account account = account(accountId);
+        if (side == Side.SELL) {
+            account.holding(symbol).available.addAndGet(-shares);
+        } else {
+            account.cashAvailable.addAndGet(-cents);
+        }
+        holds.put(orderId, new Hold(accountId, account, symbol, side, cents, shares));
+    }
+
+    private void giveBack(Hold hold) {
+        if (hold.side == Side.SELL) {
+            hold.account.holding(hold.symbol).available.addAndGet(hold.shares);
+        } else {
+            hold.account.cashAvailable.addAndGet(hold.cashCents);
+        }
+    }
+
+    private Account account(String accountId) {
+        Account account = accounts.get(accountId);
+        if (account != null) {
+            return account;
+        }
+        return accounts.computeIfAbsent(accountId, id -> {
+            Account created = new Account();
+            created.cashBalance.set(openingCashCents);
+            created.cashAvailable.set(openingCashCents);
+            return created;
+        });
+    }
+
+    private Holding holding(String accountId, String symbol) {
+        Account account = accounts.get(accountId);
+        return account == null ? null : account.holdings.get(symbol);
+    }
+
+    /**
+     * Subtracts {@code amount} from {@code available} unless that would take it below zero.
+     */
+    private static boolean take(AtomicLong available, long amount, boolean allowNegative) {
+        while (true) {
+            long current = available.get();
+            long updated = current - amount;
+            if (updated < 0 && !allowNegative) {
+                return false;
+            }
+            if (available.compareAndSet(current, updated)) {
+                return true;
+            }
+        }
+    }
+
+    private static long toCents(double price) {
+        return Math.round(price * 100);
+    }
+}
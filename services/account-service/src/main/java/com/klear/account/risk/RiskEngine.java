@@ -0,0 +1,159 @@
+package com.klear.account.risk;
+
+import com.klear.model.order.Side;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Running pre-trade exposure per client, checked incrementally as orders arrive.
+ *
+ * Each client has its own counters for gross notional, net notional and net shares per
+ * symbol, so orders from different clients never touch the same counter. An order is
+ * accepted by reserving its notional and shares with compare-and-set against the limits;
+ * if a later counter refuses, the earlier reservations are undone. Totals therefore never
+ * exceed a limit, without any lock. An order that moves a net figure back towards zero
+ * is always allowed, even when the client is already over the limit.
+ *
+ * Reservations stay until {@link #release} is called for an order that failed after
+ * being accepted. Notional is taken at the order's limit price; market orders, which
+ * carry no price, count towards positions only. A missing side counts as a buy.
+ *
+ * Thread-safe; lookups of known clients and symbols allocate nothing.
+ */
+public final class RiskEngine {
+
+    public enum Result {
+        ACCEPTED,
+        GROSS_LIMIT,
+        NET_LIMIT,
+        POSITION_LIMIT
+    }
+
+    private static final class ClientExposure {
+        final AtomicLong grossCents = new AtomicLong();
+        final AtomicLong netCents = new AtomicLong();
+        final ConcurrentHashMap<String, AtomicLong> positions = new ConcurrentHashMap<>();
+
+        AtomicLong position(String symbol) {
+            AtomicLong position = positions.get(symbol);
+            return position != null ? position : positions.computeIfAbsent(symbol, s -> new AtomicLong());
+        }
+    }
+
+    private final ConcurrentHashMap<String, ClientExposure> clients = new ConcurrentHashMap<>();
+    private volatile RiskLimits limits;
+
+    public RiskEngine(RiskLimits limits) {
+        this.limits = limits;
+    }
+
+    /**
+     * Replaces the limits for orders checked from now on. Existing exposure is kept.
+     */
+    public void setLimits(RiskLimits limits) {
+        this.limits = limits;
+    }
+
+    public RiskLimits getLimits() {
+        return limits;
+    }
+
+    /**
+     * Reserves the order's exposure if every limit allows it, otherwise changes nothing
+     * and returns the first limit it would breach.
+     */
+    public Result reserve(String clientId, String symbol, Side side, long quantity, double price) {
+        return reserveNotional(clientId, symbol, side, quantity, notionalCents(quantity, price));
+    }
+
+    /**
+     * {@link #reserve} for an order whose notional is already known in cents, as it is
+     * exactly for a fixed-point price.
+     */
+    public Result reserveNotional(String clientId, String symbol, Side side, long quantity, long notional) {
+        RiskLimits current = limits;
+        ClientExposure client = client(clientId);
+        AtomicLong position = client.position(symbol);
+        long signedNotional = side == Side.SELL ? -notional : notional;
+        long signedQuantity = side == Side.SELL ? -quantity : quantity;
+
+        if (!addWithin(client.grossCents, notional, current.getMaxGrossCents())) {
+            return Result.GROSS_LIMIT;
+        }
+        if (!addWithin(client.netCents, signedNotional, current.getMaxNetCents())) {
+            client.grossCents.addAndGet(-notional);
+            return Result.NET_LIMIT;
+        }
+        if (!addWithin(position, signedQuantity, current.getMaxPosition())) {
+            client.netCents.addAndGet(-signedNotional);
+            client.grossCents.addAndGet(-notional);
+            return Result.POSITION_LIMIT;
+        }
+        return Result.ACCEPTED;
+    }
+
+    /**
+     * Gives back exactly what {@link #reserve} took for the same order. Call once per
+     * accepted order that later failed.
+     */
+    public void release(String clientId, String symbol, Side side, long quantity, double price) {
+        releaseNotional(clientId, symbol, side, quantity, notionalCents(quantity, price));
+    }
+
+    /**
+     * Gives back what {@link #reserveNotional} took for the same order.
+     */
+    public void releaseNotional(String clientId, String symbol, Side side, long quantity, long notional) {
+        ClientExposure client = client(clientId);
+        client.grossCents.addAndGet(-notional);
+        client.netCents.addAndGet(side == Side.SELL ? notional : -notional);
+        client.position(symbol).addAndGet(side == Side.SELL ? quantity : -quantity);
+    }
+
+    public long grossExposureCents(String clientId) {
+        ClientExposure client = clients.get(clientId);
+        return client == null ? 0 : client.grossCents.get();
+    }
+
+    public long netExposureCents(String clientId) {
+        ClientExposure client = clients.get(clientId);
+        return client == null ? 0 : client.netCents.get();
+    }
+
+    public long position(String clientId, String symbol) {
+        ClientExposure client = clients.get(clientId);
+        AtomicLong position = client == null ? null : client.positions.get(symbol);
+        return position == null ? 0 : position.get();
+    }
+
+    public int clientCount() {
+        return clients.size();
+    }
+
+    private ClientExposure client(String clientId) {
+        ClientExposure client = clients.get(clientId);
+        return client != null ? client : clients.computeIfAbsent(clientId, id -> new ClientExposure());
+    }
+
+    /**
+     * Adds {@code delta} unless the result's magnitude would exceed {@code limit} (0 means
+     * none) and grow; a change towards zero always succeeds.
+     */
+    private static boolean addWithin(AtomicLong counter, long delta, long limit) {
+        while (true) {
+            long value = counter.get();
+            long updated = value + delta;
+            if (limit > 0 && Math.abs(updated) > limit && Math.abs(updated) > Math.abs(value)) {
+                return false;
+            }
+            if (counter.compareAndSet(value, updated)) {
+                return true;
+            }
+        }
+    }
+
+    private static long notionalCents(long quantity, double price) {
+        return quantity * Math.round(price * 100);
+    }
+}
@@ -0,0 +1,47 @@
+package com.klear.account.risk;
+
+/**
+ * Per-client limits enforced by the {@link RiskEngine}. Notional limits are in cents and
+ * positions in shares; 0 means unlimited.
+ */
+public final class RiskLimits {
+
+    public static final RiskLimits UNLIMITED = new RiskLimits(0, 0, 0);
+
+    private final long maxGrossCents;
+    private final long maxNetCents;
+    private final long maxPosition;
+
+    /**
+     * @param maxGrossCents total notional of a client's buys and sells
+     * @param maxNetCents   largest absolute difference between bought and sold notional
+     * @param maxPosition   largest absolute net shares per symbol
+     */
+    public RiskLimits(long maxGrossCents, long maxNetCents, long maxPosition) {
+        if (maxGrossCents < 0 || maxNetCents < 0 || maxPosition < 0) {
+            throw new IllegalArgumentException("Risk limits must not be negative");
+        }
+        this.maxGrossCents = maxGrossCents;
+        this.maxNetCents = maxNetCents;
+        this.maxPosition = maxPosition;
+    }
+
+    /**
+     * Limits given in currency units, as they appear in configuration.
+     */
+    public static RiskLimits of(double maxGross, double maxNet, long maxPosition) {
+        return new RiskLimits(Math.round(maxGross * 100), Math.round(maxNet * 100), maxPosition);
+    }
+
+    public long getMaxGrossCents() {
+        return maxGrossCents;
+    }
+
+    public long getMaxNetCents() {
+        return maxNetCents;
+    }
+
+    public long getMaxPosition() {
+        return maxPosition;
+    }
+}
@@ -0,0 +1,129 @@
+package com.klear.account.rules;
+
+import com.klear.model.order.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * Holds the current {@link RuleTable} and replaces it when the rules file changes.
+ *
+ * Validation reads the table through one volatile field and never waits: a reload compiles
+ * the new table on the watcher thread and publishes it with a single write, so each order
+ * is checked entirely against either the old rules or the new ones. A file that fails to
+ * compile is logged and the previous rules stay in force.
+ */
+public final class RuleEngine implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RuleEngine.class);
+
+    // Editors often write a file in several steps; wait for them to finish
+    private static final long SETTLE_MILLIS = 50;
+
+    private volatile RuleTable table;
+    private Path file;
+    private WatchService watchService;
+    private Thread watcher;
+
+    public RuleEngine(RuleTable table) {
+        this.table = table;
+    }
+
+    public RuleViolation check(Order order) {
+        return table.check(order);
+    }
+
+    public RuleTable current() {
+        return table;
+    }
+
+    public void replace(RuleTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Compiles the file and makes it current.
+     *
+     * @throws IOException              if it cannot be read
+     * @throws IllegalArgumentException if it contains a malformed rule
+     */
+    public void load(Path file) throws IOException {
+        RuleTable compiled = RuleTable.compile(Files.readAllLines(file, StandardCharsets.UTF_8), file.toString());
+        this.table = compiled;
+        log.info("Loaded {} validation rules from {}", compiled.ruleCount(), file);
+    }
+
+    /**
+     * Loads the file and starts a daemon thread that reloads it whenever it changes.
+     */
+    public void watch(Path file) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        load(absolute);
+        this.file = absolute;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        absolute.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        this.watcher = new Thread(this::watchLoop, "AccountService-rules-watcher");
+        this.watcher.setDaemon(true);
+        this.watcher.start();
+    }
+
+    @Override
+    public void close() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.warn("Failed to close rules watcher", e);
+        }
+        try {
+            watcher.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (file.getFileName().equals(event.context())
+                            || event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+                if (changed) {
+                    Thread.sleep(SETTLE_MILLIS);
+                    reload();
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            log.info("Rules watcher stopped");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void reload() {
+        try {
+            load(file);
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Keeping previous validation rules; could not load {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.klear.account.rules;
+
+import com.klear.model.order.Order;
+import com.klear.model.order.OrderType;
+import com.klear.model.price.FixedPoint;
+
+/**
+ * The checks a validation rule can configure, in the order they are evaluated, with the
+ * name each has in a rules file. Price checks do not apply to market orders. Fixed-point
+ * orders are checked in ticks.
+ */
+public enum RuleKind {
+
+    BLOCK("block", "Trading blocked", "Trading blocked") {
+        @Override
+        boolean violated(double limit, Order order) {
+            return limit != 0;
+        }
+
+        @Override
+        String describe(double limit) {
+            return reasonPrefix;
+        }
+    },
+    MAX_QUANTITY("max_quantity", "Position limit exceeded", "Position limit exceeded") {
+        @Override
+        boolean violated(double limit, Order order) {
+            return limit > 0 && order.getQuantity() > limit;
+        }
+
+        @Override
+        String describe(double limit) {
+            return reasonPrefix + " (max " + (long) limit + ")";
+        }
+    },
+    MAX_PRICE("max_price", "Price exceeds maximum", "Price exceeds maximum") {
+        @Override
+        boolean violated(double limit, Order order) {
+            return limit > 0 && comparePrice(order, limit) > 0;
+        }
+    },
+    MIN_PRICE("min_price", "Price below minimum", "Price below minimum") {
+        @Override
+        boolean violated(double limit, Order order) {
+            return !isMarket(order) && comparePrice(order, limit) < 0;
+        }
+
+        @Override
+        String describe(double limit) {
+            return reasonPrefix + " (min " + limit + ")";
+        }
+    },
+    MAX_NOTIONAL("max_notional", "Notional exceeds maximum", "Notional exceeds maximum") {
+        @Override
+        boolean violated(double limit, Order order) {
+            if (limit <= 0) {
+                return false;
+            }
+            Integer scale = order.getPriceScale();
+            if (scale != null) {
+                return FixedPoint.notional(order.getQuantity(), order.getPriceTicks())
+                        > FixedPoint.toTicks(limit, scale);
+            }
+            return order.getQuantity() * order.getPrice() > limit;
+        }
+    };
+
+    private static final RuleKind[] VALUES = values();
+
+    final String fileName;
+    final String reasonPrefix;
+    final String message;
+
+    RuleKind(String fileName, String reasonPrefix, String message) {
+        this.fileName = fileName;
+        this.reasonPrefix = reasonPrefix;
+        this.message = message;
+    }
+
+    /**
+     * True if an order breaks this check at the given limit. 0 disables the maximums.
+     */
+    abstract boolean violated(double limit, Order order);
+
+    /**
+     * Failure reason reported for the given limit.
+     */
+    String describe(double limit) {
+        return reasonPrefix + " (max " + limit + ")";
+    }
+
+    static RuleKind[] all() {
+        return VALUES;
+    }
+
+    static RuleKind fromFileName(String name) {
+        for (RuleKind kind : VALUES) {
+            if (kind.fileName.equals(name)) {
+                return kind;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compares the order's price with a limit, in ticks when the price is fixed-point (the
+     * limit rounded to the symbol's tick) so that e.g. 0.29 is not above a 0.29 limit.
+     */
+    private static int comparePrice(Order order, double limit) {
+        Integer scale = order.getPriceScale();
+        if (scale != null) {
+            return Long.compare(order.getPriceTicks(), FixedPoint.toTicks(limit, scale));
+        }
+        return order.getPrice() > limit ? 1 : order.getPrice() < limit ? -1 : 0;
+    }
+
+    private static boolean isMarket(Order order) {
+        return order.getOrderType() == OrderType.MARKET;
+    }
+}
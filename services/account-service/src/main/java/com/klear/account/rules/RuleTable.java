@@ -0,0 +1,198 @@
+package com.klear.account.rules;
+
+import com.klear.model.order.Order;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Validation rules compiled into a decision table. Immutable, so it can be shared by any
+ * number of threads and swapped whole when the rules change.
+ *
+ * A rules file has one rule per line: one or more scope tokens, a {@link RuleKind} name
+ * and a value.
+ *
+ * <pre>
+ * # scope                    rule          value
+ * *                          max_quantity  10000
+ * client=CLIENT7             max_quantity  500
+ * symbol=TSLA                max_price     1000
+ * client=CLIENT7 symbol=TSLA block         true
+ * </pre>
+ *
+ * For each check the most specific rule wins: client and symbol, then client, then
+ * symbol, then global ({@code *}). Rules are grouped by scope at compile time, so
+ * checking an order takes at most three hash lookups however many clients are configured.
+ * Built-in global rules (quantity 10000, price 10000) apply unless the file overrides
+ * them; a maximum of 0 removes a limit.
+ */
+public final class RuleTable {
+
+    public static final long DEFAULT_MAX_QUANTITY = 10000;
+    public static final double DEFAULT_MAX_PRICE = 10000.0;
+
+    /**
+     * Limits set at one scope; NaN means the scope leaves the check to a wider one.
+     */
+    private static final class Scope {
+        final double[] limits = new double[RuleKind.all().length];
+        final RuleViolation[] violations = new RuleViolation[RuleKind.all().length];
+
+        Scope() {
+            Arrays.fill(limits, Double.NaN);
+        }
+
+        void set(RuleKind kind, double limit) {
+            limits[kind.ordinal()] = limit;
+            violations[kind.ordinal()] = new RuleViolation(kind, limit);
+        }
+
+        boolean has(int kind) {
+            return !Double.isNaN(limits[kind]);
+        }
+    }
+
+    private final Scope global;
+    private final Map<String, Scope> byClient;
+    private final Map<String, Scope> bySymbol;
+    private final Map<String, Map<String, Scope>> byClientAndSymbol;
+    private final int ruleCount;
+
+    private RuleTable(Scope global, Map<String, Scope> byClient, Map<String, Scope> bySymbol,
+                      Map<String, Map<String, Scope>> byClientAndSymbol, int ruleCount) {
+        this.global = global;
+        this.byClient = byClient;
+        this.bySymbol = bySymbol;
+        this.byClientAndSymbol = byClientAndSymbol;
+        this.ruleCount = ruleCount;
+    }
+
+    /**
+     * The built-in global rules only.
+     */
+    public static RuleTable defaults() {
+        return compile(List.of(), "defaults");
+    }
+
+    /**
+     * Compiles rules-file lines; {@code source} names the file in error messages.
+     *
+     * @throws IllegalArgumentException on the first malformed line
+     */
+    public static RuleTable compile(List<String> lines, String source) {
+        Scope global = new Scope();
+        global.set(RuleKind.MAX_QUANTITY, DEFAULT_MAX_QUANTITY);
+        global.set(RuleKind.MAX_PRICE, DEFAULT_MAX_PRICE);
+        Map<String, Scope> byClient = new HashMap<>();
+        Map<String, Scope> bySymbol = new HashMap<>();
+        Map<String, Map<String, Scope>> byClientAndSymbol = new HashMap<>();
+        int ruleCount = 0;
+
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            int comment = line.indexOf('#');
+            String[] tokens = (comment >= 0 ? line.substring(0, comment) : line).trim().split("\\s+");
+            if (tokens.length == 1 && tokens[0].isEmpty()) {
+                continue;
+            }
+            String where = source + ":" + (i + 1) + ": ";
+            if (tokens.length < 3) {
+                throw new IllegalArgumentException(where + "expected <scope>... <rule> <value>");
+            }
+
+            String client = null;
+            String symbol = null;
+            boolean isGlobal = false;
+            for (int t = 0; t < tokens.length - 2; t++) {
+                String token = tokens[t];
+                if (token.equals("*")) {
+                    isGlobal = true;
+                } else if (token.startsWith("client=") && token.length() > 7) {
+                    client = token.substring(7);
+                } else if (token.startsWith("symbol=") && token.length() > 7) {
+                    symbol = token.substring(7);
+                } else {
+                    throw new IllegalArgumentException(where + "unknown scope '" + token + "'");
+                }
+            }
+            if (isGlobal && (client != null || symbol != null)) {
+                throw new IllegalArgumentException(where + "'*' cannot be combined with a client or symbol");
+            }
+
+            RuleKind kind = RuleKind.fromFileName(tokens[tokens.length - 2]);
+            if (kind == null) {
+                throw new IllegalArgumentException(where + "unknown rule '" + tokens[tokens.length - 2] + "'");
+            }
+            double value = parseValue(kind, tokens[tokens.length - 1], where);
+
+            Scope scope;
+            if (client != null && symbol != null) {
+                scope = byClientAndSymbol.computeIfAbsent(client, c -> new HashMap<>())
+                        .computeIfAbsent(symbol, s -> new Scope());
+            } else if (client != null) {
+                scope = byClient.computeIfAbsent(client, c -> new Scope());
+            } else if (symbol != null) {
+                scope = bySymbol.computeIfAbsent(symbol, s -> new Scope());
+            } else {
+                scope = global;
+            }
+            scope.set(kind, value);
+            ruleCount++;
+        }
+        return new RuleTable(global, byClient, bySymbol, byClientAndSymbol, ruleCount);
+    }
+
+    /**
+     * Returns the first rule the order breaks, or null if it passes.
+     */
+    public RuleViolation check(Order order) {
+        String clientId = order.getClientId();
+        String symbol = order.getStockSymbol();
+        Map<String, Scope> clientSymbols = clientId == null ? null : byClientAndSymbol.get(clientId);
+        Scope exact = clientSymbols == null || symbol == null ? null : clientSymbols.get(symbol);
+        Scope client = clientId == null ? null : byClient.get(clientId);
+        Scope forSymbol = symbol == null ? null : bySymbol.get(symbol);
+
+        RuleKind[] kinds = RuleKind.all();
+        for (int k = 0; k < kinds.length; k++) {
+            Scope scope = exact != null && exact.has(k) ? exact
+                    : client != null && client.has(k) ? client
+                    : forSymbol != null && forSymbol.has(k) ? forSymbol
+                    : global;
+            if (scope.has(k) && kinds[k].violated(scope.limits[k], order)) {
+                return scope.violations[k];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Rules read from the file, not counting the built-in ones.
+     */
+    public int ruleCount() {
+        return ruleCount;
+    }
+
+    private static double parseValue(RuleKind kind, String text, String where) {
+        if (kind == RuleKind.BLOCK) {
+            if (text.equals("true")) {
+                return 1;
+            }
+            if (text.equals("false")) {
+                return 0;
+            }
+            throw new IllegalArgumentException(where + "block takes true or false, got '" + text + "'");
+        }
+        try {
+            double value = Double.parseDouble(text);
+            if (value < 0 || Double.isNaN(value) || Double.isInfinite(value)) {
+                throw new IllegalArgumentException(where + kind.fileName + " must be a non-negative number");
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(where + "'" + text + "' is not a number");
+        }
+    }
+}
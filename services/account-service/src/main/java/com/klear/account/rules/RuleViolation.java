@@ -0,0 +1,36 @@
+package com.klear.account.rules;
+
+/**
+ * A rule an order failed, with the texts reported for it. Built once when rules are
+ * compiled, so reporting a failure allocates nothing.
+ */
+public final class RuleViolation {
+
+    private final RuleKind kind;
+    private final String reason;
+    private final String message;
+
+    RuleViolation(RuleKind kind, double limit) {
+        this.kind = kind;
+        this.reason = kind.describe(limit);
+        this.message = kind.message;
+    }
+
+    public RuleKind getKind() {
+        return kind;
+    }
+
+    /**
+     * Failure reason, including the limit.
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * Short description for the validation message.
+     */
+    public String getMessage() {
+        return message;
+    }
+}
@@ -1,23 +1,40 @@
 package com.klear.account.service;
 
+import com.klear.account.ledger.AccountLedger;
+import com.klear.account.risk.RiskEngine;
+import com.klear.account.risk.RiskLimits;
+import com.klear.account.rules.RuleEngine;
+import com.klear.account.rules.RuleTable;
+import com.klear.account.rules.RuleViolation;
 import com.klear.communication.core.BaseService;
 import com.klear.model.order.Order;
+import com.klear.model.order.OrderType;
+import com.klear.model.order.Side;
+import com.klear.model.price.FixedPoint;
 import com.klear.model.queue.QueueItemTypes;
-import com.klear.model.response.AccountResponse;
+import com.klear.model.reference.SecuritiesMaster;
+import com.klear.model.reference.SecurityStatus;
+import com.klear.model.reference.SecurityTable;
 import com.klear.model.trade.Trade;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 import static com.klear.model.order.OrderStatus.FAILED;
+import static com.klear.model.order.OrderStatus.SETTLED;
 import static com.klear.model.order.OrderStatus.VALIDATED;
 
 @Service
 public class AccountService extends BaseService {
 
-    private static final int MAX_QUANTITY = 10000;
-    private static final double MAX_PRICE = 10000.0;
-
     @Value("${redis_ip}")
     private String ipAddress;
 
@@ -27,11 +44,135 @@ public class AccountService extends BaseService {
     @Value("${account_service_channel_name}")
     private String channelName;
 
+    @Value("${risk_max_gross_exposure:0}")
+    private double maxGrossExposure;
+
+    @Value("${risk_max_net_exposure:0}")
+    private double maxNetExposure;
+
+    @Value("${risk_max_position:0}")
+    private long maxPosition;
+
+    @Value("${validation_rules_file:}")
+    private String rulesFile;
+
+    @Value("${validation_rules_reload:true}")
+    private boolean reloadRules;
+
+    @Value("${account_ledger_enabled:false}")
+    private boolean ledgerEnabled;
+
+    @Value("${account_ledger_opening_cash:1000000}")
+    private double ledgerOpeningCash;
+
+    @Value("${account_ledger_allow_short:false}")
+    private boolean ledgerAllowShort;
+
+    @Value("${account_ledger_snapshot_file:account-ledger.snapshot}")
+    private String ledgerSnapshotFile;
+
+    @Value("${account_ledger_snapshot_interval_ms:10000}")
+    private long ledgerSnapshotIntervalMs;
+
+    private final RiskEngine riskEngine = new RiskEngine(RiskLimits.UNLIMITED);
+
+    // Null unless the ledger is enabled
+    private AccountLedger ledger;
+    private ScheduledExecutorService snapshotExecutor;
+    private final RuleEngine ruleEngine = new RuleEngine(RuleTable.defaults());
+
     @PostConstruct
     public void init() {
+        enableRiskLimits(RiskLimits.of(maxGrossExposure, maxNetExposure, maxPosition));
+        if (rulesFile != null && !rulesFile.isBlank()) {
+            try {
+                if (reloadRules) {
+                    ruleEngine.watch(Path.of(rulesFile));
+                } else {
+                    ruleEngine.load(Path.of(rulesFile));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot load validation rules from " + rulesFile, e);
+            }
+        }
+        if (ledgerEnabled) {
+            startLedger();
+        }
         initializeRedis();
     }
 
+    @Override
+    public void shutdown() {
+        ruleEngine.close();
+        if (snapshotExecutor != null) {
+            snapshotExecutor.shutdown();
+            snapshotLedger();
+        }
+        super.shutdown();
+    }
+
+    /**
+     * Makes validation hold each order's cost (buys) or shares (sells) in {@code ledger},
+     * failing orders the account cannot cover. The hold is settled when the trade service
+     * reports the trade SETTLED and released when it reports it FAILED.
+     */
+    protected void enableLedger(AccountLedger ledger) {
+        this.ledger = ledger;
+    }
+
+    protected AccountLedger getLedger() {
+        return ledger;
+    }
+
+    private void startLedger() {
+        AccountLedger created = new AccountLedger(Math.round(ledgerOpeningCash * 100), ledgerAllowShort);
+        Path snapshot = Path.of(ledgerSnapshotFile);
+        if (Files.exists(snapshot)) {
+            try {
+                created.loadSnapshot(snapshot);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot load account ledger snapshot " + snapshot, e);
+            }
+            log.info("Restored {} accounts and {} open holds from {}",
+                    created.accountCount(), created.openHolds(), snapshot);
+        }
+        enableLedger(created);
+        snapshotExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "AccountService-ledger-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+        snapshotExecutor.scheduleWithFixedDelay(this::snapshotLedger, ledgerSnapshotIntervalMs,
+                ledgerSnapshotIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void snapshotLedger() {
+        try {
+            ledger.writeSnapshot(Path.of(ledgerSnapshotFile));
+        } catch (IOException e) {
+            log.error("Failed to write account ledger snapshot to {}", ledgerSnapshotFile, e);
+        }
+    }
+
+    /**
+     * Sets the per-client exposure limits checked after the static order limits. Exposure
+     * is tracked even when unlimited, so limits can be tightened without losing history.
+     */
+    protected void enableRiskLimits(RiskLimits limits) {
+        riskEngine.setLimits(limits);
+    }
+
+    protected RiskEngine getRiskEngine() {
+        return riskEngine;
+    }
+
+    /**
+     * Per-order validation rules; replace the table to change them while running.
+     */
+    protected RuleEngine getRuleEngine() {
+        return ruleEngine;
+    }
+
     @Override
     protected String getServiceName() {
         return "AccountService";
@@ -61,47 +202,149 @@ public class AccountService extends BaseService {
     protected Trade processTrade(Trade trade) {
         Order order = trade.getOrder();
 
+        // A later stage failed this order: hand back what it reserved, nothing to reply
+        if (trade.getStatus() == FAILED) {
+            if (!"VALIDATION".equals(trade.getFailureStage())) {
+                riskEngine.releaseNotional(order.getClientId(), order.getStockSymbol(), order.getSide(),
+                        order.getQuantity(), orderNotionalCents(order));
+                if (ledger != null) {
+                    ledger.release(trade.getOrderId());
+                }
+            }
+            return null;
+        }
+
+        // The order settled: turn its hold into the executed cash and share movements
+        if (trade.getStatus() == SETTLED) {
+            if (ledger != null) {
+                int quantity = trade.getExecutedQuantity() > 0 ? trade.getExecutedQuantity() : order.getQuantity();
+                ledger.settleNotional(trade.getOrderId(), quantity,
+                        notionalCents(order, quantity, trade.getExecutedPriceTicks(), trade.getExecutedPrice()));
+            }
+            return null;
+        }
+
         // Validate client ID
         if (order.getClientId() == null || order.getClientId().isEmpty()) {
-            trade.setStatus(FAILED);
-            trade.setFailureStage("VALIDATION");
-            trade.setFailureReason("Invalid client ID");
-            trade.setValidationMessage("Validation failed: Invalid client ID");
-            return trade;
+            return fail(trade, "Invalid client ID", "Invalid client ID");
+        }
+
+        // Check the instrument is listed and trading, and the order fits its lot and tick sizes
+        SecuritiesMaster securities = getSecuritiesMaster();
+        if (securities != null) {
+            Trade failed = checkSecurity(trade, order, securities.current());
+            if (failed != null) {
+                return failed;
+            }
         }
 
-        // Check position limits
-        if (!checkPositionLimits(order)) {
-            trade.setStatus(FAILED);
-            trade.setFailureStage("VALIDATION");
-            trade.setFailureReason("Position limit exceeded (max " + MAX_QUANTITY + ")");
-            trade.setValidationMessage("Validation failed: Position limit exceeded");
-            return trade;
+        // Check the configured per-order rules (quantity, price, notional, blocks)
+        RuleViolation violation = ruleEngine.check(order);
+        if (violation != null) {
+            return fail(trade, violation.getReason(), violation.getMessage());
         }
 
-        // Check price limits
-        if (!checkPriceLimits(order)) {
-            trade.setStatus(FAILED);
-            trade.setFailureStage("VALIDATION");
-            trade.setFailureReason("Price exceeds maximum (max " + MAX_PRICE + ")");
-            trade.setValidationMessage("Validation failed: Price exceeds maximum");
-            return trade;
+        // The ledger holds a buy's cost at its limit price; a market buy has none to hold at
+        if (ledger != null && order.getOrderType() == OrderType.MARKET && order.getSide() != Side.SELL) {
+            return fail(trade, "Market buys are not accepted while the account ledger holds buying power",
+                    "Market buy has no price to hold");
+        }
+
+        // Check running exposure; reserves it when accepted
+        long notional = orderNotionalCents(order);
+        switch (riskEngine.reserveNotional(order.getClientId(), order.getStockSymbol(), order.getSide(),
+                order.getQuantity(), notional)) {
+            case GROSS_LIMIT -> {
+                return fail(trade, "Gross exposure limit exceeded", "Gross exposure limit exceeded");
+            }
+            case NET_LIMIT -> {
+                return fail(trade, "Net exposure limit exceeded", "Net exposure limit exceeded");
+            }
+            case POSITION_LIMIT -> {
+                return fail(trade, "Symbol position limit exceeded for " + order.getStockSymbol(),
+                        "Symbol position limit exceeded");
+            }
+            default -> {
+            }
+        }
+
+        // Hold buying power or shares until the order settles or fails
+        if (ledger != null) {
+            AccountLedger.Result held = ledger.reserveNotional(trade.getOrderId(), order.getClientId(),
+                    order.getStockSymbol(), order.getSide(), order.getQuantity(), notional);
+            if (held != AccountLedger.Result.RESERVED) {
+                riskEngine.releaseNotional(order.getClientId(), order.getStockSymbol(), order.getSide(),
+                        order.getQuantity(), notional);
+                return switch (held) {
+                    case INSUFFICIENT_CASH -> fail(trade, "Insufficient buying power", "Insufficient buying power");
+                    case INSUFFICIENT_POSITION -> fail(trade, "Insufficient position in " + order.getStockSymbol(),
+                            "Insufficient position");
+                    default -> fail(trade, "Duplicate order ID", "Duplicate order ID");
+                };
+            }
         }
 
         // All validations passed
-        AccountResponse accountResponse = new AccountResponse(
-                trade.getOrderId(), "Account Validation Successful");
-        trade.setValidationMessage(accountResponse.getMessage());
+        trade.setValidationMessage("Account Validation Successful");
         trade.setStatus(VALIDATED);
 
         return trade;
     }
 
-    private boolean checkPositionLimits(Order order) {
-        return order.getQuantity() <= MAX_QUANTITY;
+    private static Trade checkSecurity(Trade trade, Order order, SecurityTable table) {
+        String symbol = order.getStockSymbol();
+        int security = table.find(symbol);
+        if (security < 0) {
+            return fail(trade, "Unknown security: " + symbol, "Unknown security");
+        }
+        SecurityStatus status = table.status(security);
+        if (status != SecurityStatus.TRADING) {
+            return fail(trade, "Security not trading: " + symbol + " is " + status, "Security not trading");
+        }
+        int lotSize = table.lotSize(security);
+        if (lotSize > 1 && order.getQuantity() % lotSize != 0) {
+            return fail(trade, "Invalid quantity: " + order.getQuantity() + " is not a multiple of the lot size "
+                    + lotSize + " for " + symbol, "Invalid lot size");
+        }
+        if (order.getOrderType() != OrderType.MARKET && !onTick(table, security, order)) {
+            return fail(trade, "Invalid price: " + order.getPrice() + " is not a multiple of the tick "
+                    + FixedPoint.toString(table.tickSize(security), table.priceScale(security)) + " for " + symbol,
+                    "Invalid tick size");
+        }
+        return null;
+    }
+
+    private static boolean onTick(SecurityTable table, int security, Order order) {
+        Integer scale = order.getPriceScale();
+        if (scale != null) {
+            return table.isOnTick(security, order.getPriceTicks(), scale);
+        }
+        int tickScale = table.priceScale(security);
+        return FixedPoint.isWholeTicks(order.getPrice(), tickScale)
+                && table.isOnTick(security, FixedPoint.toTicks(order.getPrice(), tickScale), tickScale);
+    }
+
+    private static long orderNotionalCents(Order order) {
+        return notionalCents(order, order.getQuantity(), order.getPriceTicks(), order.getPrice());
     }
 
-    private boolean checkPriceLimits(Order order) {
-        return order.getPrice() <= MAX_PRICE;
+    /**
+     * Notional in cents: exact from the ticks of a fixed-point order, otherwise the price
+     * rounded to cents per share as before.
+     */
+    private static long notionalCents(Order order, long quantity, long priceTicks, double price) {
+        Integer scale = order.getPriceScale();
+        if (scale != null) {
+            return FixedPoint.rescale(FixedPoint.notional(quantity, priceTicks), scale, 2);
+        }
+        return quantity * Math.round(price * 100);
+    }
+
+    private static Trade fail(Trade trade, String reason, String message) {
+        trade.setStatus(FAILED);
+        trade.setFailureStage("VALIDATION");
+        trade.setFailureReason(reason);
+        trade.setValidationMessage("Validation failed: " + message);
+        return trade;
     }
 }
\ No newline at end of file
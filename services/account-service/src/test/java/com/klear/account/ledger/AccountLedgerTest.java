@@ -0,0 +1,150 @@
+package com.klear.account.ledger;
+
+import com.klear.model.order.Side;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountLedgerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testBuyHoldsCashAndSettlesExecutedAmount() {
+        AccountLedger ledger = new AccountLedger(100_000_00L, false);
+
+        assertEquals(AccountLedger.Result.RESERVED, ledger.reserve("O1", "C1", "AAPL", Side.BUY, 100, 150.00));
+        assertEquals(100_000_00L, ledger.cashBalanceCents("C1"));
+        assertEquals(85_000_00L, ledger.cashAvailableCents("C1"));
+
+        // Filled 80 at a better price: the unused part of the hold comes back
+        assertTrue(ledger.settle("O1", 80, 149.50));
+        assertEquals(100_000_00L - 80 * 14950L, ledger.cashBalanceCents("C1"));
+        assertEquals(ledger.cashBalanceCents("C1"), ledger.cashAvailableCents("C1"));
+        assertEquals(80, ledger.position("C1", "AAPL"));
+        assertEquals(0, ledger.openHolds());
+        assertFalse(ledger.settle("O1", 80, 149.50));
+    }
+
+    @Test
+    void testSellHoldsSharesAndReleaseRestoresThem() {
+        AccountLedger ledger = new AccountLedger(0, false);
+        ledger.transferShares("C1", "AAPL", 100);
+
+        assertEquals(AccountLedger.Result.INSUFFICIENT_POSITION, ledger.reserve("O1", "C1", "AAPL", Side.SELL, 150, 10));
+        assertEquals(AccountLedger.Result.RESERVED, ledger.reserve("O2", "C1", "AAPL", Side.SELL, 60, 10));
+        assertEquals(40, ledger.positionAvailable("C1", "AAPL"));
+        assertEquals(AccountLedger.Result.INSUFFICIENT_POSITION, ledger.reserve("O3", "C1", "AAPL", Side.SELL, 50, 10));
+
+        assertTrue(ledger.release("O2"));
+        assertFalse(ledger.release("O2"));
+        assertEquals(100, ledger.positionAvailable("C1", "AAPL"));
+
+        ledger.reserve("O4", "C1", "AAPL", Side.SELL, 100, 10.00);
+        ledger.settle("O4", 100, 10.00);
+        assertEquals(0, ledger.position("C1", "AAPL"));
+        assertEquals(1_000_00L, ledger.cashBalanceCents("C1"));
+        assertEquals(1_000_00L, ledger.cashAvailableCents("C1"));
+    }
+
+    @Test
+    void testRejectsWhatCannotBeCoveredOrIsDuplicate() {
+        AccountLedger ledger = new AccountLedger(10_000_00L, false);
+
+        assertEquals(AccountLedger.Result.INSUFFICIENT_CASH, ledger.reserve("O1", "C1", "AAPL", Side.BUY, 100, 150.00));
+        assertEquals(AccountLedger.Result.RESERVED, ledger.reserve("O2", "C1", "AAPL", Side.BUY, 50, 150.00));
+        assertEquals(AccountLedger.Result.DUPLICATE_ORDER, ledger.reserve("O2", "C1", "AAPL", Side.BUY, 10, 150.00));
+        assertEquals(2_500_00L, ledger.cashAvailableCents("C1"));
+
+        AccountLedger shortable = new AccountLedger(0, true);
+        assertEquals(AccountLedger.Result.RESERVED, shortable.reserve("O3", "C1", "AAPL", Side.SELL, 10, 1));
+        assertEquals(-10, shortable.positionAvailable("C1", "AAPL"));
+    }
+
+    @Test
+    void testSnapshotRoundTrip() throws Exception {
+        AccountLedger ledger = new AccountLedger(50_000_00L, false);
+        ledger.transferShares("C1", "AAPL", 200);
+        ledger.reserve("O1", "C1", "AAPL", Side.SELL, 50, 150.00);
+        ledger.reserve("O2", "C1", "MSFT", Side.BUY, 10, 300.00);
+        ledger.reserve("O3", "C2", "AAPL", Side.BUY, 100, 150.00);
+        ledger.settle("O3", 100, 150.00);
+        Path file = dir.resolve("ledger.snapshot");
+        ledger.writeSnapshot(file);
+
+        AccountLedger restored = new AccountLedger(50_000_00L, false);
+        restored.loadSnapshot(file);
+
+        assertEquals(2, restored.openHolds());
+        assertEquals(50_000_00L, restored.cashBalanceCents("C1"));
+        assertEquals(47_000_00L, restored.cashAvailableCents("C1"));
+        assertEquals(150, restored.positionAvailable("C1", "AAPL"));
+        assertEquals(35_000_00L, restored.cashBalanceCents("C2"));
+        assertEquals(100, restored.position("C2", "AAPL"));
+        assertTrue(restored.release("O1"));
+        assertTrue(restored.settle("O2", 10, 300.00));
+        assertEquals(47_000_00L, restored.cashBalanceCents("C1"));
+    }
+
+    @Test
+    void testConcurrentOrdersForOneAccountNeverOverdraw() throws Exception {
+        long opening = 1_000_000_00L;
+        AccountLedger ledger = new AccountLedger(opening, false);
+        int threads = 8;
+        AtomicLong spent = new AtomicLong();
+        AtomicReference<String> failure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            Thread worker = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(id);
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 20_000; i++) {
+                    String orderId = id + "-" + i;
+                    int quantity = 1 + random.nextInt(100);
+                    if (ledger.reserve(orderId, "BIG", "AAPL", Side.BUY, quantity, 100.00) != AccountLedger.Result.RESERVED) {
+                        continue;
+                    }
+                    if (ledger.cashAvailableCents("BIG") < 0) {
+                        failure.compareAndSet(null, "available went negative");
+                    }
+                    if (random.nextBoolean()) {
+                        ledger.release(orderId);
+                    } else {
+                        ledger.settle(orderId, quantity, 100.00);
+                        spent.addAndGet(quantity * 100_00L);
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join(30_000);
+        }
+
+        assertNull(failure.get());
+        assertEquals(0, ledger.openHolds());
+        assertEquals(opening - spent.get(), ledger.cashBalanceCents("BIG"));
+        assertEquals(ledger.cashBalanceCents("BIG"), ledger.cashAvailableCents("BIG"));
+        assertEquals(spent.get() / 100_00L, ledger.position("BIG", "AAPL"));
+        assertTrue(ledger.cashBalanceCents("BIG") >= 0);
+    }
+}
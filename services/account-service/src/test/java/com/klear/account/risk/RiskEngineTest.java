@@ -0,0 +1,97 @@
+package com.klear.account.risk;
+
+import com.klear.model.order.Side;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RiskEngineTest {
+
+    @Test
+    void testTracksGrossNetAndPosition() {
+        RiskEngine engine = new RiskEngine(RiskLimits.UNLIMITED);
+
+        assertEquals(RiskEngine.Result.ACCEPTED, engine.reserve("C1", "AAPL", Side.BUY, 100, 150.00));
+        assertEquals(RiskEngine.Result.ACCEPTED, engine.reserve("C1", "AAPL", Side.SELL, 40, 151.00));
+        assertEquals(RiskEngine.Result.ACCEPTED, engine.reserve("C1", "MSFT", null, 10, 300.00));
+
+        assertEquals(100 * 15000L + 40 * 15100L + 10 * 30000L, engine.grossExposureCents("C1"));
+        assertEquals(100 * 15000L - 40 * 15100L + 10 * 30000L, engine.netExposureCents("C1"));
+        assertEquals(60, engine.position("C1", "AAPL"));
+        assertEquals(10, engine.position("C1", "MSFT"));
+        assertEquals(0, engine.grossExposureCents("C2"));
+    }
+
+    @Test
+    void testRejectionLeavesNothingReserved() {
+        RiskEngine engine = new RiskEngine(RiskLimits.of(1_000_000, 20_000, 500));
+
+        assertEquals(RiskEngine.Result.ACCEPTED, engine.reserve("C1", "AAPL", Side.BUY, 100, 150.00));
+        // Net would reach 30,000
+        assertEquals(RiskEngine.Result.NET_LIMIT, engine.reserve("C1", "AAPL", Side.BUY, 100, 150.00));
+        assertEquals(15_000_00L, engine.grossExposureCents("C1"));
+        assertEquals(15_000_00L, engine.netExposureCents("C1"));
+
+        // Net is fine for a sell, but the position would reach -600
+        assertEquals(RiskEngine.Result.POSITION_LIMIT, engine.reserve("C1", "AAPL", Side.SELL, 700, 10.00));
+        assertEquals(15_000_00L, engine.grossExposureCents("C1"));
+        assertEquals(100, engine.position("C1", "AAPL"));
+
+        engine.setLimits(RiskLimits.of(20_000, 0, 0));
+        assertEquals(RiskEngine.Result.GROSS_LIMIT, engine.reserve("C1", "MSFT", Side.SELL, 100, 60.00));
+    }
+
+    @Test
+    void testReducingOrdersPassWhenOverLimit() {
+        RiskEngine engine = new RiskEngine(RiskLimits.UNLIMITED);
+        engine.reserve("C1", "AAPL", Side.BUY, 1_000, 100.00);
+        engine.setLimits(new RiskLimits(0, 0, 500));
+
+        assertEquals(RiskEngine.Result.POSITION_LIMIT, engine.reserve("C1", "AAPL", Side.BUY, 1, 100.00));
+        assertEquals(RiskEngine.Result.ACCEPTED, engine.reserve("C1", "AAPL", Side.SELL, 200, 100.00));
+        assertEquals(800, engine.position("C1", "AAPL"));
+    }
+
+    @Test
+    void testReleaseUndoesReserve() {
+        RiskEngine engine = new RiskEngine(RiskLimits.of(100_000, 100_000, 1_000));
+        engine.reserve("C1", "AAPL", Side.BUY, 300, 150.00);
+        engine.reserve("C1", "AAPL", Side.SELL, 100, 149.50);
+
+        engine.release("C1", "AAPL", Side.BUY, 300, 150.00);
+        engine.release("C1", "AAPL", Side.SELL, 100, 149.50);
+
+        assertEquals(0, engine.grossExposureCents("C1"));
+        assertEquals(0, engine.netExposureCents("C1"));
+        assertEquals(0, engine.position("C1", "AAPL"));
+    }
+
+    @Test
+    void testConcurrentReservationsNeverBreachLimit() throws Exception {
+        // Room for exactly 1,000 orders of 10 shares
+        RiskEngine engine = new RiskEngine(new RiskLimits(0, 0, 10_000));
+        AtomicInteger accepted = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    if (engine.reserve("C1", "AAPL", Side.BUY, 10, 0) == RiskEngine.Result.ACCEPTED) {
+                        accepted.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join(10_000);
+        }
+
+        assertEquals(1_000, accepted.get());
+        assertEquals(10_000, engine.position("C1", "AAPL"));
+    }
+}
@@ -0,0 +1,52 @@
+package com.klear.account.rules;
+
+import com.klear.model.order.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleEngineTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testReloadsChangedFileAndKeepsRulesOnError() throws Exception {
+        Path file = Files.write(dir.resolve("rules.conf"), List.of("client=C1 max_quantity 100"));
+        Order order = new Order();
+        order.setClientId("C1");
+        order.setStockSymbol("AAPL");
+        order.setQuantity(500);
+        order.setPrice(10);
+
+        try (RuleEngine engine = new RuleEngine(RuleTable.defaults())) {
+            engine.watch(file);
+            assertNotNull(engine.check(order));
+
+            RuleTable before = engine.current();
+            Files.write(file, List.of("client=C1 max_quantity 1000"));
+            awaitChange(engine, before);
+            assertNull(engine.check(order));
+
+            // A broken file leaves the last good rules in place
+            before = engine.current();
+            Files.write(file, List.of("client=C1 max_quantity lots"));
+            Thread.sleep(500);
+            assertSame(before, engine.current());
+            assertNull(engine.check(order));
+        }
+    }
+
+    private static void awaitChange(RuleEngine engine, RuleTable before) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (engine.current() == before && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNotSame(before, engine.current(), "rules were not reloaded");
+    }
+}
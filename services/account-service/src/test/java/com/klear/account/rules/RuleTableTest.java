@@ -0,0 +1,101 @@
+package com.klear.account.rules;
+
+import com.klear.model.order.Order;
+import com.klear.model.order.OrderType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleTableTest {
+
+    private static Order order(String client, String symbol, int quantity, double price) {
+        Order order = new Order();
+        order.setClientId(client);
+        order.setStockSymbol(symbol);
+        order.setQuantity(quantity);
+        order.setPrice(price);
+        return order;
+    }
+
+    @Test
+    void testDefaultsMatchBuiltInLimits() {
+        RuleTable table = RuleTable.defaults();
+
+        assertNull(table.check(order("C1", "AAPL", 10000, 10000.0)));
+        assertEquals("Position limit exceeded (max 10000)", table.check(order("C1", "AAPL", 10001, 1)).getReason());
+        RuleViolation price = table.check(order("C1", "AAPL", 1, 10000.5));
+        assertEquals("Price exceeds maximum (max 10000.0)", price.getReason());
+        assertEquals("Price exceeds maximum", price.getMessage());
+        assertEquals(0, table.ruleCount());
+    }
+
+    @Test
+    void testMostSpecificScopeWins() {
+        RuleTable table = RuleTable.compile(List.of(
+                "# scope rule value",
+                "*                        max_quantity 1000",
+                "symbol=TSLA              max_quantity 100",
+                "client=BIG               max_quantity 5000   # trusted client",
+                "client=BIG symbol=TSLA   max_quantity 200",
+                "client=BANNED            block        true"), "rules.conf");
+
+        assertEquals(5, table.ruleCount());
+        assertNull(table.check(order("C1", "AAPL", 1000, 10)));
+        assertNotNull(table.check(order("C1", "AAPL", 1001, 10)));
+        assertNotNull(table.check(order("C1", "TSLA", 101, 10)));
+        assertNull(table.check(order("BIG", "AAPL", 5000, 10)));
+        assertNull(table.check(order("BIG", "TSLA", 200, 10)));
+        assertEquals("Position limit exceeded (max 200)", table.check(order("BIG", "TSLA", 201, 10)).getReason());
+        assertEquals(RuleKind.BLOCK, table.check(order("BANNED", "AAPL", 1, 10)).getKind());
+        // Checks not overridden still fall through to the global defaults
+        assertEquals(RuleKind.MAX_PRICE, table.check(order("BIG", "TSLA", 1, 20000)).getKind());
+    }
+
+    @Test
+    void testPriceAndNotionalRules() {
+        RuleTable table = RuleTable.compile(List.of(
+                "symbol=PENNY min_price 1.0",
+                "* max_notional 1000000",
+                "* max_price 0"), "rules.conf");
+
+        assertEquals(RuleKind.MIN_PRICE, table.check(order("C1", "PENNY", 10, 0.5)).getKind());
+        Order market = order("C1", "PENNY", 10, 0);
+        market.setOrderType(OrderType.MARKET);
+        assertNull(table.check(market));
+
+        assertEquals(RuleKind.MAX_NOTIONAL, table.check(order("C1", "AAPL", 5000, 250.0)).getKind());
+        // A maximum of 0 removes the built-in price limit
+        assertNull(table.check(order("C1", "AAPL", 1, 50000.0)));
+    }
+
+    @Test
+    void testFixedPointOrdersAreCheckedInTicks() {
+        RuleTable table = RuleTable.compile(List.of("* max_notional 0.3", "* min_price 0.1"), "rules.conf");
+
+        // In doubles 3 * 0.1 is 0.30000000000000004, just over the limit
+        assertEquals(RuleKind.MAX_NOTIONAL, table.check(order("C1", "AAPL", 3, 0.1)).getKind());
+        Order fixed = order("C1", "AAPL", 3, 0);
+        fixed.setPriceTicks(10);
+        fixed.setPriceScale(2);
+        assertEquals(0.1, fixed.getPrice());
+        assertNull(table.check(fixed));
+
+        fixed.setPriceTicks(9);
+        assertEquals(RuleKind.MIN_PRICE, table.check(fixed).getKind());
+    }
+
+    @Test
+    void testRejectsMalformedRules() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> RuleTable.compile(List.of("* max_quantity 10", "account=X max_quantity 1"), "rules.conf"));
+        assertTrue(e.getMessage().startsWith("rules.conf:2:"));
+
+        assertThrows(IllegalArgumentException.class, () -> RuleTable.compile(List.of("* max_size 1"), "r"));
+        assertThrows(IllegalArgumentException.class, () -> RuleTable.compile(List.of("* max_price -1"), "r"));
+        assertThrows(IllegalArgumentException.class, () -> RuleTable.compile(List.of("* block yes"), "r"));
+        assertThrows(IllegalArgumentException.class, () -> RuleTable.compile(List.of("* client=A block true"), "r"));
+        assertThrows(IllegalArgumentException.class, () -> RuleTable.compile(List.of("max_price 1"), "r"));
+    }
+}
@@ -1,12 +1,25 @@
 package com.klear.account.service;
 
+import com.klear.account.ledger.AccountLedger;
+import com.klear.account.risk.RiskLimits;
+import com.klear.account.rules.RuleTable;
+import com.klear.communication.core.BaseService;
 import com.klear.model.order.Order;
 import com.klear.model.order.OrderStatus;
+import com.klear.model.order.OrderType;
+import com.klear.model.order.Side;
+import com.klear.model.reference.SecuritiesMaster;
+import com.klear.model.reference.Security;
+import com.klear.model.reference.SecurityStatus;
+import com.klear.model.reference.SecurityTable;
 import com.klear.model.trade.Trade;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -116,4 +129,154 @@ class AccountServiceTest {
         assertEquals("VALIDATION", result.getFailureStage());
         assertTrue(result.getFailureReason().contains("Invalid client ID"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testProcessTrade_FailsWhenExposureLimitReached() throws Exception {
+        accountService.enableRiskLimits(RiskLimits.of(25_000, 0, 0));
+        Method processTrade = AccountService.class.getDeclaredMethod("processTrade", Trade.class);
+        processTrade.setAccessible(true);
+
+        Trade first = (Trade) processTrade.invoke(accountService, new Trade("ORDER-007", new Order(testOrder), OrderStatus.UNKNOWN));
+        Trade second = (Trade) processTrade.invoke(accountService, new Trade("ORDER-008", new Order(testOrder), OrderStatus.UNKNOWN));
+
+        assertEquals(OrderStatus.VALIDATED, first.getStatus());
+        assertEquals(OrderStatus.FAILED, second.getStatus());
+        assertEquals("VALIDATION", second.getFailureStage());
+        assertTrue(second.getFailureReason().contains("Gross exposure limit exceeded"));
+        assertEquals(15_000_00L, accountService.getRiskEngine().grossExposureCents("CLIENT123"));
+    }
+
+    @Test
+    void testProcessTrade_ReleasesExposureWhenLaterStageFails() throws Exception {
+        testOrder.setSide(Side.SELL);
+        Method processTrade = AccountService.class.getDeclaredMethod("processTrade", Trade.class);
+        processTrade.setAccessible(true);
+        processTrade.invoke(accountService, new Trade("ORDER-009", testOrder, OrderStatus.UNKNOWN));
+        assertEquals(-100, accountService.getRiskEngine().position("CLIENT123", "AAPL"));
+
+        Trade failed = new Trade("ORDER-009", testOrder, OrderStatus.FAILED);
+        failed.setFailureStage("EXECUTION");
+        assertNull(processTrade.invoke(accountService, failed));
+
+        assertEquals(0, accountService.getRiskEngine().position("CLIENT123", "AAPL"));
+        assertEquals(0, accountService.getRiskEngine().grossExposureCents("CLIENT123"));
+        assertEquals(0, accountService.getRiskEngine().netExposureCents("CLIENT123"));
+    }
+
+    @Test
+    void testProcessTrade_AppliesReplacedRules() throws Exception {
+        accountService.getRuleEngine().replace(RuleTable.compile(List.of(
+                "client=CLIENT123 symbol=AAPL max_quantity 50"), "test"));
+        Trade trade = new Trade("ORDER-010", testOrder, OrderStatus.UNKNOWN);
+
+        Method processTrade = AccountService.class.getDeclaredMethod("processTrade", Trade.class);
+        processTrade.setAccessible(true);
+        Trade result = (Trade) processTrade.invoke(accountService, trade);
+
+        assertEquals(OrderStatus.FAILED, result.getStatus());
+        assertEquals("Position limit exceeded (max 50)", result.getFailureReason());
+        assertEquals("Validation failed: Position limit exceeded", result.getValidationMessage());
+    }
+
+    @Test
+    void testProcessTrade_LedgerHoldsUntilSettledOrFailed() throws Exception {
+        AccountLedger ledger = new AccountLedger(20_000_00L, false);
+        accountService.enableLedger(ledger);
+        Method processTrade = AccountService.class.getDeclaredMethod("processTrade", Trade.class);
+        processTrade.setAccessible(true);
+
+        Trade first = (Trade) processTrade.invoke(accountService, new Trade("ORDER-011", new Order(testOrder), OrderStatus.UNKNOWN));
+        Trade second = (Trade) processTrade.invoke(accountService, new Trade("ORDER-012", new Order(testOrder), OrderStatus.UNKNOWN));
+        assertEquals(OrderStatus.VALIDATED, first.getStatus());
+        assertEquals(OrderStatus.FAILED, second.getStatus());
+        assertEquals("Insufficient buying power", second.getFailureReason());
+        assertEquals(5_000_00L, ledger.cashAvailableCents("CLIENT123"));
+        // The failed order's risk exposure was handed back
+        assertEquals(15_000_00L, accountService.getRiskEngine().grossExposureCents("CLIENT123"));
+
+        first.setStatus(OrderStatus.SETTLED);
+        first.setExecutedQuantity(100);
+        first.setExecutedPrice(149.00);
+        assertNull(processTrade.invoke(accountService, first));
+        assertEquals(20_000_00L - 14_900_00L, ledger.cashBalanceCents("CLIENT123"));
+        assertEquals(100, ledger.position("CLIENT123", "AAPL"));
+        assertEquals(0, ledger.openHolds());
+    }
+
+    @Test
+    void testProcessTrade_LedgerRefusesMarketBuys() throws Exception {
+        AccountLedger ledger = new AccountLedger(1_000_00L, false);
+        ledger.transferShares("CLIENT123", "AAPL", 100);
+        accountService.enableLedger(ledger);
+        Method processTrade = AccountService.class.getDeclaredMethod("processTrade", Trade.class);
+        processTrade.setAccessible(true);
+        Order marketBuy = new Order(testOrder);
+        marketBuy.setSide(Side.BUY);
+        marketBuy.setOrderType(OrderType.MARKET);
+        marketBuy.setPrice(0);
+
+        Trade refused = (Trade) processTrade.invoke(accountService, new Trade("ORDER-013", marketBuy, OrderStatus.UNKNOWN));
+        assertEquals(OrderStatus.FAILED, refused.getStatus());
+        assertTrue(refused.getFailureReason().startsWith("Market buys are not accepted"), refused.getFailureReason());
+        assertEquals(0, ledger.openHolds());
+        assertEquals(0, accountService.getRiskEngine().grossExposureCents("CLIENT123"));
+
+        // Had it gone through, its fill of 15,000.00 would have taken 1,000.00 of cash below zero
+        refused.setStatus(OrderStatus.SETTLED);
+        refused.setExecutedQuantity(100);
+        refused.setExecutedPrice(150.00);
+        assertNull(processTrade.invoke(accountService, refused));
+        assertEquals(1_000_00L, ledger.cashAvailableCents("CLIENT123"));
+        assertEquals(1_000_00L, ledger.cashBalanceCents("CLIENT123"));
+
+        // A market sell still holds its shares
+        Order marketSell = new Order(marketBuy);
+        marketSell.setSide(Side.SELL);
+        Trade sell = (Trade) processTrade.invoke(accountService, new Trade("ORDER-014", marketSell, OrderStatus.UNKNOWN));
+        assertEquals(OrderStatus.VALIDATED, sell.getStatus());
+        assertEquals(1, ledger.openHolds());
+    }
+
+    @Test
+    void testProcessTrade_ChecksSecuritiesMaster(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("securities.bin");
+        SecurityTable.write(file, List.of(
+                new Security("AAPL", 100, 5, 2, SecurityStatus.TRADING, 2),
+                new Security("HALT", 1, 1, 2, SecurityStatus.HALTED, 2)));
+        Method enable = BaseService.class.getDeclaredMethod("enableSecuritiesMaster", SecuritiesMaster.class);
+        enable.setAccessible(true);
+        enable.invoke(accountService, SecuritiesMaster.open(file));
+        Method processTrade = AccountService.class.getDeclaredMethod("processTrade", Trade.class);
+        processTrade.setAccessible(true);
+
+        Order order = new Order(testOrder);
+        order.setPrice(150.05);
+        assertEquals(OrderStatus.VALIDATED,
+                ((Trade) processTrade.invoke(accountService, new Trade("ORDER-020", order, OrderStatus.UNKNOWN))).getStatus());
+
+        order = new Order(testOrder);
+        order.setQuantity(150);
+        Trade result = (Trade) processTrade.invoke(accountService, new Trade("ORDER-021", order, OrderStatus.UNKNOWN));
+        assertEquals("Invalid quantity: 150 is not a multiple of the lot size 100 for AAPL", result.getFailureReason());
+
+        order = new Order(testOrder);
+        order.setPrice(150.03);
+        result = (Trade) processTrade.invoke(accountService, new Trade("ORDER-022", order, OrderStatus.UNKNOWN));
+        assertEquals("Invalid price: 150.03 is not a multiple of the tick 0.05 for AAPL", result.getFailureReason());
+
+        // Market orders carry no price to check
+        order.setOrderType(OrderType.MARKET);
+        result = (Trade) processTrade.invoke(accountService, new Trade("ORDER-023", order, OrderStatus.UNKNOWN));
+        assertEquals(OrderStatus.VALIDATED, result.getStatus());
+
+        order = new Order(testOrder);
+        order.setStockSymbol("HALT");
+        result = (Trade) processTrade.invoke(accountService, new Trade("ORDER-024", order, OrderStatus.UNKNOWN));
+        assertEquals("Security not trading: HALT is HALTED", result.getFailureReason());
+
+        order.setStockSymbol("MSFT");
+        result = (Trade) processTrade.invoke(accountService, new Trade("ORDER-025", order, OrderStatus.UNKNOWN));
+        assertEquals("Unknown security: MSFT", result.getFailureReason());
+        assertEquals("Validation failed: Unknown security", result.getValidationMessage());
+    }
+}
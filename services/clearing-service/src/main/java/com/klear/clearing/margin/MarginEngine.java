@@ -0,0 +1,311 @@
+package com.klear.clearing.margin;
+
+import com.klear.model.order.Side;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Portfolio margin per participant by historical-simulation value at risk.
+ *
+ * Each participant keeps its profit or loss under every scenario of the {@link ScenarioGrid}:
+ * the sum over its positions of position value times the symbol's shock. A cleared trade
+ * changes one position, so only that position is revalued: its old value is taken out of
+ * every scenario and its new value, at the trade price, put in. The margin is the loss at
+ * the given confidence, found by selection over the scenarios, and a trade that would take
+ * the margin above the limit is refused and leaves the portfolio as it was. Trades that
+ * lower a participant's margin are always accepted.
+ *
+ * Positions keep the price they were last valued at. {@link #recalculateAll()} marks every
+ * position to the latest traded price of its symbol and recomputes every participant from
+ * scratch, spread across participants on a fork/join pool.
+ *
+ * Methods are synchronized; a revaluation holds the lock while the pool works.
+ */
+public final class MarginEngine {
+
+    // Participants per fork/join leaf
+    private static final int LEAF_SIZE = 64;
+
+    // Quantile indexes below this (e.g. 99% of up to 3,200 scenarios) use a single pass, not quickselect
+    private static final int SMALL_INDEX = 32;
+
+    private static final class Participant {
+        final double[] pnl;
+        int[] symbols = new int[4];
+        long[] quantity = new long[4];
+        double[] mark = new double[4];
+        int positions;
+        double margin;
+
+        Participant(int scenarios) {
+            this.pnl = new double[scenarios];
+        }
+
+        int position(int symbol) {
+            for (int p = 0; p < positions; p++) {
+                if (symbols[p] == symbol) {
+                    return p;
+                }
+            }
+            if (positions == symbols.length) {
+                symbols = Arrays.copyOf(symbols, positions * 2);
+                quantity = Arrays.copyOf(quantity, positions * 2);
+                mark = Arrays.copyOf(mark, positions * 2);
+            }
+            symbols[positions] = symbol;
+            return positions++;
+        }
+    }
+
+    private final ScenarioGrid grid;
+    private final int scenarios;
+    private final int quantileIndex;
+    private final double maxMargin;
+    private final ForkJoinPool pool;
+
+    private final Map<String, Participant> participants = new HashMap<>();
+    private final List<Participant> participantList = new ArrayList<>();
+    private final Map<String, Integer> symbolIds = new HashMap<>();
+    private final List<double[]> symbolShocks = new ArrayList<>();
+    private double[] lastPrice = new double[16];
+    private boolean pricesMoved;
+
+    private final double[] candidate;
+    private final double[] scratch;
+    private double lastMargin;
+
+    /**
+     * @param confidence share of scenarios the margin must cover, e.g. 0.99
+     * @param maxMargin  most margin a participant may need; 0 for no limit
+     */
+    public MarginEngine(ScenarioGrid grid, double confidence, double maxMargin, ForkJoinPool pool) {
+        if (confidence <= 0 || confidence >= 1) {
+            throw new IllegalArgumentException("confidence must be between 0 and 1: " + confidence);
+        }
+        this.grid = grid;
+        this.scenarios = grid.scenarios();
+        // The epsilon keeps e.g. (1 - 0.9) * 10 from rounding down to 0
+        this.quantileIndex = (int) Math.floor((1 - confidence) * scenarios + 1e-9);
+        this.maxMargin = maxMargin;
+        this.pool = pool;
+        this.candidate = new double[scenarios];
+        this.scratch = new double[scenarios];
+    }
+
+    /**
+     * Applies a cleared trade to the participant's portfolio unless it would breach the
+     * margin limit; returns false, changing nothing, if it would. Either way
+     * {@link #lastMargin()} is the margin the trade leads to. A missing side counts as a buy.
+     */
+    public synchronized boolean apply(String participant, String symbol, Side side, long quantity, double price) {
+        Participant portfolio = participants.get(participant);
+        if (portfolio == null) {
+            portfolio = new Participant(scenarios);
+            participants.put(participant, portfolio);
+            participantList.add(portfolio);
+        }
+        int symbolId = symbolId(symbol);
+        int p = portfolio.position(symbolId);
+        long newQuantity = portfolio.quantity[p] + (side == Side.SELL ? -quantity : quantity);
+
+        double change = newQuantity * price - portfolio.quantity[p] * portfolio.mark[p];
+        double[] shocks = symbolShocks.get(symbolId);
+        double[] pnl = portfolio.pnl;
+        for (int k = 0; k < scenarios; k++) {
+            candidate[k] = pnl[k] + change * shocks[k];
+        }
+        lastMargin = valueAtRisk(candidate, scratch, quantileIndex);
+
+        if (maxMargin > 0 && lastMargin > maxMargin && lastMargin > portfolio.margin) {
+            if (portfolio.quantity[p] == 0 && p == portfolio.positions - 1) {
+                portfolio.positions--;
+            }
+            return false;
+        }
+        System.arraycopy(candidate, 0, pnl, 0, scenarios);
+        portfolio.quantity[p] = newQuantity;
+        portfolio.mark[p] = price;
+        portfolio.margin = lastMargin;
+        if (lastPrice[symbolId] != price) {
+            lastPrice[symbolId] = price;
+            pricesMoved = true;
+        }
+        return true;
+    }
+
+    /**
+     * Margin computed by the last {@link #apply}, whether or not the trade was accepted.
+     */
+    public synchronized double lastMargin() {
+        return lastMargin;
+    }
+
+    public synchronized double margin(String participant) {
+        Participant portfolio = participants.get(participant);
+        return portfolio == null ? 0 : portfolio.margin;
+    }
+
+    public synchronized long position(String participant, String symbol) {
+        Participant portfolio = participants.get(participant);
+        Integer symbolId = symbolIds.get(symbol);
+        if (portfolio == null || symbolId == null) {
+            return 0;
+        }
+        for (int p = 0; p < portfolio.positions; p++) {
+            if (portfolio.symbols[p] == symbolId) {
+                return portfolio.quantity[p];
+            }
+        }
+        return 0;
+    }
+
+    public synchronized int participantCount() {
+        return participantList.size();
+    }
+
+    public double maxMargin() {
+        return maxMargin;
+    }
+
+    /**
+     * True if a trade has cleared at a new price since the last full revaluation.
+     */
+    public synchronized boolean pricesMoved() {
+        return pricesMoved;
+    }
+
+    /**
+     * Marks every position to its symbol's last traded price and recomputes every
+     * participant's scenario values and margin in parallel.
+     */
+    public synchronized void recalculateAll() {
+        pricesMoved = false;
+        pool.invoke(new Revalue(0, participantList.size()));
+    }
+
+    private final class Revalue extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        Revalue(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Revalue(from, middle), new Revalue(middle, to));
+                return;
+            }
+            double[] work = new double[scenarios];
+            for (int i = from; i < to; i++) {
+                Participant portfolio = participantList.get(i);
+                double[] pnl = portfolio.pnl;
+                Arrays.fill(pnl, 0);
+                for (int p = 0; p < portfolio.positions; p++) {
+                    double price = lastPrice[portfolio.symbols[p]];
+                    double value = portfolio.quantity[p] * price;
+                    portfolio.mark[p] = price;
+                    if (value == 0) {
+                        continue;
+                    }
+                    double[] shocks = symbolShocks.get(portfolio.symbols[p]);
+                    for (int k = 0; k < scenarios; k++) {
+                        pnl[k] += value * shocks[k];
+                    }
+                }
+                portfolio.margin = valueAtRisk(pnl, work, quantileIndex);
+            }
+        }
+    }
+
+    private int symbolId(String symbol) {
+        Integer id = symbolIds.get(symbol);
+        if (id == null) {
+            id = symbolShocks.size();
+            symbolIds.put(symbol, id);
+            symbolShocks.add(grid.shocks(symbol));
+            if (id == lastPrice.length) {
+                lastPrice = Arrays.copyOf(lastPrice, id * 2);
+            }
+        }
+        return id;
+    }
+
+    /**
+     * The loss at the quantile: the {@code index}-th smallest scenario value, negated, or 0
+     * if even that scenario is a gain. {@code work} is overwritten.
+     */
+    static double valueAtRisk(double[] pnl, double[] work, int index) {
+        return Math.max(0, -(index < SMALL_INDEX ? smallest(pnl, work, index) : select(pnl, work, index)));
+    }
+
+    /**
+     * One pass keeping the {@code index + 1} smallest values sorted at the front of
+     * {@code work}; most values lose the first comparison and cost nothing more.
+     */
+    private static double smallest(double[] pnl, double[] work, int index) {
+        int kept = 0;
+        for (double value : pnl) {
+            if (kept <= index) {
+                int i = kept++;
+                while (i > 0 && work[i - 1] > value) {
+                    work[i] = work[i - 1];
+                    i--;
+                }
+                work[i] = value;
+            } else if (value < work[index]) {
+                int i = index;
+                while (i > 0 && work[i - 1] > value) {
+                    work[i] = work[i - 1];
+                    i--;
+                }
+                work[i] = value;
+            }
+        }
+        return work[index];
+    }
+
+    /**
+     * Quickselect over a copy of {@code pnl} in {@code work}.
+     */
+    private static double select(double[] pnl, double[] work, int index) {
+        System.arraycopy(pnl, 0, work, 0, pnl.length);
+        int lo = 0;
+        int hi = work.length - 1;
+        while (lo < hi) {
+            double pivot = work[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (work[i] < pivot) {
+                    i++;
+                }
+                while (work[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    double t = work[i];
+                    work[i++] = work[j];
+                    work[j--] = t;
+                }
+            }
+            if (index <= j) {
+                hi = j;
+            } else if (index >= i) {
+                lo = i;
+            } else {
+                break;
+            }
+        }
+        return work[index];
+    }
+}
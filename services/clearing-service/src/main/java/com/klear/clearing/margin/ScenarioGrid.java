@@ -0,0 +1,108 @@
+package com.klear.clearing.margin;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The shocks a portfolio is revalued under: for each symbol, one relative price change per
+ * scenario (0.01 is a 1% rise). Scenario k is the same market move for every symbol, so
+ * positions in different symbols offset or compound as they would have on that day.
+ *
+ * Shocks come from a file of historical returns, or are generated: a market factor shared
+ * by all symbols plus a symbol-specific part, scaled to the given daily volatility. A
+ * symbol missing from the file gets generated shocks. Thread-safe.
+ */
+public final class ScenarioGrid {
+
+    // Share of each generated shock's variance that comes from the market factor
+    private static final double MARKET_WEIGHT = 0.6;
+
+    private final int scenarios;
+    private final double volatility;
+    private final long seed;
+    private final double[] market;
+    private final Map<String, double[]> shocks = new ConcurrentHashMap<>();
+
+    private ScenarioGrid(int scenarios, double volatility, long seed) {
+        if (scenarios <= 0) {
+            throw new IllegalArgumentException("scenarios must be positive: " + scenarios);
+        }
+        this.scenarios = scenarios;
+        this.volatility = volatility;
+        this.seed = seed;
+        this.market = new double[scenarios];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int k = 0; k < scenarios; k++) {
+            market[k] = random.nextGaussian();
+        }
+    }
+
+    public static ScenarioGrid generated(int scenarios, double volatility, long seed) {
+        return new ScenarioGrid(scenarios, volatility, seed);
+    }
+
+    /**
+     * Loads shocks from lines of {@code symbol,shock_1,...,shock_n}; every line must have
+     * the same number of shocks. Blank lines and lines starting with {@code #} are skipped.
+     */
+    public static ScenarioGrid load(Path file, double volatility, long seed) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        ScenarioGrid grid = null;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] f = line.split(",");
+            if (grid == null) {
+                grid = new ScenarioGrid(f.length - 1, volatility, seed);
+            }
+            if (f.length - 1 != grid.scenarios) {
+                throw new IOException(file + ":" + (i + 1) + ": expected " + grid.scenarios + " shocks, found "
+                        + (f.length - 1));
+            }
+            double[] row = new double[grid.scenarios];
+            try {
+                for (int k = 0; k < row.length; k++) {
+                    row[k] = Double.parseDouble(f[k + 1].trim());
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException(file + ":" + (i + 1) + ": " + e.getMessage(), e);
+            }
+            grid.shocks.put(f[0].trim(), row);
+        }
+        if (grid == null) {
+            throw new IOException(file + ": no scenarios");
+        }
+        return grid;
+    }
+
+    public int scenarios() {
+        return scenarios;
+    }
+
+    /**
+     * The symbol's shock per scenario. The array is shared and must not be modified.
+     */
+    public double[] shocks(String symbol) {
+        double[] row = shocks.get(symbol);
+        return row != null ? row : shocks.computeIfAbsent(symbol, this::generate);
+    }
+
+    private double[] generate(String symbol) {
+        SplittableRandom random = new SplittableRandom(seed ^ ((long) symbol.hashCode() << 17));
+        double marketScale = Math.sqrt(MARKET_WEIGHT);
+        double ownScale = Math.sqrt(1 - MARKET_WEIGHT);
+        double[] row = new double[scenarios];
+        for (int k = 0; k < scenarios; k++) {
+            row[k] = volatility * (marketScale * market[k] + ownScale * random.nextGaussian());
+        }
+        return row;
+    }
+}
@@ -0,0 +1,318 @@
+package com.klear.clearing.netting;
+
+import com.klear.model.order.Side;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Multilateral netting of executed trades over windows.
+ *
+ * Each trade is folded into its participant's net obligation for the symbol, held in
+ * primitive arrays behind an open-addressing table keyed by participant and symbol number,
+ * so accumulating allocates nothing once both names have been seen. Names that come with
+ * a reference dictionary code are numbered through an array indexed by the code rather
+ * than a hash lookup. A window closes when
+ * it holds {@code windowTrades} trades, when {@code windowMillis} have passed since it
+ * opened (checked on every trade and by {@link #closeIfDue}), or when it has no room for
+ * another participant and symbol pair. Memory is bounded by {@code maxPositions},
+ * however many trades a window nets.
+ *
+ * The closed window is handed to the {@link WindowListener} before the next one opens.
+ * Methods are synchronized so that a timer thread can close idle windows; on the trade
+ * path the lock is uncontended.
+ */
+public final class NettingEngine {
+
+    @FunctionalInterface
+    public interface WindowListener {
+        void onWindowClosed(NettingWindow window);
+    }
+
+    private final int windowTrades;
+    private final long windowMillis;
+    private final int maxPositions;
+    private final WindowListener listener;
+
+    // Names are numbered once; the numbers form the accumulator keys
+    private final Names participants = new Names();
+    private final Names symbols = new Names();
+
+    // Open-addressing table from key to position; keys are stored plus one so 0 means empty
+    private final long[] tableKeys;
+    private final int[] tablePositions;
+    private final int tableMask;
+
+    // Net obligations by position, filled in arrival order
+    private final int[] positionParticipant;
+    private final int[] positionSymbol;
+    private final long[] netQuantity;
+    private final long[] netCashCents;
+    private final int[] positionSlot;
+    private int positionCount;
+
+    private final Window window = new Window();
+    private long windowId = 1;
+    private long openedAtMillis = -1;
+    private long tradeCount;
+
+    private long windowsClosed;
+    private long lastCloseNanos;
+    private long maxCloseNanos;
+
+    /**
+     * @param windowTrades trades per window; 0 for no count limit
+     * @param windowMillis window length; 0 for no time limit
+     * @param maxPositions most participant and symbol pairs per window
+     */
+    public NettingEngine(int windowTrades, long windowMillis, int maxPositions, WindowListener listener) {
+        if (maxPositions <= 0) {
+            throw new IllegalArgumentException("maxPositions must be positive: " + maxPositions);
+        }
+        this.windowTrades = windowTrades;
+        this.windowMillis = windowMillis;
+        this.maxPositions = maxPositions;
+        this.listener = listener;
+        int tableSize = Integer.highestOneBit(maxPositions * 2 - 1) << 1;
+        this.tableKeys = new long[tableSize];
+        this.tablePositions = new int[tableSize];
+        this.tableMask = tableSize - 1;
+        this.positionParticipant = new int[maxPositions];
+        this.positionSymbol = new int[maxPositions];
+        this.netQuantity = new long[maxPositions];
+        this.netCashCents = new long[maxPositions];
+        this.positionSlot = new int[maxPositions];
+    }
+
+    /**
+     * Nets one executed trade and returns the ID of the window it went into. A missing
+     * side counts as a buy.
+     */
+    public long add(String participant, String symbol, Side side, long quantity, double price, long nowMillis) {
+        return addNotional(participant, symbol, side, quantity, quantity * Math.round(price * 100), nowMillis);
+    }
+
+    /**
+     * {@link #add} for a trade whose notional is already known in cents, as it is exactly
+     * for a fixed-point price.
+     */
+    public long addNotional(String participant, String symbol, Side side, long quantity, long cash, long nowMillis) {
+        return addNotional(participant, 0, symbol, 0, side, quantity, cash, nowMillis);
+    }
+
+    /**
+     * {@link #addNotional} with the names' reference codes, 0 for a name without one.
+     */
+    public synchronized long addNotional(String participant, int participantCode, String symbol, int symbolCode,
+                                         Side side, long quantity, long cash, long nowMillis) {
+        if (openedAtMillis >= 0 && windowMillis > 0 && nowMillis - openedAtMillis >= windowMillis) {
+            closeWindow(nowMillis);
+        }
+        long key = ((long) participants.id(participant, participantCode) << 32) | symbols.id(symbol, symbolCode);
+        int position = find(key);
+        if (position < 0) {
+            if (positionCount == maxPositions) {
+                closeWindow(nowMillis);
+            }
+            position = insert(key);
+        }
+        if (openedAtMillis < 0) {
+            openedAtMillis = nowMillis;
+        }
+
+        if (side == Side.SELL) {
+            netQuantity[position] -= quantity;
+            netCashCents[position] += cash;
+        } else {
+            netQuantity[position] += quantity;
+            netCashCents[position] -= cash;
+        }
+        long id = windowId;
+        if (++tradeCount == windowTrades) {
+            closeWindow(nowMillis);
+        }
+        return id;
+    }
+
+    /**
+     * Closes the open window if its time is up; returns true if it did.
+     */
+    public synchronized boolean closeIfDue(long nowMillis) {
+        if (openedAtMillis >= 0 && windowMillis > 0 && nowMillis - openedAtMillis >= windowMillis) {
+            closeWindow(nowMillis);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Closes the open window now, if it has any trades.
+     */
+    public synchronized void flush(long nowMillis) {
+        if (tradeCount > 0) {
+            closeWindow(nowMillis);
+        }
+    }
+
+    public synchronized long openWindowId() {
+        return windowId;
+    }
+
+    public synchronized long openTradeCount() {
+        return tradeCount;
+    }
+
+    public synchronized long windowsClosed() {
+        return windowsClosed;
+    }
+
+    /**
+     * Time the last close took, listener included.
+     */
+    public synchronized long lastCloseNanos() {
+        return lastCloseNanos;
+    }
+
+    public synchronized long maxCloseNanos() {
+        return maxCloseNanos;
+    }
+
+    private void closeWindow(long nowMillis) {
+        if (tradeCount == 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        window.closedAtMillis = nowMillis;
+        window.closeStartedNanos = start;
+        listener.onWindowClosed(window);
+
+        for (int i = 0; i < positionCount; i++) {
+            tableKeys[positionSlot[i]] = 0;
+        }
+        Arrays.fill(netQuantity, 0, positionCount, 0);
+        Arrays.fill(netCashCents, 0, positionCount, 0);
+        positionCount = 0;
+        tradeCount = 0;
+        openedAtMillis = -1;
+        windowId++;
+        windowsClosed++;
+        lastCloseNanos = System.nanoTime() - start;
+        maxCloseNanos = Math.max(maxCloseNanos, lastCloseNanos);
+    }
+
+    private int find(long key) {
+        long stored = key + 1;
+        for (int slot = hash(key) & tableMask; ; slot = (slot + 1) & tableMask) {
+            long k = tableKeys[slot];
+            if (k == stored) {
+                return tablePositions[slot];
+            }
+            if (k == 0) {
+                return -1;
+            }
+        }
+    }
+
+    private int insert(long key) {
+        int slot = hash(key) & tableMask;
+        while (tableKeys[slot] != 0) {
+            slot = (slot + 1) & tableMask;
+        }
+        int position = positionCount++;
+        tableKeys[slot] = key + 1;
+        tablePositions[slot] = position;
+        positionSlot[position] = slot;
+        positionParticipant[position] = (int) (key >>> 32);
+        positionSymbol[position] = (int) key;
+        return position;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static final class Names {
+        final Map<String, Integer> ids = new HashMap<>();
+        final List<String> names = new ArrayList<>();
+        // Number plus one by reference code; 0 until the code is first seen
+        int[] idsByCode = new int[0];
+
+        int id(String name, int code) {
+            if (code > 0 && code < idsByCode.length && idsByCode[code] != 0) {
+                return idsByCode[code] - 1;
+            }
+            Integer id = ids.get(name);
+            if (id == null) {
+                id = names.size();
+                ids.put(name, id);
+                names.add(name);
+            }
+            if (code > 0) {
+                if (code >= idsByCode.length) {
+                    idsByCode = Arrays.copyOf(idsByCode, Math.max(code + 1, idsByCode.length * 2));
+                }
+                idsByCode[code] = id + 1;
+            }
+            return id;
+        }
+    }
+
+    private final class Window implements NettingWindow {
+        long closedAtMillis;
+        long closeStartedNanos;
+
+        @Override
+        public long id() {
+            return windowId;
+        }
+
+        @Override
+        public long openedAtMillis() {
+            return openedAtMillis;
+        }
+
+        @Override
+        public long closedAtMillis() {
+            return closedAtMillis;
+        }
+
+        @Override
+        public long closeStartedNanos() {
+            return closeStartedNanos;
+        }
+
+        @Override
+        public long tradeCount() {
+            return tradeCount;
+        }
+
+        @Override
+        public int obligationCount() {
+            return positionCount;
+        }
+
+        @Override
+        public String participant(int obligation) {
+            return participants.names.get(positionParticipant[obligation]);
+        }
+
+        @Override
+        public String symbol(int obligation) {
+            return symbols.names.get(positionSymbol[obligation]);
+        }
+
+        @Override
+        public long netQuantity(int obligation) {
+            return netQuantity[obligation];
+        }
+
+        @Override
+        public long netCashCents(int obligation) {
+            return netCashCents[obligation];
+        }
+    }
+}
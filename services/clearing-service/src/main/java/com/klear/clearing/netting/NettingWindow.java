@@ -0,0 +1,34 @@
+package com.klear.clearing.netting;
+
+/**
+ * A closed netting window, as handed to a {@link NettingEngine.WindowListener}: one net
+ * obligation per participant and symbol that traded in it. Net quantity is shares to
+ * receive (negative: to deliver) and net cash is cents to receive (negative: to pay).
+ *
+ * A view over the engine's accumulators, valid only during the listener call.
+ */
+public interface NettingWindow {
+
+    long id();
+
+    long openedAtMillis();
+
+    long closedAtMillis();
+
+    /**
+     * {@link System#nanoTime()} when closing began, for measuring close latency.
+     */
+    long closeStartedNanos();
+
+    long tradeCount();
+
+    int obligationCount();
+
+    String participant(int obligation);
+
+    String symbol(int obligation);
+
+    long netQuantity(int obligation);
+
+    long netCashCents(int obligation);
+}
@@ -1,15 +1,33 @@
 package com.klear.clearing.service;
 
+import com.klear.clearing.margin.MarginEngine;
+import com.klear.clearing.margin.ScenarioGrid;
+import com.klear.clearing.netting.NettingEngine;
+import com.klear.clearing.netting.NettingWindow;
 import com.klear.communication.core.BaseService;
+import com.klear.model.order.Order;
 import com.klear.model.order.OrderStatus;
+import com.klear.model.price.FixedPoint;
 
 import static com.klear.model.order.OrderStatus.FAILED;
 import com.klear.model.queue.QueueItemTypes;
-import com.klear.model.response.ClearingResponse;
 import com.klear.model.trade.Trade;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import redis.clients.jedis.Jedis;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class ClearingService extends BaseService {
@@ -25,11 +43,188 @@ public class ClearingService extends BaseService {
     @Value("${clearing_service_channel_name}")
     private String channelName;
 
+    @Value("${clearing_netting_enabled:false}")
+    private boolean nettingEnabled;
+
+    @Value("${clearing_netting_window_trades:100000}")
+    private int nettingWindowTrades;
+
+    @Value("${clearing_netting_window_ms:1000}")
+    private long nettingWindowMs;
+
+    @Value("${clearing_netting_max_positions:65536}")
+    private int nettingMaxPositions;
+
+    @Value("${clearing_netting_channel_name:clearing_netting_channel}")
+    private String nettingChannelName;
+
+    @Value("${clearing_margin_enabled:false}")
+    private boolean marginEnabled;
+
+    @Value("${clearing_margin_max:1000000}")
+    private double marginMax;
+
+    @Value("${clearing_margin_confidence:0.99}")
+    private double marginConfidence;
+
+    @Value("${clearing_margin_scenarios:500}")
+    private int marginScenarios;
+
+    @Value("${clearing_margin_volatility:0.02}")
+    private double marginVolatility;
+
+    @Value("${clearing_margin_scenario_file:}")
+    private String marginScenarioFile;
+
+    @Value("${clearing_margin_revalue_ms:1000}")
+    private long marginRevalueMs;
+
+    @Value("${clearing_margin_parallelism:0}")
+    private int marginParallelism;
+
+    // Null unless margin is enabled
+    private MarginEngine margin;
+    private ScheduledExecutorService marginTimer;
+    private ForkJoinPool marginPool;
+
+    // Null unless netting is enabled
+    private NettingEngine netting;
+    private ScheduledExecutorService nettingTimer;
+    private Jedis nettingPublisher;
+
     @PostConstruct
     public void init() {
+        if (marginEnabled) {
+            startMargin();
+        }
+        if (nettingEnabled) {
+            startNetting();
+        }
         initializeRedis();
     }
 
+    @Override
+    public void shutdown() {
+        if (marginTimer != null) {
+            marginTimer.shutdown();
+        }
+        if (marginPool != null && marginPool != ForkJoinPool.commonPool()) {
+            marginPool.shutdown();
+        }
+        if (nettingTimer != null) {
+            nettingTimer.shutdown();
+            netting.flush(System.currentTimeMillis());
+        }
+        if (nettingPublisher != null) {
+            nettingPublisher.close();
+        }
+        super.shutdown();
+    }
+
+    /**
+     * Checks every trade against its client's portfolio margin in {@code engine}, failing
+     * trades that would take it above the engine's limit.
+     */
+    protected void enableMargin(MarginEngine engine) {
+        this.margin = engine;
+    }
+
+    protected MarginEngine getMarginEngine() {
+        return margin;
+    }
+
+    private void startMargin() {
+        ScenarioGrid grid;
+        if (marginScenarioFile != null && !marginScenarioFile.isBlank()) {
+            try {
+                grid = ScenarioGrid.load(Path.of(marginScenarioFile), marginVolatility, 42);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot load margin scenarios from " + marginScenarioFile, e);
+            }
+        } else {
+            grid = ScenarioGrid.generated(marginScenarios, marginVolatility, 42);
+        }
+        marginPool = marginParallelism > 0 ? new ForkJoinPool(marginParallelism) : ForkJoinPool.commonPool();
+        enableMargin(new MarginEngine(grid, marginConfidence, marginMax, marginPool));
+        if (marginRevalueMs > 0) {
+            marginTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "ClearingService-margin-revalue");
+                t.setDaemon(true);
+                return t;
+            });
+            marginTimer.scheduleWithFixedDelay(this::revalueMargin, marginRevalueMs, marginRevalueMs,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void revalueMargin() {
+        if (!margin.pricesMoved()) {
+            return;
+        }
+        long start = System.nanoTime();
+        margin.recalculateAll();
+        log.info("Revalued margin for {} participants in {} ms", margin.participantCount(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Nets every trade that clears into {@code engine}'s windows. Trades are still cleared
+     * and replied to one by one; the windows only add the net obligations.
+     */
+    protected void enableNetting(NettingEngine engine) {
+        this.netting = engine;
+    }
+
+    protected NettingEngine getNettingEngine() {
+        return netting;
+    }
+
+    private void startNetting() {
+        nettingPublisher = new Jedis(ipAddress, port);
+        enableNetting(new NettingEngine(nettingWindowTrades, nettingWindowMs, nettingMaxPositions,
+                this::publishWindow));
+        if (nettingWindowMs > 0) {
+            // Closes windows that stop receiving trades; busy windows close on the trade path
+            long period = Math.max(1, nettingWindowMs / 10);
+            nettingTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "ClearingService-netting-timer");
+                t.setDaemon(true);
+                return t;
+            });
+            nettingTimer.scheduleAtFixedRate(() -> netting.closeIfDue(System.currentTimeMillis()),
+                    period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Publishes a closed window's net obligations as one JSON message. Called with the
+     * engine locked, so the publisher connection is only ever used by one thread at a time.
+     */
+    private void publishWindow(NettingWindow window) {
+        List<Map<String, Object>> obligations = new ArrayList<>(window.obligationCount());
+        for (int i = 0; i < window.obligationCount(); i++) {
+            Map<String, Object> obligation = new LinkedHashMap<>();
+            obligation.put("participant", window.participant(i));
+            obligation.put("symbol", window.symbol(i));
+            obligation.put("netQuantity", window.netQuantity(i));
+            obligation.put("netCash", window.netCashCents(i) / 100.0);
+            obligations.add(obligation);
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("windowId", window.id());
+        report.put("openedAt", window.openedAtMillis());
+        report.put("closedAt", window.closedAtMillis());
+        report.put("trades", window.tradeCount());
+        report.put("obligations", obligations);
+        try {
+            nettingPublisher.publish(nettingChannelName, objectMapper.writeValueAsString(report));
+        } catch (Exception e) {
+            log.error("Failed to publish netting window {}", window.id(), e);
+        }
+        log.info("Netting window {} closed: {} trades netted to {} obligations in {} us", window.id(),
+                window.tradeCount(), window.obligationCount(), (System.nanoTime() - window.closeStartedNanos()) / 1000);
+    }
+
     @Override
     protected String getServiceName() {
         return "ClearingService";
@@ -58,23 +253,71 @@ public class ClearingService extends BaseService {
     @Override
     protected Trade processTrade(Trade trade) {
         // Simulate clearing with a CCP
-        double nettedAmount = trade.getOrder().getQuantity() * trade.getExecutedPrice();
+        // Partial fills clear only what executed; older executions do not carry a quantity
+        int quantity = trade.getExecutedQuantity() > 0 ? trade.getExecutedQuantity() : trade.getOrder().getQuantity();
+        Integer scale = trade.getOrder().getPriceScale();
+        if (scale != null) {
+            // Fixed point: the netted amount is exact in the price's ticks
+            long nettedTicks = FixedPoint.notional(quantity, trade.getExecutedPriceTicks());
+            if (nettedTicks > FixedPoint.toTicks(MAX_NETTED_AMOUNT, scale)) {
+                return riskLimitExceeded(trade, FixedPoint.toString(nettedTicks, scale));
+            }
+            if (!checkMargin(trade, quantity)) {
+                return trade;
+            }
+            trade.setNettedAmountTicks(nettedTicks);
+            return cleared(trade, quantity, FixedPoint.rescale(nettedTicks, scale, 2));
+        }
+        double nettedAmount = quantity * trade.getExecutedPrice();
 
         // Check risk limit
         if (nettedAmount > MAX_NETTED_AMOUNT) {
+            return riskLimitExceeded(trade, String.valueOf(nettedAmount));
+        }
+
+        if (!checkMargin(trade, quantity)) {
+            return trade;
+        }
+
+        trade.setNettedAmount(nettedAmount);
+        return cleared(trade, quantity, quantity * Math.round(trade.getExecutedPrice() * 100));
+    }
+
+    private static Trade riskLimitExceeded(Trade trade, String nettedAmount) {
+        trade.setStatus(FAILED);
+        trade.setFailureStage("CLEARING");
+        trade.setFailureReason("Risk limit exceeded: netted amount " + nettedAmount + " exceeds max " + MAX_NETTED_AMOUNT);
+        trade.setClearingMessage("Clearing failed: Risk limit exceeded");
+        return trade;
+    }
+
+    /**
+     * Applies the trade to its client's portfolio margin; false, with the trade failed, if
+     * it would breach the limit.
+     */
+    private boolean checkMargin(Trade trade, int quantity) {
+        if (margin != null && !margin.apply(trade.getOrder().getClientId(), trade.getOrder().getStockSymbol(),
+                trade.getOrder().getSide(), quantity, trade.getExecutedPrice())) {
             trade.setStatus(FAILED);
             trade.setFailureStage("CLEARING");
-            trade.setFailureReason("Risk limit exceeded: netted amount " + nettedAmount + " exceeds max " + MAX_NETTED_AMOUNT);
-            trade.setClearingMessage("Clearing failed: Risk limit exceeded");
-            return trade;
+            trade.setFailureReason("Margin limit exceeded: margin " + margin.lastMargin() + " exceeds max "
+                    + margin.maxMargin());
+            trade.setClearingMessage("Clearing failed: Margin limit exceeded");
+            return false;
         }
+        return true;
+    }
 
-        ClearingResponse clearingResponse = new ClearingResponse(
-                trade.getOrderId(), nettedAmount, "Clearing Successful");
-        trade.setNettedAmount(clearingResponse.getNettedAmount());
-        trade.setClearingMessage(clearingResponse.getMessage());
+    private Trade cleared(Trade trade, int quantity, long nettedCents) {
+        trade.setClearingMessage("Clearing Successful");
         trade.setStatus(OrderStatus.CLEARED);
 
+        if (netting != null) {
+            Order order = trade.getOrder();
+            netting.addNotional(order.getClientId(), order.getClientCode(), order.getStockSymbol(),
+                    order.getSymbolCode(), order.getSide(), quantity, nettedCents, System.currentTimeMillis());
+        }
+
         return trade;
     }
 }
\ No newline at end of file
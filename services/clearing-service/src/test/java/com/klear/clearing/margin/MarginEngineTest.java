@@ -0,0 +1,108 @@
+package com.klear.clearing.margin;
+
+import com.klear.model.order.Side;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarginEngineTest {
+
+    @TempDir
+    Path dir;
+
+    /** Ten scenarios, AAPL falling by 1% to 10%; the 90% margin is the second-worst loss. */
+    private ScenarioGrid grid() throws Exception {
+        Path file = dir.resolve("scenarios.csv");
+        Files.writeString(file, "# symbol,shocks\n"
+                + "AAPL,-0.01,-0.02,-0.03,-0.04,-0.05,-0.06,-0.07,-0.08,-0.09,-0.10\n"
+                + "MSFT,0.01,0.02,0.03,0.04,0.05,0.06,0.07,0.08,0.09,0.10\n");
+        return ScenarioGrid.load(file, 0.02, 1);
+    }
+
+    @Test
+    void testMarginIsLossAtConfidenceAndHedgesOffset() throws Exception {
+        MarginEngine engine = new MarginEngine(grid(), 0.9, 0, ForkJoinPool.commonPool());
+
+        assertTrue(engine.apply("C1", "AAPL", Side.BUY, 100, 100.00));
+        assertEquals(900.0, engine.margin("C1"), 1e-6);
+
+        // MSFT moves opposite to AAPL in every scenario: an equal long position cancels the risk
+        assertTrue(engine.apply("C1", "MSFT", Side.BUY, 100, 100.00));
+        assertEquals(0.0, engine.margin("C1"), 1e-6);
+
+        assertTrue(engine.apply("C2", "AAPL", Side.SELL, 50, 100.00));
+        assertEquals(0.0, engine.margin("C2"), 1e-6);
+        assertEquals(-50, engine.position("C2", "AAPL"));
+    }
+
+    @Test
+    void testTradeBreachingLimitIsRefusedAndReducingTradeIsAccepted() throws Exception {
+        MarginEngine engine = new MarginEngine(grid(), 0.9, 1000, ForkJoinPool.commonPool());
+
+        assertTrue(engine.apply("C1", "AAPL", Side.BUY, 100, 100.00));
+        assertFalse(engine.apply("C1", "AAPL", Side.BUY, 50, 100.00));
+        assertEquals(1350.0, engine.lastMargin(), 1e-6);
+        assertEquals(100, engine.position("C1", "AAPL"));
+        assertEquals(900.0, engine.margin("C1"), 1e-6);
+        assertFalse(engine.apply("C2", "AAPL", Side.BUY, 200, 100.00));
+        assertEquals(0, engine.position("C2", "AAPL"));
+
+        assertTrue(engine.apply("C1", "AAPL", Side.SELL, 40, 100.00));
+        assertEquals(540.0, engine.margin("C1"), 1e-6);
+    }
+
+    @Test
+    void testRecalculateAllMarksToLastPriceAndMatchesIncremental() {
+        ScenarioGrid grid = ScenarioGrid.generated(250, 0.02, 7);
+        MarginEngine engine = new MarginEngine(grid, 0.99, 0, new ForkJoinPool(4));
+        MarginEngine reference = new MarginEngine(grid, 0.99, 0, ForkJoinPool.commonPool());
+        String[] symbols = {"AAPL", "MSFT", "GOOG", "AMZN"};
+        SplittableRandom random = new SplittableRandom(3);
+
+        for (int i = 0; i < 5000; i++) {
+            String client = "C" + random.nextInt(300);
+            String symbol = symbols[random.nextInt(symbols.length)];
+            Side side = random.nextBoolean() ? Side.BUY : Side.SELL;
+            engine.apply(client, symbol, side, 1 + random.nextInt(100), 100.00);
+        }
+        double before = engine.margin("C1");
+        engine.recalculateAll();
+        assertEquals(before, engine.margin("C1"), 1e-6);
+        assertEquals(300, engine.participantCount());
+
+        // A new price for AAPL remarks every AAPL holder, as if each had just traded there
+        engine.apply("C1", "AAPL", Side.BUY, 1, 110.00);
+        engine.apply("C1", "AAPL", Side.SELL, 1, 110.00);
+        assertTrue(engine.pricesMoved());
+        engine.recalculateAll();
+        assertFalse(engine.pricesMoved());
+        for (String symbol : symbols) {
+            long quantity = engine.position("C2", symbol);
+            reference.apply("C2", symbol, Side.BUY, quantity, symbol.equals("AAPL") ? 110.00 : 100.00);
+        }
+        assertEquals(reference.margin("C2"), engine.margin("C2"), 1e-6);
+    }
+
+    @Test
+    void testValueAtRiskSelectsQuantile() {
+        SplittableRandom random = new SplittableRandom(11);
+        double[] pnl = new double[500];
+        double[] work = new double[500];
+        for (int round = 0; round < 100; round++) {
+            for (int k = 0; k < pnl.length; k++) {
+                pnl[k] = random.nextInt(200) - 150;
+            }
+            double[] sorted = pnl.clone();
+            Arrays.sort(sorted);
+            int index = random.nextInt(pnl.length);
+            assertEquals(Math.max(0, -sorted[index]), MarginEngine.valueAtRisk(pnl, work, index));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.klear.clearing.netting;
+
+import com.klear.model.order.Side;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NettingEngineTest {
+
+    /** Copies each closed window, keyed by "participant/symbol" to {quantity, cents}. */
+    private final List<Map<String, long[]>> windows = new ArrayList<>();
+    private final List<Long> tradeCounts = new ArrayList<>();
+
+    private void capture(NettingWindow window) {
+        Map<String, long[]> obligations = new HashMap<>();
+        for (int i = 0; i < window.obligationCount(); i++) {
+            obligations.put(window.participant(i) + "/" + window.symbol(i),
+                    new long[]{window.netQuantity(i), window.netCashCents(i)});
+        }
+        windows.add(obligations);
+        tradeCounts.add(window.tradeCount());
+    }
+
+    @Test
+    void testNetsBuysAndSellsPerParticipantAndSymbol() {
+        NettingEngine engine = new NettingEngine(4, 0, 16, this::capture);
+
+        engine.add("C1", "AAPL", Side.BUY, 100, 150.00, 0);
+        engine.add("C1", "AAPL", Side.SELL, 40, 151.00, 0);
+        engine.add("C2", "AAPL", Side.SELL, 60, 150.50, 0);
+        assertTrue(windows.isEmpty());
+        assertEquals(1, engine.add("C1", "MSFT", null, 10, 300.00, 0));
+
+        assertEquals(1, windows.size());
+        Map<String, long[]> window = windows.get(0);
+        assertEquals(3, window.size());
+        assertArrayEquals(new long[]{60, -100 * 15000L + 40 * 15100L}, window.get("C1/AAPL"));
+        assertArrayEquals(new long[]{-60, 60 * 15050L}, window.get("C2/AAPL"));
+        assertArrayEquals(new long[]{10, -10 * 30000L}, window.get("C1/MSFT"));
+        assertEquals(2, engine.openWindowId());
+        assertEquals(0, engine.openTradeCount());
+    }
+
+    @Test
+    void testCodedAndUncodedNamesNetTogether() {
+        NettingEngine engine = new NettingEngine(3, 0, 16, this::capture);
+
+        engine.addNotional("C1", 7, "AAPL", 2, Side.BUY, 100, 1_500_000, 0);
+        engine.addNotional("C1", "AAPL", Side.SELL, 40, 604_000, 0);
+        engine.addNotional("C1", 7, "AAPL", 2, Side.BUY, 10, 150_000, 0);
+
+        assertEquals(1, windows.size());
+        assertEquals(1, windows.get(0).size());
+        assertArrayEquals(new long[]{70, -1_046_000}, windows.get(0).get("C1/AAPL"));
+    }
+
+    @Test
+    void testTimeWindowClosesOnNextTradeOrTimer() {
+        NettingEngine engine = new NettingEngine(0, 100, 16, this::capture);
+
+        assertFalse(engine.closeIfDue(50));
+        engine.add("C1", "AAPL", Side.BUY, 10, 1.00, 0);
+        engine.add("C1", "AAPL", Side.BUY, 10, 1.00, 99);
+        assertFalse(engine.closeIfDue(99));
+        assertTrue(engine.closeIfDue(100));
+        assertFalse(engine.closeIfDue(500));
+
+        // The window opens with its first trade, and a late trade closes the old one first
+        assertEquals(2, engine.add("C1", "AAPL", Side.BUY, 5, 1.00, 1000));
+        assertEquals(3, engine.add("C1", "AAPL", Side.BUY, 5, 1.00, 1100));
+        engine.flush(1100);
+
+        assertEquals(List.of(2L, 1L, 1L), tradeCounts);
+        assertEquals(20, windows.get(0).get("C1/AAPL")[0]);
+        assertEquals(3, engine.windowsClosed());
+    }
+
+    @Test
+    void testFullWindowClosesEarlyAndStartsClean() {
+        NettingEngine engine = new NettingEngine(0, 0, 2, this::capture);
+
+        engine.add("C1", "AAPL", Side.BUY, 1, 1.00, 0);
+        engine.add("C2", "AAPL", Side.BUY, 1, 1.00, 0);
+        engine.add("C1", "AAPL", Side.BUY, 1, 1.00, 0);
+        assertTrue(windows.isEmpty());
+        engine.add("C3", "AAPL", Side.BUY, 1, 1.00, 0);
+        engine.add("C1", "AAPL", Side.SELL, 1, 1.00, 0);
+        engine.flush(0);
+
+        assertEquals(2, windows.size());
+        assertEquals(2, windows.get(0).get("C1/AAPL")[0]);
+        assertEquals(-1, windows.get(1).get("C1/AAPL")[0]);
+        assertEquals(1, windows.get(1).get("C3/AAPL")[0]);
+        assertNull(windows.get(1).get("C2/AAPL"));
+    }
+
+    @Test
+    void testManyTradesNetToBoundedObligations() {
+        NettingEngine engine = new NettingEngine(1_000_000, 0, 1024, this::capture);
+        String[] clients = new String[100];
+        String[] symbols = {"AAPL", "MSFT", "GOOG", "AMZN", "TSLA"};
+        for (int i = 0; i < clients.length; i++) {
+            clients[i] = "C" + i;
+        }
+
+        long[] expected = new long[clients.length];
+        for (int i = 0; i < 2_000_000; i++) {
+            int client = i % clients.length;
+            Side side = (i / clients.length) % 3 == 0 ? Side.SELL : Side.BUY;
+            engine.add(clients[client], symbols[i % symbols.length], side, 1, 10.00, 0);
+            if (i < 1_000_000 && i % symbols.length == 0) {
+                expected[client] += side == Side.SELL ? -1 : 1;
+            }
+        }
+
+        assertEquals(2, windows.size());
+        assertEquals(1_000_000L, tradeCounts.get(0));
+        assertEquals(expected[0], windows.get(0).get("C0/AAPL")[0]);
+        assertTrue(windows.get(0).size() <= clients.length * symbols.length);
+        assertTrue(engine.maxCloseNanos() > 0);
+    }
+}
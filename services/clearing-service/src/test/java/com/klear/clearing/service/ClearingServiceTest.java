@@ -1,17 +1,31 @@
 package com.klear.clearing.service;
 
+import com.klear.clearing.margin.MarginEngine;
+import com.klear.clearing.margin.ScenarioGrid;
+import com.klear.clearing.netting.NettingEngine;
 import com.klear.model.order.Order;
 import com.klear.model.order.OrderStatus;
+import com.klear.model.order.Side;
 import com.klear.model.trade.Trade;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class ClearingServiceTest {
 
+    @TempDir
+    Path dir;
+
     private ClearingService clearingService;
     private Order testOrder;
 
@@ -67,6 +81,24 @@ class ClearingServiceTest {
         assertEquals(10000.00, result.getNettedAmount(), 0.001);
     }
 
+    @Test
+    void testProcessTrade_FixedPointNettedAmountIsExact() throws Exception {
+        testOrder.setQuantity(3);
+        testOrder.setPriceTicks(10);
+        testOrder.setPriceScale(2);
+        Trade trade = new Trade("ORDER-009", testOrder, OrderStatus.EXECUTED);
+        trade.setExecutedPriceTicks(10);
+
+        Method processTrade = ClearingService.class.getDeclaredMethod("processTrade", Trade.class);
+        processTrade.setAccessible(true);
+        Trade result = (Trade) processTrade.invoke(clearingService, trade);
+
+        // 3 * 0.1 in doubles would be 0.30000000000000004
+        assertEquals(OrderStatus.CLEARED, result.getStatus());
+        assertEquals(30, result.getNettedAmountTicks());
+        assertEquals(0.3, result.getNettedAmount());
+    }
+
     @Test
     void testGetServiceName() {
         assertEquals("ClearingService", clearingService.getServiceName());
@@ -102,4 +134,65 @@ class ClearingServiceTest {
         assertEquals(OrderStatus.CLEARED, result.getStatus());
         assertEquals(1000000.00, result.getNettedAmount(), 0.001);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testProcessTrade_NetsClearedTradesAndStillRepliesPerTrade() throws Exception {
+        List<Long> netQuantities = new ArrayList<>();
+        NettingEngine engine = new NettingEngine(2, 0, 16, window -> {
+            for (int i = 0; i < window.obligationCount(); i++) {
+                netQuantities.add(window.netQuantity(i));
+            }
+        });
+        Method enableNetting = ClearingService.class.getDeclaredMethod("enableNetting", NettingEngine.class);
+        enableNetting.setAccessible(true);
+        enableNetting.invoke(clearingService, engine);
+        Method processTrade = ClearingService.class.getDeclaredMethod("processTrade", Trade.class);
+        processTrade.setAccessible(true);
+
+        testOrder.setSide(Side.BUY);
+        Trade buy = new Trade("ORDER-007", testOrder, OrderStatus.EXECUTED);
+        buy.setExecutedPrice(150.00);
+        Order sell = new Order(testOrder);
+        sell.setSide(Side.SELL);
+        sell.setQuantity(30);
+        Trade sellTrade = new Trade("ORDER-008", sell, OrderStatus.EXECUTED);
+        sellTrade.setExecutedPrice(150.00);
+
+        assertEquals(OrderStatus.CLEARED, ((Trade) processTrade.invoke(clearingService, buy)).getStatus());
+        assertTrue(netQuantities.isEmpty());
+        Trade result = (Trade) processTrade.invoke(clearingService, sellTrade);
+
+        assertEquals(OrderStatus.CLEARED, result.getStatus());
+        assertEquals(4500.00, result.getNettedAmount(), 0.001);
+        assertEquals(List.of(70L), netQuantities);
+    }
+
+    @Test
+    void testProcessTrade_FailsOnMarginLimitExceeded() throws Exception {
+        // Every scenario is a 10% fall: 100 shares at 150 need 1,500 of margin
+        Path file = dir.resolve("scenarios.csv");
+        Files.writeString(file, "AAPL," + String.join(",", Collections.nCopies(100, "-0.10")));
+        MarginEngine engine = new MarginEngine(ScenarioGrid.load(file, 0.02, 1), 0.99, 2000,
+                ForkJoinPool.commonPool());
+        Method enableMargin = ClearingService.class.getDeclaredMethod("enableMargin", MarginEngine.class);
+        enableMargin.setAccessible(true);
+        enableMargin.invoke(clearingService, engine);
+        Method processTrade = ClearingService.class.getDeclaredMethod("processTrade", Trade.class);
+        processTrade.setAccessible(true);
+
+        testOrder.setSide(Side.BUY);
+        Trade first = new Trade("ORDER-009", testOrder, OrderStatus.EXECUTED);
+        first.setExecutedPrice(150.00);
+        assertEquals(OrderStatus.CLEARED, ((Trade) processTrade.invoke(clearingService, first)).getStatus());
+
+        Trade second = new Trade("ORDER-010", new Order(testOrder), OrderStatus.EXECUTED);
+        second.setExecutedPrice(150.00);
+        Trade result = (Trade) processTrade.invoke(clearingService, second);
+
+        assertEquals(OrderStatus.FAILED, result.getStatus());
+        assertEquals("CLEARING", result.getFailureStage());
+        assertEquals("Clearing failed: Margin limit exceeded", result.getClearingMessage());
+        assertTrue(result.getFailureReason().startsWith("Margin limit exceeded: margin 3000.0"));
+        assertEquals(100, engine.position("CLIENT123", "AAPL"));
+    }
+}
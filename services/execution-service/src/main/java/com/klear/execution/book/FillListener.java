@@ -0,0 +1,17 @@
+package com.klear.execution.book;
+
+/**
+ * Receives each fill against a resting order while {@link OrderBook#match} runs.
+ * Implementations must not modify the book from inside the callback.
+ */
+@FunctionalInterface
+public interface FillListener {
+
+    /**
+     * @param makerRef       reference attached to the resting order when it was added
+     * @param priceTicks     execution price, in ticks (always the resting order's price)
+     * @param quantity       quantity filled by this match
+     * @param makerRemaining quantity left on the resting order; 0 means it left the book
+     */
+    void onFill(Object makerRef, long priceTicks, long quantity, long makerRemaining);
+}
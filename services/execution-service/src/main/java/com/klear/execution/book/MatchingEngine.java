@@ -0,0 +1,264 @@
+package com.klear.execution.book;
+
+import com.klear.model.order.OrderType;
+import com.klear.model.order.Side;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-symbol order books plus the market, limit and IOC order semantics on top of them.
+ *
+ * A submitted order first matches against the opposite side. A market or IOC remainder is
+ * cancelled; a limit remainder rests in the book, carrying the fills it already got, and
+ * the {@link RestingOrderListener} is told once later orders have filled it completely.
+ * The result of the last {@link #submit} is read back through the {@code last*} accessors
+ * so that submitting allocates nothing.
+ *
+ * Not thread-safe: an engine and its books are owned by a single worker thread.
+ */
+public final class MatchingEngine {
+
+    public enum Outcome {
+        FILLED,           // Filled completely on arrival
+        PARTIALLY_FILLED, // Partly filled, remainder cancelled
+        RESTING,          // Remainder (possibly all of it) rests in the book
+        NO_LIQUIDITY,     // Market or IOC order found nothing to match
+        REJECTED          // Limit price outside the book's window, nothing filled
+    }
+
+    /**
+     * Told when a resting limit order has been filled completely.
+     */
+    @FunctionalInterface
+    public interface RestingOrderListener {
+        void onRestingOrderFilled(Object ref, long filledQuantity, double averagePrice);
+    }
+
+    private static final int INITIAL_ORDERS_PER_BOOK = 1024;
+
+    private final long ticksPerUnit;
+    private final int bookLevels;
+    private final RestingOrderListener restingOrderListener;
+    private final Map<String, OrderBook> books = new HashMap<>();
+    // The same books by symbol reference code, so that coded symbols skip the map
+    private OrderBook[] booksByCode = new OrderBook[0];
+    private final ArrayDeque<RestingOrder> freeRestingOrders = new ArrayDeque<>();
+    private final FillListener fillListener = this::onFill;
+
+    // Result of the last submit
+    private long lastFilledQuantity;
+    private long lastNotionalTicks;
+    private OrderBook lastBook;
+    private int lastHandle = OrderBook.NO_ORDER;
+
+    /**
+     * @param tickSize   minimum price increment; must divide 1 (0.01, 0.05, 0.25, 1, ...)
+     * @param bookLevels number of ticks each book's price window covers
+     */
+    public MatchingEngine(double tickSize, int bookLevels, RestingOrderListener restingOrderListener) {
+        long ticks = Math.round(1.0 / tickSize);
+        if (tickSize <= 0 || ticks == 0 || Math.abs(ticks * tickSize - 1.0) > 1e-9) {
+            throw new IllegalArgumentException("tick size must divide 1: " + tickSize);
+        }
+        this.ticksPerUnit = ticks;
+        this.bookLevels = bookLevels;
+        this.restingOrderListener = restingOrderListener;
+    }
+
+    /**
+     * Matches an order and, for a limit order, rests whatever is left. Market orders
+     * ignore {@code price}. Use {@link #attachToResting} after a {@link Outcome#RESTING}
+     * result to tie the resting order to the caller's state.
+     */
+    public Outcome submit(String symbol, Side side, OrderType type, double price, long quantity) {
+        return submit(0, symbol, side, type, price, quantity);
+    }
+
+    /**
+     * {@link #submit} for a symbol with a reference code (0 for none), whose book is then
+     * found by index.
+     */
+    public Outcome submit(int symbolCode, String symbol, Side side, OrderType type, double price, long quantity) {
+        OrderBook book = book(symbolCode, symbol);
+        lastBook = book;
+        lastHandle = OrderBook.NO_ORDER;
+        lastFilledQuantity = 0;
+        lastNotionalTicks = 0;
+
+        long limitTicks = type == OrderType.MARKET ? OrderBook.marketLimit(side) : toTicks(side, price);
+        long filled = book.match(side, limitTicks, quantity, fillListener);
+        lastFilledQuantity = filled;
+        if (filled == quantity) {
+            return Outcome.FILLED;
+        }
+        if (type != OrderType.LIMIT) {
+            return filled == 0 ? Outcome.NO_LIQUIDITY : Outcome.PARTIALLY_FILLED;
+        }
+
+        RestingOrder resting = freeRestingOrders.poll();
+        if (resting == null) {
+            resting = new RestingOrder();
+        }
+        resting.filledQuantity = filled;
+        resting.notionalTicks = lastNotionalTicks;
+        lastHandle = book.add(side, limitTicks, quantity - filled, resting);
+        if (lastHandle == OrderBook.NO_ORDER) {
+            freeRestingOrders.offer(resting);
+            return filled == 0 ? Outcome.REJECTED : Outcome.PARTIALLY_FILLED;
+        }
+        return Outcome.RESTING;
+    }
+
+    /**
+     * Attaches the caller's reference to the order rested by the last submit; it is handed
+     * back through the {@link RestingOrderListener} or by {@link #cancel}.
+     */
+    public void attachToResting(Object ref) {
+        if (lastHandle == OrderBook.NO_ORDER) {
+            throw new IllegalStateException("The last order did not rest");
+        }
+        ((RestingOrder) lastBook.ref(lastHandle)).ref = ref;
+    }
+
+    /**
+     * Handle of the order rested by the last submit, or {@link OrderBook#NO_ORDER}.
+     */
+    public int lastRestingHandle() {
+        return lastHandle;
+    }
+
+    public long lastFilledQuantity() {
+        return lastFilledQuantity;
+    }
+
+    /**
+     * Volume-weighted price of the last submit's fills, or 0 if nothing filled.
+     */
+    public double lastAveragePrice() {
+        return averagePrice(lastNotionalTicks, lastFilledQuantity);
+    }
+
+    /**
+     * Cancels a resting order, returning its attached reference, or null if it is gone.
+     */
+    public Object cancel(String symbol, int handle) {
+        OrderBook book = books.get(symbol);
+        if (book == null) {
+            return null;
+        }
+        RestingOrder resting = (RestingOrder) book.ref(handle);
+        if (resting == null || !book.cancel(handle)) {
+            return null;
+        }
+        Object ref = resting.ref;
+        recycle(resting);
+        return ref;
+    }
+
+    public OrderBook book(String symbol) {
+        OrderBook book = books.get(symbol);
+        if (book == null) {
+            book = new OrderBook(bookLevels, INITIAL_ORDERS_PER_BOOK);
+            books.put(symbol, book);
+        }
+        return book;
+    }
+
+    private OrderBook book(int symbolCode, String symbol) {
+        if (symbolCode <= 0) {
+            return book(symbol);
+        }
+        if (symbolCode < booksByCode.length && booksByCode[symbolCode] != null) {
+            return booksByCode[symbolCode];
+        }
+        OrderBook book = book(symbol);
+        if (symbolCode >= booksByCode.length) {
+            booksByCode = Arrays.copyOf(booksByCode, Math.max(symbolCode + 1, booksByCode.length * 2));
+        }
+        booksByCode[symbolCode] = book;
+        return book;
+    }
+
+    /**
+     * Detaches a symbol's book, resting orders included, so another engine can take it
+     * over with {@link #installBook}. Returns null if the symbol has no book here.
+     */
+    public OrderBook removeBook(String symbol) {
+        OrderBook book = books.remove(symbol);
+        if (book == null) {
+            return null;
+        }
+        if (lastBook == book) {
+            lastBook = null;
+            lastHandle = OrderBook.NO_ORDER;
+        }
+        for (int code = 0; code < booksByCode.length; code++) {
+            if (booksByCode[code] == book) {
+                booksByCode[code] = null;
+            }
+        }
+        return book;
+    }
+
+    /**
+     * Takes over a book removed from another engine. The resting orders keep their
+     * references and are reported through this engine's listener from now on.
+     */
+    public void installBook(String symbol, OrderBook book) {
+        if (books.putIfAbsent(symbol, book) != null) {
+            throw new IllegalStateException("Engine already has a book for " + symbol);
+        }
+    }
+
+    /**
+     * Converts a limit price to ticks, rounding off-grid prices towards the passive side
+     * so that an order never trades through its limit.
+     */
+    public long toTicks(Side side, double price) {
+        double ticks = price * ticksPerUnit;
+        return side == Side.BUY ? (long) Math.floor(ticks + 1e-9) : (long) Math.ceil(ticks - 1e-9);
+    }
+
+    public double toPrice(long ticks) {
+        return ticks / (double) ticksPerUnit;
+    }
+
+    private double averagePrice(long notionalTicks, long quantity) {
+        return quantity == 0 ? 0.0 : notionalTicks / ((double) quantity * ticksPerUnit);
+    }
+
+    private void onFill(Object makerRef, long priceTicks, long quantity, long makerRemaining) {
+        long notional = priceTicks * quantity;
+        lastNotionalTicks += notional;
+
+        RestingOrder maker = (RestingOrder) makerRef;
+        maker.filledQuantity += quantity;
+        maker.notionalTicks += notional;
+        if (makerRemaining == 0) {
+            Object ref = maker.ref;
+            long filled = maker.filledQuantity;
+            double average = averagePrice(maker.notionalTicks, filled);
+            recycle(maker);
+            restingOrderListener.onRestingOrderFilled(ref, filled, average);
+        }
+    }
+
+    private void recycle(RestingOrder resting) {
+        resting.ref = null;
+        resting.filledQuantity = 0;
+        resting.notionalTicks = 0;
+        freeRestingOrders.offer(resting);
+    }
+
+    /**
+     * Fill accounting for a resting order, including what it filled on arrival.
+     */
+    private static final class RestingOrder {
+        Object ref;
+        long filledQuantity;
+        long notionalTicks;
+    }
+}
@@ -0,0 +1,314 @@
+package com.klear.execution.book;
+
+import com.klear.model.order.Side;
+
+import java.util.Arrays;
+
+/**
+ * Price-time priority limit order book for a single symbol.
+ *
+ * Prices are integer ticks. Each side keeps its price levels in flat arrays indexed by
+ * the tick offset from a base price, and every level is a FIFO doubly linked list of order
+ * slots. Orders live in parallel primitive slot arrays recycled through a free list, and a
+ * bitmask of non-empty levels finds the next best price a word at a time. Once the slot
+ * arrays have grown to the working set, adding, cancelling and matching allocate nothing.
+ *
+ * The book covers {@code levels} consecutive ticks. The window is centred on the first
+ * order and re-centred whenever the book is empty; orders priced outside it are refused.
+ *
+ * Not thread-safe: a book is owned by a single worker thread.
+ */
+public final class OrderBook {
+
+    public static final int NO_ORDER = -1;
+    public static final long NO_PRICE = Long.MIN_VALUE;
+
+    private static final int BID = 0;
+    private static final int ASK = 1;
+    private static final int NONE = -1;
+    private static final byte FREE = -1;
+
+    private final int levels;
+    private long baseTick;
+    private boolean anchored;
+
+    // Per side, per level (index = priceTicks - baseTick)
+    private final int[][] levelHead = new int[2][];
+    private final int[][] levelTail = new int[2][];
+    private final long[][] levelQuantity = new long[2][];
+    private final long[][] levelMask = new long[2][];
+    private final int[] best = {NONE, NONE};
+
+    // Per order slot
+    private long[] slotQuantity;
+    private int[] slotNext;
+    private int[] slotPrev;
+    private int[] slotLevel;
+    private byte[] slotSide;
+    private Object[] slotRef;
+    private int freeHead = NONE;
+    private int usedSlots;
+    private int orderCount;
+
+    public OrderBook(int levels, int initialOrders) {
+        if (levels <= 0) {
+            throw new IllegalArgumentException("levels must be positive: " + levels);
+        }
+        this.levels = levels;
+        for (int side = BID; side <= ASK; side++) {
+            levelHead[side] = new int[levels];
+            levelTail[side] = new int[levels];
+            Arrays.fill(levelHead[side], NONE);
+            Arrays.fill(levelTail[side], NONE);
+            levelQuantity[side] = new long[levels];
+            levelMask[side] = new long[(levels + 63) >>> 6];
+        }
+        int capacity = Math.max(16, initialOrders);
+        slotQuantity = new long[capacity];
+        slotNext = new int[capacity];
+        slotPrev = new int[capacity];
+        slotLevel = new int[capacity];
+        slotSide = new byte[capacity];
+        slotRef = new Object[capacity];
+    }
+
+    /**
+     * Rests an order at the back of its price level without matching it; callers match
+     * first. Returns a handle for {@link #cancel}, or {@link #NO_ORDER} if the price is
+     * outside the book's window. Handles are reused once an order leaves the book.
+     */
+    public int add(Side side, long priceTicks, long quantity, Object ref) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("quantity must be positive: " + quantity);
+        }
+        if (!anchored || (orderCount == 0 && !inWindow(priceTicks))) {
+            baseTick = priceTicks - levels / 2;
+            anchored = true;
+        }
+        if (!inWindow(priceTicks)) {
+            return NO_ORDER;
+        }
+        int s = side == Side.BUY ? BID : ASK;
+        int level = (int) (priceTicks - baseTick);
+        int slot = allocateSlot();
+        slotQuantity[slot] = quantity;
+        slotLevel[slot] = level;
+        slotSide[slot] = (byte) s;
+        slotRef[slot] = ref;
+        slotNext[slot] = NONE;
+
+        int tail = levelTail[s][level];
+        slotPrev[slot] = tail;
+        if (tail == NONE) {
+            levelHead[s][level] = slot;
+            levelMask[s][level >>> 6] |= 1L << level;
+            if (best[s] == NONE || (s == BID ? level > best[s] : level < best[s])) {
+                best[s] = level;
+            }
+        } else {
+            slotNext[tail] = slot;
+        }
+        levelTail[s][level] = slot;
+        levelQuantity[s][level] += quantity;
+        orderCount++;
+        return slot;
+    }
+
+    /**
+     * Removes a resting order. Returns false if the handle does not refer to a live order.
+     */
+    public boolean cancel(int handle) {
+        if (!isLive(handle)) {
+            return false;
+        }
+        unlink(handle);
+        freeSlot(handle);
+        return true;
+    }
+
+    /**
+     * Matches an incoming order against the opposite side, best price first and oldest
+     * order first within a price, stopping at {@code limitTicks} (use
+     * {@link #marketLimit} for market orders). Returns the quantity filled.
+     */
+    public long match(Side takerSide, long limitTicks, long quantity, FillListener listener) {
+        int s = takerSide == Side.BUY ? ASK : BID;
+        long remaining = quantity;
+        while (remaining > 0) {
+            int level = best[s];
+            if (level == NONE) {
+                break;
+            }
+            long priceTicks = baseTick + level;
+            if (s == ASK ? priceTicks > limitTicks : priceTicks < limitTicks) {
+                break;
+            }
+            int slot = levelHead[s][level];
+            while (slot != NONE && remaining > 0) {
+                long fill = Math.min(remaining, slotQuantity[slot]);
+                slotQuantity[slot] -= fill;
+                levelQuantity[s][level] -= fill;
+                remaining -= fill;
+
+                int next = slotNext[slot];
+                Object ref = slotRef[slot];
+                long makerRemaining = slotQuantity[slot];
+                if (makerRemaining == 0) {
+                    unlink(slot);
+                    freeSlot(slot);
+                }
+                listener.onFill(ref, priceTicks, fill, makerRemaining);
+                slot = next;
+            }
+        }
+        return quantity - remaining;
+    }
+
+    /**
+     * Limit that lets an order of the given side sweep the whole opposite side.
+     */
+    public static long marketLimit(Side side) {
+        return side == Side.BUY ? Long.MAX_VALUE : Long.MIN_VALUE;
+    }
+
+    /**
+     * Whether an order at this price could rest in the book right now.
+     */
+    public boolean accepts(long priceTicks) {
+        return !anchored || orderCount == 0 || inWindow(priceTicks);
+    }
+
+    public long bestBid() {
+        return best[BID] == NONE ? NO_PRICE : baseTick + best[BID];
+    }
+
+    public long bestAsk() {
+        return best[ASK] == NONE ? NO_PRICE : baseTick + best[ASK];
+    }
+
+    /**
+     * Total resting quantity on one side at a price.
+     */
+    public long quantityAt(Side side, long priceTicks) {
+        if (!anchored || !inWindow(priceTicks)) {
+            return 0;
+        }
+        return levelQuantity[side == Side.BUY ? BID : ASK][(int) (priceTicks - baseTick)];
+    }
+
+    /**
+     * Quantity still resting on an order, or 0 if the handle is not live.
+     */
+    public long remaining(int handle) {
+        return isLive(handle) ? slotQuantity[handle] : 0;
+    }
+
+    /**
+     * Reference attached to a resting order, or null if the handle is not live.
+     */
+    public Object ref(int handle) {
+        return isLive(handle) ? slotRef[handle] : null;
+    }
+
+    public int orderCount() {
+        return orderCount;
+    }
+
+    private boolean inWindow(long priceTicks) {
+        long offset = priceTicks - baseTick;
+        return offset >= 0 && offset < levels;
+    }
+
+    private boolean isLive(int handle) {
+        return handle >= 0 && handle < usedSlots && slotSide[handle] != FREE;
+    }
+
+    private void unlink(int slot) {
+        int s = slotSide[slot];
+        int level = slotLevel[slot];
+        int prev = slotPrev[slot];
+        int next = slotNext[slot];
+        if (prev == NONE) {
+            levelHead[s][level] = next;
+        } else {
+            slotNext[prev] = next;
+        }
+        if (next == NONE) {
+            levelTail[s][level] = prev;
+        } else {
+            slotPrev[next] = prev;
+        }
+        levelQuantity[s][level] -= slotQuantity[slot];
+        if (levelHead[s][level] == NONE) {
+            long[] mask = levelMask[s];
+            mask[level >>> 6] &= ~(1L << level);
+            if (best[s] == level) {
+                best[s] = s == BID ? previousSetBit(mask, level - 1) : nextSetBit(mask, level + 1);
+            }
+        }
+        orderCount--;
+    }
+
+    private int allocateSlot() {
+        if (freeHead != NONE) {
+            int slot = freeHead;
+            freeHead = slotNext[slot];
+            return slot;
+        }
+        if (usedSlots == slotQuantity.length) {
+            grow();
+        }
+        return usedSlots++;
+    }
+
+    private void freeSlot(int slot) {
+        slotSide[slot] = FREE;
+        slotRef[slot] = null;
+        slotNext[slot] = freeHead;
+        freeHead = slot;
+    }
+
+    private void grow() {
+        int capacity = slotQuantity.length * 2;
+        slotQuantity = Arrays.copyOf(slotQuantity, capacity);
+        slotNext = Arrays.copyOf(slotNext, capacity);
+        slotPrev = Arrays.copyOf(slotPrev, capacity);
+        slotLevel = Arrays.copyOf(slotLevel, capacity);
+        slotSide = Arrays.copyOf(slotSide, capacity);
+        slotRef = Arrays.copyOf(slotRef, capacity);
+    }
+
+    private int nextSetBit(long[] mask, int from) {
+        if (from >= levels) {
+            return NONE;
+        }
+        int word = from >>> 6;
+        long bits = mask[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == mask.length) {
+                return NONE;
+            }
+            bits = mask[word];
+        }
+    }
+
+    private int previousSetBit(long[] mask, int from) {
+        if (from < 0) {
+            return NONE;
+        }
+        int word = from >>> 6;
+        long bits = mask[word] & (-1L >>> (63 - (from & 63)));
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + 63 - Long.numberOfLeadingZeros(bits);
+            }
+            if (--word < 0) {
+                return NONE;
+            }
+            bits = mask[word];
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.klear.execution.marketdata;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Local stand-in for a market-data feed: a daemon thread that pumps a {@link QuoteSource}
+ * into its {@link QuoteCache}.
+ *
+ * With a positive rate the thread holds the source to that many updates per second overall.
+ * It is allowed to run up to {@link #MAX_AHEAD_NANOS} ahead of schedule before sleeping, so
+ * even millions of updates per second cost one clock read each and no busy waiting.
+ */
+public final class MarketDataSimulator implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(MarketDataSimulator.class);
+
+    static final long MAX_AHEAD_NANOS = 100_000;
+
+    private final QuoteSource source;
+    private final long updatesPerSecond;
+    private final Thread thread;
+    private final AtomicLong published = new AtomicLong();
+
+    /**
+     * @param updatesPerSecond overall pace; 0 leaves pacing to the source
+     */
+    public MarketDataSimulator(QuoteSource source, long updatesPerSecond) {
+        this.source = source;
+        this.updatesPerSecond = updatesPerSecond;
+        this.thread = new Thread(this, "ExecutionService-market-data");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    public void stop() {
+        thread.interrupt();
+        try {
+            thread.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Updates written so far.
+     */
+    public long published() {
+        return published.get();
+    }
+
+    @Override
+    public void run() {
+        double intervalNanos = updatesPerSecond > 0 ? 1e9 / updatesPerSecond : 0;
+        long start = System.nanoTime();
+        long count = 0;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                if (!source.publishNext()) {
+                    log.info("Market data source exhausted after {} updates", count);
+                    return;
+                }
+                published.lazySet(++count);
+                if (intervalNanos > 0) {
+                    long ahead = start + (long) (count * intervalNanos) - System.nanoTime();
+                    if (ahead > MAX_AHEAD_NANOS) {
+                        LockSupport.parkNanos(this, ahead);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Market data simulator failed after {} updates", count, e);
+        }
+    }
+}
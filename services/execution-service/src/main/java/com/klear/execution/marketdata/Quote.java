@@ -0,0 +1,53 @@
+package com.klear.execution.marketdata;
+
+import com.klear.model.order.Side;
+
+/**
+ * A consistent copy of one symbol's top of book, filled in by {@link QuoteCache#read}.
+ *
+ * Mutable so that each reader can keep one and reuse it on every read; never shared
+ * between threads.
+ */
+public final class Quote {
+
+    double bid;
+    double ask;
+    long bidSize;
+    long askSize;
+    long timestamp;
+
+    public double getBid() {
+        return bid;
+    }
+
+    public double getAsk() {
+        return ask;
+    }
+
+    public long getBidSize() {
+        return bidSize;
+    }
+
+    public long getAskSize() {
+        return askSize;
+    }
+
+    /**
+     * Time of the update in epoch milliseconds.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Price an aggressive order on {@code side} trades at: the ask for a buy, the bid for a sell.
+     */
+    public double priceFor(Side side) {
+        return side == Side.BUY ? ask : bid;
+    }
+
+    @Override
+    public String toString() {
+        return bidSize + " @ " + bid + " / " + askSize + " @ " + ask;
+    }
+}
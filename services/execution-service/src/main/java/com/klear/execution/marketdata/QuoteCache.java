@@ -0,0 +1,139 @@
+package com.klear.execution.marketdata;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Latest quote per symbol, written by market-data feeds and read by execution threads
+ * without either side ever taking a lock.
+ *
+ * Each symbol owns one 64-byte line of a flat {@code long[]}: a sequence number followed by
+ * bid, ask, sizes and timestamp. This is a seqlock: the writer makes the sequence odd, writes
+ * the fields and makes it even again; a reader copies the fields between two reads of the
+ * sequence and retries if they differ or are odd. Readers therefore never see half an update
+ * and never delay the writer, and a read or write allocates nothing.
+ *
+ * Any number of threads may read, but each symbol must have a single writer at a time.
+ */
+public final class QuoteCache {
+
+    // Longs per symbol: one cache line, so symbols updated by different feeds don't false-share
+    private static final int STRIDE = 8;
+    private static final int SEQUENCE = 0;
+    private static final int BID = 1;
+    private static final int ASK = 2;
+    private static final int BID_SIZE = 3;
+    private static final int ASK_SIZE = 4;
+    private static final int TIMESTAMP = 5;
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] slots;
+    private final String[] symbols;
+    private final ConcurrentHashMap<String, Integer> indexBySymbol = new ConcurrentHashMap<>();
+    private final AtomicInteger registered = new AtomicInteger();
+
+    public QuoteCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        // One spare line in front keeps the first symbol off the array header's line
+        this.slots = new long[(capacity + 1) * STRIDE];
+        this.symbols = new String[capacity];
+    }
+
+    /**
+     * Returns the symbol's index, assigning the next free one on first use.
+     */
+    public int register(String symbol) {
+        return indexBySymbol.computeIfAbsent(symbol, s -> {
+            int index = registered.getAndIncrement();
+            if (index >= symbols.length) {
+                registered.decrementAndGet();
+                throw new IllegalStateException("Quote cache is full (" + symbols.length + " symbols)");
+            }
+            symbols[index] = s;
+            return index;
+        });
+    }
+
+    /**
+     * Index of a registered symbol, or -1.
+     */
+    public int indexOf(String symbol) {
+        Integer index = indexBySymbol.get(symbol);
+        return index == null ? -1 : index;
+    }
+
+    public String symbol(int index) {
+        return symbols[index];
+    }
+
+    public int size() {
+        return registered.get();
+    }
+
+    /**
+     * Publishes a new quote for the symbol at {@code index}. Only the symbol's writer may call this.
+     */
+    public void update(int index, double bid, double ask, long bidSize, long askSize, long timestamp) {
+        int base = offset(index);
+        long sequence = (long) SLOTS.getOpaque(slots, base + SEQUENCE);
+        SLOTS.setOpaque(slots, base + SEQUENCE, sequence + 1);
+        VarHandle.storeStoreFence();
+        SLOTS.setOpaque(slots, base + BID, Double.doubleToRawLongBits(bid));
+        SLOTS.setOpaque(slots, base + ASK, Double.doubleToRawLongBits(ask));
+        SLOTS.setOpaque(slots, base + BID_SIZE, bidSize);
+        SLOTS.setOpaque(slots, base + ASK_SIZE, askSize);
+        SLOTS.setOpaque(slots, base + TIMESTAMP, timestamp);
+        SLOTS.setRelease(slots, base + SEQUENCE, sequence + 2);
+    }
+
+    /**
+     * Copies the symbol's latest quote into {@code into}; false if it has never been quoted.
+     */
+    public boolean read(int index, Quote into) {
+        int base = offset(index);
+        while (true) {
+            long before = (long) SLOTS.getAcquire(slots, base + SEQUENCE);
+            if (before == 0) {
+                return false;
+            }
+            if ((before & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            long bid = (long) SLOTS.getOpaque(slots, base + BID);
+            long ask = (long) SLOTS.getOpaque(slots, base + ASK);
+            long bidSize = (long) SLOTS.getOpaque(slots, base + BID_SIZE);
+            long askSize = (long) SLOTS.getOpaque(slots, base + ASK_SIZE);
+            long timestamp = (long) SLOTS.getOpaque(slots, base + TIMESTAMP);
+            VarHandle.loadLoadFence();
+            if ((long) SLOTS.getOpaque(slots, base + SEQUENCE) == before) {
+                into.bid = Double.longBitsToDouble(bid);
+                into.ask = Double.longBitsToDouble(ask);
+                into.bidSize = bidSize;
+                into.askSize = askSize;
+                into.timestamp = timestamp;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Copies the symbol's latest quote into {@code into}; false if it is unknown or unquoted.
+     */
+    public boolean read(String symbol, Quote into) {
+        int index = indexOf(symbol);
+        return index >= 0 && read(index, into);
+    }
+
+    private int offset(int index) {
+        if (index < 0 || index >= symbols.length) {
+            throw new IndexOutOfBoundsException("No quote slot " + index);
+        }
+        return (index + 1) * STRIDE;
+    }
+}
@@ -0,0 +1,13 @@
+package com.klear.execution.marketdata;
+
+/**
+ * A stream of quote updates that a {@link MarketDataSimulator} pumps into a {@link QuoteCache}.
+ */
+public interface QuoteSource {
+
+    /**
+     * Writes the next update into the cache, first waiting for it if the source keeps its
+     * own time. Returns false once the source is exhausted.
+     */
+    boolean publishNext() throws InterruptedException;
+}
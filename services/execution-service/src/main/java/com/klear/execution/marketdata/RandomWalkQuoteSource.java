@@ -0,0 +1,65 @@
+package com.klear.execution.marketdata;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Synthetic quotes: each symbol's mid price takes a random step of up to
+ * {@code volatilityBps} basis points per update, and is quoted with a spread of about
+ * {@code spreadBps} (at least one tick) on the tick grid. Symbols are updated round-robin.
+ * Starting mids are derived from the symbol name, so a given seed always produces the
+ * same sequence of prices.
+ */
+public final class RandomWalkQuoteSource implements QuoteSource {
+
+    private final QuoteCache cache;
+    private final int[] indexes;
+    private final double[] mids;
+    private final long ticksPerUnit;
+    private final double step;
+    private final double spread;
+    private final SplittableRandom random;
+    private int next;
+
+    public RandomWalkQuoteSource(QuoteCache cache, List<String> symbols, double tickSize,
+                                 double volatilityBps, double spreadBps, long seed) {
+        if (symbols.isEmpty()) {
+            throw new IllegalArgumentException("No symbols to quote");
+        }
+        this.cache = cache;
+        this.indexes = new int[symbols.size()];
+        this.mids = new double[symbols.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            String symbol = symbols.get(i);
+            indexes[i] = cache.register(symbol);
+            mids[i] = 20 + Math.floorMod(symbol.hashCode(), 480);
+        }
+        this.ticksPerUnit = Math.round(1.0 / tickSize);
+        this.step = volatilityBps / 10_000.0;
+        this.spread = spreadBps / 10_000.0;
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public boolean publishNext() {
+        int i = next;
+        next = i + 1 == indexes.length ? 0 : i + 1;
+
+        double mid = mids[i] * (1 + step * (2 * random.nextDouble() - 1));
+        double midTicks = mid * ticksPerUnit;
+        if (midTicks < 2) {
+            // Reflect off the floor rather than quoting zero or negative prices
+            midTicks = 2;
+            mid = midTicks / ticksPerUnit;
+        }
+        mids[i] = mid;
+
+        long spreadTicks = Math.max(1, Math.round(midTicks * spread));
+        long bidTicks = (long) Math.floor(midTicks - spreadTicks / 2.0);
+        long bidSize = 100L * (1 + random.nextInt(100));
+        long askSize = 100L * (1 + random.nextInt(100));
+        cache.update(indexes[i], bidTicks / (double) ticksPerUnit, (bidTicks + spreadTicks) / (double) ticksPerUnit,
+                bidSize, askSize, System.currentTimeMillis());
+        return true;
+    }
+}
@@ -0,0 +1,146 @@
+package com.klear.execution.marketdata;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a recorded tick file, one quote per line:
+ *
+ * <pre>
+ * # timestamp_millis,symbol,bid,ask,bid_size,ask_size
+ * 1700000000000,AAPL,189.51,189.53,300,500
+ * </pre>
+ *
+ * Blank lines and lines starting with {@code #} are skipped. The file is loaded up front, so
+ * replaying parses nothing and allocates nothing. With a positive {@code speed} the gaps
+ * between recorded timestamps are reproduced, divided by the speed; with 0 the ticks are
+ * replayed as fast as they can be written. Replayed quotes are stamped with the time they
+ * are written, so staleness checks work the same as for live sources.
+ */
+public final class TickFileQuoteSource implements QuoteSource {
+
+    private final QuoteCache cache;
+    private final int[] indexes;
+    private final long[] times;
+    private final double[] bids;
+    private final double[] asks;
+    private final long[] bidSizes;
+    private final long[] askSizes;
+    private final int count;
+    private final double speed;
+    private final boolean loop;
+
+    private int next;
+    private long startNanos;
+
+    private TickFileQuoteSource(QuoteCache cache, int[] indexes, long[] times, double[] bids, double[] asks,
+                                long[] bidSizes, long[] askSizes, int count, double speed, boolean loop) {
+        this.cache = cache;
+        this.indexes = indexes;
+        this.times = times;
+        this.bids = bids;
+        this.asks = asks;
+        this.bidSizes = bidSizes;
+        this.askSizes = askSizes;
+        this.count = count;
+        this.speed = speed;
+        this.loop = loop;
+    }
+
+    /**
+     * Reads the whole file, registering its symbols with the cache.
+     *
+     * @param speed replay speed relative to the recording; 0 replays without pauses
+     * @param loop  start again from the first tick after the last one
+     */
+    public static TickFileQuoteSource load(QuoteCache cache, Path file, double speed, boolean loop) throws IOException {
+        int capacity = 1024;
+        int[] indexes = new int[capacity];
+        long[] times = new long[capacity];
+        double[] bids = new double[capacity];
+        double[] asks = new double[capacity];
+        long[] bidSizes = new long[capacity];
+        long[] askSizes = new long[capacity];
+        int count = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                if (fields.length != 6) {
+                    throw new IOException(file + ":" + lineNumber + ": expected 6 fields, got " + fields.length);
+                }
+                if (count == capacity) {
+                    capacity *= 2;
+                    indexes = Arrays.copyOf(indexes, capacity);
+                    times = Arrays.copyOf(times, capacity);
+                    bids = Arrays.copyOf(bids, capacity);
+                    asks = Arrays.copyOf(asks, capacity);
+                    bidSizes = Arrays.copyOf(bidSizes, capacity);
+                    askSizes = Arrays.copyOf(askSizes, capacity);
+                }
+                try {
+                    times[count] = Long.parseLong(fields[0].trim());
+                    indexes[count] = cache.register(fields[1].trim());
+                    bids[count] = Double.parseDouble(fields[2].trim());
+                    asks[count] = Double.parseDouble(fields[3].trim());
+                    bidSizes[count] = Long.parseLong(fields[4].trim());
+                    askSizes[count] = Long.parseLong(fields[5].trim());
+                } catch (NumberFormatException e) {
+                    throw new IOException(file + ":" + lineNumber + ": " + e.getMessage(), e);
+                }
+                count++;
+            }
+        }
+        if (count == 0) {
+            throw new IOException(file + " contains no ticks");
+        }
+        return new TickFileQuoteSource(cache, indexes, times, bids, asks, bidSizes, askSizes, count, speed, loop);
+    }
+
+    public int tickCount() {
+        return count;
+    }
+
+    @Override
+    public boolean publishNext() throws InterruptedException {
+        if (next == count) {
+            if (!loop) {
+                return false;
+            }
+            next = 0;
+        }
+        int i = next++;
+        if (speed > 0) {
+            awaitRecordedTime(i);
+        }
+        cache.update(indexes[i], bids[i], asks[i], bidSizes[i], askSizes[i], System.currentTimeMillis());
+        return true;
+    }
+
+    private void awaitRecordedTime(int i) throws InterruptedException {
+        if (i == 0) {
+            startNanos = System.nanoTime();
+            return;
+        }
+        long due = startNanos + (long) ((times[i] - times[0]) * 1_000_000L / speed);
+        long wait;
+        while ((wait = due - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, wait);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+}
@@ -1,13 +1,37 @@
 package com.klear.execution.service;
 
 import com.klear.communication.core.BaseService;
+import com.klear.execution.book.MatchingEngine;
+import com.klear.execution.book.OrderBook;
+import com.klear.execution.marketdata.MarketDataSimulator;
+import com.klear.execution.marketdata.Quote;
+import com.klear.execution.marketdata.QuoteCache;
+import com.klear.execution.marketdata.QuoteSource;
+import com.klear.execution.marketdata.RandomWalkQuoteSource;
+import com.klear.execution.marketdata.TickFileQuoteSource;
+import com.klear.execution.shard.ShardRing;
+import com.klear.execution.shard.SymbolRouter;
+import com.klear.model.order.Order;
+import com.klear.model.price.FixedPoint;
+import com.klear.model.order.OrderType;
 import com.klear.model.queue.QueueItemTypes;
-import com.klear.model.response.ExecutionResponse;
+import com.klear.model.reference.SecuritiesMaster;
+import com.klear.model.reference.SecurityStatus;
+import com.klear.model.reference.SecurityTable;
 import com.klear.model.trade.Trade;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
 import static com.klear.model.order.OrderStatus.EXECUTED;
 import static com.klear.model.order.OrderStatus.FAILED;
 
@@ -23,11 +47,164 @@ public class ExecutionService extends BaseService {
     @Value("${execution_service_channel_name}")
     private String channelName;
 
+    @Value("${execution_mode:simulated}")
+    private String executionMode;
+
+    @Value("${execution_tick_size:0.01}")
+    private double tickSize;
+
+    @Value("${execution_book_levels:65536}")
+    private int bookLevels;
+
+    @Value("${execution_shards:1}")
+    private int shardCount;
+
+    @Value("${execution_shard_pins:}")
+    private String shardPins;
+
+    @Value("${execution_rebalance_interval:0}")
+    private long rebalanceInterval;
+
+    @Value("${execution_rebalance_ratio:1.5}")
+    private double rebalanceRatio;
+
+    @Value("${execution_shard_ring_capacity:16384}")
+    private int shardRingCapacity;
+
+    @Value("${market_data_mode:none}")
+    private String marketDataMode;
+
+    @Value("${market_data_symbols:AAPL,MSFT,GOOG,AMZN,META,NVDA,TSLA,JPM}")
+    private String marketDataSymbols;
+
+    @Value("${market_data_rate:10000}")
+    private long marketDataRate;
+
+    @Value("${market_data_volatility_bps:1.0}")
+    private double marketDataVolatilityBps;
+
+    @Value("${market_data_spread_bps:2.0}")
+    private double marketDataSpreadBps;
+
+    @Value("${market_data_file:ticks.csv}")
+    private String marketDataFile;
+
+    @Value("${market_data_replay_speed:1.0}")
+    private double marketDataReplaySpeed;
+
+    @Value("${market_data_loop:true}")
+    private boolean marketDataLoop;
+
+    @Value("${market_data_capacity:4096}")
+    private int marketDataCapacity;
+
+    // Null in simulated mode, and when the shards own the books
+    private MatchingEngine matchingEngine;
+    private final Supplier<ReplyRoute> workerReplyRoute = this::currentReplyRoute;
+    // Orders resting in any book, shared by the shards, so that a resend is not rested twice
+    private final Set<String> restingOrderIds = ConcurrentHashMap.newKeySet();
+
+    // Null unless sharded; the router is only touched by the worker thread
+    private ExecutionShard[] shards;
+    private SymbolRouter router;
+
+    // Null unless market data is enabled; each executing thread reads into its own Quote
+    private QuoteCache quotes;
+    private MarketDataSimulator marketData;
+    private final Quote workerQuote = new Quote();
+
     @PostConstruct
     public void init() {
+        if ("book".equalsIgnoreCase(executionMode)) {
+            enableOrderBook(tickSize, bookLevels);
+            if (shardCount > 1) {
+                enableShards(new SymbolRouter(shardCount, SymbolRouter.parsePins(shardPins),
+                        rebalanceInterval, rebalanceRatio), shardRingCapacity);
+            }
+        } else if (shardCount > 1) {
+            log.warn("execution_shards only applies to execution_mode=book; running unsharded");
+        }
+        if (!"none".equalsIgnoreCase(marketDataMode)) {
+            startMarketData();
+        }
         initializeRedis();
     }
 
+    /**
+     * Switches from echoing the order price to matching against per-symbol limit order
+     * books. Orders must then carry a side; a missing order type means LIMIT. A limit order
+     * that does not fill on arrival rests in the book: it is acknowledged at once with a
+     * {@link Trade#isResting() resting} reply, so the trade service stops waiting on a
+     * stage timer, and its execution reply is sent once later orders have filled it
+     * completely. A resent order that is already resting is only acknowledged again.
+     */
+    protected void enableOrderBook(double tickSize, int bookLevels) {
+        this.tickSize = tickSize;
+        this.bookLevels = bookLevels;
+        this.matchingEngine = new MatchingEngine(tickSize, bookLevels, this::onRestingOrderFilled);
+        log.info("ExecutionService matching against order books, tick size {}", tickSize);
+    }
+
+    /**
+     * Prices market orders against the latest quotes in {@code quotes}: in simulated mode
+     * they fill in full at the ask (buy) or bid (sell), and in book mode whatever the book
+     * cannot fill goes to the quote, as if routed to the outside market. Quote sizes are
+     * informational and do not cap the fill. A market order for a symbol that has never
+     * been quoted fails. Limit and IOC orders are unaffected.
+     */
+    protected void enableMarketData(QuoteCache quotes) {
+        this.quotes = quotes;
+    }
+
+    private void startMarketData() {
+        QuoteCache cache = new QuoteCache(marketDataCapacity);
+        QuoteSource source;
+        long rate;
+        if ("replay".equalsIgnoreCase(marketDataMode)) {
+            try {
+                source = TickFileQuoteSource.load(cache, Path.of(marketDataFile), marketDataReplaySpeed, marketDataLoop);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot load market data file " + marketDataFile, e);
+            }
+            rate = 0;
+        } else if ("random".equalsIgnoreCase(marketDataMode)) {
+            source = new RandomWalkQuoteSource(cache,
+                    Arrays.stream(marketDataSymbols.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList(),
+                    tickSize, marketDataVolatilityBps, marketDataSpreadBps, System.nanoTime());
+            rate = marketDataRate;
+        } else {
+            throw new IllegalArgumentException("Unknown market_data_mode: " + marketDataMode);
+        }
+        enableMarketData(cache);
+        marketData = new MarketDataSimulator(source, rate);
+        marketData.start();
+        log.info("ExecutionService pricing market orders from {} market data for {} symbols",
+                marketDataMode, cache.size());
+    }
+
+    /**
+     * Moves matching off the worker thread onto one single-threaded shard per router shard.
+     * The worker only copies each trade into its symbol's shard ring; every shard owns its
+     * symbols' books outright and publishes its own replies, so no book is ever locked.
+     * Call after {@link #enableOrderBook} and before the worker starts.
+     */
+    protected void enableShards(SymbolRouter router, int ringCapacity) {
+        if (matchingEngine == null) {
+            throw new IllegalStateException("Sharding requires order book mode");
+        }
+        int count = router.shardCount();
+        ExecutionShard[] created = new ExecutionShard[count];
+        for (int i = 0; i < count; i++) {
+            created[i] = new ExecutionShard(this, i, new ShardRing(ringCapacity), newReplyPublisher(),
+                    tickSize, bookLevels);
+            created[i].start();
+        }
+        this.router = router;
+        this.shards = created;
+        this.matchingEngine = null;
+        log.info("ExecutionService matching on {} shards", count);
+    }
+
     @Override
     protected String getServiceName() {
         return "ExecutionService";
@@ -55,8 +232,38 @@ public class ExecutionService extends BaseService {
 
     @Override
     protected Trade processTrade(Trade trade) {
-        // Validate price
-        if (trade.getOrder().getPrice() <= 0) {
+        if (shards != null) {
+            dispatch(trade);
+            return null;
+        }
+        return execute(trade, matchingEngine, workerReplyRoute, workerQuote);
+    }
+
+    @Override
+    public void shutdown() {
+        if (marketData != null) {
+            marketData.stop();
+        }
+        if (shards != null) {
+            for (ExecutionShard shard : shards) {
+                shard.stop();
+            }
+        }
+        super.shutdown();
+    }
+
+    /**
+     * Stage logic for one trade, on whichever thread owns {@code engine}; a null engine
+     * means simulated execution. When the order rests in the book, {@code route} is asked
+     * where the eventual execution reply should go, and the acknowledgement is returned
+     * instead. {@code quote} is the
+     * calling thread's scratch copy for reading market data.
+     */
+    Trade execute(Trade trade, MatchingEngine engine, Supplier<ReplyRoute> route, Quote quote) {
+        // Validate price; market orders take the book's or the market's prices
+        boolean market = (engine != null || quotes != null)
+                && trade.getOrder().getOrderType() == OrderType.MARKET;
+        if (!market && trade.getOrder().getPrice() <= 0) {
             trade.setStatus(FAILED);
             trade.setFailureStage("EXECUTION");
             trade.setFailureReason("Invalid price: must be greater than 0");
@@ -71,16 +278,187 @@ public class ExecutionService extends BaseService {
             return trade;
         }
 
+        // The instrument may have been halted since the order was validated
+        SecuritiesMaster securities = getSecuritiesMaster();
+        if (securities != null) {
+            SecurityTable table = securities.current();
+            int security = table.find(trade.getOrder().getStockSymbol());
+            if (security < 0) {
+                return fail(trade, "Unknown security: " + trade.getOrder().getStockSymbol());
+            }
+            if (table.status(security) != SecurityStatus.TRADING) {
+                return fail(trade, "Security not trading: " + trade.getOrder().getStockSymbol() + " is "
+                        + table.status(security));
+            }
+        }
+
+        if (engine != null) {
+            return match(trade, engine, route, quote);
+        }
+        if (market) {
+            return fillAtQuote(trade, quote);
+        }
+
         // Simulate trade matching and execution logic on an exchange
-        String orderId = trade.getOrderId();
         double executedPrice = trade.getOrder().getPrice(); // Simulated price
         long timestamp = System.currentTimeMillis();
 
-        ExecutionResponse executionResponse = new ExecutionResponse(orderId, executedPrice, timestamp);
-        trade.setExecutedPrice(executionResponse.getExecutedPrice());
+        trade.setExecutedPrice(executedPrice);
+        trade.setExecutedPriceTicks(trade.getOrder().getPriceTicks());
+        trade.setExecutedQuantity(trade.getOrder().getQuantity());
         trade.setExecutedTimestamp(timestamp);
         trade.setStatus(EXECUTED);
 
         return trade;
     }
+
+    private Trade match(Trade trade, MatchingEngine engine, Supplier<ReplyRoute> route, Quote quote) {
+        Order order = trade.getOrder();
+        if (order.getSide() == null) {
+            return fail(trade, "Missing side: must be BUY or SELL");
+        }
+        OrderType type = order.getOrderType() == null ? OrderType.LIMIT : order.getOrderType();
+        if (restingOrderIds.contains(trade.getOrderId())) {
+            return resting(trade);
+        }
+
+        MatchingEngine.Outcome outcome = engine.submit(order.getSymbolCode(), order.getStockSymbol(),
+                order.getSide(), type, order.getPrice(), order.getQuantity());
+        if (type == OrderType.MARKET && quotes != null
+                && (outcome == MatchingEngine.Outcome.PARTIALLY_FILLED || outcome == MatchingEngine.Outcome.NO_LIQUIDITY)
+                && quotes.read(order.getStockSymbol(), quote)) {
+            // The outside market takes what the book could not fill
+            long filled = engine.lastFilledQuantity();
+            long remainder = order.getQuantity() - filled;
+            double price = (engine.lastAveragePrice() * filled + quote.priceFor(order.getSide()) * remainder)
+                    / order.getQuantity();
+            return executed(trade, order.getQuantity(), price);
+        }
+
+        switch (outcome) {
+            case FILLED, PARTIALLY_FILLED -> {
+                return executed(trade, engine.lastFilledQuantity(), engine.lastAveragePrice());
+            }
+            case RESTING -> {
+                // The trade passed in may be a pooled flyweight, so the book keeps a copy
+                engine.attachToResting(new RestingTrade(new Trade(trade), route.get()));
+                restingOrderIds.add(trade.getOrderId());
+                return resting(trade);
+            }
+            case NO_LIQUIDITY -> {
+                return fail(trade, "No liquidity: nothing to match against");
+            }
+            default -> {
+                return fail(trade, "Price outside the order book's range");
+            }
+        }
+    }
+
+    private Trade fillAtQuote(Trade trade, Quote quote) {
+        Order order = trade.getOrder();
+        if (order.getSide() == null) {
+            return fail(trade, "Missing side: must be BUY or SELL");
+        }
+        if (!quotes.read(order.getStockSymbol(), quote)) {
+            return fail(trade, "No quote for " + order.getStockSymbol());
+        }
+        return executed(trade, order.getQuantity(), quote.priceFor(order.getSide()));
+    }
+
+    private void onRestingOrderFilled(Object ref, long filledQuantity, double averagePrice) {
+        RestingTrade resting = (RestingTrade) ref;
+        restingOrderIds.remove(resting.trade.getOrderId());
+        publishReply(resting.route, executed(resting.trade, filledQuantity, averagePrice));
+    }
+
+    /**
+     * Shard-thread counterpart of {@link #onRestingOrderFilled}, replying through the
+     * shard's own publisher.
+     */
+    void onRestingOrderFilled(Object ref, long filledQuantity, double averagePrice, ReplyPublisher publisher) {
+        RestingTrade resting = (RestingTrade) ref;
+        restingOrderIds.remove(resting.trade.getOrderId());
+        publisher.publish(resting.route, executed(resting.trade, filledQuantity, averagePrice));
+    }
+
+    private void dispatch(Trade trade) {
+        String symbol = trade.getOrder() == null ? null : trade.getOrder().getStockSymbol();
+        int shard = symbol == null ? 0 : router.route(symbol);
+        ShardRing ring = shards[shard].ring();
+        ring.claim().setTrade(trade, currentReturnChannel(), currentTraceParent());
+        ring.publish();
+
+        if (router.rebalanceDue()) {
+            SymbolRouter.Move move = router.planRebalance();
+            if (move != null) {
+                moveSymbol(move.getSymbol(), move.getFrom(), move.getTo());
+            }
+        }
+    }
+
+    /**
+     * Hands a symbol's book from one shard to another without stopping either. The old
+     * shard detaches the book once it has worked through every earlier trade for the
+     * symbol; the install task is queued on the new shard ahead of any later ones.
+     * The worker waits only for the old shard to reach the hand-off.
+     */
+    private void moveSymbol(String symbol, int from, int to) {
+        CompletableFuture<OrderBook> removed = new CompletableFuture<>();
+        ShardRing fromRing = shards[from].ring();
+        fromRing.claim().setRemoveBook(symbol, removed);
+        fromRing.publish();
+
+        OrderBook book = removed.join();
+        if (book != null) {
+            ShardRing toRing = shards[to].ring();
+            toRing.claim().setInstallBook(symbol, book);
+            toRing.publish();
+        }
+        router.move(symbol, to);
+        log.info("ExecutionService moved {} from shard {} to shard {}", symbol, from, to);
+    }
+
+    /**
+     * A fixed-point order's executed price is also set in ticks: book and quote prices are
+     * whole ticks, and an average over several levels is rounded to the nearest one.
+     */
+    private static Trade executed(Trade trade, long quantity, double price) {
+        trade.setExecutedPrice(price);
+        Integer scale = trade.getOrder().getPriceScale();
+        if (scale != null) {
+            trade.setExecutedPriceTicks(FixedPoint.toTicks(price, scale));
+        }
+        trade.setExecutedQuantity((int) quantity);
+        trade.setExecutedTimestamp(System.currentTimeMillis());
+        trade.setStatus(EXECUTED);
+        return trade;
+    }
+
+    /**
+     * The acknowledgement of an order resting in the book; its status stays VALIDATED.
+     */
+    private static Trade resting(Trade trade) {
+        trade.setResting(true);
+        return trade;
+    }
+
+    private static Trade fail(Trade trade, String reason) {
+        trade.setStatus(FAILED);
+        trade.setFailureStage("EXECUTION");
+        trade.setFailureReason(reason);
+        return trade;
+    }
+
+    /**
+     * A limit order waiting in the book, with where to send its reply.
+     */
+    private static final class RestingTrade {
+        final Trade trade;
+        final ReplyRoute route;
+
+        RestingTrade(Trade trade, ReplyRoute route) {
+            this.trade = trade;
+            this.route = route;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+package com.klear.execution.service;
+
+import com.klear.communication.core.BaseService.ReplyPublisher;
+import com.klear.communication.core.BaseService.ReplyRoute;
+import com.klear.execution.book.MatchingEngine;
+import com.klear.execution.book.OrderBook;
+import com.klear.execution.marketdata.Quote;
+import com.klear.execution.shard.ShardRing;
+import com.klear.execution.shard.ShardTask;
+import com.klear.model.trade.Trade;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.Supplier;
+
+/**
+ * One single-threaded execution loop. It owns a {@link MatchingEngine} holding the books of
+ * the symbols routed to it, consumes trades from its {@link ShardRing}, and publishes
+ * replies on its own connection, so nothing it touches is shared with other shards.
+ */
+final class ExecutionShard implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutionShard.class);
+
+    private final ExecutionService service;
+    private final int index;
+    private final ShardRing ring;
+    private final ReplyPublisher publisher;
+    private final MatchingEngine engine;
+    private final Quote quote = new Quote();
+    private final Thread thread;
+
+    // Task being executed, for the resting-order reply route
+    private ShardTask current;
+    private final Supplier<ReplyRoute> currentRoute =
+            () -> new ReplyRoute(current.returnChannel(), current.traceParent());
+
+    ExecutionShard(ExecutionService service, int index, ShardRing ring, ReplyPublisher publisher,
+                   double tickSize, int bookLevels) {
+        this.service = service;
+        this.index = index;
+        this.ring = ring;
+        this.publisher = publisher;
+        this.engine = new MatchingEngine(tickSize, bookLevels,
+                (ref, quantity, price) -> service.onRestingOrderFilled(ref, quantity, price, publisher));
+        this.thread = new Thread(this, "ExecutionService-shard-" + index);
+        this.thread.setDaemon(true);
+    }
+
+    ShardRing ring() {
+        return ring;
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    void stop() {
+        thread.interrupt();
+        try {
+            thread.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        publisher.close();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                current = ring.take();
+                try {
+                    execute(current);
+                } catch (RuntimeException e) {
+                    log.error("Shard {} failed to process {} task", index, current.kind(), e);
+                } finally {
+                    current = null;
+                    ring.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("Execution shard {} stopped", index);
+        }
+    }
+
+    private void execute(ShardTask task) {
+        switch (task.kind()) {
+            case TRADE -> {
+                Trade reply = service.execute(task.trade(), engine, currentRoute, quote);
+                if (reply != null) {
+                    publisher.publish(task.returnChannel(), task.traceParent(), reply);
+                }
+            }
+            case REMOVE_BOOK -> {
+                OrderBook book = engine.removeBook(task.symbol());
+                task.removedBook().complete(book);
+            }
+            case INSTALL_BOOK -> engine.installBook(task.symbol(), task.book());
+        }
+    }
+}
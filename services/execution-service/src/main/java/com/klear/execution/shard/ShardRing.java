@@ -0,0 +1,113 @@
+package com.klear.execution.shard;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded single-producer, single-consumer ring of preallocated {@link ShardTask} slots.
+ *
+ * The producer fills a slot between {@link #claim()} and {@link #publish()}; the consumer
+ * reads it between {@link #take()} and {@link #release()}, after which the slot is reused.
+ * Sequences only ever move forward, and each is written by one thread, so no locks or CAS
+ * are needed. An idle consumer spins briefly and then parks; a full ring makes the
+ * producer spin and then yield, which pushes back on the service's inbound queue.
+ */
+public final class ShardRing {
+
+    private static final int SPINS_BEFORE_PARK = 1_000;
+    private static final long PARK_NANOS = 50_000;
+
+    private final ShardTask[] slots;
+    private final int mask;
+
+    // Next sequence to publish (written by the producer) and to take (written by the consumer)
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private long cachedHead;
+    private long claimed = -1;
+
+    private volatile Thread consumer;
+    private volatile boolean consumerParked;
+
+    public ShardRing(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.slots = new ShardTask[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new ShardTask();
+        }
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Producer: returns the next free slot, waiting while the ring is full.
+     */
+    public ShardTask claim() {
+        long sequence = tail.get();
+        int spins = 0;
+        while (sequence - cachedHead >= slots.length) {
+            cachedHead = head.get();
+            if (sequence - cachedHead >= slots.length) {
+                if (++spins < SPINS_BEFORE_PARK) {
+                    Thread.onSpinWait();
+                } else {
+                    // Let the consumer run when it shares our core
+                    Thread.yield();
+                }
+            }
+        }
+        claimed = sequence;
+        return slots[(int) sequence & mask];
+    }
+
+    /**
+     * Producer: makes the claimed slot visible to the consumer.
+     */
+    public void publish() {
+        tail.set(claimed + 1);
+        if (consumerParked) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Consumer: returns the next published slot, waiting while the ring is empty.
+     */
+    public ShardTask take() throws InterruptedException {
+        long sequence = head.get();
+        int spins = 0;
+        while (tail.get() == sequence) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (++spins < SPINS_BEFORE_PARK) {
+                Thread.onSpinWait();
+            } else {
+                consumer = Thread.currentThread();
+                consumerParked = true;
+                if (tail.get() == sequence) {
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+                consumerParked = false;
+            }
+        }
+        return slots[(int) sequence & mask];
+    }
+
+    /**
+     * Consumer: hands the slot returned by {@link #take()} back to the producer.
+     */
+    public void release() {
+        long sequence = head.get();
+        slots[(int) sequence & mask].clear();
+        head.lazySet(sequence + 1);
+    }
+
+    /**
+     * Tasks published but not yet released; approximate when read from another thread.
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+}
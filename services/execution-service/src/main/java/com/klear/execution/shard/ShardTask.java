@@ -0,0 +1,123 @@
+package com.klear.execution.shard;
+
+import com.klear.execution.book.OrderBook;
+import com.klear.model.order.Order;
+import com.klear.model.trade.Trade;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A reusable slot in a {@link ShardRing}: either a trade to execute, copied in by the router
+ * together with where its reply goes, or a control task that moves a symbol's book.
+ */
+public final class ShardTask {
+
+    public enum Kind {
+        TRADE,        // Execute trade() and reply
+        REMOVE_BOOK,  // Detach symbol()'s book and complete removedBook() with it
+        INSTALL_BOOK  // Take over book() for symbol()
+    }
+
+    private Kind kind;
+    private final Trade trade = new Trade();
+    private final Order order = new Order();
+    private String returnChannel;
+    private String traceParent;
+    private String symbol;
+    private OrderBook book;
+    private CompletableFuture<OrderBook> removedBook;
+
+    /**
+     * Copies the trade into this slot, since the caller's instance may be a pooled flyweight.
+     */
+    public void setTrade(Trade source, String returnChannel, String traceParent) {
+        clear();
+        this.kind = Kind.TRADE;
+        this.returnChannel = returnChannel;
+        this.traceParent = traceParent;
+
+        trade.setOrderId(source.getOrderId());
+        Order sourceOrder = source.getOrder();
+        if (sourceOrder == null) {
+            trade.setOrder(null);
+        } else {
+            order.setClientId(sourceOrder.getClientId());
+            order.setStockSymbol(sourceOrder.getStockSymbol());
+            order.setQuantity(sourceOrder.getQuantity());
+            order.setPrice(sourceOrder.getPrice());
+            order.setPriceTicks(sourceOrder.getPriceTicks());
+            order.setPriceScale(sourceOrder.getPriceScale());
+            order.setSide(sourceOrder.getSide());
+            order.setOrderType(sourceOrder.getOrderType());
+            order.setClientCode(sourceOrder.getClientCode());
+            order.setSymbolCode(sourceOrder.getSymbolCode());
+            trade.setOrder(order);
+        }
+        trade.setExecutedPrice(source.getExecutedPrice());
+        trade.setExecutedQuantity(source.getExecutedQuantity());
+        trade.setExecutedTimestamp(source.getExecutedTimestamp());
+        trade.setNettedAmount(source.getNettedAmount());
+        trade.setExecutedPriceTicks(source.getExecutedPriceTicks());
+        trade.setNettedAmountTicks(source.getNettedAmountTicks());
+        trade.setStatus(source.getStatus());
+        trade.setValidationMessage(source.getValidationMessage());
+        trade.setClearingMessage(source.getClearingMessage());
+        trade.setSettlementMessage(source.getSettlementMessage());
+        trade.setFailureReason(source.getFailureReason());
+        trade.setFailureStage(source.getFailureStage());
+    }
+
+    public void setRemoveBook(String symbol, CompletableFuture<OrderBook> removedBook) {
+        clear();
+        this.kind = Kind.REMOVE_BOOK;
+        this.symbol = symbol;
+        this.removedBook = removedBook;
+    }
+
+    public void setInstallBook(String symbol, OrderBook book) {
+        clear();
+        this.kind = Kind.INSTALL_BOOK;
+        this.symbol = symbol;
+        this.book = book;
+    }
+
+    /**
+     * Drops references held by the last task so they can be collected.
+     */
+    public void clear() {
+        kind = null;
+        returnChannel = null;
+        traceParent = null;
+        symbol = null;
+        book = null;
+        removedBook = null;
+    }
+
+    public Kind kind() {
+        return kind;
+    }
+
+    public Trade trade() {
+        return trade;
+    }
+
+    public String returnChannel() {
+        return returnChannel;
+    }
+
+    public String traceParent() {
+        return traceParent;
+    }
+
+    public String symbol() {
+        return symbol;
+    }
+
+    public OrderBook book() {
+        return book;
+    }
+
+    public CompletableFuture<OrderBook> removedBook() {
+        return removedBook;
+    }
+}
@@ -0,0 +1,186 @@
+package com.klear.execution.shard;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decides which shard owns each symbol.
+ *
+ * A symbol goes to its pinned shard if it has one, otherwise to a shard picked by its hash.
+ * When rebalancing is enabled the router counts trades per symbol, and every
+ * {@code rebalanceInterval} trades it compares the load of the busiest and quietest shards.
+ * If the busiest carries more than {@code rebalanceRatio} times the quietest, it proposes
+ * moving the unpinned symbol that best evens them out. Pinned symbols never move, so hot
+ * symbols can be given a shard of their own from configuration.
+ *
+ * Not thread-safe: used only by the thread that routes trades.
+ */
+public final class SymbolRouter {
+
+    /**
+     * A symbol to move, proposed by {@link #planRebalance()}.
+     */
+    public static final class Move {
+        private final String symbol;
+        private final int from;
+        private final int to;
+
+        Move(String symbol, int from, int to) {
+            this.symbol = symbol;
+            this.from = from;
+            this.to = to;
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+
+        public int getFrom() {
+            return from;
+        }
+
+        public int getTo() {
+            return to;
+        }
+    }
+
+    private static final class Route {
+        int shard;
+        long windowCount;
+        final boolean pinned;
+
+        Route(int shard, boolean pinned) {
+            this.shard = shard;
+            this.pinned = pinned;
+        }
+    }
+
+    private final int shards;
+    private final long rebalanceInterval;
+    private final double rebalanceRatio;
+    private final Map<String, Route> routes = new HashMap<>();
+    private final long[] shardLoad;
+    private long sinceRebalance;
+
+    /**
+     * @param pins              symbol to shard assignments that never change
+     * @param rebalanceInterval trades between rebalance checks; 0 disables rebalancing
+     * @param rebalanceRatio    busiest/quietest shard load above which a symbol is moved
+     */
+    public SymbolRouter(int shards, Map<String, Integer> pins, long rebalanceInterval, double rebalanceRatio) {
+        if (shards <= 0) {
+            throw new IllegalArgumentException("shards must be positive: " + shards);
+        }
+        this.shards = shards;
+        this.rebalanceInterval = rebalanceInterval;
+        this.rebalanceRatio = rebalanceRatio;
+        this.shardLoad = new long[shards];
+        pins.forEach((symbol, shard) -> {
+            if (shard < 0 || shard >= shards) {
+                throw new IllegalArgumentException("Shard " + shard + " for " + symbol + " is out of range");
+            }
+            routes.put(symbol, new Route(shard, true));
+        });
+    }
+
+    /**
+     * Parses {@code "AAPL:0,MSFT:1"} into pins; blank means none.
+     */
+    public static Map<String, Integer> parsePins(String spec) {
+        Map<String, Integer> pins = new HashMap<>();
+        if (spec == null || spec.isBlank()) {
+            return pins;
+        }
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected SYMBOL:SHARD, got '" + entry.trim() + "'");
+            }
+            pins.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+        }
+        return pins;
+    }
+
+    /**
+     * Returns the shard owning the symbol and counts one trade against it.
+     */
+    public int route(String symbol) {
+        Route route = routes.get(symbol);
+        if (route == null) {
+            route = new Route(Math.floorMod(symbol.hashCode(), shards), false);
+            routes.put(symbol, route);
+        }
+        route.windowCount++;
+        sinceRebalance++;
+        return route.shard;
+    }
+
+    /**
+     * True once a full interval of trades has been routed since the last check.
+     */
+    public boolean rebalanceDue() {
+        return rebalanceInterval > 0 && sinceRebalance >= rebalanceInterval;
+    }
+
+    /**
+     * Looks at the window since the last check, starts a new window, and returns the move
+     * that best evens out the busiest and quietest shards, or null if none is needed. The
+     * caller applies it with {@link #move} once the book has been handed over.
+     */
+    public Move planRebalance() {
+        sinceRebalance = 0;
+        Arrays.fill(shardLoad, 0);
+        for (Route route : routes.values()) {
+            shardLoad[route.shard] += route.windowCount;
+        }
+        int busiest = 0;
+        int quietest = 0;
+        for (int i = 1; i < shards; i++) {
+            if (shardLoad[i] > shardLoad[busiest]) {
+                busiest = i;
+            }
+            if (shardLoad[i] < shardLoad[quietest]) {
+                quietest = i;
+            }
+        }
+
+        String best = null;
+        long gap = shardLoad[busiest] - shardLoad[quietest];
+        if (busiest != quietest && shardLoad[busiest] > rebalanceRatio * shardLoad[quietest]) {
+            // Moving a symbol with count c leaves a gap of |gap - 2c|; it must shrink
+            long bestGap = gap;
+            for (Map.Entry<String, Route> entry : routes.entrySet()) {
+                Route route = entry.getValue();
+                if (route.shard == busiest && !route.pinned && route.windowCount > 0) {
+                    long newGap = Math.abs(gap - 2 * route.windowCount);
+                    if (newGap < bestGap) {
+                        bestGap = newGap;
+                        best = entry.getKey();
+                    }
+                }
+            }
+        }
+        for (Route route : routes.values()) {
+            route.windowCount = 0;
+        }
+        return best == null ? null : new Move(best, busiest, quietest);
+    }
+
+    public void move(String symbol, int shard) {
+        Route route = routes.get(symbol);
+        if (route == null || route.pinned) {
+            throw new IllegalStateException("Cannot move " + symbol);
+        }
+        route.shard = shard;
+    }
+
+    public int shardCount() {
+        return shards;
+    }
+
+    public int shardOf(String symbol) {
+        Route route = routes.get(symbol);
+        return route == null ? Math.floorMod(symbol.hashCode(), shards) : route.shard;
+    }
+}
@@ -0,0 +1,108 @@
+package com.klear.execution.book;
+
+import com.klear.model.order.OrderType;
+import com.klear.model.order.Side;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.klear.execution.book.MatchingEngine.Outcome.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchingEngineTest {
+
+    private MatchingEngine engine;
+    private List<String> completed;
+
+    @BeforeEach
+    void setUp() {
+        completed = new ArrayList<>();
+        engine = new MatchingEngine(0.01, 65536,
+                (ref, qty, price) -> completed.add(ref + ":" + qty + "@" + price));
+    }
+
+    @Test
+    void testLimitOrderRestsThenFillsAgainstLaterOrders() {
+        assertEquals(RESTING, engine.submit("AAPL", Side.SELL, OrderType.LIMIT, 150.00, 100));
+        engine.attachToResting("S1");
+
+        assertEquals(FILLED, engine.submit("AAPL", Side.BUY, OrderType.LIMIT, 151.00, 60));
+        assertEquals(60, engine.lastFilledQuantity());
+        assertEquals(150.00, engine.lastAveragePrice(), 1e-9);
+        assertTrue(completed.isEmpty());
+
+        assertEquals(FILLED, engine.submit("AAPL", Side.BUY, OrderType.MARKET, 0, 40));
+        assertEquals(List.of("S1:100@150.0"), completed);
+    }
+
+    @Test
+    void testLimitOrderRemainderKeepsArrivalFillsInAveragePrice() {
+        engine.submit("AAPL", Side.SELL, OrderType.LIMIT, 100.00, 50);
+        engine.attachToResting("S1");
+
+        assertEquals(RESTING, engine.submit("AAPL", Side.BUY, OrderType.LIMIT, 101.00, 100));
+        assertEquals(50, engine.lastFilledQuantity());
+        engine.attachToResting("B1");
+        assertEquals(10100, engine.book("AAPL").bestBid());
+
+        engine.submit("AAPL", Side.SELL, OrderType.LIMIT, 101.00, 50);
+
+        assertEquals(List.of("S1:50@100.0", "B1:100@100.5"), completed);
+    }
+
+    @Test
+    void testIocCancelsRemainderAndMarketNeedsLiquidity() {
+        assertEquals(NO_LIQUIDITY, engine.submit("MSFT", Side.BUY, OrderType.MARKET, 0, 10));
+
+        engine.submit("MSFT", Side.SELL, OrderType.LIMIT, 300.00, 10);
+        engine.attachToResting("S1");
+        engine.submit("MSFT", Side.SELL, OrderType.LIMIT, 300.05, 10);
+        engine.attachToResting("S2");
+
+        assertEquals(PARTIALLY_FILLED, engine.submit("MSFT", Side.BUY, OrderType.IOC, 300.00, 25));
+        assertEquals(10, engine.lastFilledQuantity());
+        assertEquals(OrderBook.NO_ORDER, engine.lastRestingHandle());
+        assertEquals(30005, engine.book("MSFT").bestAsk());
+        assertEquals(OrderBook.NO_PRICE, engine.book("MSFT").bestBid());
+    }
+
+    @Test
+    void testOffGridLimitPricesNeverTradeThroughTheLimit() {
+        assertEquals(15025, engine.toTicks(Side.BUY, 150.259));
+        assertEquals(15026, engine.toTicks(Side.SELL, 150.251));
+        assertEquals(15025, engine.toTicks(Side.BUY, 150.25));
+        assertEquals(15025, engine.toTicks(Side.SELL, 150.25));
+    }
+
+    @Test
+    void testCancelReturnsAttachedReference() {
+        engine.submit("AAPL", Side.BUY, OrderType.LIMIT, 99.00, 10);
+        engine.attachToResting("B1");
+        int handle = engine.lastRestingHandle();
+
+        assertEquals("B1", engine.cancel("AAPL", handle));
+        assertNull(engine.cancel("AAPL", handle));
+        assertEquals(NO_LIQUIDITY, engine.submit("AAPL", Side.SELL, OrderType.MARKET, 0, 10));
+    }
+
+    @Test
+    void testCodedSymbolUsesSameBookUntilRemoved() {
+        assertEquals(RESTING, engine.submit(3, "AAPL", Side.SELL, OrderType.LIMIT, 150.00, 100));
+        assertEquals(FILLED, engine.submit("AAPL", Side.BUY, OrderType.LIMIT, 150.00, 40));
+        assertEquals(FILLED, engine.submit(3, "AAPL", Side.BUY, OrderType.LIMIT, 150.00, 40));
+
+        // Once the book moves away, the code no longer finds it
+        OrderBook removed = engine.removeBook("AAPL");
+        assertNotNull(removed);
+        assertEquals(NO_LIQUIDITY, engine.submit(3, "AAPL", Side.BUY, OrderType.IOC, 150.00, 20));
+        assertNotSame(removed, engine.book("AAPL"));
+    }
+
+    @Test
+    void testRejectsTickSizesThatDoNotDivideOne() {
+        assertThrows(IllegalArgumentException.class, () -> new MatchingEngine(0.03, 1024, (r, q, p) -> { }));
+        assertThrows(IllegalArgumentException.class, () -> new MatchingEngine(5, 1024, (r, q, p) -> { }));
+    }
+}
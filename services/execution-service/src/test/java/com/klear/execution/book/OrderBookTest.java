@@ -0,0 +1,115 @@
+package com.klear.execution.book;
+
+import com.klear.model.order.Side;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderBookTest {
+
+    private OrderBook book;
+    private List<String> fills;
+    private FillListener recorder;
+
+    @BeforeEach
+    void setUp() {
+        book = new OrderBook(1024, 4);
+        fills = new ArrayList<>();
+        recorder = (ref, price, qty, remaining) -> fills.add(ref + "@" + price + "x" + qty + "/" + remaining);
+    }
+
+    @Test
+    void testMatchesBestPriceFirstThenTimePriority() {
+        book.add(Side.SELL, 10_002, 100, "C");
+        book.add(Side.SELL, 10_001, 50, "A");
+        book.add(Side.SELL, 10_001, 50, "B");
+
+        long filled = book.match(Side.BUY, 10_002, 120, recorder);
+
+        assertEquals(120, filled);
+        assertEquals(List.of("A@10001x50/0", "B@10001x50/0", "C@10002x20/80"), fills);
+        assertEquals(10_002, book.bestAsk());
+        assertEquals(80, book.quantityAt(Side.SELL, 10_002));
+        assertEquals(1, book.orderCount());
+    }
+
+    @Test
+    void testMatchStopsAtLimitPrice() {
+        book.add(Side.BUY, 9_999, 100, "A");
+        book.add(Side.BUY, 9_998, 100, "B");
+
+        long filled = book.match(Side.SELL, 9_999, 500, recorder);
+
+        assertEquals(100, filled);
+        assertEquals(9_998, book.bestBid());
+        assertEquals(OrderBook.NO_PRICE, book.bestAsk());
+    }
+
+    @Test
+    void testMarketLimitSweepsWholeSide() {
+        book.add(Side.SELL, 10_000, 10, "A");
+        book.add(Side.SELL, 10_500, 10, "B");
+
+        long filled = book.match(Side.BUY, OrderBook.marketLimit(Side.BUY), 50, recorder);
+
+        assertEquals(20, filled);
+        assertEquals(0, book.orderCount());
+        assertEquals(OrderBook.NO_PRICE, book.bestAsk());
+    }
+
+    @Test
+    void testCancelUnlinksFromMiddleOfLevel() {
+        book.add(Side.BUY, 10_000, 10, "A");
+        int b = book.add(Side.BUY, 10_000, 20, "B");
+        book.add(Side.BUY, 10_000, 30, "C");
+
+        assertTrue(book.cancel(b));
+        assertFalse(book.cancel(b));
+        assertEquals(40, book.quantityAt(Side.BUY, 10_000));
+
+        book.match(Side.SELL, 10_000, 40, recorder);
+        assertEquals(List.of("A@10000x10/0", "C@10000x30/0"), fills);
+    }
+
+    @Test
+    void testCancellingBestLevelFindsNextBest() {
+        int best = book.add(Side.BUY, 10_050, 10, "A");
+        book.add(Side.BUY, 9_900, 10, "B");
+
+        book.cancel(best);
+
+        assertEquals(9_900, book.bestBid());
+    }
+
+    @Test
+    void testRefusesPricesOutsideWindowUntilEmpty() {
+        int first = book.add(Side.BUY, 10_000, 10, "A");
+
+        assertFalse(book.accepts(50_000));
+        assertEquals(OrderBook.NO_ORDER, book.add(Side.SELL, 50_000, 10, "B"));
+
+        book.cancel(first);
+        assertTrue(book.accepts(50_000));
+        assertNotEquals(OrderBook.NO_ORDER, book.add(Side.SELL, 50_000, 10, "B"));
+        assertEquals(50_000, book.bestAsk());
+    }
+
+    @Test
+    void testSlotsAreRecycledAndGrowBeyondInitialCapacity() {
+        for (int i = 0; i < 100; i++) {
+            book.add(Side.SELL, 10_000 + (i % 7), 1, i);
+        }
+        assertEquals(100, book.orderCount());
+
+        assertEquals(100, book.match(Side.BUY, OrderBook.marketLimit(Side.BUY), 1_000, recorder));
+        assertEquals(0, book.orderCount());
+
+        int handle = book.add(Side.SELL, 10_000, 5, "again");
+        assertEquals(5, book.remaining(handle));
+        assertEquals("again", book.ref(handle));
+    }
+}
@@ -0,0 +1,76 @@
+package com.klear.execution.marketdata;
+
+import com.klear.model.order.Side;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuoteCacheTest {
+
+    @Test
+    void testReadsLatestQuote() {
+        QuoteCache cache = new QuoteCache(4);
+        int aapl = cache.register("AAPL");
+        Quote quote = new Quote();
+
+        assertFalse(cache.read(aapl, quote));
+        assertFalse(cache.read("MSFT", quote));
+
+        cache.update(aapl, 189.51, 189.53, 300, 500, 1_700_000_000_000L);
+        cache.update(aapl, 189.52, 189.54, 200, 400, 1_700_000_000_001L);
+        assertTrue(cache.read("AAPL", quote));
+        assertEquals(189.52, quote.getBid(), 1e-9);
+        assertEquals(189.54, quote.getAsk(), 1e-9);
+        assertEquals(200, quote.getBidSize());
+        assertEquals(400, quote.getAskSize());
+        assertEquals(1_700_000_000_001L, quote.getTimestamp());
+        assertEquals(189.54, quote.priceFor(Side.BUY), 1e-9);
+        assertEquals(189.52, quote.priceFor(Side.SELL), 1e-9);
+    }
+
+    @Test
+    void testRegisterIsIdempotentAndBounded() {
+        QuoteCache cache = new QuoteCache(2);
+        assertEquals(0, cache.register("AAPL"));
+        assertEquals(1, cache.register("MSFT"));
+        assertEquals(0, cache.register("AAPL"));
+        assertEquals("MSFT", cache.symbol(1));
+        assertEquals(-1, cache.indexOf("GOOG"));
+        assertThrows(IllegalStateException.class, () -> cache.register("GOOG"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testReadersNeverSeeTornUpdates() throws Exception {
+        QuoteCache cache = new QuoteCache(1);
+        int index = cache.register("AAPL");
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        // Every field of an update is derived from one counter, so a mixed read is detectable
+        Thread reader = new Thread(() -> {
+            Quote quote = new Quote();
+            while (running.get()) {
+                if (cache.read(index, quote)) {
+                    long n = quote.getBidSize();
+                    if (quote.getBid() != n || quote.getAsk() != n + 1
+                            || quote.getAskSize() != n * 2 || quote.getTimestamp() != n * 3) {
+                        failure.compareAndSet(null, "torn read: " + quote + " at " + quote.getTimestamp());
+                    }
+                }
+            }
+        });
+        reader.start();
+
+        for (long n = 1; n <= 2_000_000; n++) {
+            cache.update(index, n, n + 1, n, n * 2, n * 3);
+        }
+        running.set(false);
+        reader.join(10_000);
+
+        assertNull(failure.get());
+    }
+}
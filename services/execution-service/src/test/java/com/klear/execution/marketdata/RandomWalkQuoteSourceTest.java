@@ -0,0 +1,52 @@
+package com.klear.execution.marketdata;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RandomWalkQuoteSourceTest {
+
+    @Test
+    void testQuotesEverySymbolOnTheTickGrid() {
+        QuoteCache cache = new QuoteCache(4);
+        RandomWalkQuoteSource source = new RandomWalkQuoteSource(cache, List.of("AAPL", "MSFT"), 0.01, 5.0, 2.0, 42);
+        Quote quote = new Quote();
+
+        for (int i = 0; i < 10_000; i++) {
+            source.publishNext();
+            for (String symbol : List.of("AAPL", "MSFT")) {
+                if (i == 0 && symbol.equals("MSFT")) {
+                    assertFalse(cache.read(symbol, quote));
+                    continue;
+                }
+                assertTrue(cache.read(symbol, quote));
+                assertTrue(quote.getBid() > 0);
+                assertTrue(quote.getAsk() > quote.getBid(), quote.toString());
+                assertEquals(Math.round(quote.getBid() * 100), quote.getBid() * 100, 1e-6);
+                assertEquals(Math.round(quote.getAsk() * 100), quote.getAsk() * 100, 1e-6);
+                assertTrue(quote.getBidSize() >= 100 && quote.getBidSize() % 100 == 0);
+            }
+        }
+    }
+
+    @Test
+    void testSameSeedGivesSamePrices() {
+        QuoteCache first = new QuoteCache(1);
+        QuoteCache second = new QuoteCache(1);
+        RandomWalkQuoteSource a = new RandomWalkQuoteSource(first, List.of("AAPL"), 0.01, 5.0, 2.0, 7);
+        RandomWalkQuoteSource b = new RandomWalkQuoteSource(second, List.of("AAPL"), 0.01, 5.0, 2.0, 7);
+        for (int i = 0; i < 1_000; i++) {
+            a.publishNext();
+            b.publishNext();
+        }
+        Quote x = new Quote();
+        Quote y = new Quote();
+        first.read("AAPL", x);
+        second.read("AAPL", y);
+
+        assertEquals(x.getBid(), y.getBid());
+        assertEquals(x.getAsk(), y.getAsk());
+    }
+}
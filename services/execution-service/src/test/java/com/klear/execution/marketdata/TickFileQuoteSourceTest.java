@@ -0,0 +1,81 @@
+package com.klear.execution.marketdata;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickFileQuoteSourceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testReplaysTicksInOrderAndLoops() throws Exception {
+        Path file = Files.write(dir.resolve("ticks.csv"), List.of(
+                "# timestamp_millis,symbol,bid,ask,bid_size,ask_size",
+                "1700000000000,AAPL,189.51,189.53,300,500",
+                "",
+                "1700000000005,MSFT,370.10,370.14,100,200",
+                "1700000000010,AAPL,189.50,189.52,400,600"));
+        QuoteCache cache = new QuoteCache(8);
+        TickFileQuoteSource source = TickFileQuoteSource.load(cache, file, 0, true);
+        Quote quote = new Quote();
+
+        assertEquals(3, source.tickCount());
+        assertFalse(cache.read("AAPL", quote));
+
+        assertTrue(source.publishNext());
+        assertTrue(cache.read("AAPL", quote));
+        assertEquals(189.53, quote.getAsk(), 1e-9);
+        assertFalse(cache.read("MSFT", quote));
+
+        assertTrue(source.publishNext());
+        assertTrue(source.publishNext());
+        assertTrue(cache.read("AAPL", quote));
+        assertEquals(189.50, quote.getBid(), 1e-9);
+        assertEquals(600, quote.getAskSize());
+
+        // Looping starts over from the first tick
+        assertTrue(source.publishNext());
+        assertTrue(cache.read("AAPL", quote));
+        assertEquals(189.51, quote.getBid(), 1e-9);
+    }
+
+    @Test
+    void testStopsAtEndWithoutLoop() throws Exception {
+        Path file = Files.write(dir.resolve("ticks.csv"), List.of("1700000000000,AAPL,189.51,189.53,300,500"));
+        TickFileQuoteSource source = TickFileQuoteSource.load(new QuoteCache(1), file, 0, false);
+
+        assertTrue(source.publishNext());
+        assertFalse(source.publishNext());
+    }
+
+    @Test
+    void testReplaysRecordedGapsScaledBySpeed() throws Exception {
+        // 200 ms recorded, replayed at 4x
+        Path file = Files.write(dir.resolve("ticks.csv"), List.of(
+                "1700000000000,AAPL,189.51,189.53,300,500",
+                "1700000000200,AAPL,189.52,189.54,300,500"));
+        TickFileQuoteSource source = TickFileQuoteSource.load(new QuoteCache(1), file, 4.0, false);
+
+        long start = System.nanoTime();
+        assertTrue(source.publishNext());
+        assertTrue(source.publishNext());
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis >= 45, "elapsed " + elapsedMillis);
+    }
+
+    @Test
+    void testRejectsMalformedLines() throws Exception {
+        Path file = Files.write(dir.resolve("ticks.csv"), List.of("1700000000000,AAPL,189.51,oops,300,500"));
+        IOException e = assertThrows(IOException.class, () -> TickFileQuoteSource.load(new QuoteCache(1), file, 0, false));
+        assertTrue(e.getMessage().contains(":1:"));
+    }
+}
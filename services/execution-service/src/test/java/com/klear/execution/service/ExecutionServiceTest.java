@@ -1,12 +1,28 @@
 package com.klear.execution.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.klear.communication.core.BaseService;
+import com.klear.communication.core.ServiceClientMessage;
+import com.klear.communication.core.ServiceClientMessageTypes;
+import com.klear.execution.marketdata.QuoteCache;
+import com.klear.execution.shard.SymbolRouter;
 import com.klear.model.order.Order;
 import com.klear.model.order.OrderStatus;
+import com.klear.model.order.OrderType;
+import com.klear.model.order.Side;
+import com.klear.model.queue.QueueItem;
+import com.klear.model.queue.QueueItemTypes;
 import com.klear.model.trade.Trade;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
 
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -126,4 +142,280 @@ class ExecutionServiceTest {
         assertEquals("EXECUTION", result.getFailureStage());
         assertTrue(result.getFailureReason().contains("Invalid quantity"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testProcessTrade_SimulatedModeExecutesFullQuantity() throws Exception {
+        Trade trade = new Trade("ORDER-008", testOrder, OrderStatus.VALIDATED);
+
+        Method processTrade = ExecutionService.class.getDeclaredMethod("processTrade", Trade.class);
+        processTrade.setAccessible(true);
+        Trade result = (Trade) processTrade.invoke(executionService, trade);
+
+        assertEquals(100, result.getExecutedQuantity());
+    }
+
+    @Test
+    void testBookMode_RestingOrderRepliesWhenFilled() throws Exception {
+        List<Trade> replies = useOrderBook();
+
+        // A resting order is acknowledged at once and its execution reply comes later
+        submit("SELL-1", Side.SELL, OrderType.LIMIT, 150.00, 100);
+        assertEquals(1, replies.size());
+        assertEquals("SELL-1", replies.get(0).getOrderId());
+        assertEquals(OrderStatus.VALIDATED, replies.get(0).getStatus());
+        assertTrue(replies.get(0).isResting());
+
+        submit("BUY-1", Side.BUY, OrderType.LIMIT, 151.00, 60);
+        assertEquals(2, replies.size());
+        assertEquals("BUY-1", replies.get(1).getOrderId());
+        assertEquals(OrderStatus.EXECUTED, replies.get(1).getStatus());
+        assertEquals(60, replies.get(1).getExecutedQuantity());
+        assertEquals(150.00, replies.get(1).getExecutedPrice(), 0.001);
+
+        submit("BUY-2", Side.BUY, OrderType.MARKET, 0, 40);
+        assertEquals(4, replies.size());
+        assertEquals("SELL-1", replies.get(2).getOrderId());
+        assertEquals(OrderStatus.EXECUTED, replies.get(2).getStatus());
+        assertFalse(replies.get(2).isResting());
+        assertEquals(100, replies.get(2).getExecutedQuantity());
+        assertEquals(Side.SELL, replies.get(2).getOrder().getSide());
+        assertEquals("BUY-2", replies.get(3).getOrderId());
+        assertEquals(40, replies.get(3).getExecutedQuantity());
+    }
+
+    @Test
+    void testBookMode_ResentRestingOrderIsNotRestedTwice() throws Exception {
+        List<Trade> replies = useOrderBook();
+
+        submit("SELL-1", Side.SELL, OrderType.LIMIT, 150.00, 100);
+        submit("SELL-1", Side.SELL, OrderType.LIMIT, 150.00, 100);
+        assertEquals(2, replies.size());
+        assertTrue(replies.get(1).isResting());
+
+        // Only one copy rests, so a buy for twice the size fills 100 and no more
+        submit("BUY-1", Side.BUY, OrderType.IOC, 150.00, 200);
+        assertEquals(4, replies.size());
+        assertEquals("SELL-1", replies.get(2).getOrderId());
+        assertEquals(100, replies.get(3).getExecutedQuantity());
+
+        // Once filled, the ID may rest again
+        submit("SELL-1", Side.SELL, OrderType.LIMIT, 150.00, 100);
+        assertEquals(5, replies.size());
+        assertTrue(replies.get(4).isResting());
+        submit("BUY-2", Side.BUY, OrderType.IOC, 150.00, 100);
+        assertEquals(7, replies.size());
+        assertEquals(OrderStatus.EXECUTED, replies.get(6).getStatus());
+    }
+
+    @Test
+    void testBookMode_IocPartialFillAndMissingLiquidity() throws Exception {
+        List<Trade> replies = useOrderBook();
+
+        submit("BUY-1", Side.BUY, OrderType.MARKET, 0, 10);
+        assertEquals(OrderStatus.FAILED, replies.get(0).getStatus());
+        assertTrue(replies.get(0).getFailureReason().contains("No liquidity"));
+
+        submit("SELL-1", Side.SELL, OrderType.LIMIT, 150.00, 30);
+        submit("BUY-2", Side.BUY, OrderType.IOC, 150.00, 50);
+        assertEquals(4, replies.size());
+        assertTrue(replies.get(1).isResting());
+        assertEquals("SELL-1", replies.get(2).getOrderId());
+        assertEquals("BUY-2", replies.get(3).getOrderId());
+        assertEquals(OrderStatus.EXECUTED, replies.get(3).getStatus());
+        assertEquals(30, replies.get(3).getExecutedQuantity());
+    }
+
+    @Test
+    void testBookMode_FailsWithoutSide() throws Exception {
+        executionService.enableOrderBook(0.01, 65536);
+        Trade trade = new Trade("ORDER-009", testOrder, OrderStatus.VALIDATED);
+
+        Method processTrade = ExecutionService.class.getDeclaredMethod("processTrade", Trade.class);
+        processTrade.setAccessible(true);
+        Trade result = (Trade) processTrade.invoke(executionService, trade);
+
+        assertEquals(OrderStatus.FAILED, result.getStatus());
+        assertTrue(result.getFailureReason().contains("Missing side"));
+    }
+
+    @Test
+    void testShardedMode_MatchesPerSymbolOnShardThreads() throws Exception {
+        List<Trade> replies = Collections.synchronizedList(new ArrayList<>());
+        ExecutionService sharded = shardedService(replies, new SymbolRouter(2, Map.of("AAPL", 0, "MSFT", 1), 0, 1.5));
+        try {
+            submit(sharded, "SELL-1", "AAPL", Side.SELL, OrderType.LIMIT, 150.00, 100);
+            submit(sharded, "SELL-2", "MSFT", Side.SELL, OrderType.LIMIT, 300.00, 10);
+            submit(sharded, "BUY-1", "AAPL", Side.BUY, OrderType.MARKET, 0, 100);
+            submit(sharded, "BUY-2", "MSFT", Side.BUY, OrderType.IOC, 299.00, 10);
+
+            awaitReplies(replies, 5);
+            assertEquals(List.of("BUY-1", "BUY-2", "SELL-1", "SELL-1", "SELL-2"), sortedOrderIds(replies));
+            for (Trade reply : replies) {
+                if (reply.isResting()) {
+                    assertEquals(OrderStatus.VALIDATED, reply.getStatus());
+                } else if (reply.getOrderId().equals("BUY-2")) {
+                    assertEquals(OrderStatus.FAILED, reply.getStatus());
+                } else {
+                    assertEquals(OrderStatus.EXECUTED, reply.getStatus());
+                    assertEquals(150.00, reply.getExecutedPrice(), 0.001);
+                }
+            }
+        } finally {
+            sharded.shutdown();
+        }
+    }
+
+    @Test
+    void testShardedMode_RebalanceMovesBookWithRestingOrders() throws Exception {
+        SymbolRouter router = new SymbolRouter(2, Map.of(), 6, 1.5);
+        String moving = symbolOnShard(router, 0, "");
+        String busy = symbolOnShard(router, 0, moving);
+        String other = symbolOnShard(router, 1, "");
+        List<Trade> replies = Collections.synchronizedList(new ArrayList<>());
+        ExecutionService sharded = shardedService(replies, router);
+        try {
+            submit(sharded, "SELL-1", moving, Side.SELL, OrderType.LIMIT, 50.00, 100);
+            for (int i = 0; i < 4; i++) {
+                submit(sharded, "BUSY-" + i, busy, Side.BUY, OrderType.MARKET, 0, 1);
+            }
+            // Sixth trade: shard 0 carried 5 and shard 1 one, so the lighter symbol moves
+            submit(sharded, "OTHER-1", other, Side.BUY, OrderType.MARKET, 0, 1);
+            assertEquals(1, router.shardOf(moving));
+
+            submit(sharded, "BUY-1", moving, Side.BUY, OrderType.MARKET, 0, 100);
+
+            awaitReplies(replies, 8);
+            Trade resting = replies.stream().filter(t -> t.getOrderId().equals("SELL-1") && !t.isResting())
+                    .findFirst().orElseThrow();
+            assertEquals(OrderStatus.EXECUTED, resting.getStatus());
+            assertEquals(100, resting.getExecutedQuantity());
+        } finally {
+            sharded.shutdown();
+        }
+    }
+
+    @Test
+    void testMarketData_SimulatedMarketOrdersFillAtQuote() throws Exception {
+        QuoteCache quotes = new QuoteCache(4);
+        quotes.update(quotes.register("AAPL"), 149.98, 150.02, 500, 500, System.currentTimeMillis());
+        executionService.enableMarketData(quotes);
+        List<Trade> replies = useCapturingPublisher();
+
+        submit("BUY-1", Side.BUY, OrderType.MARKET, 0, 100);
+        submit("SELL-1", Side.SELL, OrderType.MARKET, 0, 100);
+        submit("BUY-2", Side.BUY, OrderType.LIMIT, 151.00, 100);
+        submit(executionService, "BUY-3", "MSFT", Side.BUY, OrderType.MARKET, 0, 100);
+
+        assertEquals(4, replies.size());
+        assertEquals(150.02, replies.get(0).getExecutedPrice(), 0.001);
+        assertEquals(100, replies.get(0).getExecutedQuantity());
+        assertEquals(149.98, replies.get(1).getExecutedPrice(), 0.001);
+        assertEquals(151.00, replies.get(2).getExecutedPrice(), 0.001); // limit orders keep their price
+        assertEquals(OrderStatus.FAILED, replies.get(3).getStatus());
+        assertTrue(replies.get(3).getFailureReason().contains("No quote"));
+    }
+
+    @Test
+    void testMarketData_BookModeSendsRemainderToQuote() throws Exception {
+        QuoteCache quotes = new QuoteCache(4);
+        quotes.update(quotes.register("AAPL"), 149.00, 151.00, 500, 500, System.currentTimeMillis());
+        List<Trade> replies = useOrderBook();
+        executionService.enableMarketData(quotes);
+
+        submit("SELL-1", Side.SELL, OrderType.LIMIT, 150.00, 50);
+        submit("BUY-1", Side.BUY, OrderType.MARKET, 0, 100);
+
+        assertEquals(3, replies.size());
+        assertTrue(replies.get(0).isResting());
+        assertEquals("SELL-1", replies.get(1).getOrderId());
+        assertEquals("BUY-1", replies.get(2).getOrderId());
+        assertEquals(OrderStatus.EXECUTED, replies.get(2).getStatus());
+        assertEquals(100, replies.get(2).getExecutedQuantity());
+        assertEquals(150.50, replies.get(2).getExecutedPrice(), 0.001); // 50 @ 150 from the book, 50 @ 151 ask
+    }
+
+    private ExecutionService shardedService(List<Trade> replies, SymbolRouter router) {
+        ExecutionService service = new ExecutionService() {
+            @Override
+            protected ReplyPublisher newReplyPublisher() {
+                return new ReplyPublisher(capturingJedis(replies));
+            }
+        };
+        service.enableOrderBook(0.01, 65536);
+        service.enableShards(router, 1024);
+        return service;
+    }
+
+    private static String symbolOnShard(SymbolRouter router, int shard, String except) {
+        for (int i = 0; ; i++) {
+            String symbol = "SYM" + i;
+            if (router.shardOf(symbol) == shard && !symbol.equals(except)) {
+                return symbol;
+            }
+        }
+    }
+
+    private static void awaitReplies(List<Trade> replies, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (replies.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, replies.size());
+    }
+
+    private static List<String> sortedOrderIds(List<Trade> replies) {
+        synchronized (replies) {
+            return replies.stream().map(Trade::getOrderId).sorted().toList();
+        }
+    }
+
+    private List<Trade> useOrderBook() throws Exception {
+        executionService.enableOrderBook(0.01, 65536);
+        return useCapturingPublisher();
+    }
+
+    private List<Trade> useCapturingPublisher() throws Exception {
+        List<Trade> replies = new ArrayList<>();
+        Field jedisPub = BaseService.class.getDeclaredField("jedisPub");
+        jedisPub.setAccessible(true);
+        jedisPub.set(executionService, capturingJedis(replies));
+        return replies;
+    }
+
+    private static Jedis capturingJedis(List<Trade> replies) {
+        ObjectMapper mapper = new ObjectMapper();
+        return new Jedis() {
+            @Override
+            public long publish(String channel, String message) {
+                try {
+                    ServiceClientMessage reply = mapper.readValue(message, ServiceClientMessage.class);
+                    replies.add(mapper.convertValue(reply.getPayload(), Trade.class));
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+                return 1;
+            }
+        };
+    }
+
+    private void submit(String orderId, Side side, OrderType type, double price, int quantity) throws Exception {
+        submit(executionService, orderId, "AAPL", side, type, price, quantity);
+    }
+
+    private static void submit(ExecutionService service, String orderId, String symbol, Side side, OrderType type,
+                               double price, int quantity) throws Exception {
+        Order order = new Order();
+        order.setClientId("CLIENT123");
+        order.setStockSymbol(symbol);
+        order.setSide(side);
+        order.setOrderType(type);
+        order.setPrice(price);
+        order.setQuantity(quantity);
+        ServiceClientMessage message = new ServiceClientMessage(ServiceClientMessageTypes.SEND, "TRADE_REPLY",
+                (Object) new Trade(orderId, order, OrderStatus.VALIDATED));
+
+        Method processQueueItem = BaseService.class.getDeclaredMethod("processQueueItem", QueueItem.class);
+        processQueueItem.setAccessible(true);
+        processQueueItem.invoke(service, new QueueItem(QueueItemTypes.EXECUTION, message));
+    }
+}
@@ -0,0 +1,68 @@
+package com.klear.execution.shard;
+
+import com.klear.model.trade.Trade;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardRingTest {
+
+    @Test
+    void testDeliversEveryTaskInOrderAcrossThreads() throws Exception {
+        ShardRing ring = new ShardRing(8);
+        int count = 100_000;
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        Thread consumer = new Thread(() -> {
+            try {
+                for (int i = 0; i < count; i++) {
+                    ShardTask task = ring.take();
+                    if (!String.valueOf(i).equals(task.trade().getOrderId()) || !"ret".equals(task.returnChannel())) {
+                        failure.compareAndSet(null, "task " + i + " was " + task.trade().getOrderId());
+                    }
+                    ring.release();
+                }
+            } catch (InterruptedException e) {
+                failure.compareAndSet(null, "interrupted");
+            }
+        });
+        consumer.start();
+
+        Trade trade = new Trade();
+        for (int i = 0; i < count; i++) {
+            trade.setOrderId(String.valueOf(i));
+            ring.claim().setTrade(trade, "ret", null);
+            ring.publish();
+        }
+        consumer.join(10_000);
+
+        assertFalse(consumer.isAlive());
+        assertNull(failure.get());
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    void testTakeIsInterruptible() throws Exception {
+        ShardRing ring = new ShardRing(2);
+        AtomicReference<Boolean> interrupted = new AtomicReference<>(false);
+        Thread consumer = new Thread(() -> {
+            try {
+                ring.take();
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        consumer.start();
+        consumer.interrupt();
+        consumer.join(5_000);
+
+        assertTrue(interrupted.get());
+    }
+
+    @Test
+    void testRejectsCapacityThatIsNotAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardRing(6));
+    }
+}
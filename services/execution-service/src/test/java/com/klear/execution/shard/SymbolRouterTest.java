@@ -0,0 +1,82 @@
+package com.klear.execution.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymbolRouterTest {
+
+    @Test
+    void testRoutesByHashAndHonoursPins() {
+        SymbolRouter router = new SymbolRouter(4, Map.of("AAPL", 3), 0, 1.5);
+
+        assertEquals(3, router.route("AAPL"));
+        assertEquals(Math.floorMod("MSFT".hashCode(), 4), router.route("MSFT"));
+        assertEquals(router.route("MSFT"), router.route("MSFT"));
+        assertFalse(router.rebalanceDue());
+    }
+
+    @Test
+    void testParsesPins() {
+        assertEquals(Map.of("AAPL", 0, "MSFT", 1), SymbolRouter.parsePins(" AAPL:0, MSFT:1 "));
+        assertTrue(SymbolRouter.parsePins("").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> SymbolRouter.parsePins("AAPL"));
+        assertThrows(IllegalArgumentException.class, () -> new SymbolRouter(2, Map.of("AAPL", 2), 0, 1.5));
+    }
+
+    @Test
+    void testMovesSymbolThatBestEvensOutShards() {
+        SymbolRouter router = new SymbolRouter(2, Map.of("HOT", 0, "LIGHT", 0, "OTHER", 1), 10, 1.5);
+        String cool = symbolOnShard(router, 0);
+
+        for (int i = 0; i < 6; i++) {
+            router.route("HOT");
+        }
+        for (int i = 0; i < 3; i++) {
+            router.route(cool);
+        }
+        router.route("OTHER");
+        assertTrue(router.rebalanceDue());
+
+        // Loads 9 vs 1: HOT is pinned, so the unpinned symbol goes
+        SymbolRouter.Move move = router.planRebalance();
+        assertNotNull(move);
+        assertEquals(cool, move.getSymbol());
+        assertEquals(0, move.getFrom());
+        assertEquals(1, move.getTo());
+        assertFalse(router.rebalanceDue());
+
+        router.move(cool, 1);
+        assertEquals(1, router.route(cool));
+        assertThrows(IllegalStateException.class, () -> router.move("HOT", 1));
+    }
+
+    @Test
+    void testNoMoveWhenBalancedOrWhenMovingWouldNotHelp() {
+        SymbolRouter router = new SymbolRouter(2, Map.of(), 4, 1.5);
+        String a = symbolOnShard(router, 0);
+        String b = symbolOnShard(router, 1);
+        router.route(a);
+        router.route(a);
+        router.route(b);
+        router.route(b);
+        assertNull(router.planRebalance());
+
+        // A single hot symbol cannot be split, and moving it only swaps the imbalance
+        for (int i = 0; i < 4; i++) {
+            router.route(a);
+        }
+        assertNull(router.planRebalance());
+    }
+
+    private static String symbolOnShard(SymbolRouter router, int shard) {
+        for (int i = 0; ; i++) {
+            String symbol = "SYM" + i;
+            if (router.shardOf(symbol) == shard) {
+                return symbol;
+            }
+        }
+    }
+}
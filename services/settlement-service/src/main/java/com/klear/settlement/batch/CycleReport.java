@@ -0,0 +1,57 @@
+package com.klear.settlement.batch;
+
+/**
+ * What one settlement cycle did and how long it took.
+ */
+public final class CycleReport {
+
+    private final long cycle;
+    private final int trades;
+    private final int settled;
+    private final int failed;
+    private final int instructions;
+    private final long nettingNanos;
+    private final long durationNanos;
+
+    public CycleReport(long cycle, int trades, int settled, int failed, int instructions, long nettingNanos,
+                       long durationNanos) {
+        this.cycle = cycle;
+        this.trades = trades;
+        this.settled = settled;
+        this.failed = failed;
+        this.instructions = instructions;
+        this.nettingNanos = nettingNanos;
+        this.durationNanos = durationNanos;
+    }
+
+    public long getCycle() {
+        return cycle;
+    }
+
+    public int getTrades() {
+        return trades;
+    }
+
+    public int getSettled() {
+        return settled;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public int getInstructions() {
+        return instructions;
+    }
+
+    public long getNettingNanos() {
+        return nettingNanos;
+    }
+
+    /**
+     * From taking the batch to the last reply sent.
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+}
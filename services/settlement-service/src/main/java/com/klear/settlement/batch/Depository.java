@@ -0,0 +1,103 @@
+package com.klear.settlement.batch;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Settled cash and securities per participant, as moved by settlement cycles.
+ *
+ * A cycle's instructions are checked and applied under one write lock, so a reader sees
+ * the balances before or after the whole cycle, never part of it. Delivery and payment are
+ * linked per participant: if a participant cannot deliver every symbol it owes, none of
+ * its instructions settle. Cash may go negative (payments are assumed funded).
+ */
+public final class Depository {
+
+    private static final class Account {
+        long cashCents;
+        final Map<String, Long> securities = new HashMap<>();
+    }
+
+    private final Map<String, Account> accounts = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final boolean allowShort;
+
+    /**
+     * @param allowShort settle deliveries of more shares than the participant holds
+     */
+    public Depository(boolean allowShort) {
+        this.allowShort = allowShort;
+    }
+
+    /**
+     * Settles the instructions of every participant that can deliver what it owes, and
+     * returns the participants that could not.
+     */
+    public Set<String> settle(List<DvpInstruction> instructions) {
+        lock.writeLock().lock();
+        try {
+            Set<String> failed = new HashSet<>();
+            if (!allowShort) {
+                for (DvpInstruction instruction : instructions) {
+                    if (instruction.getSecurities() < 0
+                            && held(instruction.getParticipant(), instruction.getSymbol())
+                            + instruction.getSecurities() < 0) {
+                        failed.add(instruction.getParticipant());
+                    }
+                }
+            }
+            for (DvpInstruction instruction : instructions) {
+                if (failed.contains(instruction.getParticipant())) {
+                    continue;
+                }
+                Account account = accounts.computeIfAbsent(instruction.getParticipant(), p -> new Account());
+                account.cashCents += instruction.getCashCents();
+                account.securities.merge(instruction.getSymbol(), instruction.getSecurities(), Long::sum);
+            }
+            return failed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Credits shares outside of any cycle, e.g. an opening position.
+     */
+    public void deposit(String participant, String symbol, long shares) {
+        lock.writeLock().lock();
+        try {
+            accounts.computeIfAbsent(participant, p -> new Account()).securities.merge(symbol, shares, Long::sum);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long cashCents(String participant) {
+        lock.readLock().lock();
+        try {
+            Account account = accounts.get(participant);
+            return account == null ? 0 : account.cashCents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long securities(String participant, String symbol) {
+        lock.readLock().lock();
+        try {
+            return held(participant, symbol);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long held(String participant, String symbol) {
+        Account account = accounts.get(participant);
+        return account == null ? 0 : account.securities.getOrDefault(symbol, 0L);
+    }
+}
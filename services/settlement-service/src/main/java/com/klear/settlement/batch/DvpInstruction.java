@@ -0,0 +1,48 @@
+package com.klear.settlement.batch;
+
+/**
+ * One participant's net delivery-versus-payment obligation in one symbol for a settlement
+ * cycle: shares to receive (negative: to deliver) against cash to receive (negative: to pay).
+ */
+public final class DvpInstruction {
+
+    private final String participant;
+    private final String symbol;
+    private final long securities;
+    private final long cashCents;
+    private final int trades;
+
+    public DvpInstruction(String participant, String symbol, long securities, long cashCents, int trades) {
+        this.participant = participant;
+        this.symbol = symbol;
+        this.securities = securities;
+        this.cashCents = cashCents;
+        this.trades = trades;
+    }
+
+    public String getParticipant() {
+        return participant;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public long getSecurities() {
+        return securities;
+    }
+
+    public long getCashCents() {
+        return cashCents;
+    }
+
+    public int getTrades() {
+        return trades;
+    }
+
+    @Override
+    public String toString() {
+        return participant + " " + symbol + ": " + securities + " shares, " + cashCents + " cents (" + trades
+                + " trades)";
+    }
+}
@@ -0,0 +1,130 @@
+package com.klear.settlement.batch;
+
+import com.klear.model.order.Order;
+import com.klear.model.order.Side;
+import com.klear.model.trade.Trade;
+import com.klear.settlement.ledger.SettlementLedger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Nets a batch of trades into delivery-versus-payment instructions, one per participant
+ * and symbol, in parallel.
+ *
+ * Trades are first bucketed by participant, so each fork/join task nets whole participants
+ * into its own maps and nothing is shared or merged between tasks. A participant's
+ * instructions come out together.
+ */
+public final class DvpNetting {
+
+    private final ForkJoinPool pool;
+    private final int partitions;
+
+    public DvpNetting(ForkJoinPool pool) {
+        this.pool = pool;
+        this.partitions = Math.max(1, pool.getParallelism() * 4);
+    }
+
+    public List<DvpInstruction> net(List<Trade> trades) {
+        // Counting sort of trade indexes by participant partition
+        int count = trades.size();
+        int[] partitionOf = new int[count];
+        int[] start = new int[partitions + 1];
+        for (int i = 0; i < count; i++) {
+            int p = partition(trades.get(i).getOrder());
+            partitionOf[i] = p;
+            start[p + 1]++;
+        }
+        for (int p = 0; p < partitions; p++) {
+            start[p + 1] += start[p];
+        }
+        int[] next = start.clone();
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[next[partitionOf[i]]++] = i;
+        }
+        return pool.invoke(new Net(trades, order, start, 0, partitions));
+    }
+
+    /**
+     * Spreads participants by reference code when they have one, since codes are dense,
+     * and otherwise by the hash of the name. A name has a code on every trade or none.
+     */
+    private int partition(Order order) {
+        if (order.getClientCode() > 0) {
+            return order.getClientCode() % partitions;
+        }
+        String participant = order.getClientId();
+        int h = participant == null ? 0 : participant.hashCode();
+        return ((h ^ (h >>> 16)) & 0x7fffffff) % partitions;
+    }
+
+    /**
+     * Shares the trade moves to its participant: positive for a buy (or a missing side).
+     */
+    static long securities(Trade trade) {
+        long quantity = trade.getExecutedQuantity() > 0 ? trade.getExecutedQuantity() : trade.getOrder().getQuantity();
+        return trade.getOrder().getSide() == Side.SELL ? -quantity : quantity;
+    }
+
+    /**
+     * Cash the trade moves to its participant: the netted amount, paid on a buy.
+     */
+    static long cashCents(Trade trade) {
+        long cents = SettlementLedger.nettedCents(trade);
+        return trade.getOrder().getSide() == Side.SELL ? cents : -cents;
+    }
+
+    private static final class Net extends RecursiveTask<List<DvpInstruction>> {
+        private final List<Trade> trades;
+        private final int[] order;
+        private final int[] start;
+        private final int from;
+        private final int to;
+
+        Net(List<Trade> trades, int[] order, int[] start, int from, int to) {
+            this.trades = trades;
+            this.order = order;
+            this.start = start;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<DvpInstruction> compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                Net right = new Net(trades, order, start, middle, to);
+                right.fork();
+                List<DvpInstruction> left = new Net(trades, order, start, from, middle).compute();
+                left.addAll(right.join());
+                return left;
+            }
+            // participant -> symbol -> {securities, cents, trades}
+            Map<String, Map<String, long[]>> nets = new LinkedHashMap<>();
+            for (int i = start[from]; i < start[to]; i++) {
+                Trade trade = trades.get(order[i]);
+                Order o = trade.getOrder();
+                long[] net = nets.computeIfAbsent(o.getClientId(), c -> new LinkedHashMap<>())
+                        .computeIfAbsent(o.getStockSymbol(), s -> new long[3]);
+                net[0] += securities(trade);
+                net[1] += cashCents(trade);
+                net[2]++;
+            }
+            List<DvpInstruction> instructions = new ArrayList<>();
+            for (Map.Entry<String, Map<String, long[]>> participant : nets.entrySet()) {
+                for (Map.Entry<String, long[]> symbol : participant.getValue().entrySet()) {
+                    long[] net = symbol.getValue();
+                    instructions.add(new DvpInstruction(participant.getKey(), symbol.getKey(), net[0], net[1],
+                            (int) net[2]));
+                }
+            }
+            return instructions;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.klear.settlement.batch;
+
+import com.klear.communication.core.BaseService.ReplyRoute;
+import com.klear.model.trade.Trade;
+import com.klear.settlement.ledger.SettlementLedger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.klear.model.order.OrderStatus.FAILED;
+import static com.klear.model.order.OrderStatus.SETTLED;
+
+/**
+ * Settles cleared trades in batches instead of one by one.
+ *
+ * Trades wait in a pending batch until {@link #run} takes the whole batch (a new one starts
+ * at once), nets it into delivery-versus-payment instructions with {@link DvpNetting},
+ * settles those in the {@link Depository} in one step and then replies for every trade:
+ * SETTLED, or FAILED if its participant could not deliver. With a
+ * {@link SettlementLedger} set, settled trades are posted to it and committed once per
+ * cycle before any reply goes out. Adding is safe from any thread; cycles run one at a
+ * time.
+ */
+public final class SettlementCycle {
+
+    @FunctionalInterface
+    public interface Replier {
+        void reply(ReplyRoute route, Trade trade);
+    }
+
+    /**
+     * Receives the instructions each cycle settled, before any reply is sent.
+     */
+    @FunctionalInterface
+    public interface InstructionSink {
+        void accept(long cycle, List<DvpInstruction> settled);
+    }
+
+    private final DvpNetting netting;
+    private final Depository depository;
+    private final ReentrantLock running = new ReentrantLock();
+
+    private List<Trade> pendingTrades = new ArrayList<>();
+    private List<ReplyRoute> pendingRoutes = new ArrayList<>();
+    private long cycle;
+    private volatile InstructionSink sink;
+    private volatile SettlementLedger ledger;
+
+    public SettlementCycle(DvpNetting netting, Depository depository) {
+        this.netting = netting;
+        this.depository = depository;
+    }
+
+    /**
+     * Adds a trade to the next cycle. The cycle keeps {@code trade}, so pass a copy if the
+     * caller reuses it. Returns the number of trades now pending.
+     */
+    public synchronized int add(Trade trade, ReplyRoute route) {
+        pendingTrades.add(trade);
+        pendingRoutes.add(route);
+        return pendingTrades.size();
+    }
+
+    public synchronized int pending() {
+        return pendingTrades.size();
+    }
+
+    public void setInstructionSink(InstructionSink sink) {
+        this.sink = sink;
+    }
+
+    public void setLedger(SettlementLedger ledger) {
+        this.ledger = ledger;
+    }
+
+    public Depository getDepository() {
+        return depository;
+    }
+
+    /**
+     * Settles everything pending and replies through {@code replier}; returns null if
+     * nothing was pending.
+     */
+    public CycleReport run(Replier replier) {
+        running.lock();
+        try {
+            List<Trade> trades;
+            List<ReplyRoute> routes;
+            synchronized (this) {
+                if (pendingTrades.isEmpty()) {
+                    return null;
+                }
+                trades = pendingTrades;
+                routes = pendingRoutes;
+                pendingTrades = new ArrayList<>(trades.size());
+                pendingRoutes = new ArrayList<>(trades.size());
+            }
+            long id = ++cycle;
+            long start = System.nanoTime();
+            List<DvpInstruction> instructions = netting.net(trades);
+            long nettingNanos = System.nanoTime() - start;
+            Set<String> failedParticipants = depository.settle(instructions);
+            InstructionSink sink = this.sink;
+            if (sink != null) {
+                List<DvpInstruction> settled = instructions;
+                if (!failedParticipants.isEmpty()) {
+                    settled = new ArrayList<>(instructions.size());
+                    for (DvpInstruction instruction : instructions) {
+                        if (!failedParticipants.contains(instruction.getParticipant())) {
+                            settled.add(instruction);
+                        }
+                    }
+                }
+                sink.accept(id, settled);
+            }
+            SettlementLedger ledger = this.ledger;
+            if (ledger != null) {
+                for (Trade trade : trades) {
+                    if (!failedParticipants.contains(trade.getOrder().getClientId())) {
+                        ledger.postTrade(trade);
+                    }
+                }
+                ledger.commit();
+            }
+
+            int failed = 0;
+            for (int i = 0; i < trades.size(); i++) {
+                Trade trade = trades.get(i);
+                if (failedParticipants.contains(trade.getOrder().getClientId())) {
+                    trade.setStatus(FAILED);
+                    trade.setFailureStage("SETTLEMENT");
+                    trade.setFailureReason("Insufficient securities to deliver in settlement cycle " + id);
+                    trade.setSettlementMessage("Settlement failed: Insufficient securities");
+                    failed++;
+                } else {
+                    // Keep a message the service set from the securities master
+                    if (trade.getSettlementMessage() == null || trade.getSettlementMessage().isEmpty()) {
+                        trade.setSettlementMessage("Settlement Successful");
+                    }
+                    trade.setStatus(SETTLED);
+                }
+                replier.reply(routes.get(i), trade);
+            }
+            return new CycleReport(id, trades.size(), trades.size() - failed, failed, instructions.size(),
+                    nettingNanos, System.nanoTime() - start);
+        } finally {
+            running.unlock();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.klear.settlement.files;
+
+import com.klear.settlement.batch.DvpInstruction;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Memory-maps settlement instruction files to validate and read them.
+ *
+ * Validation checks the header, that every record has the right length and type, that
+ * the trailer's record count matches and that its CRC-32C matches the bytes before it.
+ * Run as a program with file names to validate them from the command line.
+ */
+public final class InstructionFileReader {
+
+    @FunctionalInterface
+    public interface InstructionVisitor {
+        void visit(long cycle, DvpInstruction instruction);
+    }
+
+    /**
+     * The outcome of validating one file.
+     */
+    public static final class Summary {
+        private final long fileSequence;
+        private final long records;
+        private final int crc;
+
+        Summary(long fileSequence, long records, int crc) {
+            this.fileSequence = fileSequence;
+            this.records = records;
+            this.crc = crc;
+        }
+
+        public long getFileSequence() {
+            return fileSequence;
+        }
+
+        public long getRecords() {
+            return records;
+        }
+
+        public int getCrc() {
+            return crc;
+        }
+    }
+
+    private InstructionFileReader() {
+    }
+
+    /**
+     * Validates {@code file}, throwing an IOException that says what is wrong with it.
+     */
+    public static Summary validate(Path file) throws IOException {
+        return read(file, null);
+    }
+
+    /**
+     * Validates {@code file}, then hands every instruction in it to {@code visitor}.
+     */
+    public static Summary read(Path file, InstructionVisitor visitor) throws IOException {
+        try {
+            return map(file, visitor);
+        } catch (NumberFormatException e) {
+            throw new IOException(file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static Summary map(Path file, InstructionVisitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int length = InstructionRecord.LENGTH;
+            if (size < 2L * length || size % length != 0 || size > Integer.MAX_VALUE) {
+                throw new IOException(file + ": size " + size + " is not a whole number of records");
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int trailer = (int) size - length;
+
+            for (int offset = 0; offset < size; offset += length) {
+                byte expected = offset == 0 ? InstructionRecord.HEADER
+                        : offset == trailer ? InstructionRecord.TRAILER : InstructionRecord.DETAIL;
+                if (map.get(offset) != expected || map.get(offset + length - 1) != '\n') {
+                    throw new IOException(file + ": malformed record " + offset / length);
+                }
+            }
+            if (!InstructionRecord.FORMAT.equals(InstructionRecord.text(map, 1, InstructionRecord.FORMAT.length()))) {
+                throw new IOException(file + ": not a settlement instruction file");
+            }
+            long version = InstructionRecord.number(map, 10, 2);
+            if (version != InstructionRecord.VERSION) {
+                throw new IOException(file + ": unsupported version " + version);
+            }
+            long fileSequence = InstructionRecord.number(map, 12, 20);
+
+            long records = InstructionRecord.number(map, trailer + 1, 12);
+            if (records != trailer / length - 1) {
+                throw new IOException(file + ": trailer counts " + records + " records, file holds "
+                        + (trailer / length - 1));
+            }
+            byte[] hex = new byte[8];
+            map.get(trailer + 13, hex);
+            int expectedCrc = Integer.parseUnsignedInt(new String(hex, StandardCharsets.US_ASCII), 16);
+            CRC32C crc = new CRC32C();
+            crc.update(map.slice(0, trailer));
+            if ((int) crc.getValue() != expectedCrc) {
+                throw new IOException(file + ": checksum mismatch");
+            }
+
+            if (visitor != null) {
+                for (int offset = length; offset < trailer; offset += length) {
+                    visitor.visit(InstructionRecord.cycle(map, offset), InstructionRecord.detail(map, offset));
+                }
+            }
+            return new Summary(fileSequence, records, expectedCrc);
+        }
+    }
+
+    public static void main(String[] args) {
+        int failures = 0;
+        for (String name : args) {
+            try {
+                Summary summary = validate(Path.of(name));
+                System.out.println(name + ": OK, " + summary.getRecords() + " instructions");
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+                failures++;
+            }
+        }
+        System.exit(failures == 0 ? 0 : 1);
+    }
+}
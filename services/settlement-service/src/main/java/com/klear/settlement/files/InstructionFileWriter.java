@@ -0,0 +1,242 @@
+package com.klear.settlement.files;
+
+import com.klear.settlement.batch.DvpInstruction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Writes settlement cycles' instructions to files for custodians, on a thread of its own.
+ *
+ * {@link #submit} only queues the cycle; the writer thread encodes records (see
+ * {@link InstructionRecord}) into a large direct buffer and hands it to a
+ * {@link FileChannel} whenever it fills and after each cycle. A file is rotated when the
+ * next record would take it past {@code maxFileBytes} or once it has been open for
+ * {@code rotateMillis}. Closing a file appends the trailer with its record count and
+ * CRC-32C, forces it to disk and renames it from {@code .part} to {@code .dat}, so a
+ * {@code .dat} file is always complete.
+ */
+public final class InstructionFileWriter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(InstructionFileWriter.class);
+
+    private static final class Batch {
+        final long cycle;
+        final List<DvpInstruction> instructions;
+
+        Batch(long cycle, List<DvpInstruction> instructions) {
+            this.cycle = cycle;
+            this.instructions = instructions;
+        }
+    }
+
+    private static final Batch STOP = new Batch(-1, List.of());
+
+    private final Path directory;
+    private final long maxFileBytes;
+    private final long rotateMillis;
+    private final ByteBuffer buffer;
+    private final BlockingQueue<Batch> queue = new LinkedBlockingQueue<>();
+    private final CRC32C crc = new CRC32C();
+    private final Thread thread;
+
+    // Writer thread only
+    private FileChannel channel;
+    private Path partFile;
+    private long fileSequence;
+    private long fileOpenedAt;
+    private long fileBytes;
+    private long fileRecords;
+
+    private volatile long recordsWritten;
+    private volatile long filesCompleted;
+    private volatile long bytesWritten;
+    private volatile boolean closed;
+
+    /**
+     * @param maxFileBytes most bytes per file, at least three records
+     * @param rotateMillis longest a file stays open; 0 to rotate by size only
+     * @param bufferBytes  size of the direct write buffer
+     */
+    public InstructionFileWriter(Path directory, long maxFileBytes, long rotateMillis, int bufferBytes) {
+        if (maxFileBytes < 3L * InstructionRecord.LENGTH) {
+            throw new IllegalArgumentException("maxFileBytes too small: " + maxFileBytes);
+        }
+        this.directory = directory;
+        this.maxFileBytes = maxFileBytes;
+        this.rotateMillis = rotateMillis;
+        this.buffer = ByteBuffer.allocateDirect(Math.max(bufferBytes, InstructionRecord.LENGTH * 2));
+        this.fileSequence = System.currentTimeMillis() * 1000;
+        this.thread = new Thread(this::run, "SettlementService-instruction-writer");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        thread.start();
+    }
+
+    /**
+     * Queues a cycle's instructions for writing; never waits for the disk.
+     */
+    public void submit(long cycle, List<DvpInstruction> instructions) {
+        if (closed) {
+            throw new IllegalStateException("Instruction file writer is closed");
+        }
+        queue.add(new Batch(cycle, instructions));
+    }
+
+    /**
+     * Writes everything queued, completes the open file and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        queue.add(STOP);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long recordsWritten() {
+        return recordsWritten;
+    }
+
+    public long filesCompleted() {
+        return filesCompleted;
+    }
+
+    public long bytesWritten() {
+        return bytesWritten;
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                Batch batch = rotateMillis > 0 ? queue.poll(timeToRotate(), TimeUnit.MILLISECONDS) : queue.take();
+                if (batch == STOP) {
+                    break;
+                }
+                try {
+                    if (batch != null) {
+                        write(batch);
+                    }
+                    if (channel != null && rotateMillis > 0
+                            && System.currentTimeMillis() - fileOpenedAt >= rotateMillis) {
+                        completeFile();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    log.error("Failed to write settlement instructions to {}", partFile, e);
+                }
+            }
+            if (channel != null) {
+                completeFile();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.error("Failed to complete settlement instruction file {}", partFile, e);
+        }
+    }
+
+    private long timeToRotate() {
+        if (channel == null) {
+            return rotateMillis;
+        }
+        return Math.max(1, rotateMillis - (System.currentTimeMillis() - fileOpenedAt));
+    }
+
+    private void write(Batch batch) throws IOException {
+        int written = 0;
+        for (DvpInstruction instruction : batch.instructions) {
+            try {
+                InstructionRecord.checkFits(instruction);
+            } catch (IllegalArgumentException e) {
+                log.error("Cannot write settlement instruction for cycle {}: {}", batch.cycle, e.getMessage());
+                continue;
+            }
+            // Room for this record and the trailer
+            if (channel != null && fileBytes + 2L * InstructionRecord.LENGTH > maxFileBytes) {
+                completeFile();
+            }
+            if (channel == null) {
+                openFile();
+            }
+            ensureRoom();
+            InstructionRecord.putDetail(buffer, batch.cycle, instruction);
+            fileBytes += InstructionRecord.LENGTH;
+            fileRecords++;
+            written++;
+        }
+        if (channel != null) {
+            drain();
+        }
+        recordsWritten += written;
+    }
+
+    private void openFile() throws IOException {
+        fileSequence++;
+        partFile = directory.resolve("instructions-" + fileSequence + ".part");
+        channel = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        fileOpenedAt = System.currentTimeMillis();
+        fileBytes = InstructionRecord.LENGTH;
+        fileRecords = 0;
+        crc.reset();
+        InstructionRecord.putHeader(buffer, fileSequence, fileOpenedAt);
+    }
+
+    private void completeFile() throws IOException {
+        drain();
+        InstructionRecord.putTrailer(buffer, fileRecords, (int) crc.getValue());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        bytesWritten += InstructionRecord.LENGTH;
+        channel.force(true);
+        channel.close();
+        channel = null;
+        Path done = partFile.resolveSibling(partFile.getFileName().toString().replace(".part", ".dat"));
+        Files.move(partFile, done, StandardCopyOption.ATOMIC_MOVE);
+        filesCompleted++;
+    }
+
+    private void ensureRoom() throws IOException {
+        if (buffer.remaining() < InstructionRecord.LENGTH) {
+            drain();
+        }
+    }
+
+    /**
+     * Checksums and writes out what the buffer holds.
+     */
+    private void drain() throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        int bytes = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        bytesWritten += bytes;
+    }
+}
@@ -0,0 +1,178 @@
+package com.klear.settlement.files;
+
+import com.klear.settlement.batch.DvpInstruction;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Layout of settlement instruction files: fixed-width ASCII records of {@link #LENGTH}
+ * bytes, each ending in a newline, so a file can be read by offset as well as by line.
+ *
+ * <pre>
+ * H KLEAR-DVP version(2) file_sequence(20) created_millis(20)
+ * D cycle(12) participant(32) symbol(16) securities(20) cash_cents(20) trades(10)   one per instruction
+ * T records(12) crc32c(8, hex)
+ * </pre>
+ *
+ * Text is left-aligned and space-padded, numbers right-aligned; securities and cash are
+ * signed, positive when the participant receives. The trailer's CRC-32C covers every byte
+ * before it.
+ */
+public final class InstructionRecord {
+
+    public static final int LENGTH = 112;
+    public static final byte HEADER = 'H';
+    public static final byte DETAIL = 'D';
+    public static final byte TRAILER = 'T';
+    public static final String FORMAT = "KLEAR-DVP";
+    public static final int VERSION = 1;
+
+    static final int PARTICIPANT_WIDTH = 32;
+    static final int SYMBOL_WIDTH = 16;
+
+    private InstructionRecord() {
+    }
+
+    static void putHeader(ByteBuffer out, long fileSequence, long createdMillis) {
+        int start = out.position();
+        out.put(HEADER);
+        putText(out, FORMAT, FORMAT.length());
+        putNumber(out, VERSION, 2, '0');
+        putNumber(out, fileSequence, 20, '0');
+        putNumber(out, createdMillis, 20, ' ');
+        end(out, start);
+    }
+
+    static void putDetail(ByteBuffer out, long cycle, DvpInstruction instruction) {
+        int start = out.position();
+        out.put(DETAIL);
+        putNumber(out, cycle, 12, '0');
+        putText(out, instruction.getParticipant(), PARTICIPANT_WIDTH);
+        putText(out, instruction.getSymbol(), SYMBOL_WIDTH);
+        putNumber(out, instruction.getSecurities(), 20, ' ');
+        putNumber(out, instruction.getCashCents(), 20, ' ');
+        putNumber(out, instruction.getTrades(), 10, ' ');
+        end(out, start);
+    }
+
+    static void putTrailer(ByteBuffer out, long records, int crc) {
+        int start = out.position();
+        out.put(TRAILER);
+        putNumber(out, records, 12, '0');
+        String hex = Integer.toHexString(crc);
+        for (int i = hex.length(); i < 8; i++) {
+            out.put((byte) '0');
+        }
+        putText(out, hex, hex.length());
+        end(out, start);
+    }
+
+    /**
+     * Throws if the instruction's names do not fit their fields or are not ASCII.
+     */
+    static void checkFits(DvpInstruction instruction) {
+        checkText(instruction.getParticipant(), PARTICIPANT_WIDTH, "participant");
+        checkText(instruction.getSymbol(), SYMBOL_WIDTH, "symbol");
+    }
+
+    /**
+     * Decodes the detail record at {@code offset}.
+     */
+    static DvpInstruction detail(ByteBuffer in, int offset) {
+        return new DvpInstruction(text(in, offset + 13, PARTICIPANT_WIDTH), text(in, offset + 45, SYMBOL_WIDTH),
+                number(in, offset + 61, 20), number(in, offset + 81, 20), (int) number(in, offset + 101, 10));
+    }
+
+    static long cycle(ByteBuffer in, int offset) {
+        return number(in, offset + 1, 12);
+    }
+
+    static String text(ByteBuffer in, int offset, int width) {
+        int end = offset + width;
+        while (end > offset && in.get(end - 1) == ' ') {
+            end--;
+        }
+        byte[] bytes = new byte[end - offset];
+        in.get(offset, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    static long number(ByteBuffer in, int offset, int width) {
+        int i = offset;
+        int end = offset + width;
+        while (i < end && in.get(i) == ' ') {
+            i++;
+        }
+        boolean negative = i < end && in.get(i) == '-';
+        if (negative) {
+            i++;
+        }
+        if (i == end) {
+            throw new NumberFormatException("Empty number at offset " + offset);
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = in.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Bad digit at offset " + i);
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    private static void putText(ByteBuffer out, String text, int width) {
+        int length = text == null ? 0 : text.length();
+        for (int i = 0; i < width; i++) {
+            out.put(i < length ? (byte) text.charAt(i) : (byte) ' ');
+        }
+    }
+
+    private static void putNumber(ByteBuffer out, long value, int width, char pad) {
+        int start = out.position();
+        boolean negative = value < 0;
+        long rest = negative ? -value : value;
+        int i = start + width - 1;
+        do {
+            out.put(i--, (byte) ('0' + rest % 10));
+            rest /= 10;
+        } while (rest != 0 && i >= start);
+        if (negative) {
+            if (i < start) {
+                rest = 1;
+            } else {
+                out.put(i--, (byte) '-');
+            }
+        }
+        if (rest != 0) {
+            throw new IllegalArgumentException(value + " does not fit in " + width + " characters");
+        }
+        while (i >= start) {
+            out.put(i--, (byte) pad);
+        }
+        out.position(start + width);
+    }
+
+    private static void end(ByteBuffer out, int start) {
+        while (out.position() < start + LENGTH - 1) {
+            out.put((byte) ' ');
+        }
+        out.put((byte) '\n');
+    }
+
+    private static void checkText(String text, int width, String field) {
+        if (text == null) {
+            return;
+        }
+        if (text.length() > width) {
+            throw new IllegalArgumentException(field + " longer than " + width + " characters: " + text);
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x20 || c > 0x7e) {
+                throw new IllegalArgumentException(field + " is not printable ASCII: " + text);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.klear.settlement.ledger;
+
+/**
+ * Open-addressing map from a long key to a long balance, with no boxing. Keys are stored
+ * plus one so that 0 marks an empty slot. Not thread-safe.
+ */
+final class BalanceMap {
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+
+    BalanceMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2) - 1) << 1;
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    static long key(int account, int asset) {
+        return ((long) account << 32) | (asset & 0xffffffffL);
+    }
+
+    long get(long key) {
+        long stored = key + 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            long k = keys[slot];
+            if (k == stored) {
+                return values[slot];
+            }
+            if (k == 0) {
+                return 0;
+            }
+        }
+    }
+
+    void add(long key, long amount) {
+        long stored = key + 1;
+        int slot = hash(key) & mask;
+        while (true) {
+            long k = keys[slot];
+            if (k == stored) {
+                values[slot] += amount;
+                return;
+            }
+            if (k == 0) {
+                keys[slot] = stored;
+                values[slot] = amount;
+                if (++size * 2 > keys.length) {
+                    grow();
+                }
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Sum of the balances of every key whose low half is {@code asset}.
+     */
+    long total(int asset) {
+        long total = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0 && (int) (keys[slot] - 1) == asset) {
+                total += values[slot];
+            }
+        }
+        return total;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldKeys.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = hash(oldKeys[i] - 1) & mask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,153 @@
+package com.klear.settlement.ledger;
+
+import com.klear.communication.core.BaseService.ReplyRoute;
+import com.klear.model.trade.Trade;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds replies for trades posted to the {@link SettlementLedger} until the ledger has
+ * made them durable, on a thread of its own.
+ *
+ * The thread takes everything queued since its last pass, commits the ledger once for all
+ * of it and then sends the replies, so a busy service flushes once per batch rather than
+ * once per trade, and no trade is reported settled before its entries are on disk.
+ * A batch whose commit fails is kept and committed again on the next pass, which comes
+ * after {@link #RETRY_MILLIS} even if nothing new is queued.
+ */
+public final class GroupCommitter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupCommitter.class);
+
+    static final long RETRY_MILLIS = 100;
+
+    @FunctionalInterface
+    public interface Replier {
+        void reply(ReplyRoute route, Trade trade);
+    }
+
+    private static final class Pending {
+        final ReplyRoute route;
+        final Trade trade;
+
+        Pending(ReplyRoute route, Trade trade) {
+            this.route = route;
+            this.trade = trade;
+        }
+    }
+
+    private static final Pending STOP = new Pending(null, null);
+
+    private final Runnable commit;
+    private final Replier replier;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+
+    private volatile long commits;
+    private volatile long replies;
+    private volatile boolean closed;
+
+    public GroupCommitter(SettlementLedger ledger, Replier replier) {
+        this(ledger::commit, replier);
+    }
+
+    GroupCommitter(Runnable commit, Replier replier) {
+        this.commit = commit;
+        this.replier = replier;
+        this.thread = new Thread(this::run, "SettlementService-ledger-commit");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Queues the reply for a trade already posted to the ledger. The committer keeps
+     * {@code trade}, so pass a copy if the caller reuses it.
+     */
+    public void submit(ReplyRoute route, Trade trade) {
+        if (closed) {
+            throw new IllegalStateException("Ledger committer is closed");
+        }
+        queue.add(new Pending(route, trade));
+    }
+
+    /**
+     * Commits and replies for everything queued, then stops the thread. A batch whose
+     * commit still fails at this point gets no replies.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        queue.add(STOP);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long commits() {
+        return commits;
+    }
+
+    public long replies() {
+        return replies;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>();
+        boolean stopping = false;
+        try {
+            while (true) {
+                // A batch held back by a failed commit is retried without waiting for new trades
+                Pending first = batch.isEmpty() ? queue.take() : queue.poll(RETRY_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch);
+                    stopping = batch.remove(STOP);
+                }
+                if (!batch.isEmpty() && commit(batch)) {
+                    batch.clear();
+                }
+                if (stopping) {
+                    if (!batch.isEmpty()) {
+                        log.error("Settlement ledger not committed at shutdown; {} replies dropped", batch.size());
+                    }
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean commit(List<Pending> batch) {
+        try {
+            commit.run();
+            commits++;
+        } catch (RuntimeException e) {
+            log.error("Failed to commit settlement ledger; {} replies held back for retry", batch.size(), e);
+            return false;
+        }
+        for (Pending pending : batch) {
+            try {
+                replier.reply(pending.route, pending.trade);
+            } catch (RuntimeException e) {
+                log.error("Failed to reply for order {}", pending.trade.getOrderId(), e);
+            }
+        }
+        replies += batch.size();
+        return true;
+    }
+}
@@ -0,0 +1,206 @@
+package com.klear.settlement.ledger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of records in memory-mapped segment files.
+ *
+ * Each segment is a file of {@code segmentBytes} named {@code journal-<n>.log}, starting
+ * with an 8-byte magic number. Records are framed as {@code length(4) crc32c(4) payload};
+ * a record never spans segments, and a zero length marks the end of the written part.
+ * Opening a journal replays every intact record in order. A torn record at the tail, left
+ * by a crash mid-write, ends the replay and is wiped so appending carries on from there.
+ *
+ * Appends go to the mapping only; {@link #force} makes everything appended so far
+ * durable with one flush, however many records that covers. Not thread-safe; the
+ * ledger serializes access.
+ */
+final class Journal implements AutoCloseable {
+
+    static final long MAGIC = 0x4b4c4541524a4e4cL; // "KLEARJNL"
+    private static final int HEADER = 8;
+    private static final int FRAME = 8;
+
+    @FunctionalInterface
+    interface RecordVisitor {
+        void visit(ByteBuffer payload);
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final CRC32C crc = new CRC32C();
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int capacity;
+    private int segmentNumber;
+    private int position;
+    private int durable;
+
+    private Journal(Path directory, int segmentBytes) {
+        if (segmentBytes < 1024) {
+            throw new IllegalArgumentException("segmentBytes too small: " + segmentBytes);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * Opens (or creates) the journal in {@code directory}, replaying its records through
+     * {@code visitor} before returning.
+     */
+    static Journal open(Path directory, int segmentBytes, RecordVisitor visitor) throws IOException {
+        Files.createDirectories(directory);
+        Journal journal = new Journal(directory, segmentBytes);
+        List<Integer> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.matches("journal-\\d+\\.log"))
+                    .forEach(name -> numbers.add(Integer.parseInt(name.substring(8, name.length() - 4))));
+        }
+        numbers.sort(null);
+        if (numbers.isEmpty()) {
+            journal.map(1);
+            return journal;
+        }
+        for (int i = 0; i < numbers.size(); i++) {
+            if (journal.channel != null) {
+                journal.channel.close();
+            }
+            journal.map(numbers.get(i));
+            boolean intact = journal.replay(visitor);
+            if (!intact && i < numbers.size() - 1) {
+                throw new IOException(journal.file(numbers.get(i)) + ": corrupt record at offset " + journal.position
+                        + " before the last segment");
+            }
+        }
+        return journal;
+    }
+
+    /**
+     * Appends one record holding {@code payload}'s remaining bytes and returns the
+     * journal position after it.
+     */
+    long append(ByteBuffer payload) throws IOException {
+        int length = payload.remaining();
+        if (length + FRAME > segmentBytes - HEADER) {
+            throw new IllegalArgumentException("Record of " + length + " bytes does not fit in a segment");
+        }
+        // Leave room for the zero length that ends the segment
+        if (position + FRAME + length + 4 > capacity) {
+            roll();
+        }
+        int start = payload.position();
+        crc.reset();
+        crc.update(payload);
+        payload.position(start);
+        segment.put(position + FRAME, payload, start, length);
+        segment.putInt(position + 4, (int) crc.getValue());
+        // The length goes last: a record is only visible once complete
+        segment.putInt(position, length);
+        position += FRAME + length;
+        return position();
+    }
+
+    /**
+     * Position after the last appended record, increasing across segments.
+     */
+    long position() {
+        return ((long) segmentNumber << 32) | position;
+    }
+
+    /**
+     * Flushes everything appended since the last force to disk.
+     */
+    void force() {
+        if (position > durable) {
+            segment.force(durable, position - durable);
+            durable = position;
+        }
+    }
+
+    int segmentNumber() {
+        return segmentNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private boolean replay(RecordVisitor visitor) {
+        position = HEADER;
+        while (position + FRAME <= capacity) {
+            int length = segment.getInt(position);
+            if (length == 0) {
+                break;
+            }
+            if (length < 0 || position + FRAME + length > capacity) {
+                wipeTail();
+                return false;
+            }
+            ByteBuffer payload = segment.slice(position + FRAME, length);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != segment.getInt(position + 4)) {
+                wipeTail();
+                return false;
+            }
+            visitor.visit(payload.rewind());
+            position += FRAME + length;
+        }
+        durable = position;
+        return true;
+    }
+
+    private void wipeTail() {
+        for (int i = position; i < capacity; i++) {
+            segment.put(i, (byte) 0);
+        }
+        segment.force();
+        durable = position;
+    }
+
+    private void roll() throws IOException {
+        force();
+        channel.close();
+        map(segmentNumber + 1);
+    }
+
+    private void map(int number) throws IOException {
+        Path file = file(number);
+        boolean created = !Files.exists(file);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        // Existing segments keep the size they were created with
+        capacity = created ? segmentBytes : (int) Math.min(Integer.MAX_VALUE, channel.size());
+        if (capacity < HEADER + FRAME) {
+            throw new IOException(file + ": truncated journal segment");
+        }
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        segmentNumber = number;
+        if (created) {
+            segment.putLong(0, MAGIC);
+            segment.force(0, HEADER);
+        } else if (segment.getLong(0) != MAGIC) {
+            throw new IOException(file + ": not a journal segment");
+        }
+        position = HEADER;
+        durable = HEADER;
+    }
+
+    private Path file(int number) {
+        return directory.resolve(String.format("journal-%06d.log", number));
+    }
+}
@@ -0,0 +1,279 @@
+package com.klear.settlement.ledger;
+
+import com.klear.model.order.Order;
+import com.klear.model.order.Side;
+import com.klear.model.price.FixedPoint;
+import com.klear.model.trade.Trade;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Double-entry ledger of settled cash and securities movements, kept durable in a
+ * memory-mapped {@link Journal}.
+ *
+ * Every movement is a transfer of an amount of one asset (a symbol, or {@link #CASH} in
+ * cents) from one account to another, so each asset's balances always sum to zero. A
+ * settled trade is one transaction of two transfers between the participant's account and
+ * the {@link #HOUSE} account: shares one way, cash the other. A transaction is a single
+ * journal record, so it is replayed whole or not at all. Account and asset names are
+ * numbered the first time they are seen, and the numbering is journaled too.
+ *
+ * Balances live in a primitive map keyed by account and asset number and are rebuilt by
+ * replaying the journal when the ledger opens. Posting only appends to the mapping;
+ * {@link #commit()} makes every posting so far durable with one flush (group commit).
+ * Thread-safe.
+ */
+public final class SettlementLedger implements AutoCloseable {
+
+    public static final String HOUSE = "CCP";
+    public static final String CASH = "CASH";
+
+    private static final byte ACCOUNT = 1;
+    private static final byte ASSET = 2;
+    private static final byte TRANSACTION = 3;
+    // Transaction: type(1) sequence(8) legs(2), then legs of from(4) to(4) asset(4) amount(8), then the reference
+    private static final int LEGS_OFFSET = 11;
+    private static final int LEG_BYTES = 20;
+
+    private final Journal journal;
+    private final BalanceMap balances = new BalanceMap(1 << 16);
+    private final Map<String, Integer> accountIds = new HashMap<>();
+    private final Map<String, Integer> assetIds = new HashMap<>();
+    private final List<String> accountNames = new ArrayList<>();
+    private final List<String> assetNames = new ArrayList<>();
+    private final ByteBuffer scratch = ByteBuffer.allocate(4096);
+    private final Object commitLock = new Object();
+
+    private long transactions;
+    private long committed;
+    private final long recoveryNanos;
+
+    private SettlementLedger(Path directory, int segmentBytes) throws IOException {
+        long start = System.nanoTime();
+        this.journal = Journal.open(directory, segmentBytes, this::replay);
+        this.recoveryNanos = System.nanoTime() - start;
+        this.committed = journal.position();
+    }
+
+    /**
+     * Opens the ledger journaled in {@code directory}, rebuilding balances from it.
+     */
+    public static SettlementLedger open(Path directory, int segmentBytes) throws IOException {
+        return new SettlementLedger(directory, segmentBytes);
+    }
+
+    /**
+     * Journals a settled trade: its executed quantity (the order quantity if none) against
+     * its netted amount in cents, under its order ID.
+     */
+    public long postTrade(Trade trade) {
+        Order order = trade.getOrder();
+        long quantity = trade.getExecutedQuantity() > 0 ? trade.getExecutedQuantity() : order.getQuantity();
+        return postTrade(trade.getOrderId(), order.getClientId(), order.getStockSymbol(), order.getSide(), quantity,
+                nettedCents(trade));
+    }
+
+    /**
+     * The trade's netted amount in cents, exact for a fixed-point trade.
+     */
+    public static long nettedCents(Trade trade) {
+        Integer scale = trade.getOrder().getPriceScale();
+        if (scale != null) {
+            return FixedPoint.rescale(trade.getNettedAmountTicks(), scale, 2);
+        }
+        return Math.round(trade.getNettedAmount() * 100);
+    }
+
+    /**
+     * Journals a settled trade under {@code reference} (its order ID): the participant
+     * receives shares and pays cash on a buy (or a missing side), and the reverse on a
+     * sell. Returns the journal position to {@link #commit} up to.
+     */
+    public synchronized long postTrade(String reference, String participant, String symbol, Side side,
+                                       long quantity, long cashCents) {
+        int account = account(participant);
+        int house = account(HOUSE);
+        int securities = asset(symbol);
+        int cash = asset(CASH);
+        begin(2);
+        if (side == Side.SELL) {
+            putLeg(account, house, securities, quantity);
+            putLeg(house, account, cash, cashCents);
+        } else {
+            putLeg(house, account, securities, quantity);
+            putLeg(account, house, cash, cashCents);
+        }
+        return post(reference, 2);
+    }
+
+    /**
+     * Journals one transfer outside of any trade, e.g. an opening balance.
+     */
+    public synchronized long transfer(String reference, String from, String to, String asset, long amount) {
+        int fromId = account(from);
+        int toId = account(to);
+        int assetId = asset(asset);
+        begin(1);
+        putLeg(fromId, toId, assetId, amount);
+        return post(reference, 1);
+    }
+
+    /**
+     * Makes everything posted up to {@code position} durable. Callers arriving while a
+     * flush is under way wait for it and usually find their postings already covered.
+     */
+    public void commit(long position) {
+        synchronized (commitLock) {
+            if (position <= committed) {
+                return;
+            }
+            long upTo;
+            synchronized (this) {
+                upTo = journal.position();
+                journal.force();
+            }
+            committed = upTo;
+        }
+    }
+
+    /**
+     * Makes everything posted so far durable.
+     */
+    public void commit() {
+        long position;
+        synchronized (this) {
+            position = journal.position();
+        }
+        commit(position);
+    }
+
+    public synchronized long balance(String account, String asset) {
+        Integer accountId = accountIds.get(account);
+        Integer assetId = assetIds.get(asset);
+        if (accountId == null || assetId == null) {
+            return 0;
+        }
+        return balances.get(BalanceMap.key(accountId, assetId));
+    }
+
+    /**
+     * Sum of every account's balance in {@code asset}; zero unless the journal is corrupt.
+     */
+    public synchronized long total(String asset) {
+        Integer assetId = assetIds.get(asset);
+        return assetId == null ? 0 : balances.total(assetId);
+    }
+
+    public synchronized long transactions() {
+        return transactions;
+    }
+
+    public synchronized int accounts() {
+        return accountNames.size();
+    }
+
+    /**
+     * How long opening the ledger spent replaying the journal.
+     */
+    public long recoveryNanos() {
+        return recoveryNanos;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        journal.close();
+    }
+
+    private void begin(int legs) {
+        scratch.clear();
+        scratch.put(TRANSACTION).putLong(transactions + 1).putShort((short) legs);
+    }
+
+    private long post(String reference, int legs) {
+        if (reference != null) {
+            scratch.put(reference.getBytes(StandardCharsets.UTF_8));
+        }
+        long position = append();
+        applyLegs(scratch, LEGS_OFFSET, legs);
+        transactions++;
+        return position;
+    }
+
+    private void putLeg(int from, int to, int asset, long amount) {
+        scratch.putInt(from).putInt(to).putInt(asset).putLong(amount);
+    }
+
+    private long append() {
+        scratch.flip();
+        try {
+            return journal.append(scratch);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to settlement journal", e);
+        }
+    }
+
+    private void applyLegs(ByteBuffer record, int offset, int legs) {
+        for (int i = 0; i < legs; i++) {
+            int at = offset + i * LEG_BYTES;
+            int from = record.getInt(at);
+            int to = record.getInt(at + 4);
+            int asset = record.getInt(at + 8);
+            long amount = record.getLong(at + 12);
+            balances.add(BalanceMap.key(from, asset), -amount);
+            balances.add(BalanceMap.key(to, asset), amount);
+        }
+    }
+
+    private int account(String name) {
+        Integer id = accountIds.get(name);
+        return id != null ? id : define(ACCOUNT, name, accountIds, accountNames);
+    }
+
+    private int asset(String name) {
+        Integer id = assetIds.get(name);
+        return id != null ? id : define(ASSET, name, assetIds, assetNames);
+    }
+
+    private int define(byte type, String name, Map<String, Integer> ids, List<String> names) {
+        int id = names.size();
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        scratch.clear();
+        scratch.put(type).putInt(id).put(bytes);
+        append();
+        ids.put(name, id);
+        names.add(name);
+        return id;
+    }
+
+    private void replay(ByteBuffer record) {
+        switch (record.get(0)) {
+            case ACCOUNT -> replayName(record, accountIds, accountNames);
+            case ASSET -> replayName(record, assetIds, assetNames);
+            case TRANSACTION -> {
+                applyLegs(record, LEGS_OFFSET, record.getShort(LEGS_OFFSET - 2));
+                transactions++;
+            }
+            default -> throw new IllegalStateException("Unknown journal record type " + record.get(0));
+        }
+    }
+
+    private static void replayName(ByteBuffer record, Map<String, Integer> ids, List<String> names) {
+        int id = record.getInt(1);
+        byte[] bytes = new byte[record.limit() - 5];
+        record.get(5, bytes);
+        String name = new String(bytes, StandardCharsets.UTF_8);
+        if (id != names.size()) {
+            throw new IllegalStateException("Journal defines " + name + " as " + id + ", expected " + names.size());
+        }
+        ids.put(name, id);
+        names.add(name);
+    }
+}
@@ -2,17 +2,44 @@ package com.klear.settlement.service;
 
 import com.klear.communication.core.BaseService;
 import com.klear.model.queue.QueueItemTypes;
+import com.klear.model.reference.SecuritiesMaster;
+import com.klear.model.reference.SecurityStatus;
+import com.klear.model.reference.SecurityTable;
 import com.klear.model.trade.Trade;
+import com.klear.settlement.batch.CycleReport;
+import com.klear.settlement.batch.Depository;
+import com.klear.settlement.batch.DvpNetting;
+import com.klear.settlement.batch.SettlementCycle;
+import com.klear.settlement.files.InstructionFileWriter;
+import com.klear.settlement.ledger.GroupCommitter;
+import com.klear.settlement.ledger.SettlementLedger;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 import static com.klear.model.order.OrderStatus.FAILED;
 import static com.klear.model.order.OrderStatus.SETTLED;
 
 @Service
 public class SettlementService extends BaseService {
 
+    // Settlement messages by T+n, built once so that settling allocates nothing
+    private static final String[] SETTLED_MESSAGES = new String[8];
+
+    static {
+        for (int days = 0; days < SETTLED_MESSAGES.length; days++) {
+            SETTLED_MESSAGES[days] = "Settlement Successful (T+" + days + ")";
+        }
+    }
+
     @Value("${redis_ip}")
     private String ipAddress;
 
@@ -22,9 +49,177 @@ public class SettlementService extends BaseService {
     @Value("${settlement_service_channel_name}")
     private String channelName;
 
+    @Value("${settlement_mode:immediate}")
+    private String settlementMode;
+
+    @Value("${settlement_cycle_ms:1000}")
+    private long cycleMs;
+
+    @Value("${settlement_cycle_parallelism:0}")
+    private int cycleParallelism;
+
+    @Value("${settlement_allow_short:true}")
+    private boolean allowShort;
+
+    @Value("${settlement_instruction_files_enabled:false}")
+    private boolean instructionFilesEnabled;
+
+    @Value("${settlement_instruction_dir:instructions}")
+    private String instructionDir;
+
+    @Value("${settlement_instruction_file_max_mb:256}")
+    private long instructionFileMaxMb;
+
+    @Value("${settlement_instruction_file_rotate_ms:60000}")
+    private long instructionFileRotateMs;
+
+    @Value("${settlement_instruction_buffer_kb:4096}")
+    private int instructionBufferKb;
+
+    @Value("${settlement_ledger_enabled:false}")
+    private boolean ledgerEnabled;
+
+    @Value("${settlement_ledger_dir:ledger}")
+    private String ledgerDir;
+
+    @Value("${settlement_ledger_segment_mb:256}")
+    private int ledgerSegmentMb;
+
+    // Null unless settlement_mode is batch
+    private SettlementCycle cycle;
+    private ScheduledExecutorService cycleExecutor;
+    private ReplyPublisher cyclePublisher;
+    private ForkJoinPool cyclePool;
+    private InstructionFileWriter instructionWriter;
+
+    // Null unless settlement_ledger_enabled; the committer only in immediate mode
+    private SettlementLedger ledger;
+    private GroupCommitter ledgerCommitter;
+    private ReplyPublisher ledgerPublisher;
+
     @PostConstruct
     public void init() {
         initializeRedis();
+        if ("batch".equalsIgnoreCase(settlementMode)) {
+            startCycles();
+        }
+        if (ledgerEnabled) {
+            openLedger();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        if (cycleExecutor != null) {
+            cycleExecutor.shutdown();
+            try {
+                cycleExecutor.awaitTermination(cycleMs + 5000, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            runCycle();
+            cyclePublisher.close();
+        }
+        if (instructionWriter != null) {
+            instructionWriter.close();
+        }
+        if (ledgerCommitter != null) {
+            ledgerCommitter.close();
+            ledgerPublisher.close();
+        }
+        if (ledger != null) {
+            try {
+                ledger.close();
+            } catch (IOException e) {
+                log.error("Failed to close settlement ledger", e);
+            }
+        }
+        if (cyclePool != null && cyclePool != ForkJoinPool.commonPool()) {
+            cyclePool.shutdown();
+        }
+        super.shutdown();
+    }
+
+    /**
+     * Holds trades that pass validation for {@code cycle} instead of settling them on
+     * arrival; replies are sent when the cycle runs.
+     */
+    protected void enableBatchSettlement(SettlementCycle cycle) {
+        this.cycle = cycle;
+    }
+
+    protected SettlementCycle getSettlementCycle() {
+        return cycle;
+    }
+
+    /**
+     * Posts every settled trade to {@code ledger}. In batch mode each cycle commits once;
+     * otherwise replies wait on a committer thread, which commits once for all the trades
+     * that arrived while it was busy.
+     */
+    protected void enableLedger(SettlementLedger ledger) {
+        this.ledger = ledger;
+        if (cycle != null) {
+            cycle.setLedger(ledger);
+        } else {
+            ledgerPublisher = newReplyPublisher();
+            ledgerCommitter = new GroupCommitter(ledger, ledgerPublisher::publish);
+            ledgerCommitter.start();
+        }
+    }
+
+    protected SettlementLedger getLedger() {
+        return ledger;
+    }
+
+    private void openLedger() {
+        try {
+            SettlementLedger opened = SettlementLedger.open(Path.of(ledgerDir), ledgerSegmentMb << 20);
+            log.info("Settlement ledger recovered {} transactions across {} accounts in {} ms",
+                    opened.transactions(), opened.accounts(), opened.recoveryNanos() / 1_000_000);
+            enableLedger(opened);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open settlement ledger in " + ledgerDir, e);
+        }
+    }
+
+    private void startCycles() {
+        cyclePool = cycleParallelism > 0 ? new ForkJoinPool(cycleParallelism) : ForkJoinPool.commonPool();
+        enableBatchSettlement(new SettlementCycle(new DvpNetting(cyclePool), new Depository(allowShort)));
+        if (instructionFilesEnabled) {
+            instructionWriter = new InstructionFileWriter(Path.of(instructionDir), instructionFileMaxMb << 20,
+                    instructionFileRotateMs, instructionBufferKb << 10);
+            try {
+                instructionWriter.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot create instruction directory " + instructionDir, e);
+            }
+            cycle.setInstructionSink(instructionWriter::submit);
+        }
+        cyclePublisher = newReplyPublisher();
+        cycleExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "SettlementService-cycle");
+            t.setDaemon(true);
+            return t;
+        });
+        cycleExecutor.scheduleWithFixedDelay(this::runCycle, cycleMs, cycleMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs one settlement cycle, replying on the cycle thread's own connection.
+     */
+    private void runCycle() {
+        try {
+            CycleReport report = cycle.run(cyclePublisher::publish);
+            if (report != null) {
+                log.info("Settlement cycle {}: {} trades, {} instructions, {} settled, {} failed in {} ms "
+                                + "(netting {} ms)", report.getCycle(), report.getTrades(), report.getInstructions(),
+                        report.getSettled(), report.getFailed(), report.getDurationNanos() / 1_000_000,
+                        report.getNettingNanos() / 1_000_000);
+            }
+        } catch (RuntimeException e) {
+            log.error("Settlement cycle failed", e);
+        }
     }
 
     @Override
@@ -55,7 +250,8 @@ public class SettlementService extends BaseService {
     @Override
     protected Trade processTrade(Trade trade) {
         // Validate settlement amount
-        if (trade.getNettedAmount() <= 0) {
+        boolean fixedPoint = trade.getOrder() != null && trade.getOrder().getPriceScale() != null;
+        if (fixedPoint ? trade.getNettedAmountTicks() <= 0 : trade.getNettedAmount() <= 0) {
             trade.setStatus(FAILED);
             trade.setFailureStage("SETTLEMENT");
             trade.setFailureReason("Invalid settlement amount: must be greater than 0");
@@ -63,10 +259,44 @@ public class SettlementService extends BaseService {
             return trade;
         }
 
+        // Delisted instruments no longer settle; the others settle on their own cycle
+        SecuritiesMaster securities = getSecuritiesMaster();
+        if (securities != null) {
+            SecurityTable table = securities.current();
+            int security = table.find(trade.getOrder().getStockSymbol());
+            if (security < 0 || table.status(security) == SecurityStatus.DELISTED) {
+                trade.setStatus(FAILED);
+                trade.setFailureStage("SETTLEMENT");
+                trade.setFailureReason((security < 0 ? "Unknown security: " : "Security delisted: ")
+                        + trade.getOrder().getStockSymbol());
+                trade.setSettlementMessage("Settlement failed: Security not settleable");
+                return trade;
+            }
+            trade.setSettlementMessage(settledMessage(table.settlementDays(security)));
+        }
+
+        if (cycle != null) {
+            // Copied because pooled processing reuses the trade
+            cycle.add(new Trade(trade), currentReplyRoute());
+            return null;
+        }
+
         // Simulate settlement logic
-        trade.setSettlementMessage("Settlement Successful");
+        if (securities == null) {
+            trade.setSettlementMessage("Settlement Successful");
+        }
         trade.setStatus(SETTLED);
 
+        if (ledgerCommitter != null) {
+            ledger.postTrade(trade);
+            ledgerCommitter.submit(currentReplyRoute(), new Trade(trade));
+            return null;
+        }
         return trade;
     }
+
+    private static String settledMessage(int settlementDays) {
+        return settlementDays >= 0 && settlementDays < SETTLED_MESSAGES.length ? SETTLED_MESSAGES[settlementDays]
+                : "Settlement Successful (T+" + settlementDays + ")";
+    }
 }
\ No newline at end of file
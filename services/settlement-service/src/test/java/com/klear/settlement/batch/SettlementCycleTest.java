@@ -0,0 +1,110 @@
+package com.klear.settlement.batch;
+
+import com.klear.communication.core.BaseService.ReplyRoute;
+import com.klear.model.order.Order;
+import com.klear.model.order.OrderStatus;
+import com.klear.model.order.Side;
+import com.klear.model.trade.Trade;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SettlementCycleTest {
+
+    private static final ReplyRoute ROUTE = new ReplyRoute("RET", null);
+
+    private static Trade trade(String orderId, String client, String symbol, Side side, int quantity, double price) {
+        Order order = new Order();
+        order.setClientId(client);
+        order.setStockSymbol(symbol);
+        order.setSide(side);
+        order.setQuantity(quantity);
+        order.setPrice(price);
+        Trade trade = new Trade(orderId, order, OrderStatus.CLEARED);
+        trade.setExecutedPrice(price);
+        trade.setNettedAmount(quantity * price);
+        return trade;
+    }
+
+    @Test
+    void testNetsPerParticipantAndSymbolAndSettlesEveryTrade() {
+        Depository depository = new Depository(true);
+        SettlementCycle cycle = new SettlementCycle(new DvpNetting(ForkJoinPool.commonPool()), depository);
+        cycle.add(trade("O1", "C1", "AAPL", Side.BUY, 100, 150.00), ROUTE);
+        cycle.add(trade("O2", "C1", "AAPL", Side.SELL, 30, 151.00), ROUTE);
+        cycle.add(trade("O3", "C2", "AAPL", Side.SELL, 70, 150.00), ROUTE);
+        cycle.add(trade("O4", "C1", "MSFT", Side.BUY, 10, 300.00), ROUTE);
+        List<Trade> replies = new ArrayList<>();
+
+        CycleReport report = cycle.run((route, trade) -> replies.add(trade));
+
+        assertEquals(1, report.getCycle());
+        assertEquals(4, report.getTrades());
+        assertEquals(4, report.getSettled());
+        assertEquals(3, report.getInstructions());
+        assertEquals(4, replies.size());
+        assertTrue(replies.stream().allMatch(t -> t.getStatus() == OrderStatus.SETTLED));
+        assertEquals(70, depository.securities("C1", "AAPL"));
+        assertEquals(-70, depository.securities("C2", "AAPL"));
+        assertEquals(-100 * 15000L + 30 * 15100L - 10 * 30000L, depository.cashCents("C1"));
+        assertEquals(0, cycle.pending());
+        assertNull(cycle.run((route, trade) -> replies.add(trade)));
+    }
+
+    @Test
+    void testParticipantThatCannotDeliverFailsAllItsTradesOnly() {
+        Depository depository = new Depository(false);
+        depository.deposit("C1", "AAPL", 50);
+        SettlementCycle cycle = new SettlementCycle(new DvpNetting(ForkJoinPool.commonPool()), depository);
+        cycle.add(trade("O1", "C1", "AAPL", Side.SELL, 40, 10.00), ROUTE);
+        cycle.add(trade("O2", "C2", "AAPL", Side.SELL, 10, 10.00), ROUTE);
+        cycle.add(trade("O3", "C2", "MSFT", Side.BUY, 10, 10.00), ROUTE);
+        Map<String, Trade> replies = new HashMap<>();
+
+        CycleReport report = cycle.run((route, trade) -> replies.put(trade.getOrderId(), trade));
+
+        assertEquals(1, report.getSettled());
+        assertEquals(2, report.getFailed());
+        assertEquals(OrderStatus.SETTLED, replies.get("O1").getStatus());
+        // C2 cannot deliver AAPL, so its MSFT purchase does not settle either
+        assertEquals(OrderStatus.FAILED, replies.get("O3").getStatus());
+        assertEquals("SETTLEMENT", replies.get("O2").getFailureStage());
+        assertEquals(10, depository.securities("C1", "AAPL"));
+        assertEquals(0, depository.securities("C2", "MSFT"));
+        assertEquals(0, depository.cashCents("C2"));
+    }
+
+    @Test
+    void testParallelNettingMatchesSequentialTotals() {
+        List<Trade> trades = new ArrayList<>();
+        Map<String, long[]> expected = new HashMap<>();
+        String[] symbols = {"AAPL", "MSFT", "GOOG"};
+        SplittableRandom random = new SplittableRandom(5);
+        for (int i = 0; i < 50_000; i++) {
+            Trade trade = trade("O" + i, "C" + random.nextInt(500), symbols[random.nextInt(3)],
+                    random.nextBoolean() ? Side.BUY : Side.SELL, 1 + random.nextInt(100), 10 + random.nextInt(90));
+            trades.add(trade);
+            long[] net = expected.computeIfAbsent(trade.getOrder().getClientId() + "/" + trade.getOrder().getStockSymbol(),
+                    k -> new long[3]);
+            net[0] += DvpNetting.securities(trade);
+            net[1] += DvpNetting.cashCents(trade);
+            net[2]++;
+        }
+
+        List<DvpInstruction> instructions = new DvpNetting(new ForkJoinPool(4)).net(trades);
+
+        assertEquals(expected.size(), instructions.size());
+        for (DvpInstruction instruction : instructions) {
+            long[] net = expected.get(instruction.getParticipant() + "/" + instruction.getSymbol());
+            assertArrayEquals(net, new long[]{instruction.getSecurities(), instruction.getCashCents(),
+                    instruction.getTrades()});
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.klear.settlement.files;
+
+import com.klear.settlement.batch.DvpInstruction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstructionFileWriterTest {
+
+    @TempDir
+    Path dir;
+
+    private static List<DvpInstruction> instructions(int count, String prefix) {
+        List<DvpInstruction> instructions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            instructions.add(new DvpInstruction(prefix + i, "AAPL", i % 2 == 0 ? 100 + i : -(100 + i),
+                    i % 2 == 0 ? -1_500_000L * i : 1_500_000L * i, 1 + i % 5));
+        }
+        return instructions;
+    }
+
+    private List<Path> files(String glob) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> list = Files.list(dir)) {
+            list.filter(p -> p.getFileName().toString().matches(glob)).sorted().forEach(files::add);
+        }
+        return files;
+    }
+
+    @Test
+    void testWritesCyclesToOneValidFile() throws Exception {
+        InstructionFileWriter writer = new InstructionFileWriter(dir, 1 << 20, 0, 4096);
+        writer.start();
+        writer.submit(1, instructions(3, "C"));
+        writer.submit(2, List.of(new DvpInstruction("CLIENT-WITH-A-LONG-ID", "BRK.B", -5, 250_000_000L, 2)));
+        writer.close();
+
+        List<Path> files = files(".*\\.dat");
+        assertEquals(1, files.size());
+        assertTrue(files(".*\\.part").isEmpty());
+        List<String> read = new ArrayList<>();
+        InstructionFileReader.Summary summary = InstructionFileReader.read(files.get(0),
+                (cycle, i) -> read.add(cycle + " " + i));
+        assertEquals(4, summary.getRecords());
+        assertEquals(6 * InstructionRecord.LENGTH, Files.size(files.get(0)));
+        assertEquals(List.of(
+                "1 C0 AAPL: 100 shares, 0 cents (1 trades)",
+                "1 C1 AAPL: -101 shares, 1500000 cents (2 trades)",
+                "1 C2 AAPL: 102 shares, -3000000 cents (3 trades)",
+                "2 CLIENT-WITH-A-LONG-ID BRK.B: -5 shares, 250000000 cents (2 trades)"), read);
+        assertEquals(4, writer.recordsWritten());
+    }
+
+    @Test
+    void testRotatesBySizeAndSkipsWhatDoesNotFit() throws Exception {
+        InstructionFileWriter writer = new InstructionFileWriter(dir, 10 * InstructionRecord.LENGTH, 0, 1024);
+        writer.start();
+        writer.submit(1, instructions(20, "C"));
+        writer.submit(2, List.of(new DvpInstruction("X".repeat(40), "AAPL", 1, 1, 1)));
+        writer.submit(3, instructions(5, "D"));
+        writer.close();
+
+        // Eight details per file leave room for the header and trailer
+        List<Path> files = files(".*\\.dat");
+        assertEquals(4, files.size());
+        long records = 0;
+        for (Path file : files) {
+            records += InstructionFileReader.validate(file).getRecords();
+            assertTrue(Files.size(file) <= 10 * InstructionRecord.LENGTH);
+        }
+        assertEquals(25, records);
+        assertEquals(4, writer.filesCompleted());
+    }
+
+    @Test
+    void testValidationDetectsCorruptionAndTruncation() throws Exception {
+        InstructionFileWriter writer = new InstructionFileWriter(dir, 1 << 20, 0, 4096);
+        writer.start();
+        writer.submit(1, instructions(10, "C"));
+        writer.close();
+        Path file = files(".*\\.dat").get(0);
+        byte[] bytes = Files.readAllBytes(file);
+
+        bytes[3 * InstructionRecord.LENGTH + 70] ^= 1;
+        Files.write(file, bytes);
+        IOException corrupt = assertThrows(IOException.class, () -> InstructionFileReader.validate(file));
+        assertTrue(corrupt.getMessage().contains("checksum"));
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 50));
+        IOException truncated = assertThrows(IOException.class, () -> InstructionFileReader.validate(file));
+        assertTrue(truncated.getMessage().contains("whole number of records"));
+    }
+
+    @Test
+    void testRotatesByAge() throws Exception {
+        InstructionFileWriter writer = new InstructionFileWriter(dir, 1 << 20, 50, 4096);
+        writer.start();
+        writer.submit(1, instructions(2, "C"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (writer.filesCompleted() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, writer.filesCompleted());
+        assertEquals(1, files(".*\\.dat").size());
+        writer.close();
+        assertEquals(1, writer.filesCompleted());
+    }
+}
@@ -0,0 +1,182 @@
+package com.klear.settlement.ledger;
+
+import com.klear.communication.core.BaseService.ReplyRoute;
+import com.klear.model.order.Order;
+import com.klear.model.order.OrderStatus;
+import com.klear.model.order.Side;
+import com.klear.model.trade.Trade;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SettlementLedgerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testPostsBothLegsAndBalancesSumToZero() throws Exception {
+        try (SettlementLedger ledger = SettlementLedger.open(dir, 1 << 20)) {
+            ledger.postTrade("ORDER-1", "C1", "AAPL", Side.BUY, 100, 1_500_000);
+            ledger.postTrade("ORDER-2", "C2", "AAPL", Side.SELL, 40, 600_000);
+            ledger.postTrade("ORDER-3", "C1", "MSFT", null, 10, 300_000);
+
+            assertEquals(100, ledger.balance("C1", "AAPL"));
+            assertEquals(10, ledger.balance("C1", "MSFT"));
+            assertEquals(-1_800_000, ledger.balance("C1", SettlementLedger.CASH));
+            assertEquals(-40, ledger.balance("C2", "AAPL"));
+            assertEquals(600_000, ledger.balance("C2", SettlementLedger.CASH));
+            assertEquals(-60, ledger.balance(SettlementLedger.HOUSE, "AAPL"));
+            assertEquals(1_200_000, ledger.balance(SettlementLedger.HOUSE, SettlementLedger.CASH));
+            assertEquals(0, ledger.balance("C3", "AAPL"));
+            for (String asset : List.of("AAPL", "MSFT", SettlementLedger.CASH)) {
+                assertEquals(0, ledger.total(asset), asset);
+            }
+            assertEquals(3, ledger.transactions());
+            assertEquals(3, ledger.accounts());
+        }
+    }
+
+    @Test
+    void testRebuildsBalancesFromJournalOnOpen() throws Exception {
+        try (SettlementLedger ledger = SettlementLedger.open(dir, 1 << 20)) {
+            ledger.transfer("OPENING", SettlementLedger.HOUSE, "C1", "AAPL", 500);
+            ledger.postTrade("ORDER-1", "C1", "AAPL", Side.SELL, 200, 3_000_000);
+            ledger.commit();
+        }
+        try (SettlementLedger ledger = SettlementLedger.open(dir, 1 << 20)) {
+            assertEquals(2, ledger.transactions());
+            assertEquals(300, ledger.balance("C1", "AAPL"));
+            assertEquals(3_000_000, ledger.balance("C1", SettlementLedger.CASH));
+            assertTrue(ledger.recoveryNanos() > 0);
+
+            // Postings carry on after the replayed ones, reusing recovered accounts
+            ledger.postTrade("ORDER-2", "C1", "AAPL", Side.BUY, 50, 750_000);
+            assertEquals(350, ledger.balance("C1", "AAPL"));
+            assertEquals(2, ledger.accounts());
+        }
+        try (SettlementLedger ledger = SettlementLedger.open(dir, 1 << 20)) {
+            assertEquals(3, ledger.transactions());
+            assertEquals(2_250_000, ledger.balance("C1", SettlementLedger.CASH));
+        }
+    }
+
+    @Test
+    void testDropsTornRecordAtTail() throws Exception {
+        long before;
+        try (SettlementLedger ledger = SettlementLedger.open(dir, 1 << 20)) {
+            ledger.postTrade("ORDER-1", "C1", "AAPL", Side.BUY, 100, 1_500_000);
+            before = ledger.postTrade("ORDER-2", "C1", "AAPL", Side.BUY, 10, 150_000);
+            ledger.postTrade("ORDER-3", "C1", "AAPL", Side.BUY, 1, 15_000);
+        }
+        // Damage the last record's payload, as a crash part-way through writing it would
+        try (RandomAccessFile file = new RandomAccessFile(dir.resolve("journal-000001.log").toFile(), "rw")) {
+            file.seek((int) before + 12);
+            file.write(0x7f);
+        }
+
+        try (SettlementLedger ledger = SettlementLedger.open(dir, 1 << 20)) {
+            assertEquals(2, ledger.transactions());
+            assertEquals(110, ledger.balance("C1", "AAPL"));
+            ledger.postTrade("ORDER-4", "C1", "AAPL", Side.BUY, 5, 75_000);
+        }
+        try (SettlementLedger ledger = SettlementLedger.open(dir, 1 << 20)) {
+            assertEquals(3, ledger.transactions());
+            assertEquals(115, ledger.balance("C1", "AAPL"));
+        }
+    }
+
+    @Test
+    void testRollsSegmentsAndReplaysThemInOrder() throws Exception {
+        try (SettlementLedger ledger = SettlementLedger.open(dir, 1024)) {
+            for (int i = 0; i < 200; i++) {
+                ledger.postTrade("ORDER-" + i, "C" + (i % 7), "SYM" + (i % 3), i % 2 == 0 ? Side.BUY : Side.SELL,
+                        i + 1, (i + 1) * 1000L);
+            }
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertTrue(files.count() > 10);
+        }
+        try (SettlementLedger ledger = SettlementLedger.open(dir, 1024)) {
+            assertEquals(200, ledger.transactions());
+            long expected = 0;
+            for (int i = 0; i < 200; i += 7) {
+                expected += i % 2 == 0 ? i + 1 : -(i + 1);
+            }
+            long c0 = 0;
+            for (String symbol : List.of("SYM0", "SYM1", "SYM2")) {
+                c0 += ledger.balance("C0", symbol);
+                assertEquals(0, ledger.total(symbol));
+            }
+            assertEquals(expected, c0);
+            assertEquals(0, ledger.total(SettlementLedger.CASH));
+        }
+    }
+
+    @Test
+    void testGroupCommitterRepliesAfterCommit() throws Exception {
+        List<String> replies = new ArrayList<>();
+        try (SettlementLedger ledger = SettlementLedger.open(dir, 1 << 20)) {
+            GroupCommitter committer = new GroupCommitter(ledger,
+                    (route, trade) -> replies.add(route.getReturnChannel() + " " + trade.getOrderId()));
+            committer.start();
+            for (int i = 0; i < 5; i++) {
+                Order order = new Order();
+                order.setClientId("C1");
+                order.setStockSymbol("AAPL");
+                order.setQuantity(10);
+                Trade trade = new Trade("ORDER-" + i, order, OrderStatus.SETTLED);
+                trade.setNettedAmount(1500.25);
+                ledger.postTrade(trade);
+                committer.submit(new ReplyRoute("TRADE_REPLY", null), trade);
+            }
+            committer.close();
+
+            assertEquals(5, committer.replies());
+            assertTrue(committer.commits() >= 1 && committer.commits() <= 5);
+            assertEquals(50, ledger.balance("C1", "AAPL"));
+            assertEquals(-750_125, ledger.balance("C1", SettlementLedger.CASH));
+        }
+        assertEquals(List.of("TRADE_REPLY ORDER-0", "TRADE_REPLY ORDER-1", "TRADE_REPLY ORDER-2",
+                "TRADE_REPLY ORDER-3", "TRADE_REPLY ORDER-4"), replies);
+    }
+
+    @Test
+    void testGroupCommitterRetriesFailedCommitBeforeReplying() throws Exception {
+        List<String> replies = new CopyOnWriteArrayList<>();
+        AtomicInteger attempts = new AtomicInteger();
+        GroupCommitter committer = new GroupCommitter(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new UncheckedIOException(new IOException("disk full"));
+            }
+        }, (route, trade) -> replies.add(trade.getOrderId()));
+        for (int i = 0; i < 3; i++) {
+            committer.submit(new ReplyRoute("TRADE_REPLY", null),
+                    new Trade("ORDER-" + i, new Order(), OrderStatus.SETTLED));
+        }
+        committer.start();
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (replies.size() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        committer.close();
+
+        assertEquals(List.of("ORDER-0", "ORDER-1", "ORDER-2"), replies);
+        assertEquals(2, attempts.get());
+        assertEquals(1, committer.commits());
+        assertEquals(3, committer.replies());
+    }
+}
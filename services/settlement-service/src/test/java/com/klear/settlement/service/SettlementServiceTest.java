@@ -1,12 +1,31 @@
 package com.klear.settlement.service;
 
+import com.klear.communication.core.BaseService;
+import com.klear.communication.core.ServiceClientMessage;
+import com.klear.communication.core.ServiceClientMessageTypes;
 import com.klear.model.order.Order;
 import com.klear.model.order.OrderStatus;
+import com.klear.model.order.Side;
+import com.klear.model.queue.QueueItem;
+import com.klear.model.queue.QueueItemTypes;
+import com.klear.model.reference.SecuritiesMaster;
+import com.klear.model.reference.Security;
+import com.klear.model.reference.SecurityStatus;
+import com.klear.model.reference.SecurityTable;
 import com.klear.model.trade.Trade;
+import com.klear.settlement.batch.Depository;
+import com.klear.settlement.batch.DvpNetting;
+import com.klear.settlement.batch.SettlementCycle;
+import com.klear.settlement.ledger.SettlementLedger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -83,4 +102,99 @@ class SettlementServiceTest {
         assertEquals("SETTLEMENT", result.getFailureStage());
         assertTrue(result.getFailureReason().contains("Invalid settlement amount"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testBatchMode_RepliesWhenCycleRuns() throws Exception {
+        SettlementCycle cycle = new SettlementCycle(new DvpNetting(ForkJoinPool.commonPool()), new Depository(true));
+        Method enable = SettlementService.class.getDeclaredMethod("enableBatchSettlement", SettlementCycle.class);
+        enable.setAccessible(true);
+        enable.invoke(settlementService, cycle);
+        Method processQueueItem = BaseService.class.getDeclaredMethod("processQueueItem", QueueItem.class);
+        processQueueItem.setAccessible(true);
+
+        for (int i = 0; i < 3; i++) {
+            Trade trade = new Trade("ORDER-00" + (5 + i), testOrder, OrderStatus.CLEARED);
+            trade.setNettedAmount(15000.00);
+            ServiceClientMessage message = new ServiceClientMessage(ServiceClientMessageTypes.SEND, "TRADE_REPLY",
+                    (Object) trade);
+            // Nothing is published until the cycle runs
+            processQueueItem.invoke(settlementService, new QueueItem(QueueItemTypes.SETTLEMENT, message));
+        }
+        assertEquals(3, cycle.pending());
+
+        List<String> replies = new ArrayList<>();
+        cycle.run((route, trade) -> replies.add(route.getReturnChannel() + " " + trade.getOrderId() + " "
+                + trade.getStatus()));
+
+        assertEquals(List.of("TRADE_REPLY ORDER-005 SETTLED", "TRADE_REPLY ORDER-006 SETTLED",
+                "TRADE_REPLY ORDER-007 SETTLED"), replies);
+        assertEquals(300, cycle.getDepository().securities("CLIENT123", "AAPL"));
+    }
+
+    @Test
+    void testBatchMode_PostsSettledTradesToLedger(@TempDir Path dir) throws Exception {
+        SettlementCycle cycle = new SettlementCycle(new DvpNetting(ForkJoinPool.commonPool()), new Depository(false));
+        Method enable = SettlementService.class.getDeclaredMethod("enableBatchSettlement", SettlementCycle.class);
+        enable.setAccessible(true);
+        enable.invoke(settlementService, cycle);
+        Method enableLedger = SettlementService.class.getDeclaredMethod("enableLedger", SettlementLedger.class);
+        enableLedger.setAccessible(true);
+        Method processQueueItem = BaseService.class.getDeclaredMethod("processQueueItem", QueueItem.class);
+        processQueueItem.setAccessible(true);
+
+        try (SettlementLedger ledger = SettlementLedger.open(dir, 1 << 20)) {
+            enableLedger.invoke(settlementService, ledger);
+            Order seller = new Order();
+            seller.setClientId("CLIENT456");
+            seller.setStockSymbol("AAPL");
+            seller.setQuantity(100);
+            seller.setSide(Side.SELL);
+            Trade[] trades = {new Trade("ORDER-008", testOrder, OrderStatus.CLEARED),
+                    new Trade("ORDER-009", seller, OrderStatus.CLEARED)};
+            for (Trade trade : trades) {
+                trade.setNettedAmount(15000.00);
+                ServiceClientMessage message = new ServiceClientMessage(ServiceClientMessageTypes.SEND,
+                        "TRADE_REPLY", (Object) trade);
+                processQueueItem.invoke(settlementService, new QueueItem(QueueItemTypes.SETTLEMENT, message));
+            }
+
+            List<String> replies = new ArrayList<>();
+            cycle.run((route, trade) -> replies.add(trade.getOrderId() + " " + trade.getStatus()));
+
+            // The seller holds no shares, so only the buyer's trade settles and is journaled
+            assertEquals(List.of("ORDER-008 SETTLED", "ORDER-009 FAILED"), replies);
+            assertEquals(1, ledger.transactions());
+            assertEquals(100, ledger.balance("CLIENT123", "AAPL"));
+            assertEquals(-1_500_000, ledger.balance("CLIENT123", SettlementLedger.CASH));
+            assertEquals(0, ledger.balance("CLIENT456", "AAPL"));
+        }
+    }
+
+    @Test
+    void testProcessTrade_SettlesOnSecurityCycleAndRefusesDelisted(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("securities.bin");
+        SecurityTable.write(file, List.of(
+                new Security("AAPL", 1, 1, 2, SecurityStatus.TRADING, 1),
+                new Security("GONE", 1, 1, 2, SecurityStatus.DELISTED, 2)));
+        Method enable = BaseService.class.getDeclaredMethod("enableSecuritiesMaster", SecuritiesMaster.class);
+        enable.setAccessible(true);
+        enable.invoke(settlementService, SecuritiesMaster.open(file));
+        Method processTrade = SettlementService.class.getDeclaredMethod("processTrade", Trade.class);
+        processTrade.setAccessible(true);
+
+        Trade trade = new Trade("ORDER-030", testOrder, OrderStatus.CLEARED);
+        trade.setNettedAmount(15000.00);
+        Trade result = (Trade) processTrade.invoke(settlementService, trade);
+        assertEquals(OrderStatus.SETTLED, result.getStatus());
+        assertEquals("Settlement Successful (T+1)", result.getSettlementMessage());
+
+        Order delisted = new Order(testOrder);
+        delisted.setStockSymbol("GONE");
+        trade = new Trade("ORDER-031", delisted, OrderStatus.CLEARED);
+        trade.setNettedAmount(15000.00);
+        result = (Trade) processTrade.invoke(settlementService, trade);
+        assertEquals(OrderStatus.FAILED, result.getStatus());
+        assertEquals("Security delisted: GONE", result.getFailureReason());
+        assertEquals("Settlement failed: Security not settleable", result.getSettlementMessage());
+    }
+}
@@ -2,16 +2,32 @@ package com.klear.communication.core;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.klear.logging.HotPathLog;
+import com.klear.model.order.Order;
+import com.klear.model.order.OrderStatus;
 import com.klear.model.queue.QueueItem;
 import com.klear.model.queue.QueueItemTypes;
+import com.klear.model.reference.ReferenceDictionary;
+import com.klear.model.reference.SecuritiesMaster;
 import com.klear.model.trade.Trade;
+import com.klear.tracing.Span;
+import com.klear.tracing.TraceContext;
+import com.klear.tracing.Tracer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPubSub;
 
 import jakarta.annotation.PreDestroy;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -30,7 +46,10 @@ public abstract class BaseService implements ServiceClientCallback, Runnable {
     protected final Logger log = LoggerFactory.getLogger(getClass());
 
     protected final ObjectMapper objectMapper = new ObjectMapper();
-    protected final BlockingQueue<QueueItem> queue = new LinkedBlockingQueue<>();
+    protected BlockingQueue<QueueItem> queue = new LinkedBlockingQueue<>();
+
+    private static final int PREALLOCATED_QUEUE_ITEMS = 1024;
+    private static final int MAX_CACHED_CHANNELS = 1024;
 
     private final ExecutorService subscriberExecutor = Executors.newSingleThreadExecutor(r -> {
         Thread t = new Thread(r, getServiceName() + "-subscriber");
@@ -43,6 +62,99 @@ public abstract class BaseService implements ServiceClientCallback, Runnable {
     protected Jedis jedisSub;
     protected JedisPubSub subscriber;
 
+    @Value("${tracing_sample_ratio:0.0}")
+    private double tracingSampleRatio;
+
+    @Value("${tracing_exporter:none}")
+    private String tracingExporter;
+
+    @Value("${tracing_file:traces.jsonl}")
+    private String tracingFile;
+
+    @Value("${tracing_otlp_endpoint:http://localhost:4318/v1/traces}")
+    private String tracingOtlpEndpoint;
+
+    @Value("${logging_mode:standard}")
+    private String loggingMode;
+
+    @Value("${logging_sample_per_second:10}")
+    private int loggingSamplePerSecond;
+
+    @Value("${logging_audit_dir:audit}")
+    private String loggingAuditDir;
+
+    @Value("${processing_mode:standard}")
+    private String processingMode;
+
+    @Value("${processing_queue_capacity:65536}")
+    private int processingQueueCapacity;
+
+    @Value("${reference_dictionary_file:}")
+    private String referenceDictionaryFile;
+
+    // Null unless client and symbol names travel as reference codes
+    private ReferenceDictionary dictionary;
+
+    @Value("${securities_master_file:}")
+    private String securitiesMasterFile;
+
+    @Value("${securities_master_reload:true}")
+    private boolean securitiesMasterReload;
+
+    // Null unless reference data per instrument is configured
+    private SecuritiesMaster securities;
+
+    @Value("${dedup_window_ms:0}")
+    private long dedupWindowMs;
+
+    @Value("${dedup_window_capacity:262144}")
+    private int dedupWindowCapacity;
+
+    @Value("${dedup_reply_capacity:65536}")
+    private int dedupReplyCapacity;
+
+    // Null unless duplicate requests are recognised
+    private DedupWindow dedup;
+    private ReplyCache replies;
+
+    // Pooled processing state; the flyweights are only touched by the worker thread
+    private volatile boolean pooled;
+    private BlockingQueue<QueueItem> freeQueueItems;
+    private TradeMessageCodec codec;
+    private ServiceClientMessage pooledMessage;
+    private Trade pooledTrade;
+    private Order pooledOrder;
+    private Map<String, byte[]> channelBytes;
+
+    protected HotPathLog hotPathLog = HotPathLog.STANDARD;
+    protected Tracer tracer = Tracer.NOOP;
+    private String queueSpanName;
+    private String processSpanName;
+
+    // Request being processed by the worker, for currentReplyRoute()
+    private ServiceClientMessage currentMessage;
+
+    /**
+     * Return channel and trace context of a request whose reply is sent later.
+     */
+    public static final class ReplyRoute {
+        private final String returnChannel;
+        private final String traceParent;
+
+        public ReplyRoute(String returnChannel, String traceParent) {
+            this.returnChannel = returnChannel;
+            this.traceParent = traceParent;
+        }
+
+        public String getReturnChannel() {
+            return returnChannel;
+        }
+
+        public String getTraceParent() {
+            return traceParent;
+        }
+    }
+
     /**
      * Returns the service name for logging and thread naming.
      */
@@ -70,7 +182,9 @@ public abstract class BaseService implements ServiceClientCallback, Runnable {
 
     /**
      * Process the trade and return the modified trade with updated status.
-     * Subclasses implement their specific business logic here.
+     * Subclasses implement their specific business logic here. Returning {@code null}
+     * defers the reply: capture {@link #currentReplyRoute()} and answer later with
+     * {@link #publishReply}.
      */
     protected abstract Trade processTrade(Trade trade);
 
@@ -80,6 +194,25 @@ public abstract class BaseService implements ServiceClientCallback, Runnable {
      */
     protected void initializeRedis() {
         this.outChannelName = getChannelName() + "_OUT";
+        this.tracer = Tracer.create(getServiceName(), tracingSampleRatio, tracingExporter,
+                tracingFile, tracingOtlpEndpoint);
+        this.hotPathLog = HotPathLog.create(getServiceName(), loggingMode, loggingSamplePerSecond, loggingAuditDir);
+        if (!referenceDictionaryFile.isEmpty()) {
+            enableReferenceDictionary(loadReferenceDictionary(referenceDictionaryFile));
+        }
+        if (!securitiesMasterFile.isEmpty()) {
+            enableSecuritiesMaster(openSecuritiesMaster(securitiesMasterFile));
+        }
+        if (dedupWindowMs > 0) {
+            long now = System.currentTimeMillis();
+            enableDedup(new DedupWindow(dedupWindowMs, 4, dedupWindowCapacity, now),
+                    new ReplyCache(dedupWindowMs, dedupReplyCapacity, now));
+        }
+        if ("pooled".equalsIgnoreCase(processingMode)) {
+            enablePooledProcessing(processingQueueCapacity);
+        }
+        this.queueSpanName = getServiceName() + ".queue";
+        this.processSpanName = getServiceName() + ".process";
 
         if (this.jedisPub == null) {
             this.jedisPub = new Jedis(getRedisHost(), getRedisPort());
@@ -114,44 +247,397 @@ public abstract class BaseService implements ServiceClientCallback, Runnable {
         }
     }
 
-    private void processQueueItem(QueueItem queueItem) {
+    /**
+     * Decode a queued message, run the stage logic and publish the reply.
+     * Exposed to subclasses so harnesses can drive the hot path without Redis.
+     */
+    protected void processQueueItem(QueueItem queueItem) {
         if (queueItem.getType() != getQueueItemType()) {
             log.warn("Unexpected queue item type: {} (expected {})",
                     queueItem.getType(), getQueueItemType());
             return;
         }
 
+        if (queueItem.getItem() instanceof String) {
+            processPooled(queueItem, (String) queueItem.getItem());
+            return;
+        }
+        processMessage(queueItem, (ServiceClientMessage) queueItem.getItem());
+    }
+
+    private void processMessage(QueueItem queueItem, ServiceClientMessage serviceClientMessage) {
         try {
-            ServiceClientMessage serviceClientMessage = (ServiceClientMessage) queueItem.getItem();
             if (serviceClientMessage.getType() != SEND) {
                 return;
             }
 
+            Span span = startStageSpans(queueItem, serviceClientMessage);
+
             String jsonString = objectMapper.writeValueAsString(serviceClientMessage.getPayload());
             Trade trade = objectMapper.readValue(jsonString, Trade.class);
+            if (dictionary != null && trade.getOrder() != null && !dictionary.resolve(trade.getOrder())) {
+                log.error("Unknown reference code in {} for orderId={}", getServiceName(), trade.getOrderId());
+                prepareReply(serviceClientMessage, unknownReferenceCode(trade), span);
+            } else if (processAndPrepareReply(serviceClientMessage, trade, span) == null) {
+                span.end();
+                return;
+            }
+            String returnChannel = serviceClientMessage.getReturnChannel();
+            String response = objectMapper.writeValueAsString(serviceClientMessage);
+
+            jedisPub.publish(returnChannel, response);
+            span.end();
+
+        } catch (JsonProcessingException e) {
+            log.error("JSON processing error in {}", getServiceName(), e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Pooled-mode counterpart of {@link #processQueueItem}: decodes into this worker's
+     * flyweights, encodes the reply straight to bytes and returns the queue item to the pool.
+     */
+    private void processPooled(QueueItem queueItem, String json) {
+        try {
+            if (!codec.decode(json, pooledMessage, pooledTrade, pooledOrder)) {
+                // The codec rejects codes its dictionary cannot resolve; the Jackson path replies to those
+                ServiceClientMessage serviceClientMessage;
+                try {
+                    serviceClientMessage = objectMapper.readValue(json, ServiceClientMessage.class);
+                } catch (JsonProcessingException e) {
+                    log.error("Failed to decode message in {}", getServiceName());
+                    return;
+                }
+                processMessage(queueItem, serviceClientMessage);
+                return;
+            }
+            if (pooledMessage.getType() != SEND || pooledMessage.getPayload() == null) {
+                return;
+            }
+
+            Span span = startStageSpans(queueItem, pooledMessage);
+            if (processAndPrepareReply(pooledMessage, pooledTrade, span) == null) {
+                span.end();
+                return;
+            }
+            byte[] response = codec.encode(pooledMessage);
 
+            jedisPub.publish(channelBytes(pooledMessage.getReturnChannel()), response);
+            span.end();
+        } finally {
+            queueItem.reuse(null, null);
+            freeQueueItems.offer(queueItem);
+        }
+    }
+
+    /**
+     * Queue wait and processing are sibling spans under the caller's span.
+     * Returns the processing span, which the caller ends after publishing.
+     */
+    private Span startStageSpans(QueueItem queueItem, ServiceClientMessage serviceClientMessage) {
+        TraceContext parent = tracer.extract(serviceClientMessage.getTraceParent());
+        Span queueSpan = tracer.startSpan(queueSpanName, parent, queueItem.getEnqueuedNanos());
+        queueSpan.end();
+        return tracer.startSpan(processSpanName, parent);
+    }
+
+    private Trade processAndPrepareReply(ServiceClientMessage serviceClientMessage, Trade trade, Span span) {
+        if (dedup != null && !dedup.firstSeen(serviceClientMessage.getMessageId(), System.currentTimeMillis())) {
+            // The reply to the original may be what was lost, so send it again
+            Trade sent = replies.get(trade.getOrderId(), System.currentTimeMillis());
+            if (log.isDebugEnabled()) {
+                log.debug("{}: duplicate orderId={} status={}, {}", getServiceName(), trade.getOrderId(),
+                        trade.getStatus(), sent == null ? "reply pending, dropping" : "resending reply");
+            }
+            if (sent == null) {
+                return null;
+            }
+            prepareReply(serviceClientMessage, sent, span);
+            return sent;
+        }
+        Trade processedTrade;
+        long deadline = serviceClientMessage.getDeadline();
+        if (deadline != 0 && System.currentTimeMillis() > deadline) {
+            // The sender has given up on this trade; answer at once rather than doing the work
+            processedTrade = expire(trade, deadline);
+        } else {
             // Delegate to subclass for business logic
-            Trade processedTrade = processTrade(trade);
+            currentMessage = serviceClientMessage;
+            try {
+                processedTrade = processTrade(trade);
+            } finally {
+                currentMessage = null;
+            }
+            if (processedTrade == null) {
+                return null;
+            }
+        }
+        prepareReply(serviceClientMessage, processedTrade, span);
+        return processedTrade;
+    }
 
-            // Send response back
-            serviceClientMessage.setPayload(processedTrade);
-            serviceClientMessage.setType(ON_RECEIVE);
-            String returnChannel = serviceClientMessage.getReturnChannel();
-            String response = objectMapper.writeValueAsString(serviceClientMessage);
+    /**
+     * Turns the request into the response in place.
+     */
+    private void prepareReply(ServiceClientMessage serviceClientMessage, Trade processedTrade, Span span) {
+        serviceClientMessage.setPayload(processedTrade);
+        serviceClientMessage.setDeadline(0L);
+        serviceClientMessage.setMessageId(
+                ServiceClientMessage.messageIdOf(processedTrade.getOrderId(), processedTrade.getStatus()));
+        if (span.isRecording()) {
+            span.setAttribute("orderId", processedTrade.getOrderId());
+            span.setAttribute("status", String.valueOf(processedTrade.getStatus()));
+            span.setAttribute("failureStage", processedTrade.getFailureStage());
+            serviceClientMessage.setTraceParent(span.getContext().toTraceparent());
+        }
+        serviceClientMessage.setType(ON_RECEIVE);
+        if (replies != null) {
+            replies.put(processedTrade, System.currentTimeMillis());
+        }
 
+        if (log.isInfoEnabled() && hotPathLog.shouldLog(processedTrade.getStatus())) {
             log.info("{}: {} orderId={}", getServiceName(),
                     processedTrade.getStatus(), processedTrade.getOrderId());
-            jedisPub.publish(returnChannel, response);
+        }
+        hotPathLog.audit(processedTrade.getOrderId(), processedTrade.getStatus(),
+                processedTrade.getFailureStage());
+    }
+
+    /**
+     * Fails a trade whose client or symbol code is not in this service's dictionary, as
+     * when the services load different reference files.
+     */
+    private Trade unknownReferenceCode(Trade trade) {
+        Order order = trade.getOrder();
+        trade.setStatus(OrderStatus.FAILED);
+        trade.setFailureStage(getQueueItemType().name());
+        trade.setFailureReason("Unknown reference code: clientCode=" + order.getClientCode()
+                + " symbolCode=" + order.getSymbolCode() + " in " + getServiceName());
+        return trade;
+    }
+
+    private Trade expire(Trade trade, long deadline) {
+        trade.setStatus(OrderStatus.FAILED);
+        trade.setFailureStage("TIMEOUT");
+        trade.setFailureReason("Deadline passed " + (System.currentTimeMillis() - deadline)
+                + " ms before " + getServiceName() + " dequeued the trade");
+        return trade;
+    }
+
+    /**
+     * Route of the request currently in {@link #processTrade}, for stages that defer
+     * their reply. Only valid on the worker thread while processTrade runs.
+     */
+    protected ReplyRoute currentReplyRoute() {
+        return new ReplyRoute(currentReturnChannel(), currentTraceParent());
+    }
+
+    /**
+     * Return channel of the request currently in {@link #processTrade}.
+     */
+    protected String currentReturnChannel() {
+        if (currentMessage == null) {
+            throw new IllegalStateException("No request is being processed");
+        }
+        return currentMessage.getReturnChannel();
+    }
+
+    /**
+     * Traceparent of the request currently in {@link #processTrade}, or null.
+     */
+    protected String currentTraceParent() {
+        if (currentMessage == null) {
+            throw new IllegalStateException("No request is being processed");
+        }
+        return currentMessage.getTraceParent();
+    }
+
+    /**
+     * Sends a reply for a request whose {@link #processTrade} call returned {@code null}.
+     * Must be called from the worker thread, which owns the publishing connection; other
+     * threads use their own {@link #newReplyPublisher()}.
+     */
+    protected void publishReply(ReplyRoute route, Trade trade) {
+        publishReply(jedisPub, codec, channelBytes, new ServiceClientMessage(),
+                route.getReturnChannel(), route.getTraceParent(), trade);
+    }
+
+    /**
+     * Creates a publisher with its own Redis connection, for a thread other than the
+     * worker that sends deferred replies.
+     */
+    protected ReplyPublisher newReplyPublisher() {
+        return new ReplyPublisher(new Jedis(getRedisHost(), getRedisPort()));
+    }
+
+    /**
+     * Deferred-reply publishing confined to one thread: its own connection, reply message
+     * and, in pooled mode, codec.
+     */
+    public class ReplyPublisher implements AutoCloseable {
+        private final Jedis jedis;
+        private final TradeMessageCodec replyCodec;
+        private final Map<String, byte[]> replyChannelBytes;
+        private final ServiceClientMessage reply = new ServiceClientMessage();
+
+        public ReplyPublisher(Jedis jedis) {
+            this.jedis = jedis;
+            this.replyCodec = pooled ? new TradeMessageCodec(dictionary) : null;
+            this.replyChannelBytes = pooled ? new HashMap<>() : null;
+        }
+
+        public void publish(ReplyRoute route, Trade trade) {
+            publish(route.getReturnChannel(), route.getTraceParent(), trade);
+        }
+
+        public void publish(String returnChannel, String traceParent, Trade trade) {
+            publishReply(jedis, replyCodec, replyChannelBytes, reply, returnChannel, traceParent, trade);
+        }
+
+        @Override
+        public void close() {
+            jedis.close();
+        }
+    }
 
+    private void publishReply(Jedis jedis, TradeMessageCodec replyCodec, Map<String, byte[]> channels,
+                              ServiceClientMessage reply, String returnChannel, String traceParent, Trade trade) {
+        reply.setType(ON_RECEIVE);
+        reply.setReturnChannel(returnChannel);
+        reply.setPayload(trade);
+        reply.setTraceParent(traceParent);
+        reply.setMessageId(ServiceClientMessage.messageIdOf(trade.getOrderId(), trade.getStatus()));
+        if (replies != null) {
+            replies.put(trade, System.currentTimeMillis());
+        }
+        if (log.isInfoEnabled() && hotPathLog.shouldLog(trade.getStatus())) {
+            log.info("{}: {} orderId={}", getServiceName(), trade.getStatus(), trade.getOrderId());
+        }
+        hotPathLog.audit(trade.getOrderId(), trade.getStatus(), trade.getFailureStage());
+        try {
+            if (replyCodec != null) {
+                jedis.publish(channelBytes(channels, returnChannel), replyCodec.encode(reply));
+            } else {
+                jedis.publish(returnChannel, objectMapper.writeValueAsString(reply));
+            }
         } catch (JsonProcessingException e) {
             log.error("JSON processing error in {}", getServiceName(), e);
             throw new RuntimeException(e);
         }
     }
 
+    private byte[] channelBytes(String channel) {
+        return channelBytes(channelBytes, channel);
+    }
+
+    private static byte[] channelBytes(Map<String, byte[]> cache, String channel) {
+        byte[] bytes = cache.get(channel);
+        if (bytes == null) {
+            if (cache.size() >= MAX_CACHED_CHANNELS) {
+                cache.clear();
+            }
+            bytes = channel.getBytes(StandardCharsets.UTF_8);
+            cache.put(channel, bytes);
+        }
+        return bytes;
+    }
+
+    /**
+     * Switches this service to pooled processing. Messages are queued undecoded in recycled
+     * {@link QueueItem}s on a bounded queue, and the worker decodes each one into a single
+     * reused message, trade and order. {@link #processTrade} therefore receives the same
+     * {@link Trade} instance every time and must not keep a reference to it.
+     * Call before the subscriber and worker threads start.
+     */
+    protected void enablePooledProcessing(int queueCapacity) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.freeQueueItems = new ArrayBlockingQueue<>(queueCapacity + 1);
+        for (int i = 0; i < Math.min(queueCapacity, PREALLOCATED_QUEUE_ITEMS); i++) {
+            freeQueueItems.offer(new QueueItem(null, null));
+        }
+        this.codec = new TradeMessageCodec(dictionary);
+        this.pooledMessage = new ServiceClientMessage();
+        this.pooledTrade = new Trade();
+        this.pooledOrder = new Order();
+        this.channelBytes = new HashMap<>();
+        this.pooled = true;
+        log.info("{} using pooled processing, queue capacity {}", getServiceName(), queueCapacity);
+    }
+
+    /**
+     * Resolves client and symbol names that arrive only as codes from {@code dictionary},
+     * and in pooled mode sends known names as codes. Every service must load the same
+     * reference file. Call before {@link #enablePooledProcessing} and before the worker
+     * thread starts.
+     */
+    protected void enableReferenceDictionary(ReferenceDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    public ReferenceDictionary getReferenceDictionary() {
+        return dictionary;
+    }
+
+    private ReferenceDictionary loadReferenceDictionary(String file) {
+        try {
+            ReferenceDictionary loaded = ReferenceDictionary.load(Path.of(file));
+            log.info("{} loaded reference dictionary {}: {} symbols, {} clients, fingerprint {}", getServiceName(),
+                    file, loaded.symbolCount(), loaded.clientCount(), Long.toHexString(loaded.fingerprint()));
+            return loaded;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load reference dictionary " + file, e);
+        }
+    }
+
+    /**
+     * Gives the stage per-instrument reference data. Stages that use it read
+     * {@link SecuritiesMaster#current()} once per trade.
+     */
+    protected void enableSecuritiesMaster(SecuritiesMaster securities) {
+        this.securities = securities;
+    }
+
+    public SecuritiesMaster getSecuritiesMaster() {
+        return securities;
+    }
+
+    /**
+     * Processes a request whose message ID is already in {@code dedup} only once. A
+     * redelivered or resent request gets the latest reply for its order from
+     * {@code replies} again, in case that reply was lost, or nothing if the stage has
+     * not replied yet.
+     */
+    protected void enableDedup(DedupWindow dedup, ReplyCache replies) {
+        this.dedup = dedup;
+        this.replies = replies;
+    }
+
+    private SecuritiesMaster openSecuritiesMaster(String file) {
+        try {
+            SecuritiesMaster opened = SecuritiesMaster.open(Path.of(file));
+            if (securitiesMasterReload) {
+                opened.watch(getServiceName() + "-securities-watcher");
+            }
+            return opened;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open securities master " + file, e);
+        }
+    }
+
     @Override
     public void onReceive(String channel, String message) {
         try {
+            if (pooled) {
+                QueueItem queueItem = freeQueueItems.poll();
+                if (queueItem == null) {
+                    queueItem = new QueueItem(getQueueItemType(), message);
+                } else {
+                    queueItem.reuse(getQueueItemType(), message);
+                }
+                queue.put(queueItem);
+                return;
+            }
             ServiceClientMessage serviceClientMessage = objectMapper.readValue(message, ServiceClientMessage.class);
             QueueItem queueItem = new QueueItem(getQueueItemType(), serviceClientMessage);
             queue.put(queueItem);
@@ -188,6 +674,11 @@ public abstract class BaseService implements ServiceClientCallback, Runnable {
         if (jedisSub != null) {
             jedisSub.close();
         }
+        if (securities != null) {
+            securities.close();
+        }
+        tracer.shutdown();
+        hotPathLog.close();
         log.info("{} shutdown complete", getServiceName());
     }
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+package com.klear.communication.core;
+
+import java.util.Arrays;
+
+/**
+ * Remembers recent message IDs so that a redelivered message can be dropped.
+ *
+ * The window is a ring of generations, each an open-addressing hash set of longs covering
+ * {@code windowMillis / generations} of time. When the current generation's time is up,
+ * or it holds {@code maxPerGeneration} IDs, the oldest generation is cleared and becomes
+ * the current one. An ID is therefore recognised for at least {@code windowMillis} minus
+ * one generation, less under a burst that fills generations early, and memory stays fixed
+ * at about 16 bytes per ID of capacity per generation. Nothing is allocated after
+ * construction. Thread-safe.
+ */
+public final class DedupWindow {
+
+    private final long generationMillis;
+    private final int maxPerGeneration;
+    private final long[][] tables;
+    private final int[] counts;
+    private final int mask;
+    private int current;
+    private long currentStart;
+
+    public DedupWindow(long windowMillis, int generations, int maxPerGeneration, long nowMillis) {
+        if (windowMillis <= 0 || generations < 2 || maxPerGeneration <= 0) {
+            throw new IllegalArgumentException("Window must be positive with at least 2 generations");
+        }
+        this.generationMillis = Math.max(1, windowMillis / generations);
+        this.maxPerGeneration = maxPerGeneration;
+        int capacity = Integer.highestOneBit(Math.min(maxPerGeneration, 1 << 28) * 2 - 1) << 1;
+        this.tables = new long[generations][capacity];
+        this.counts = new int[generations];
+        this.mask = capacity - 1;
+        this.currentStart = nowMillis;
+    }
+
+    /**
+     * Records {@code id}, returning false if it is already in the window. ID 0 means the
+     * message has none and is always first seen.
+     */
+    public synchronized boolean firstSeen(long id, long nowMillis) {
+        if (id == 0) {
+            return true;
+        }
+        rotate(nowMillis);
+        for (long[] table : tables) {
+            if (contains(table, id)) {
+                return false;
+            }
+        }
+        if (counts[current] == maxPerGeneration) {
+            nextGeneration();
+            currentStart = nowMillis;
+        }
+        insert(tables[current], id);
+        counts[current]++;
+        return true;
+    }
+
+    private void rotate(long nowMillis) {
+        long elapsed = nowMillis - currentStart;
+        if (elapsed < generationMillis) {
+            return;
+        }
+        long steps = elapsed / generationMillis;
+        for (long i = 0; i < Math.min(steps, tables.length); i++) {
+            nextGeneration();
+        }
+        currentStart += steps * generationMillis;
+    }
+
+    private void nextGeneration() {
+        current = current + 1 == tables.length ? 0 : current + 1;
+        Arrays.fill(tables[current], 0L);
+        counts[current] = 0;
+    }
+
+    private boolean contains(long[] table, long id) {
+        for (int i = slot(id); ; i = (i + 1) & mask) {
+            long stored = table[i];
+            if (stored == id) {
+                return true;
+            }
+            if (stored == 0) {
+                return false;
+            }
+        }
+    }
+
+    private void insert(long[] table, long id) {
+        int i = slot(id);
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = id;
+    }
+
+    private int slot(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,68 @@
+package com.klear.communication.core;
+
+import com.klear.model.trade.Trade;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The latest reply a stage sent for each order, so that a resent request the
+ * {@link DedupWindow} recognises can be answered again instead of dropped.
+ *
+ * Replies are kept in two generations of maps, each covering {@code windowMillis}. When
+ * the current generation's time is up, or it holds {@code maxPerGeneration} replies, the
+ * previous generation is dropped and the current one takes its place. A reply is
+ * therefore kept for at least {@code windowMillis}, less under a burst that fills
+ * generations early. Each reply is a copy, so callers may reuse the trade they pass in.
+ * Thread-safe.
+ */
+public final class ReplyCache {
+
+    private final long windowMillis;
+    private final int maxPerGeneration;
+    private Map<String, Trade> current = new HashMap<>();
+    private Map<String, Trade> previous = new HashMap<>();
+    private long currentStart;
+
+    public ReplyCache(long windowMillis, int maxPerGeneration, long nowMillis) {
+        if (windowMillis <= 0 || maxPerGeneration <= 0) {
+            throw new IllegalArgumentException("Window and capacity must be positive");
+        }
+        this.windowMillis = windowMillis;
+        this.maxPerGeneration = maxPerGeneration;
+        this.currentStart = nowMillis;
+    }
+
+    /**
+     * Records {@code reply} as the latest reply for its order.
+     */
+    public synchronized void put(Trade reply, long nowMillis) {
+        rotate(nowMillis);
+        if (current.size() == maxPerGeneration && !current.containsKey(reply.getOrderId())) {
+            previous = current;
+            current = new HashMap<>();
+            currentStart = nowMillis;
+        }
+        current.put(reply.getOrderId(), new Trade(reply));
+    }
+
+    /**
+     * The latest reply sent for {@code orderId}, or null if there is none in the window.
+     * The reply is shared; callers must not modify it.
+     */
+    public synchronized Trade get(String orderId, long nowMillis) {
+        rotate(nowMillis);
+        Trade reply = current.get(orderId);
+        return reply != null ? reply : previous.get(orderId);
+    }
+
+    private void rotate(long nowMillis) {
+        long elapsed = nowMillis - currentStart;
+        if (elapsed < windowMillis) {
+            return;
+        }
+        previous = elapsed < 2 * windowMillis ? current : new HashMap<>();
+        current = new HashMap<>();
+        currentStart = nowMillis;
+    }
+}
@@ -4,6 +4,8 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.klear.model.trade.Trade;
 import com.klear.services.TradeServiceCallbackHandler;
+import com.klear.tracing.TraceContext;
+import com.klear.tracing.Tracer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -32,6 +34,15 @@ public abstract class ServiceClient implements ServiceClientInterface, ServiceCl
     @Value("${redis_port}")
     private int port;
 
+    @Value("${dedup_window_ms:0}")
+    private long dedupWindowMs;
+
+    @Value("${dedup_window_capacity:262144}")
+    private int dedupWindowCapacity;
+
+    // Null unless duplicate replies are dropped
+    private DedupWindow dedup;
+
     protected String channelName = "";
 
     private Jedis jedisPubSend = null;
@@ -66,6 +77,9 @@ public abstract class ServiceClient implements ServiceClientInterface, ServiceCl
         if (this.jedisSub == null) {
             this.jedisSub = new Jedis(ipAddress, port);
         }
+        if (dedupWindowMs > 0) {
+            this.dedup = new DedupWindow(dedupWindowMs, 4, dedupWindowCapacity, System.currentTimeMillis());
+        }
         subscriber = new JedisPubSubAsync(this);
         subscriberExecutor.submit(() -> {
             try {
@@ -106,9 +120,20 @@ public abstract class ServiceClient implements ServiceClientInterface, ServiceCl
 
     @Override
     public void send(Trade trade) {
+        send(trade, 0L);
+    }
+
+    @Override
+    public void send(Trade trade, long deadline) {
         try {
             ServiceClientMessage serviceClientMessage = new ServiceClientMessage(
                     SEND, this.retChannelName, (Object) trade);
+            serviceClientMessage.setDeadline(deadline);
+            serviceClientMessage.setMessageId(ServiceClientMessage.messageIdOf(trade.getOrderId(), trade.getStatus()));
+            TraceContext traceContext = Tracer.currentContext();
+            if (traceContext != null) {
+                serviceClientMessage.setTraceParent(traceContext.toTraceparent());
+            }
             String message = objectMapper.writeValueAsString(serviceClientMessage);
             log.debug("ServiceClient sending: orderId={}", trade.getOrderId());
             jedisPubSend.publish(this.outChannelName, message);
@@ -117,10 +142,22 @@ public abstract class ServiceClient implements ServiceClientInterface, ServiceCl
         }
     }
 
+    /**
+     * Dispatches a stage reply to the callback handler. The reply's trace context is made
+     * current for the duration of the callback so the next {@link #send} continues the trace.
+     */
     @Override
     public void onReceive(String channel, String message) {
+        TraceContext previousContext = null;
         try {
             ServiceClientMessage serviceClientMessage = objectMapper.readValue(message, ServiceClientMessage.class);
+            if (serviceClientMessage.getTraceParent() != null) {
+                previousContext = Tracer.makeCurrent(TraceContext.parse(serviceClientMessage.getTraceParent()));
+            }
+            if (dedup != null && !dedup.firstSeen(serviceClientMessage.getMessageId(), System.currentTimeMillis())) {
+                log.debug("ServiceClient dropping duplicate reply on {}", channel);
+                return;
+            }
             if (serviceClientMessage.getType() == ON_RECEIVE) {
                 String jsonString = objectMapper.writeValueAsString(serviceClientMessage.getPayload());
                 Trade trade = objectMapper.readValue(jsonString, Trade.class);
@@ -153,6 +190,8 @@ public abstract class ServiceClient implements ServiceClientInterface, ServiceCl
         } catch (JsonProcessingException e) {
             log.error("Failed to parse received message", e);
             throw new RuntimeException(e);
+        } finally {
+            Tracer.makeCurrent(previousContext);
         }
     }
 
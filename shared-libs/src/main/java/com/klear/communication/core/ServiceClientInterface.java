@@ -4,4 +4,10 @@ import com.klear.model.trade.Trade;
 
 public interface ServiceClientInterface {
     void send(Trade trade);
+
+    /**
+     * Sends {@code trade} with a deadline, in epoch milliseconds, after which the stage
+     * fails it with a TIMEOUT stage instead of processing it; 0 for none.
+     */
+    void send(Trade trade, long deadline);
 }
@@ -1,5 +1,7 @@
 package com.klear.communication.core;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.klear.model.order.OrderStatus;
 import com.klear.model.trade.Trade;
 
 public class ServiceClientMessage {
@@ -7,6 +9,22 @@ public class ServiceClientMessage {
     private String returnChannel;
     private Object payload;
 
+    /** W3C traceparent of the sending span; absent when tracing is off. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String traceParent;
+
+    /**
+     * Epoch milliseconds after which the sender no longer wants the work done; 0 for none.
+     */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private long deadline;
+
+    /**
+     * Identifies the message for duplicate detection; see {@link #messageIdOf}. 0 for none.
+     */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private long messageId;
+
     public ServiceClientMessage() {
     }
 
@@ -42,4 +60,50 @@ public class ServiceClientMessage {
     public void setPayload(Object payload) {
         this.payload = payload;
     }
+
+    public String getTraceParent() {
+        return traceParent;
+    }
+
+    public void setTraceParent(String traceParent) {
+        this.traceParent = traceParent;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    public long getMessageId() {
+        return messageId;
+    }
+
+    public void setMessageId(long messageId) {
+        this.messageId = messageId;
+    }
+
+    /**
+     * The ID of a message carrying order {@code orderId} at {@code status}: a 64-bit hash
+     * of the two, never 0. Each step of an order's lifecycle is one message, so a
+     * redelivery or a resend of that step gets the same ID and anything else a different
+     * one, without senders keeping any state.
+     */
+    public static long messageIdOf(String orderId, OrderStatus status) {
+        if (orderId == null) {
+            return 0L;
+        }
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < orderId.length(); i++) {
+            h = (h ^ orderId.charAt(i)) * 0x100000001b3L;
+        }
+        h = (h ^ (status == null ? 0 : status.ordinal() + 1)) * 0x100000001b3L;
+        // Finish with a full avalanche so that IDs differing in one character are far apart
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
 }
@@ -3,6 +3,8 @@ package com.klear.communication.core;
 public enum ServiceClientMessageTypes {
     ORDER_SUBMIT,
     ORDER_STATUS,
+    TRADE_QUERY,
+    ANALYTICS,
     SEND,
     ON_RECEIVE,
     UNKNOWN
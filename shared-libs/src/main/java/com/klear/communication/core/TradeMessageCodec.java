@@ -0,0 +1,791 @@
+package com.klear.communication.core;
+
+import com.klear.model.order.Order;
+import com.klear.model.order.OrderStatus;
+import com.klear.model.order.OrderType;
+import com.klear.model.order.Side;
+import com.klear.model.reference.ReferenceDictionary;
+import com.klear.model.trade.Trade;
+
+import java.util.Arrays;
+
+/**
+ * Hand-written JSON codec for a {@link ServiceClientMessage} whose payload is a {@link Trade},
+ * used by the pooled processing mode in {@link BaseService}.
+ * <p>
+ * {@link #decode} fills caller-owned flyweights instead of building a Map payload and
+ * round-tripping it through a String. Low-cardinality strings (return channels, client IDs,
+ * symbols, stage messages) come from a content-keyed cache, and numbers are parsed and
+ * formatted without intermediate objects. On the steady-state path the only allocations are
+ * the order ID string and the outgoing byte array that Jedis needs.
+ * <p>
+ * The wire format is the one Jackson produces for the same classes, so either side may use
+ * either codec. An order with a fixed-point price scale is written more compactly: its
+ * price, executed price and netted amount go out only as integer ticks, which the model's
+ * setters turn back into the double fields on either codec.
+ * <p>
+ * With a {@link ReferenceDictionary}, an order's client and symbol go out as their int codes
+ * alone when it has them, and decoding fills the names back in from the dictionary, so both
+ * ends must load the same reference file. A message that carries codes but no names is
+ * rejected by a codec without a dictionary. Not thread-safe: one instance per worker thread.
+ */
+public class TradeMessageCodec {
+
+    private static final ServiceClientMessageTypes[] MESSAGE_TYPES = ServiceClientMessageTypes.values();
+    private static final OrderStatus[] ORDER_STATUSES = OrderStatus.values();
+    private static final Side[] SIDES = Side.values();
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final int MAX_FAST_FRACTION_DIGITS = 8;
+
+    private final StringCache strings = new StringCache(4096);
+    // Null unless names travel as reference codes
+    private final ReferenceDictionary dictionary;
+    private byte[] out = new byte[1024];
+    private int outPos;
+
+    private String in;
+    private int pos;
+
+    public TradeMessageCodec() {
+        this(null);
+    }
+
+    public TradeMessageCodec(ReferenceDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    // ---------------------------------------------------------------- decode
+
+    /**
+     * Parses {@code json} into {@code message}, reusing {@code trade} and {@code order}.
+     * Fields missing from the input are reset to the {@link Trade} defaults.
+     *
+     * @return false if the input is not a message this codec understands
+     */
+    public boolean decode(String json, ServiceClientMessage message, Trade trade, Order order) {
+        this.in = json;
+        this.pos = 0;
+        message.setType(null);
+        message.setReturnChannel(null);
+        message.setPayload(null);
+        message.setTraceParent(null);
+        message.setDeadline(0L);
+        message.setMessageId(0L);
+        try {
+            expect('{');
+            if (peekSkipWs() == '}') {
+                pos++;
+                return true;
+            }
+            do {
+                int keyStart = readKeyStart();
+                int keyEnd = pos - 1;
+                expectColon();
+                if (keyIs(keyStart, keyEnd, "type")) {
+                    message.setType(readEnum(MESSAGE_TYPES));
+                } else if (keyIs(keyStart, keyEnd, "returnChannel")) {
+                    message.setReturnChannel(readCachedString());
+                } else if (keyIs(keyStart, keyEnd, "traceParent")) {
+                    message.setTraceParent(readFreshString());
+                } else if (keyIs(keyStart, keyEnd, "deadline")) {
+                    message.setDeadline(readLong());
+                } else if (keyIs(keyStart, keyEnd, "messageId")) {
+                    message.setMessageId(readLong());
+                } else if (keyIs(keyStart, keyEnd, "payload")) {
+                    if (readNull()) {
+                        message.setPayload(null);
+                    } else {
+                        decodeTrade(trade, order);
+                        message.setPayload(trade);
+                    }
+                } else {
+                    skipValue();
+                }
+            } while (nextMember());
+            return true;
+        } catch (IllegalArgumentException | IllegalStateException | IndexOutOfBoundsException e) {
+            return false;
+        } finally {
+            this.in = null;
+        }
+    }
+
+    private void decodeTrade(Trade trade, Order order) {
+        trade.setOrderId(null);
+        trade.setOrder(order);
+        trade.setExecutedPriceTicks(0L);
+        trade.setNettedAmountTicks(0L);
+        trade.setExecutedPrice(0.0);
+        trade.setExecutedQuantity(0);
+        trade.setExecutedTimestamp(0L);
+        trade.setNettedAmount(0.0);
+        trade.setStatus(null);
+        trade.setResting(false);
+        trade.setValidationMessage("");
+        trade.setClearingMessage("");
+        trade.setSettlementMessage("");
+        trade.setFailureReason("");
+        trade.setFailureStage("");
+
+        expect('{');
+        if (peekSkipWs() == '}') {
+            pos++;
+            return;
+        }
+        do {
+            int keyStart = readKeyStart();
+            int keyEnd = pos - 1;
+            expectColon();
+            if (keyIs(keyStart, keyEnd, "orderId")) {
+                trade.setOrderId(readFreshString());
+            } else if (keyIs(keyStart, keyEnd, "order")) {
+                if (readNull()) {
+                    trade.setOrder(null);
+                } else {
+                    decodeOrder(order);
+                }
+            } else if (keyIs(keyStart, keyEnd, "executedPrice")) {
+                trade.setExecutedPrice(readDouble());
+            } else if (keyIs(keyStart, keyEnd, "executedPriceTicks")) {
+                trade.setExecutedPriceTicks(readLong());
+            } else if (keyIs(keyStart, keyEnd, "nettedAmountTicks")) {
+                trade.setNettedAmountTicks(readLong());
+            } else if (keyIs(keyStart, keyEnd, "executedQuantity")) {
+                trade.setExecutedQuantity((int) readLong());
+            } else if (keyIs(keyStart, keyEnd, "executedTimestamp")) {
+                trade.setExecutedTimestamp(readLong());
+            } else if (keyIs(keyStart, keyEnd, "nettedAmount")) {
+                trade.setNettedAmount(readDouble());
+            } else if (keyIs(keyStart, keyEnd, "status")) {
+                trade.setStatus(readEnum(ORDER_STATUSES));
+            } else if (keyIs(keyStart, keyEnd, "resting")) {
+                trade.setResting(readBoolean());
+            } else if (keyIs(keyStart, keyEnd, "validationMessage")) {
+                trade.setValidationMessage(readCachedString());
+            } else if (keyIs(keyStart, keyEnd, "clearingMessage")) {
+                trade.setClearingMessage(readCachedString());
+            } else if (keyIs(keyStart, keyEnd, "settlementMessage")) {
+                trade.setSettlementMessage(readCachedString());
+            } else if (keyIs(keyStart, keyEnd, "failureReason")) {
+                trade.setFailureReason(readCachedString());
+            } else if (keyIs(keyStart, keyEnd, "failureStage")) {
+                trade.setFailureStage(readCachedString());
+            } else {
+                skipValue();
+            }
+        } while (nextMember());
+    }
+
+    private void decodeOrder(Order order) {
+        order.setClientId(null);
+        order.setStockSymbol(null);
+        order.setQuantity(0);
+        order.setPriceScale(null);
+        order.setPriceTicks(0L);
+        order.setPrice(0.0);
+        order.setSide(null);
+        order.setOrderType(null);
+        order.setClientCode(0);
+        order.setSymbolCode(0);
+
+        expect('{');
+        if (peekSkipWs() == '}') {
+            pos++;
+            return;
+        }
+        do {
+            int keyStart = readKeyStart();
+            int keyEnd = pos - 1;
+            expectColon();
+            if (keyIs(keyStart, keyEnd, "clientId")) {
+                order.setClientId(readCachedString());
+            } else if (keyIs(keyStart, keyEnd, "stockSymbol")) {
+                order.setStockSymbol(readCachedString());
+            } else if (keyIs(keyStart, keyEnd, "quantity")) {
+                order.setQuantity((int) readLong());
+            } else if (keyIs(keyStart, keyEnd, "price")) {
+                order.setPrice(readDouble());
+            } else if (keyIs(keyStart, keyEnd, "priceTicks")) {
+                order.setPriceTicks(readLong());
+            } else if (keyIs(keyStart, keyEnd, "priceScale")) {
+                order.setPriceScale(readNull() ? null : Integer.valueOf((int) readLong()));
+            } else if (keyIs(keyStart, keyEnd, "side")) {
+                order.setSide(readEnum(SIDES));
+            } else if (keyIs(keyStart, keyEnd, "orderType")) {
+                order.setOrderType(readEnum(ORDER_TYPES));
+            } else if (keyIs(keyStart, keyEnd, "clientCode")) {
+                order.setClientCode((int) readLong());
+            } else if (keyIs(keyStart, keyEnd, "symbolCode")) {
+                order.setSymbolCode((int) readLong());
+            } else {
+                skipValue();
+            }
+        } while (nextMember());
+        boolean named = dictionary != null ? dictionary.resolve(order)
+                : !(order.getClientId() == null && order.getClientCode() != 0
+                        || order.getStockSymbol() == null && order.getSymbolCode() != 0);
+        if (!named) {
+            throw new IllegalStateException("Reference codes without a matching dictionary");
+        }
+    }
+
+    private boolean keyIs(int start, int end, String name) {
+        return end - start == name.length() && in.regionMatches(start, name, 0, name.length());
+    }
+
+    /** Reads {@code "key"} (no escapes in our keys) and returns the index after the opening quote. */
+    private int readKeyStart() {
+        expect('"');
+        int start = pos;
+        while (in.charAt(pos) != '"') {
+            pos++;
+        }
+        pos++;
+        return start;
+    }
+
+    private void expectColon() {
+        expect(':');
+    }
+
+    /** After a member value: true if a comma follows, false at the closing brace. */
+    private boolean nextMember() {
+        char c = peekSkipWs();
+        pos++;
+        if (c == ',') {
+            return true;
+        }
+        if (c == '}') {
+            return false;
+        }
+        throw new IllegalStateException("Expected ',' or '}' at " + (pos - 1));
+    }
+
+    private void expect(char expected) {
+        if (peekSkipWs() != expected) {
+            throw new IllegalStateException("Expected '" + expected + "' at " + pos);
+        }
+        pos++;
+    }
+
+    private char peekSkipWs() {
+        char c = in.charAt(pos);
+        while (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            c = in.charAt(++pos);
+        }
+        return c;
+    }
+
+    private boolean readNull() {
+        if (peekSkipWs() == 'n' && in.startsWith("null", pos)) {
+            pos += 4;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean readBoolean() {
+        if (peekSkipWs() == 't' && in.startsWith("true", pos)) {
+            pos += 4;
+            return true;
+        }
+        if (in.startsWith("false", pos)) {
+            pos += 5;
+            return false;
+        }
+        throw new IllegalStateException("Expected a boolean at " + pos);
+    }
+
+    private <E extends Enum<E>> E readEnum(E[] values) {
+        if (readNull()) {
+            return null;
+        }
+        expect('"');
+        int start = pos;
+        int end = in.indexOf('"', start);
+        pos = end + 1;
+        for (E value : values) {
+            String name = value.name();
+            if (name.length() == end - start && in.regionMatches(start, name, 0, name.length())) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Unknown constant at " + start);
+    }
+
+    /** A string that is usually one of few values; served from the cache. */
+    private String readCachedString() {
+        if (readNull()) {
+            return null;
+        }
+        expect('"');
+        int start = pos;
+        int end = scanPlainString(start);
+        if (end < 0) {
+            return readEscapedString(start);
+        }
+        pos = end + 1;
+        return strings.get(in, start, end);
+    }
+
+    /** A string that is unique per message, such as an order ID. */
+    private String readFreshString() {
+        if (readNull()) {
+            return null;
+        }
+        expect('"');
+        int start = pos;
+        int end = scanPlainString(start);
+        if (end < 0) {
+            return readEscapedString(start);
+        }
+        pos = end + 1;
+        return in.substring(start, end);
+    }
+
+    /** Index of the closing quote, or -1 if an escape occurs first. */
+    private int scanPlainString(int start) {
+        for (int i = start; ; i++) {
+            char c = in.charAt(i);
+            if (c == '"') {
+                return i;
+            }
+            if (c == '\\') {
+                return -1;
+            }
+        }
+    }
+
+    private String readEscapedString(int start) {
+        StringBuilder sb = new StringBuilder();
+        int i = start;
+        while (true) {
+            char c = in.charAt(i++);
+            if (c == '"') {
+                break;
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            char e = in.charAt(i++);
+            switch (e) {
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'u' -> {
+                    sb.append((char) Integer.parseInt(in, i, i + 4, 16));
+                    i += 4;
+                }
+                default -> sb.append(e);
+            }
+        }
+        pos = i;
+        return sb.toString();
+    }
+
+    private long readLong() {
+        peekSkipWs();
+        boolean negative = in.charAt(pos) == '-';
+        if (negative) {
+            pos++;
+        }
+        long value = 0;
+        char c;
+        while (pos < in.length() && (c = in.charAt(pos)) >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            pos++;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Exact for up to 15 significant digits and a decimal exponent within ±22 (Clinger's fast
+     * path), which covers every price and amount we produce. Anything else falls back to
+     * {@link Double#parseDouble}.
+     */
+    private double readDouble() {
+        peekSkipWs();
+        int start = pos;
+        boolean negative = in.charAt(pos) == '-';
+        if (negative) {
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        char c;
+        while (pos < in.length() && (c = in.charAt(pos)) >= '0' && c <= '9') {
+            mantissa = mantissa * 10 + (c - '0');
+            if (mantissa != 0) {
+                digits++;
+            }
+            pos++;
+        }
+        if (pos < in.length() && in.charAt(pos) == '.') {
+            pos++;
+            while (pos < in.length() && (c = in.charAt(pos)) >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) {
+                    digits++;
+                }
+                exponent--;
+                pos++;
+            }
+        }
+        if (pos < in.length() && ((c = in.charAt(pos)) == 'e' || c == 'E')) {
+            pos++;
+            boolean negativeExponent = false;
+            if (in.charAt(pos) == '+' || in.charAt(pos) == '-') {
+                negativeExponent = in.charAt(pos) == '-';
+                pos++;
+            }
+            int e = 0;
+            while (pos < in.length() && (c = in.charAt(pos)) >= '0' && c <= '9') {
+                e = e * 10 + (c - '0');
+                pos++;
+            }
+            exponent += negativeExponent ? -e : e;
+        }
+        if (digits <= 15 && exponent >= -22 && exponent <= 22) {
+            double value = exponent >= 0 ? mantissa * POW10[exponent] : mantissa / POW10[-exponent];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(in.substring(start, pos));
+    }
+
+    private void skipValue() {
+        char c = peekSkipWs();
+        if (c == '"') {
+            pos++;
+            while (true) {
+                char s = in.charAt(pos++);
+                if (s == '\\') {
+                    pos++;
+                } else if (s == '"') {
+                    return;
+                }
+            }
+        }
+        if (c == '{' || c == '[') {
+            int depth = 0;
+            do {
+                char s = in.charAt(pos++);
+                if (s == '"') {
+                    pos--;
+                    skipValue();
+                } else if (s == '{' || s == '[') {
+                    depth++;
+                } else if (s == '}' || s == ']') {
+                    depth--;
+                }
+            } while (depth > 0);
+            return;
+        }
+        while (pos < in.length() && (c = in.charAt(pos)) != ',' && c != '}' && c != ']') {
+            pos++;
+        }
+    }
+
+    // ---------------------------------------------------------------- encode
+
+    /**
+     * Encodes {@code message} with its {@link Trade} payload as UTF-8 JSON.
+     * The returned array is freshly allocated because Jedis publishes whole arrays.
+     */
+    public byte[] encode(ServiceClientMessage message) {
+        outPos = 0;
+        writeAscii("{\"type\":");
+        writeEnum(message.getType());
+        writeAscii(",\"returnChannel\":");
+        writeString(message.getReturnChannel());
+        writeAscii(",\"payload\":");
+        Trade trade = (Trade) message.getPayload();
+        if (trade == null) {
+            writeAscii("null");
+        } else {
+            encodeTrade(trade);
+        }
+        if (message.getTraceParent() != null) {
+            writeAscii(",\"traceParent\":");
+            writeString(message.getTraceParent());
+        }
+        if (message.getDeadline() != 0) {
+            writeAscii(",\"deadline\":");
+            writeLong(message.getDeadline());
+        }
+        if (message.getMessageId() != 0) {
+            writeAscii(",\"messageId\":");
+            writeLong(message.getMessageId());
+        }
+        writeByte('}');
+        return Arrays.copyOf(out, outPos);
+    }
+
+    private void encodeTrade(Trade trade) {
+        writeAscii("{\"orderId\":");
+        writeString(trade.getOrderId());
+        writeAscii(",\"order\":");
+        Order order = trade.getOrder();
+        boolean fixedPoint = order != null && order.getPriceScale() != null;
+        if (order == null) {
+            writeAscii("null");
+        } else {
+            boolean clientByCode = dictionary != null && order.getClientCode() != 0;
+            boolean symbolByCode = dictionary != null && order.getSymbolCode() != 0;
+            writeByte('{');
+            if (!clientByCode) {
+                writeAscii("\"clientId\":");
+                writeString(order.getClientId());
+                writeByte(',');
+            }
+            if (!symbolByCode) {
+                writeAscii("\"stockSymbol\":");
+                writeString(order.getStockSymbol());
+                writeByte(',');
+            }
+            writeAscii("\"quantity\":");
+            writeLong(order.getQuantity());
+            if (!fixedPoint) {
+                writeAscii(",\"price\":");
+                writeDouble(order.getPrice());
+            }
+            writeTicks(",\"priceTicks\":", order.getPriceTicks(), fixedPoint);
+            if (fixedPoint) {
+                writeAscii(",\"priceScale\":");
+                writeLong(order.getPriceScale());
+            }
+            writeAscii(",\"side\":");
+            writeEnum(order.getSide());
+            writeAscii(",\"orderType\":");
+            writeEnum(order.getOrderType());
+            writeTicks(",\"clientCode\":", order.getClientCode(), false);
+            writeTicks(",\"symbolCode\":", order.getSymbolCode(), false);
+            writeByte('}');
+        }
+        if (!fixedPoint) {
+            writeAscii(",\"executedPrice\":");
+            writeDouble(trade.getExecutedPrice());
+        }
+        writeAscii(",\"executedQuantity\":");
+        writeLong(trade.getExecutedQuantity());
+        writeAscii(",\"executedTimestamp\":");
+        writeLong(trade.getExecutedTimestamp());
+        if (!fixedPoint) {
+            writeAscii(",\"nettedAmount\":");
+            writeDouble(trade.getNettedAmount());
+        }
+        writeTicks(",\"executedPriceTicks\":", trade.getExecutedPriceTicks(), fixedPoint);
+        writeTicks(",\"nettedAmountTicks\":", trade.getNettedAmountTicks(), fixedPoint);
+        writeAscii(",\"status\":");
+        writeEnum(trade.getStatus());
+        if (trade.isResting()) {
+            writeAscii(",\"resting\":true");
+        }
+        writeAscii(",\"validationMessage\":");
+        writeString(trade.getValidationMessage());
+        writeAscii(",\"clearingMessage\":");
+        writeString(trade.getClearingMessage());
+        writeAscii(",\"settlementMessage\":");
+        writeString(trade.getSettlementMessage());
+        writeAscii(",\"failureReason\":");
+        writeString(trade.getFailureReason());
+        writeAscii(",\"failureStage\":");
+        writeString(trade.getFailureStage());
+        writeByte('}');
+    }
+
+    /**
+     * Writes a ticks or code member; unless {@code always}, only when set, as Jackson
+     * leaves out zeros.
+     */
+    private void writeTicks(String member, long ticks, boolean always) {
+        if (always || ticks != 0) {
+            writeAscii(member);
+            writeLong(ticks);
+        }
+    }
+
+    private void writeEnum(Enum<?> value) {
+        if (value == null) {
+            writeAscii("null");
+        } else {
+            writeByte('"');
+            writeAscii(value.name());
+            writeByte('"');
+        }
+    }
+
+    private void writeString(String s) {
+        if (s == null) {
+            writeAscii("null");
+            return;
+        }
+        ensure(s.length() * 6 + 2);
+        out[outPos++] = '"';
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                out[outPos++] = '\\';
+                out[outPos++] = (byte) c;
+            } else if (c < 0x20) {
+                writeControl(c);
+            } else if (c < 0x80) {
+                out[outPos++] = (byte) c;
+            } else if (c < 0x800) {
+                out[outPos++] = (byte) (0xC0 | (c >> 6));
+                out[outPos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                out[outPos++] = (byte) (0xF0 | (cp >> 18));
+                out[outPos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                out[outPos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                out[outPos++] = (byte) (0x80 | (cp & 0x3F));
+            } else {
+                out[outPos++] = (byte) (0xE0 | (c >> 12));
+                out[outPos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[outPos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        out[outPos++] = '"';
+    }
+
+    private void writeControl(char c) {
+        out[outPos++] = '\\';
+        switch (c) {
+            case '\n' -> out[outPos++] = 'n';
+            case '\r' -> out[outPos++] = 'r';
+            case '\t' -> out[outPos++] = 't';
+            case '\b' -> out[outPos++] = 'b';
+            case '\f' -> out[outPos++] = 'f';
+            default -> {
+                out[outPos++] = 'u';
+                out[outPos++] = '0';
+                out[outPos++] = '0';
+                out[outPos++] = (byte) Character.forDigit(c >> 4, 16);
+                out[outPos++] = (byte) Character.forDigit(c & 0xF, 16);
+            }
+        }
+    }
+
+    private void writeLong(long value) {
+        ensure(20);
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            out[outPos++] = '-';
+            value = -value;
+        }
+        int start = outPos;
+        do {
+            out[outPos++] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+        reverse(start, outPos - 1);
+    }
+
+    /**
+     * Writes the shortest decimal with up to eight fraction digits that parses back to exactly
+     * {@code value}, formatted like {@link Double#toString} for plain magnitudes ("150.0",
+     * "150.25"). Other values use {@link Double#toString} itself.
+     */
+    private void writeDouble(double value) {
+        double magnitude = Math.abs(value);
+        if (magnitude < 1e-3 && value != 0.0 || magnitude >= 1e7 || Double.isNaN(value)) {
+            writeAscii(Double.toString(value));
+            return;
+        }
+        for (int k = 1; k <= MAX_FAST_FRACTION_DIGITS; k++) {
+            long scaled = Math.round(magnitude * POW10[k]);
+            if (scaled / POW10[k] == magnitude) {
+                ensure(32);
+                if (value < 0 || (value == 0.0 && 1 / value < 0)) {
+                    out[outPos++] = '-';
+                }
+                long whole = scaled / (long) POW10[k];
+                long fraction = scaled % (long) POW10[k];
+                writeLong(whole);
+                out[outPos++] = '.';
+                int fractionDigits = k;
+                while (fractionDigits > 1 && fraction % 10 == 0) {
+                    fraction /= 10;
+                    fractionDigits--;
+                }
+                int start = outPos;
+                for (int i = 0; i < fractionDigits; i++) {
+                    out[outPos++] = (byte) ('0' + (fraction % 10));
+                    fraction /= 10;
+                }
+                reverse(start, outPos - 1);
+                return;
+            }
+        }
+        writeAscii(Double.toString(value));
+    }
+
+    private void reverse(int from, int to) {
+        while (from < to) {
+            byte tmp = out[from];
+            out[from++] = out[to];
+            out[to--] = tmp;
+        }
+    }
+
+    private void writeAscii(String s) {
+        ensure(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            out[outPos++] = (byte) s.charAt(i);
+        }
+    }
+
+    private void writeByte(char c) {
+        ensure(1);
+        out[outPos++] = (byte) c;
+    }
+
+    private void ensure(int extra) {
+        if (outPos + extra > out.length) {
+            out = Arrays.copyOf(out, Math.max(out.length * 2, outPos + extra));
+        }
+    }
+
+    /**
+     * Fixed-size, content-addressed cache of strings. A lookup hashes the characters in
+     * place and only allocates on a miss; a colliding entry is simply replaced.
+     */
+    static final class StringCache {
+        private final String[] entries;
+        private final int mask;
+
+        StringCache(int capacity) {
+            int size = Integer.highestOneBit(Math.max(16, capacity - 1)) << 1;
+            this.entries = new String[size];
+            this.mask = size - 1;
+        }
+
+        String get(String source, int start, int end) {
+            int length = end - start;
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + source.charAt(i);
+            }
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            String entry = entries[slot];
+            if (entry != null && entry.length() == length && source.regionMatches(start, entry, 0, length)) {
+                return entry;
+            }
+            entry = source.substring(start, end);
+            entries[slot] = entry;
+            return entry;
+        }
+    }
+}
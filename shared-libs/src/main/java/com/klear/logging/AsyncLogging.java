@@ -0,0 +1,64 @@
+package com.klear.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Moves the root logger's appenders behind logback {@link AsyncAppender}s, which hand
+ * events to a bounded ring buffer drained by one thread. {@code neverBlock} makes a full
+ * buffer drop events instead of stalling the caller, and caller data is not captured.
+ * <p>
+ * Idempotent, and a no-op when logback is not the SLF4J backend. Spring Boot rebuilds the
+ * logback configuration when an application context starts, so call this after startup.
+ */
+public final class AsyncLogging {
+
+    static final String ASYNC_PREFIX = "ASYNC-";
+    private static final int QUEUE_SIZE = 8192;
+
+    private AsyncLogging() {
+    }
+
+    public static synchronized void install() {
+        Object factory = LoggerFactory.getILoggerFactory();
+        try {
+            if (factory instanceof LoggerContext) {
+                wrapRootAppenders((LoggerContext) factory);
+            }
+        } catch (LinkageError e) {
+            // logback-classic is not on the classpath; leave logging as configured
+        }
+    }
+
+    private static void wrapRootAppenders(LoggerContext context) {
+        Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        List<Appender<ILoggingEvent>> appenders = new ArrayList<>();
+        for (Iterator<Appender<ILoggingEvent>> it = root.iteratorForAppenders(); it.hasNext(); ) {
+            appenders.add(it.next());
+        }
+        for (Appender<ILoggingEvent> appender : appenders) {
+            if (appender instanceof AsyncAppender) {
+                continue;
+            }
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setName(ASYNC_PREFIX + appender.getName());
+            async.setQueueSize(QUEUE_SIZE);
+            async.setDiscardingThreshold(0);
+            async.setNeverBlock(true);
+            async.setIncludeCallerData(false);
+            async.addAppender(appender);
+            async.start();
+            root.detachAppender(appender);
+            root.addAppender(async);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.klear.logging;
+
+import com.klear.model.order.OrderStatus;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Decodes audit files written by {@link AuditRecorder}.
+ * <pre>
+ * java -cp shared-libs.jar com.klear.logging.AuditLogReader audit/AccountService.bin
+ * </pre>
+ */
+public final class AuditLogReader {
+
+    private AuditLogReader() {
+    }
+
+    public static List<Entry> read(Path file) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (buffer.remaining() >= AuditRecorder.RECORD_SIZE) {
+                long epochMicros = buffer.getLong();
+                long high = buffer.getLong();
+                long low = buffer.getLong();
+                int sequence = buffer.getInt();
+                byte status = buffer.get();
+                byte failureStage = buffer.get();
+                buffer.getShort();
+                entries.add(new Entry(epochMicros, new UUID(high, low).toString(), sequence,
+                        OrderStatus.values()[status], AuditRecorder.failureStageName(failureStage)));
+            }
+        }
+        return entries;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: AuditLogReader <audit-file>");
+            System.exit(2);
+        }
+        for (Entry entry : read(Path.of(args[0]))) {
+            System.out.println(entry);
+        }
+    }
+
+    /**
+     * One decoded audit record.
+     */
+    public static final class Entry {
+        private final long epochMicros;
+        private final String orderId;
+        private final int sequence;
+        private final OrderStatus status;
+        private final String failureStage;
+
+        Entry(long epochMicros, String orderId, int sequence, OrderStatus status, String failureStage) {
+            this.epochMicros = epochMicros;
+            this.orderId = orderId;
+            this.sequence = sequence;
+            this.status = status;
+            this.failureStage = failureStage;
+        }
+
+        public long getEpochMicros() {
+            return epochMicros;
+        }
+
+        public String getOrderId() {
+            return orderId;
+        }
+
+        public int getSequence() {
+            return sequence;
+        }
+
+        public OrderStatus getStatus() {
+            return status;
+        }
+
+        public String getFailureStage() {
+            return failureStage;
+        }
+
+        @Override
+        public String toString() {
+            Instant time = Instant.ofEpochSecond(epochMicros / 1_000_000, (epochMicros % 1_000_000) * 1000);
+            return time + " #" + sequence + " " + orderId + " " + status
+                    + (failureStage == null ? "" : " stage=" + failureStage);
+        }
+    }
+}
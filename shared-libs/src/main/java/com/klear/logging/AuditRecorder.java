@@ -0,0 +1,207 @@
+package com.klear.logging;
+
+import com.klear.model.order.OrderStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes one fixed-size binary record per trade transition to an append-only file.
+ * <p>
+ * Callers copy 32 bytes into an in-memory buffer under a short lock; a background thread
+ * swaps the full buffer out and writes it with a {@link FileChannel}. No strings are
+ * formatted on the caller's thread. If the writer falls a whole buffer behind, records are
+ * dropped and counted rather than blocking the trade path. {@link AuditLogReader} decodes
+ * the file. Record layout (big-endian):
+ * <pre>
+ *   long  epochMicros
+ *   long  orderId high 64 bits
+ *   long  orderId low 64 bits
+ *   int   sequence        per-file, increments by one; gaps mean dropped records
+ *   byte  status          OrderStatus ordinal
+ *   byte  failureStage    see {@link #failureStageCode}
+ *   short reserved
+ * </pre>
+ * Order IDs are UUIDs; anything else is stored as its hash code in the low 64 bits.
+ */
+public class AuditRecorder implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditRecorder.class);
+
+    public static final int RECORD_SIZE = 32;
+    private static final int BUFFER_SIZE = RECORD_SIZE * 4096;
+    private static final long FLUSH_INTERVAL_MILLIS = 100;
+
+    private static final String[] FAILURE_STAGES = {"", "VALIDATION", "EXECUTION", "CLEARING", "SETTLEMENT", "TIMEOUT"};
+
+    private final FileChannel channel;
+    private final Object lock = new Object();
+    private final Thread writerThread;
+    private final AtomicLong dropped = new AtomicLong();
+
+    private ByteBuffer active = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private ByteBuffer spare = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private ByteBuffer full;
+    private int sequence;
+    private volatile boolean running = true;
+
+    public AuditRecorder(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.writerThread = new Thread(this, "audit-writer-" + file.getFileName());
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Records a transition. Never blocks on I/O.
+     */
+    public void record(String orderId, OrderStatus status, String failureStage) {
+        long high = 0;
+        long low;
+        if (isUuid(orderId)) {
+            high = parseHex(orderId, 0, 18);
+            low = parseHex(orderId, 19, 36);
+        } else {
+            low = orderId == null ? 0 : orderId.hashCode();
+        }
+        long epochMicros = System.currentTimeMillis() * 1000L;
+        byte statusCode = (byte) (status == null ? OrderStatus.UNKNOWN.ordinal() : status.ordinal());
+        byte failureCode = failureStageCode(failureStage);
+
+        synchronized (lock) {
+            if (active.remaining() < RECORD_SIZE) {
+                if (spare == null) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                full = active;
+                active = spare;
+                spare = null;
+                lock.notify();
+            }
+            active.putLong(epochMicros);
+            active.putLong(high);
+            active.putLong(low);
+            active.putInt(sequence++);
+            active.put(statusCode);
+            active.put(failureCode);
+            active.putShort((short) 0);
+        }
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            ByteBuffer toWrite;
+            boolean stopping;
+            synchronized (lock) {
+                if (full == null && running) {
+                    try {
+                        lock.wait(FLUSH_INTERVAL_MILLIS);
+                    } catch (InterruptedException e) {
+                        running = false;
+                    }
+                }
+                stopping = !running;
+                if (full == null && spare != null && active.position() > 0) {
+                    full = active;
+                    active = spare;
+                    spare = null;
+                }
+                toWrite = full;
+                full = null;
+            }
+            if (toWrite != null) {
+                write(toWrite);
+                synchronized (lock) {
+                    spare = toWrite;
+                }
+            } else if (stopping) {
+                return;
+            }
+        }
+    }
+
+    private void write(ByteBuffer buffer) {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to write audit records", e);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Flushes buffered records and closes the file.
+     */
+    public void close() {
+        synchronized (lock) {
+            running = false;
+            lock.notify();
+        }
+        try {
+            writerThread.join(5000);
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("Failed to close audit file", e);
+        }
+        if (dropped.get() > 0) {
+            log.warn("{} audit records dropped because the writer fell behind", dropped.get());
+        }
+    }
+
+    static byte failureStageCode(String failureStage) {
+        if (failureStage != null) {
+            for (int i = 1; i < FAILURE_STAGES.length; i++) {
+                if (FAILURE_STAGES[i].equals(failureStage)) {
+                    return (byte) i;
+                }
+            }
+        }
+        return 0;
+    }
+
+    static String failureStageName(byte code) {
+        return code > 0 && code < FAILURE_STAGES.length ? FAILURE_STAGES[code] : null;
+    }
+
+    private static boolean isUuid(String s) {
+        return s != null && s.length() == 36
+                && s.charAt(8) == '-' && s.charAt(13) == '-' && s.charAt(18) == '-' && s.charAt(23) == '-';
+    }
+
+    /** Parses hex digits in [from, to), skipping dashes. Non-hex digits count as zero. */
+    private static long parseHex(String s, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c == '-') {
+                continue;
+            }
+            int digit = Character.digit(c, 16);
+            value = (value << 4) | (digit < 0 ? 0 : digit);
+        }
+        return value;
+    }
+}
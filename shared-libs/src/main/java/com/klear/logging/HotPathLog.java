@@ -0,0 +1,90 @@
+package com.klear.logging;
+
+import com.klear.model.order.OrderStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Per-component switch between STANDARD and FAST logging on the per-trade paths.
+ * Call sites guard their INFO lines with {@link #shouldLog} and report each state change
+ * with {@link #audit}:
+ * <pre>
+ *   if (hotPathLog.shouldLog(status)) {
+ *       log.info("Trade validated: orderId={}", orderId);
+ *   }
+ *   hotPathLog.audit(orderId, status, null);
+ * </pre>
+ * In STANDARD mode every line is logged and nothing is audited, which is the behaviour
+ * before this class existed. In FAST mode lines are sampled per key and every transition
+ * goes to the binary audit file instead.
+ */
+public class HotPathLog {
+
+    private static final Logger log = LoggerFactory.getLogger(HotPathLog.class);
+
+    public static final HotPathLog STANDARD = new HotPathLog(LoggingMode.STANDARD, null, null);
+
+    private final LoggingMode mode;
+    private final LogSampler sampler;
+    private final AuditRecorder auditRecorder;
+
+    HotPathLog(LoggingMode mode, LogSampler sampler, AuditRecorder auditRecorder) {
+        this.mode = mode;
+        this.sampler = sampler;
+        this.auditRecorder = auditRecorder;
+    }
+
+    /**
+     * Builds the hot-path logger for a component from its configuration.
+     *
+     * @param component         file name for the audit records, e.g. the service name
+     * @param mode              {@code logging_mode} property
+     * @param sampleLinesPerSec INFO lines let through per key per second in FAST mode
+     * @param auditDir          directory for {@code <component>.bin}
+     */
+    public static HotPathLog create(String component, String mode, int sampleLinesPerSec, String auditDir) {
+        if (LoggingMode.fromProperty(mode) != LoggingMode.FAST) {
+            return STANDARD;
+        }
+        AsyncLogging.install();
+        AuditRecorder recorder = null;
+        Path auditFile = Path.of(auditDir, component + ".bin");
+        try {
+            recorder = new AuditRecorder(auditFile);
+        } catch (IOException e) {
+            log.error("Audit records disabled for {}: cannot open {}", component, auditFile, e);
+        }
+        log.info("Fast logging enabled for {}: {} lines/s per type, audit file {}",
+                component, sampleLinesPerSec, auditFile);
+        return new HotPathLog(LoggingMode.FAST, new LogSampler(sampleLinesPerSec), recorder);
+    }
+
+    public LoggingMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Whether an INFO line of this type should be written now.
+     */
+    public boolean shouldLog(Object type) {
+        return sampler == null || sampler.tryAcquire(type);
+    }
+
+    /**
+     * Records a transition in the binary audit file (FAST mode only).
+     */
+    public void audit(String orderId, OrderStatus status, String failureStage) {
+        if (auditRecorder != null) {
+            auditRecorder.record(orderId, status, failureStage);
+        }
+    }
+
+    public void close() {
+        if (auditRecorder != null) {
+            auditRecorder.close();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.klear.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets through at most {@code permitsPerSecond} log lines per key (usually a message type or
+ * trade status) in each one-second window. When a window reopens after lines were dropped,
+ * a single summary line reports how many were suppressed.
+ */
+public class LogSampler {
+
+    private static final Logger log = LoggerFactory.getLogger(LogSampler.class);
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int permitsPerSecond;
+    private final ConcurrentMap<Object, Window> windows = new ConcurrentHashMap<>();
+
+    public LogSampler(int permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    /**
+     * Returns true if a line for {@code key} may be logged now.
+     */
+    public boolean tryAcquire(Object key) {
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    boolean tryAcquire(Object key, long nowNanos) {
+        Window window = windows.get(key);
+        if (window == null) {
+            window = windows.computeIfAbsent(key, k -> new Window(nowNanos));
+        }
+        long start = window.start;
+        if (nowNanos - start >= WINDOW_NANOS && window.roll(start, nowNanos)) {
+            long suppressed = window.suppressed.getAndSet(0);
+            if (suppressed > 0) {
+                log.info("Suppressed {} log lines for {} in the last {} ms",
+                        suppressed, key, TimeUnit.NANOSECONDS.toMillis(nowNanos - start));
+            }
+        }
+        if (window.count.incrementAndGet() <= permitsPerSecond) {
+            return true;
+        }
+        window.suppressed.incrementAndGet();
+        return false;
+    }
+
+    long getSuppressed(Object key) {
+        Window window = windows.get(key);
+        return window == null ? 0 : window.suppressed.get();
+    }
+
+    private static final class Window {
+        private volatile long start;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong suppressed = new AtomicLong();
+
+        private Window(long start) {
+            this.start = start;
+        }
+
+        /** Only one thread wins the roll for a given window start. */
+        private synchronized boolean roll(long expectedStart, long nowNanos) {
+            if (start != expectedStart) {
+                return false;
+            }
+            start = nowNanos;
+            count.set(0);
+            return true;
+        }
+    }
+}
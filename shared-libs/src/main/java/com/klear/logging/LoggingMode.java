@@ -0,0 +1,22 @@
+package com.klear.logging;
+
+/**
+ * How the per-trade hot paths log.
+ * <ul>
+ *   <li>{@code STANDARD}: one formatted INFO line per transition, written synchronously.</li>
+ *   <li>{@code FAST}: appenders wrapped in a non-blocking async ring buffer, INFO lines
+ *       rate-limited per message type, and every transition written as a fixed-size binary
+ *       audit record instead.</li>
+ * </ul>
+ */
+public enum LoggingMode {
+    STANDARD,
+    FAST;
+
+    /**
+     * Parses a {@code logging_mode} property value; anything unrecognised is STANDARD.
+     */
+    public static LoggingMode fromProperty(String value) {
+        return value != null && value.trim().equalsIgnoreCase("fast") ? FAST : STANDARD;
+    }
+}
@@ -0,0 +1,38 @@
+package com.klear.model.analytics;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Narrows an analytics snapshot to one symbol, one client, or both. A criterion left
+ * unset returns every symbol or client.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AnalyticsQuery {
+
+    private String symbol;
+    private String clientId;
+
+    public AnalyticsQuery() {
+    }
+
+    public AnalyticsQuery(String symbol, String clientId) {
+        this.symbol = symbol;
+        this.clientId = clientId;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(String clientId) {
+        this.clientId = clientId;
+    }
+}
@@ -0,0 +1,70 @@
+package com.klear.model.analytics;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Trading activity per symbol and per client as of {@code asOfMillis}. The tumbling
+ * windows are {@code windowMillis} long and aligned to the epoch; the sliding window is
+ * the last {@code slidingMillis}, in steps of {@code windowMillis}.
+ */
+public class AnalyticsSnapshot {
+
+    private long asOfMillis;
+    private long windowMillis;
+    private long slidingMillis;
+    private Map<String, TradeStats> symbols = new TreeMap<>();
+    private Map<String, TradeStats> clients = new TreeMap<>();
+
+    public AnalyticsSnapshot() {
+    }
+
+    public AnalyticsSnapshot(long asOfMillis, long windowMillis, long slidingMillis,
+                             Map<String, TradeStats> symbols, Map<String, TradeStats> clients) {
+        this.asOfMillis = asOfMillis;
+        this.windowMillis = windowMillis;
+        this.slidingMillis = slidingMillis;
+        this.symbols = symbols;
+        this.clients = clients;
+    }
+
+    public long getAsOfMillis() {
+        return asOfMillis;
+    }
+
+    public void setAsOfMillis(long asOfMillis) {
+        this.asOfMillis = asOfMillis;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public void setWindowMillis(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    public long getSlidingMillis() {
+        return slidingMillis;
+    }
+
+    public void setSlidingMillis(long slidingMillis) {
+        this.slidingMillis = slidingMillis;
+    }
+
+    public Map<String, TradeStats> getSymbols() {
+        return symbols;
+    }
+
+    public void setSymbols(Map<String, TradeStats> symbols) {
+        this.symbols = symbols;
+    }
+
+    public Map<String, TradeStats> getClients() {
+        return clients;
+    }
+
+    public void setClients(Map<String, TradeStats> clients) {
+        this.clients = clients;
+    }
+}
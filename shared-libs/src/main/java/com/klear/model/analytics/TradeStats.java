@@ -0,0 +1,45 @@
+package com.klear.model.analytics;
+
+/**
+ * One symbol's or client's activity over three windows: since the trade service started,
+ * the last complete tumbling window, and a sliding window ending now.
+ */
+public class TradeStats {
+
+    private WindowStats total;
+    private WindowStats lastWindow;
+    private WindowStats sliding;
+
+    public TradeStats() {
+    }
+
+    public TradeStats(WindowStats total, WindowStats lastWindow, WindowStats sliding) {
+        this.total = total;
+        this.lastWindow = lastWindow;
+        this.sliding = sliding;
+    }
+
+    public WindowStats getTotal() {
+        return total;
+    }
+
+    public void setTotal(WindowStats total) {
+        this.total = total;
+    }
+
+    public WindowStats getLastWindow() {
+        return lastWindow;
+    }
+
+    public void setLastWindow(WindowStats lastWindow) {
+        this.lastWindow = lastWindow;
+    }
+
+    public WindowStats getSliding() {
+        return sliding;
+    }
+
+    public void setSliding(WindowStats sliding) {
+        this.sliding = sliding;
+    }
+}
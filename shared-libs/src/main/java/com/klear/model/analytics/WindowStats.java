@@ -0,0 +1,89 @@
+package com.klear.model.analytics;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Trading activity for one symbol or client over one window: fills and what they traded,
+ * and how many orders finished by settling or failing.
+ */
+@JsonIgnoreProperties(value = {"vwap", "failureRate"}, allowGetters = true)
+public class WindowStats {
+
+    private long fills;
+    private long volume;
+    private double notional;
+    private long settled;
+    private long failed;
+
+    public WindowStats() {
+    }
+
+    public WindowStats(long fills, long volume, double notional, long settled, long failed) {
+        this.fills = fills;
+        this.volume = volume;
+        this.notional = notional;
+        this.settled = settled;
+        this.failed = failed;
+    }
+
+    public long getFills() {
+        return fills;
+    }
+
+    public void setFills(long fills) {
+        this.fills = fills;
+    }
+
+    /**
+     * Shares executed.
+     */
+    public long getVolume() {
+        return volume;
+    }
+
+    public void setVolume(long volume) {
+        this.volume = volume;
+    }
+
+    /**
+     * Sum of executed price times executed quantity.
+     */
+    public double getNotional() {
+        return notional;
+    }
+
+    public void setNotional(double notional) {
+        this.notional = notional;
+    }
+
+    public long getSettled() {
+        return settled;
+    }
+
+    public void setSettled(long settled) {
+        this.settled = settled;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    /**
+     * Volume-weighted average price, or 0 with no volume.
+     */
+    public double getVwap() {
+        return volume == 0 ? 0.0 : notional / volume;
+    }
+
+    /**
+     * Failed orders as a fraction of the orders that settled or failed, or 0 with none.
+     */
+    public double getFailureRate() {
+        long finished = settled + failed;
+        return finished == 0 ? 0.0 : (double) failed / finished;
+    }
+}
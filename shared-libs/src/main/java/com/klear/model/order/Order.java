@@ -1,10 +1,44 @@
 package com.klear.model.order;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.klear.model.price.FixedPoint;
+
 public class Order {
     private String clientId;
     private String stockSymbol;
     private int quantity;
     private double price;
+    // Fixed-point price: set (with its scale) at the edge when prices are fixed-point, and then authoritative
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private long priceTicks;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer priceScale;
+    private Side side;
+    private OrderType orderType;
+    // Reference dictionary codes for clientId and stockSymbol; 0 when the name has none
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private int clientCode;
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private int symbolCode;
+    // How long the client will wait for the trade, in milliseconds; 0 for the default
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private long timeoutMs;
+
+    public Order() {}
+
+    public Order(Order other) {
+        this.clientId = other.clientId;
+        this.stockSymbol = other.stockSymbol;
+        this.quantity = other.quantity;
+        this.price = other.price;
+        this.priceTicks = other.priceTicks;
+        this.priceScale = other.priceScale;
+        this.side = other.side;
+        this.orderType = other.orderType;
+        this.clientCode = other.clientCode;
+        this.symbolCode = other.symbolCode;
+        this.timeoutMs = other.timeoutMs;
+    }
 
     // Getters and Setters
 
@@ -16,6 +50,34 @@ public class Order {
         this.price = price;
     }
 
+    public long getPriceTicks() {
+        return priceTicks;
+    }
+
+    /**
+     * Also sets {@link #getPrice()} once the scale is known, so that either may come first.
+     */
+    public void setPriceTicks(long priceTicks) {
+        this.priceTicks = priceTicks;
+        if (priceScale != null) {
+            this.price = FixedPoint.toDouble(priceTicks, priceScale);
+        }
+    }
+
+    /**
+     * Decimals of the fixed-point price and amounts, or null if they are plain doubles.
+     */
+    public Integer getPriceScale() {
+        return priceScale;
+    }
+
+    public void setPriceScale(Integer priceScale) {
+        this.priceScale = priceScale;
+        if (priceScale != null) {
+            this.price = FixedPoint.toDouble(priceTicks, priceScale);
+        }
+    }
+
     public int getQuantity() {
         return quantity;
     }
@@ -39,4 +101,44 @@ public class Order {
     public void setClientId(String clientId) {
         this.clientId = clientId;
     }
-}
+
+    public Side getSide() {
+        return side;
+    }
+
+    public void setSide(Side side) {
+        this.side = side;
+    }
+
+    public OrderType getOrderType() {
+        return orderType;
+    }
+
+    public void setOrderType(OrderType orderType) {
+        this.orderType = orderType;
+    }
+
+    public int getClientCode() {
+        return clientCode;
+    }
+
+    public void setClientCode(int clientCode) {
+        this.clientCode = clientCode;
+    }
+
+    public int getSymbolCode() {
+        return symbolCode;
+    }
+
+    public void setSymbolCode(int symbolCode) {
+        this.symbolCode = symbolCode;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public void setTimeoutMs(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.klear.model.order;
+
+public enum OrderType {
+    MARKET, // Fill at the best available prices, cancel any remainder
+    LIMIT,  // Fill at the limit or better, rest any remainder in the book
+    IOC     // Fill at the limit or better, cancel any remainder
+}
@@ -0,0 +1,6 @@
+package com.klear.model.order;
+
+public enum Side {
+    BUY,
+    SELL
+}
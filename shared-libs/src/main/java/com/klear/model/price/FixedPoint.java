@@ -0,0 +1,172 @@
+package com.klear.model.price;
+
+/**
+ * Arithmetic on prices and amounts held as a whole number of ticks, where a value at
+ * scale {@code s} is {@code ticks / 10^s}: 150.25 at scale 2 is 15025 ticks.
+ *
+ * Quantities are whole shares, so a notional is the price's ticks times the quantity at
+ * the same scale, with no rounding at all. Rounding only happens when changing to a
+ * smaller scale (half away from zero) or converting from a double. Nothing here
+ * allocates except {@link #toString} and the exceptions; overflow throws
+ * {@link ArithmeticException} rather than wrapping.
+ */
+public final class FixedPoint {
+
+    public static final int MAX_SCALE = 9;
+
+    private static final long[] POW10 = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L,
+            1_000_000_000_000_000_000L
+    };
+
+    // Largest magnitude a double can be converted from without leaving the long range
+    private static final double MAX_TICKS = 9.2e18;
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Ticks per unit at {@code scale}, e.g. 100 at scale 2.
+     */
+    public static long unit(int scale) {
+        checkScale(scale);
+        return POW10[scale];
+    }
+
+    /**
+     * Nearest number of ticks to {@code value}.
+     */
+    public static long toTicks(double value, int scale) {
+        double scaled = value * unit(scale);
+        if (!(Math.abs(scaled) < MAX_TICKS)) {
+            throw new ArithmeticException("Value " + value + " does not fit at scale " + scale);
+        }
+        return Math.round(scaled);
+    }
+
+    /**
+     * True if {@code value} is a whole number of ticks, i.e. has no more than
+     * {@code scale} decimals.
+     */
+    public static boolean isWholeTicks(double value, int scale) {
+        double scaled = value * unit(scale);
+        return Math.abs(scaled) < MAX_TICKS && toDouble(Math.round(scaled), scale) == value;
+    }
+
+    /**
+     * The double nearest to {@code ticks} at {@code scale}; the same double that parsing
+     * the decimal gives.
+     */
+    public static double toDouble(long ticks, int scale) {
+        return ticks / (double) unit(scale);
+    }
+
+    /**
+     * Notional of {@code quantity} at a price of {@code priceTicks}, at the price's scale.
+     */
+    public static long notional(long quantity, long priceTicks) {
+        return Math.multiplyExact(quantity, priceTicks);
+    }
+
+    /**
+     * {@code ticks} at scale {@code from} expressed at scale {@code to}, rounded half away
+     * from zero when {@code to} is smaller.
+     */
+    public static long rescale(long ticks, int from, int to) {
+        checkScale(from);
+        checkScale(to);
+        if (to >= from) {
+            return Math.multiplyExact(ticks, POW10[to - from]);
+        }
+        long divisor = POW10[from - to];
+        long quotient = ticks / divisor;
+        long remainder = ticks % divisor;
+        if (Math.abs(remainder) * 2 >= divisor) {
+            quotient += Long.signum(ticks);
+        }
+        return quotient;
+    }
+
+    /**
+     * Compares two values that may be held at different scales.
+     */
+    public static int compare(long a, int scaleA, long b, int scaleB) {
+        int scale = Math.max(scaleA, scaleB);
+        return Long.compare(rescale(a, scaleA, scale), rescale(b, scaleB, scale));
+    }
+
+    /**
+     * Parses a plain decimal such as {@code -150.25} exactly. Throws
+     * {@link NumberFormatException} if it has more than {@code scale} decimals (trailing
+     * zeros aside) or does not fit.
+     */
+    public static long parse(CharSequence text, int scale) {
+        checkScale(scale);
+        int length = text.length();
+        int i = 0;
+        boolean negative = length > 0 && text.charAt(0) == '-';
+        if (negative || length > 0 && text.charAt(0) == '+') {
+            i++;
+        }
+        long value = 0;
+        int decimals = -1;
+        boolean digits = false;
+        try {
+            for (; i < length; i++) {
+                char c = text.charAt(i);
+                if (c == '.' && decimals < 0) {
+                    decimals = 0;
+                    continue;
+                }
+                if (c < '0' || c > '9') {
+                    throw new NumberFormatException("Not a decimal: " + text);
+                }
+                digits = true;
+                if (decimals >= 0 && ++decimals > scale) {
+                    if (c != '0') {
+                        throw new NumberFormatException(text + " has more than " + scale + " decimals");
+                    }
+                    continue;
+                }
+                value = Math.addExact(Math.multiplyExact(value, 10), c - '0');
+            }
+            if (!digits) {
+                throw new NumberFormatException("Not a decimal: " + text);
+            }
+            value = Math.multiplyExact(value, POW10[scale - Math.min(Math.max(decimals, 0), scale)]);
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException(text + " does not fit at scale " + scale);
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * The plain decimal with exactly {@code scale} decimals, e.g. "150.25" or "-0.05".
+     */
+    public static String toString(long ticks, int scale) {
+        long unit = unit(scale);
+        StringBuilder sb = new StringBuilder(24);
+        if (ticks < 0) {
+            sb.append('-');
+        }
+        long whole = Math.abs(ticks / unit);
+        long fraction = Math.abs(ticks % unit);
+        sb.append(whole);
+        if (scale > 0) {
+            sb.append('.');
+            for (long digit = unit / 10; digit > fraction && digit > 1; digit /= 10) {
+                sb.append('0');
+            }
+            sb.append(fraction);
+        }
+        return sb.toString();
+    }
+
+    private static void checkScale(int scale) {
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("Scale must be between 0 and " + MAX_SCALE + ": " + scale);
+        }
+    }
+}
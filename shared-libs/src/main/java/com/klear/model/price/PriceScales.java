@@ -0,0 +1,53 @@
+package com.klear.model.price;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Number of decimals each symbol is priced in, for converting incoming prices to ticks.
+ * Configured as {@code SYMBOL:scale} pairs separated by commas, e.g.
+ * {@code BRK.A:0,PENNY:4}; every other symbol uses the default. Immutable.
+ */
+public final class PriceScales {
+
+    private final int defaultScale;
+    private final Map<String, Integer> scales;
+
+    private PriceScales(int defaultScale, Map<String, Integer> scales) {
+        FixedPoint.unit(defaultScale);
+        this.defaultScale = defaultScale;
+        this.scales = scales;
+    }
+
+    public static PriceScales of(int defaultScale) {
+        return new PriceScales(defaultScale, Map.of());
+    }
+
+    /**
+     * Parses a {@code SYMBOL:scale,...} list; a blank list gives every symbol the default.
+     */
+    public static PriceScales parse(String spec, int defaultScale) {
+        Map<String, Integer> scales = new HashMap<>();
+        if (spec != null && !spec.isBlank()) {
+            for (String entry : spec.split(",")) {
+                int colon = entry.lastIndexOf(':');
+                if (colon <= 0) {
+                    throw new IllegalArgumentException("Expected SYMBOL:scale, got '" + entry.trim() + "'");
+                }
+                int scale = Integer.parseInt(entry.substring(colon + 1).trim());
+                FixedPoint.unit(scale);
+                scales.put(entry.substring(0, colon).trim(), scale);
+            }
+        }
+        return new PriceScales(defaultScale, scales);
+    }
+
+    public int scale(String symbol) {
+        Integer scale = symbol == null ? null : scales.get(symbol);
+        return scale == null ? defaultScale : scale;
+    }
+
+    public int defaultScale() {
+        return defaultScale;
+    }
+}
@@ -0,0 +1,41 @@
+package com.klear.model.query;
+
+import com.klear.model.trade.Trade;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of a {@link TradeQuery}'s results. {@code nextCursor} is the query's
+ * {@code after} for the next page, which may turn out empty, or 0 when there are no more
+ * trades.
+ */
+public class TradePage {
+
+    private List<Trade> trades = new ArrayList<>();
+    private long nextCursor;
+
+    public TradePage() {
+    }
+
+    public TradePage(List<Trade> trades, long nextCursor) {
+        this.trades = trades;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Trade> getTrades() {
+        return trades;
+    }
+
+    public void setTrades(List<Trade> trades) {
+        this.trades = trades;
+    }
+
+    public long getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,103 @@
+package com.klear.model.query;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.klear.model.order.OrderStatus;
+
+/**
+ * A search over the trade service's trades. Every criterion left unset matches all
+ * trades; the rest must all match. Results come in submission order, {@code limit} at a
+ * time, starting after the cursor {@code after} that the previous page returned.
+ */
+@JsonInclude(JsonInclude.Include.NON_DEFAULT)
+public class TradeQuery {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private String clientId;
+    private String stockSymbol;
+    private OrderStatus status;
+    private String failureStage;
+    // Only orders that are not yet settled or failed
+    private boolean open;
+    // Epoch-millisecond submission time bounds, inclusive; 0 for none
+    private long sinceMillis;
+    private long untilMillis;
+    private long after;
+    private int limit = DEFAULT_LIMIT;
+
+    public TradeQuery() {
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(String clientId) {
+        this.clientId = clientId;
+    }
+
+    public String getStockSymbol() {
+        return stockSymbol;
+    }
+
+    public void setStockSymbol(String stockSymbol) {
+        this.stockSymbol = stockSymbol;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(OrderStatus status) {
+        this.status = status;
+    }
+
+    public String getFailureStage() {
+        return failureStage;
+    }
+
+    public void setFailureStage(String failureStage) {
+        this.failureStage = failureStage;
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    public void setOpen(boolean open) {
+        this.open = open;
+    }
+
+    public long getSinceMillis() {
+        return sinceMillis;
+    }
+
+    public void setSinceMillis(long sinceMillis) {
+        this.sinceMillis = sinceMillis;
+    }
+
+    public long getUntilMillis() {
+        return untilMillis;
+    }
+
+    public void setUntilMillis(long untilMillis) {
+        this.untilMillis = untilMillis;
+    }
+
+    public long getAfter() {
+        return after;
+    }
+
+    public void setAfter(long after) {
+        this.after = after;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
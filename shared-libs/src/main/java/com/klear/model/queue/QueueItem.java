@@ -3,12 +3,29 @@ package com.klear.model.queue;
 public class QueueItem {
     private QueueItemTypes type;
     private Object item;
+    private long enqueuedNanos = System.nanoTime();
 
     public QueueItem(QueueItemTypes type, Object item) {
         this.type = type;
         this.item = item;
     }
 
+    /**
+     * Re-initialises a pooled item for a new message, as if newly constructed.
+     */
+    public void reuse(QueueItemTypes type, Object item) {
+        this.type = type;
+        this.item = item;
+        this.enqueuedNanos = System.nanoTime();
+    }
+
+    /**
+     * {@link System#nanoTime()} at construction or {@link #reuse}, i.e. when the message was queued.
+     */
+    public long getEnqueuedNanos() {
+        return enqueuedNanos;
+    }
+
     public Object getItem() {
         return item;
     }
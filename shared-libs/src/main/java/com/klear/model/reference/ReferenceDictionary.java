@@ -0,0 +1,188 @@
+package com.klear.model.reference;
+
+import com.klear.model.order.Order;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Compact int codes for the symbols and clients listed in a shared reference file.
+ *
+ * The file is plain text, memory-mapped and read once at startup: a {@code [symbols]}
+ * section and a {@code [clients]} section with one name per line, blank lines and lines
+ * starting with {@code #} ignored. Codes are 1-based positions within each section, so
+ * every service that loads the same file agrees on them without talking to the others;
+ * 0 means "no code" and the name travels as a string instead.
+ *
+ * Names handed out by {@link #symbol} and {@link #client} are the same instances every
+ * time, so a decoded order allocates nothing for them and their hash codes are computed
+ * once. Immutable and thread-safe.
+ */
+public final class ReferenceDictionary {
+
+    private final String[] symbols;
+    private final String[] clients;
+    private final Map<String, Integer> symbolCodes;
+    private final Map<String, Integer> clientCodes;
+    private final long fingerprint;
+
+    private ReferenceDictionary(List<String> symbols, List<String> clients, long fingerprint) {
+        this.symbols = symbols.toArray(new String[0]);
+        this.clients = clients.toArray(new String[0]);
+        this.symbolCodes = codes(this.symbols);
+        this.clientCodes = codes(this.clients);
+        this.fingerprint = fingerprint;
+    }
+
+    public static ReferenceDictionary of(List<String> symbols, List<String> clients) {
+        CRC32C crc = new CRC32C();
+        for (String name : symbols) {
+            crc.update(name.getBytes(StandardCharsets.UTF_8));
+        }
+        for (String name : clients) {
+            crc.update(name.getBytes(StandardCharsets.UTF_8));
+        }
+        return new ReferenceDictionary(symbols, clients, crc.getValue());
+    }
+
+    /**
+     * Maps {@code file} read-only and reads both sections from it.
+     */
+    public static ReferenceDictionary load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CRC32C crc = new CRC32C();
+            crc.update(buffer);
+            buffer.rewind();
+
+            List<String> symbols = new ArrayList<>();
+            List<String> clients = new ArrayList<>();
+            List<String> section = null;
+            byte[] line = new byte[256];
+            int lineNumber = 0;
+            while (buffer.hasRemaining()) {
+                int length = 0;
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    if (b == '\n') {
+                        break;
+                    }
+                    if (length == line.length) {
+                        line = Arrays.copyOf(line, length * 2);
+                    }
+                    line[length++] = b;
+                }
+                lineNumber++;
+                String text = new String(line, 0, length, StandardCharsets.UTF_8).strip();
+                if (text.isEmpty() || text.startsWith("#")) {
+                    continue;
+                }
+                if (text.equals("[symbols]")) {
+                    section = symbols;
+                } else if (text.equals("[clients]")) {
+                    section = clients;
+                } else if (section == null) {
+                    throw new IOException(file + ":" + lineNumber + ": name before [symbols] or [clients]");
+                } else {
+                    section.add(text);
+                }
+            }
+            return new ReferenceDictionary(symbols, clients, crc.getValue());
+        }
+    }
+
+    /**
+     * Code of {@code symbol}, or 0 if it is not listed.
+     */
+    public int symbolCode(String symbol) {
+        Integer code = symbol == null ? null : symbolCodes.get(symbol);
+        return code == null ? 0 : code;
+    }
+
+    /**
+     * Code of {@code clientId}, or 0 if it is not listed.
+     */
+    public int clientCode(String clientId) {
+        Integer code = clientId == null ? null : clientCodes.get(clientId);
+        return code == null ? 0 : code;
+    }
+
+    /**
+     * Symbol with {@code code}, or null if there is none.
+     */
+    public String symbol(int code) {
+        return code > 0 && code <= symbols.length ? symbols[code - 1] : null;
+    }
+
+    /**
+     * Client with {@code code}, or null if there is none.
+     */
+    public String client(int code) {
+        return code > 0 && code <= clients.length ? clients[code - 1] : null;
+    }
+
+    public int symbolCount() {
+        return symbols.length;
+    }
+
+    public int clientCount() {
+        return clients.length;
+    }
+
+    /**
+     * CRC32C of the file, for checking that every service loaded the same one.
+     */
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Sets the order's codes from its names, leaving 0 for names not listed.
+     */
+    public void encode(Order order) {
+        order.setClientCode(clientCode(order.getClientId()));
+        order.setSymbolCode(symbolCode(order.getStockSymbol()));
+    }
+
+    /**
+     * Fills in names the order carries only as codes. Returns false if a code is not in
+     * this dictionary, which means the sender loaded a different file.
+     */
+    public boolean resolve(Order order) {
+        if (order.getClientId() == null && order.getClientCode() != 0) {
+            String client = client(order.getClientCode());
+            if (client == null) {
+                return false;
+            }
+            order.setClientId(client);
+        }
+        if (order.getStockSymbol() == null && order.getSymbolCode() != 0) {
+            String symbol = symbol(order.getSymbolCode());
+            if (symbol == null) {
+                return false;
+            }
+            order.setStockSymbol(symbol);
+        }
+        return true;
+    }
+
+    private static Map<String, Integer> codes(String[] names) {
+        Map<String, Integer> codes = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            if (codes.putIfAbsent(names[i], i + 1) != null) {
+                throw new IllegalArgumentException("Duplicate reference name: " + names[i]);
+            }
+        }
+        return codes;
+    }
+}
@@ -0,0 +1,125 @@
+package com.klear.model.reference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * Holds the current {@link SecurityTable} and swaps in a new mapping when the file is
+ * replaced.
+ *
+ * Readers take {@link #current()} once per order and make every lookup on that table, so
+ * an order sees either the old data or the new, never a mix. A reload maps and checks the
+ * new file on the watcher thread and publishes it with a single volatile write; the old
+ * mapping is released once no reader holds it. A file that fails its checks is logged
+ * and the previous table stays in force. Replace the file by moving a new one over it,
+ * as {@link SecurityTable#write} does, rather than rewriting it in place.
+ */
+public final class SecuritiesMaster implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SecuritiesMaster.class);
+
+    private volatile SecurityTable table;
+    private Path file;
+    private WatchService watchService;
+    private Thread watcher;
+
+    public SecuritiesMaster(SecurityTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Maps {@code file} as the initial table.
+     */
+    public static SecuritiesMaster open(Path file) throws IOException {
+        SecuritiesMaster master = new SecuritiesMaster(null);
+        master.load(file);
+        return master;
+    }
+
+    public SecurityTable current() {
+        return table;
+    }
+
+    /**
+     * Maps {@code file} and makes it current.
+     *
+     * @throws IOException if it cannot be read or is not a valid table
+     */
+    public void load(Path file) throws IOException {
+        long start = System.nanoTime();
+        SecurityTable opened = SecurityTable.open(file);
+        this.table = opened;
+        this.file = file.toAbsolutePath();
+        log.info("Mapped {} securities from {} in {} us", opened.size(), file, (System.nanoTime() - start) / 1_000);
+    }
+
+    /**
+     * Starts a daemon thread named {@code threadName} that reloads the file whenever it
+     * is replaced.
+     */
+    public void watch(String threadName) throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        this.watcher = new Thread(this::watchLoop, threadName);
+        this.watcher.setDaemon(true);
+        this.watcher.start();
+    }
+
+    @Override
+    public void close() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.warn("Failed to close securities master watcher", e);
+        }
+        try {
+            watcher.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (file.getFileName().equals(event.context())
+                            || event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            log.info("Securities master watcher stopped");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void reload() {
+        try {
+            load(file);
+        } catch (IOException e) {
+            log.error("Keeping previous securities master; could not load {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.klear.model.reference;
+
+/**
+ * One instrument's reference data as written to a {@link SecurityTable}. The tick size
+ * is {@code tickSize} ticks at {@code priceScale} decimals, e.g. 5 at scale 2 for 0.05.
+ */
+public final class Security {
+
+    private final String symbol;
+    private final int lotSize;
+    private final int tickSize;
+    private final int priceScale;
+    private final SecurityStatus status;
+    private final int settlementDays;
+
+    public Security(String symbol, int lotSize, int tickSize, int priceScale, SecurityStatus status,
+                    int settlementDays) {
+        this.symbol = symbol;
+        this.lotSize = lotSize;
+        this.tickSize = tickSize;
+        this.priceScale = priceScale;
+        this.status = status;
+        this.settlementDays = settlementDays;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public int getLotSize() {
+        return lotSize;
+    }
+
+    public int getTickSize() {
+        return tickSize;
+    }
+
+    public int getPriceScale() {
+        return priceScale;
+    }
+
+    public SecurityStatus getStatus() {
+        return status;
+    }
+
+    public int getSettlementDays() {
+        return settlementDays;
+    }
+}
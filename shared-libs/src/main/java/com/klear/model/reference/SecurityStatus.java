@@ -0,0 +1,8 @@
+package com.klear.model.reference;
+
+public enum SecurityStatus {
+    TRADING,   // Open for orders
+    HALTED,    // Trading paused, e.g. pending news; orders are refused until it resumes
+    SUSPENDED, // Removed from trading by the listing venue; open trades still settle
+    DELISTED   // No longer listed; nothing trades or settles
+}
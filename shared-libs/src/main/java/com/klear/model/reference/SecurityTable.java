@@ -0,0 +1,257 @@
+package com.klear.model.reference;
+
+import com.klear.model.price.FixedPoint;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Securities master as a read-only memory-mapped file of fixed-size records sorted by
+ * symbol, so that opening it maps the file instead of parsing it and the data stays off
+ * the heap.
+ *
+ * The file is a 32-byte header (magic, version, record size, count and the CRC32C of the
+ * records) followed by one 32-byte record per instrument: the symbol in up to 16 ASCII
+ * bytes, zero-padded, then lot size, tick size, price scale, status and settlement days.
+ * Opening checks the header and checksum, which for 500,000 instruments takes a few
+ * milliseconds.
+ *
+ * {@link #find} binary-searches the records, comparing the symbol's characters with the
+ * mapped bytes, and the accessors read one field of a record; none of them allocate.
+ * Indexes are only meaningful for the table that returned them. Immutable and thread-safe.
+ */
+public final class SecurityTable {
+
+    public static final int MAX_SYMBOL_LENGTH = 16;
+
+    private static final int MAGIC = 0x4B534543; // "KSEC"
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int RECORD_BYTES = 32;
+
+    private static final int LOT_SIZE = 16;
+    private static final int TICK_SIZE = 20;
+    private static final int PRICE_SCALE = 24;
+    private static final int STATUS = 25;
+    private static final int SETTLEMENT_DAYS = 26;
+
+    private static final SecurityStatus[] STATUSES = SecurityStatus.values();
+
+    private final ByteBuffer records;
+    private final int size;
+    private final Path file;
+
+    private SecurityTable(ByteBuffer records, int size, Path file) {
+        this.records = records;
+        this.size = size;
+        this.file = file;
+    }
+
+    /**
+     * Maps {@code file} and checks it.
+     *
+     * @throws IOException if it cannot be read or is not a valid table
+     */
+    public static SecurityTable open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_BYTES) {
+                throw new IOException(file + ": too short for a securities master header");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (mapped.getInt(0) != MAGIC || mapped.getShort(4) != VERSION || mapped.getShort(6) != RECORD_BYTES) {
+                throw new IOException(file + ": not a version " + VERSION + " securities master");
+            }
+            int size = mapped.getInt(8);
+            if (size < 0 || length != HEADER_BYTES + (long) size * RECORD_BYTES) {
+                throw new IOException(file + ": expected " + size + " records, file is " + length + " bytes");
+            }
+            ByteBuffer records = mapped.slice(HEADER_BYTES, size * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            CRC32C crc = new CRC32C();
+            crc.update(records.duplicate());
+            if ((int) crc.getValue() != mapped.getInt(12)) {
+                throw new IOException(file + ": checksum mismatch");
+            }
+            return new SecurityTable(records, size, file);
+        }
+    }
+
+    /**
+     * Writes {@code securities} as a table, sorting them by symbol. The file is written
+     * beside {@code file} and moved into place, so a reader never maps a partial table.
+     *
+     * @throws IllegalArgumentException for a symbol that is not 1 to 16 ASCII characters,
+     *                                  or that occurs twice
+     */
+    public static void write(Path file, List<Security> securities) throws IOException {
+        List<Security> sorted = new ArrayList<>(securities);
+        sorted.sort(Comparator.comparing(Security::getSymbol));
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + sorted.size() * RECORD_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(HEADER_BYTES);
+        String previous = null;
+        for (Security security : sorted) {
+            String symbol = security.getSymbol();
+            byte[] bytes = symbol.getBytes(StandardCharsets.US_ASCII);
+            if (symbol.isEmpty() || symbol.length() > MAX_SYMBOL_LENGTH
+                    || !symbol.equals(new String(bytes, StandardCharsets.US_ASCII))) {
+                throw new IllegalArgumentException("Symbol must be 1 to " + MAX_SYMBOL_LENGTH
+                        + " ASCII characters: " + symbol);
+            }
+            if (symbol.equals(previous)) {
+                throw new IllegalArgumentException("Duplicate symbol: " + symbol);
+            }
+            FixedPoint.unit(security.getPriceScale());
+            int start = buffer.position();
+            buffer.put(bytes);
+            buffer.position(start + LOT_SIZE);
+            buffer.putInt(security.getLotSize());
+            buffer.putInt(security.getTickSize());
+            buffer.put((byte) security.getPriceScale());
+            buffer.put((byte) security.getStatus().ordinal());
+            buffer.put((byte) security.getSettlementDays());
+            buffer.position(start + RECORD_BYTES);
+            previous = symbol;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), HEADER_BYTES, buffer.capacity() - HEADER_BYTES);
+        buffer.putInt(0, MAGIC);
+        buffer.putShort(4, VERSION);
+        buffer.putShort(6, (short) RECORD_BYTES);
+        buffer.putInt(8, sorted.size());
+        buffer.putInt(12, (int) crc.getValue());
+
+        Path absolute = file.toAbsolutePath();
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        Files.write(temp, buffer.array());
+        Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Index of {@code symbol}'s record, or -1 if it is not listed.
+     */
+    public int find(CharSequence symbol) {
+        if (symbol == null) {
+            return -1;
+        }
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compare(middle, symbol);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    public int lotSize(int index) {
+        return records.getInt(offset(index) + LOT_SIZE);
+    }
+
+    /**
+     * Tick size in ticks at {@link #priceScale}.
+     */
+    public int tickSize(int index) {
+        return records.getInt(offset(index) + TICK_SIZE);
+    }
+
+    public int priceScale(int index) {
+        return records.get(offset(index) + PRICE_SCALE);
+    }
+
+    public SecurityStatus status(int index) {
+        return STATUSES[records.get(offset(index) + STATUS)];
+    }
+
+    /**
+     * Business days from trade date to settlement, the n in T+n.
+     */
+    public int settlementDays(int index) {
+        return records.get(offset(index) + SETTLEMENT_DAYS);
+    }
+
+    /**
+     * True if {@code priceTicks} at {@code scale} is a whole number of the instrument's
+     * ticks; always true for an instrument with no tick size.
+     */
+    public boolean isOnTick(int index, long priceTicks, int scale) {
+        long tick = tickSize(index);
+        if (tick <= 0) {
+            return true;
+        }
+        int tickScale = priceScale(index);
+        int common = Math.max(scale, tickScale);
+        return FixedPoint.rescale(priceTicks, scale, common) % FixedPoint.rescale(tick, tickScale, common) == 0;
+    }
+
+    /**
+     * The symbol of a record; allocates, so meant for diagnostics.
+     */
+    public String symbol(int index) {
+        int offset = offset(index);
+        int length = 0;
+        while (length < MAX_SYMBOL_LENGTH && records.get(offset + length) != 0) {
+            length++;
+        }
+        byte[] bytes = new byte[length];
+        records.get(offset, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    private int offset(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("No security " + index + " in a table of " + size);
+        }
+        return index * RECORD_BYTES;
+    }
+
+    /**
+     * Orders like {@link String#compareTo} for ASCII symbols, which is how {@link #write}
+     * sorts them.
+     */
+    private int compare(int index, CharSequence symbol) {
+        int offset = index * RECORD_BYTES;
+        int length = symbol.length();
+        for (int i = 0; i < MAX_SYMBOL_LENGTH; i++) {
+            int stored = records.get(offset + i) & 0xFF;
+            if (stored == 0) {
+                return i < length ? -1 : 0;
+            }
+            if (i == length) {
+                return 1;
+            }
+            int c = symbol.charAt(i);
+            if (stored != c) {
+                return stored - c;
+            }
+        }
+        return length > MAX_SYMBOL_LENGTH ? -1 : 0;
+    }
+}
@@ -1,16 +1,27 @@
 package com.klear.model.trade;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.klear.model.order.Order;
 import com.klear.model.order.OrderStatus;
+import com.klear.model.price.FixedPoint;
 
 public class Trade {
 
     private String orderId;
     private Order order;
     private double executedPrice;
+    private int executedQuantity;
     private long executedTimestamp;
     private double nettedAmount;
+    // Fixed-point counterparts, at the order's price scale; unused when the order has none
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private long executedPriceTicks;
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private long nettedAmountTicks;
     private OrderStatus status;
+    // Set on the execution stage's acknowledgement that a limit order is resting in its book
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean resting;
     private String validationMessage = "";
     private String clearingMessage = "";
     private String settlementMessage = "";
@@ -28,6 +39,24 @@ public class Trade {
         this.status = status;
     }
 
+    public Trade(Trade other) {
+        this.orderId = other.orderId;
+        this.order = other.order == null ? null : new Order(other.order);
+        this.executedPrice = other.executedPrice;
+        this.executedQuantity = other.executedQuantity;
+        this.executedTimestamp = other.executedTimestamp;
+        this.nettedAmount = other.nettedAmount;
+        this.executedPriceTicks = other.executedPriceTicks;
+        this.nettedAmountTicks = other.nettedAmountTicks;
+        this.status = other.status;
+        this.resting = other.resting;
+        this.validationMessage = other.validationMessage;
+        this.clearingMessage = other.clearingMessage;
+        this.settlementMessage = other.settlementMessage;
+        this.failureReason = other.failureReason;
+        this.failureStage = other.failureStage;
+    }
+
     // Getters and Setters
 
     public String getOrderId() {
@@ -54,6 +83,14 @@ public class Trade {
         this.executedPrice = executedPrice;
     }
 
+    public int getExecutedQuantity() {
+        return executedQuantity;
+    }
+
+    public void setExecutedQuantity(int executedQuantity) {
+        this.executedQuantity = executedQuantity;
+    }
+
     public double getNettedAmount() {
         return nettedAmount;
     }
@@ -62,6 +99,34 @@ public class Trade {
         this.nettedAmount = nettedAmount;
     }
 
+    public long getExecutedPriceTicks() {
+        return executedPriceTicks;
+    }
+
+    /**
+     * Also sets {@link #getExecutedPrice()} when the order has a price scale.
+     */
+    public void setExecutedPriceTicks(long executedPriceTicks) {
+        this.executedPriceTicks = executedPriceTicks;
+        if (order != null && order.getPriceScale() != null) {
+            this.executedPrice = FixedPoint.toDouble(executedPriceTicks, order.getPriceScale());
+        }
+    }
+
+    public long getNettedAmountTicks() {
+        return nettedAmountTicks;
+    }
+
+    /**
+     * Also sets {@link #getNettedAmount()} when the order has a price scale.
+     */
+    public void setNettedAmountTicks(long nettedAmountTicks) {
+        this.nettedAmountTicks = nettedAmountTicks;
+        if (order != null && order.getPriceScale() != null) {
+            this.nettedAmount = FixedPoint.toDouble(nettedAmountTicks, order.getPriceScale());
+        }
+    }
+
     public OrderStatus getStatus() {
         return status;
     }
@@ -70,6 +135,18 @@ public class Trade {
         this.status = status;
     }
 
+    /**
+     * True on the execution stage's reply for a limit order that rests in the book; the
+     * order's status is still {@link OrderStatus#VALIDATED} and its fill comes later.
+     */
+    public boolean isResting() {
+        return resting;
+    }
+
+    public void setResting(boolean resting) {
+        this.resting = resting;
+    }
+
     public String getValidationMessage() {
         return validationMessage;
     }
@@ -0,0 +1,84 @@
+package com.klear.tracing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands ended spans to an exporter on a background thread. The queue is bounded and
+ * spans are dropped when it is full, so a slow exporter cannot back-pressure the services.
+ */
+class BatchSpanProcessor implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchSpanProcessor.class);
+
+    private static final int QUEUE_CAPACITY = 8192;
+    private static final int MAX_BATCH = 512;
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+
+    private final String serviceName;
+    private final SpanExporter exporter;
+    private final BlockingQueue<Span> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    BatchSpanProcessor(String serviceName, SpanExporter exporter) {
+        this.serviceName = serviceName;
+        this.exporter = exporter;
+        this.thread = new Thread(this, serviceName + "-span-exporter");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    void onEnd(Span span) {
+        if (!queue.offer(span)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    long getDropped() {
+        return dropped.get();
+    }
+
+    @Override
+    public void run() {
+        List<Span> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                Span first = queue.poll(FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                exporter.export(serviceName, batch);
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (RuntimeException e) {
+                log.warn("Span export failed", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void shutdown() {
+        running = false;
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        exporter.shutdown();
+        if (dropped.get() > 0) {
+            log.warn("{} spans dropped because the export queue was full", dropped.get());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.klear.tracing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Appends one OTLP/JSON request per batch to a local file (JSON lines), the same layout
+ * the OpenTelemetry collector's file exporter writes and its file receiver replays.
+ * Exporters in one JVM that share a file serialize on a per-path lock so lines never interleave.
+ */
+public class FileSpanExporter implements SpanExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(FileSpanExporter.class);
+
+    private static final ConcurrentMap<Path, Object> FILE_LOCKS = new ConcurrentHashMap<>();
+
+    private final OtlpJsonEncoder encoder = new OtlpJsonEncoder();
+    private final BufferedWriter writer;
+    private final Object fileLock;
+
+    public FileSpanExporter(Path file) throws IOException {
+        this.fileLock = FILE_LOCKS.computeIfAbsent(file.toAbsolutePath().normalize(), p -> new Object());
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void export(String serviceName, List<Span> spans) {
+        String line = encoder.encode(serviceName, spans);
+        try {
+            synchronized (fileLock) {
+                writer.write(line);
+                writer.newLine();
+                writer.flush();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to write {} spans", spans.size(), e);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.warn("Failed to close span file", e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.klear.tracing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Posts OTLP/JSON batches to a collector's {@code /v1/traces} endpoint.
+ * Failures are logged and the batch is dropped; tracing never blocks trade processing.
+ */
+public class OtlpHttpSpanExporter implements SpanExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(OtlpHttpSpanExporter.class);
+
+    private final OtlpJsonEncoder encoder = new OtlpJsonEncoder();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+    private final URI endpoint;
+
+    public OtlpHttpSpanExporter(String endpoint) {
+        this.endpoint = URI.create(endpoint);
+    }
+
+    @Override
+    public void export(String serviceName, List<Span> spans) {
+        HttpRequest request = HttpRequest.newBuilder(endpoint)
+                .timeout(Duration.ofSeconds(5))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(encoder.encode(serviceName, spans)))
+                .build();
+        try {
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() >= 300) {
+                log.warn("Collector rejected {} spans: HTTP {}", spans.size(), response.statusCode());
+            }
+        } catch (IOException e) {
+            log.warn("Failed to export {} spans to {}: {}", spans.size(), endpoint, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.klear.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes spans as an OTLP/JSON {@code ExportTraceServiceRequest}, the body accepted by
+ * {@code POST /v1/traces} on an OpenTelemetry collector.
+ */
+final class OtlpJsonEncoder {
+
+    private static final int SPAN_KIND_INTERNAL = 1;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    String encode(String serviceName, List<Span> spans) {
+        ObjectNode request = objectMapper.createObjectNode();
+        ObjectNode resourceSpans = request.putArray("resourceSpans").addObject();
+        ArrayNode resourceAttributes = resourceSpans.putObject("resource").putArray("attributes");
+        addAttribute(resourceAttributes, "service.name", serviceName);
+
+        ObjectNode scopeSpans = resourceSpans.putArray("scopeSpans").addObject();
+        scopeSpans.putObject("scope").put("name", "com.klear.tracing");
+        ArrayNode spanArray = scopeSpans.putArray("spans");
+        for (Span span : spans) {
+            ObjectNode node = spanArray.addObject();
+            node.put("traceId", span.getContext().getTraceId());
+            node.put("spanId", span.getContext().getSpanId());
+            if (span.getParentSpanId() != null) {
+                node.put("parentSpanId", span.getParentSpanId());
+            }
+            node.put("name", span.getName());
+            node.put("kind", SPAN_KIND_INTERNAL);
+            node.put("startTimeUnixNano", Long.toString(span.getStartEpochNanos()));
+            node.put("endTimeUnixNano", Long.toString(span.getEndEpochNanos()));
+            ArrayNode attributes = node.putArray("attributes");
+            for (Map.Entry<String, Object> attribute : span.getAttributes().entrySet()) {
+                addAttribute(attributes, attribute.getKey(), attribute.getValue());
+            }
+        }
+        return request.toString();
+    }
+
+    private static void addAttribute(ArrayNode attributes, String key, Object value) {
+        ObjectNode attribute = attributes.addObject();
+        attribute.put("key", key);
+        ObjectNode anyValue = attribute.putObject("value");
+        if (value instanceof Long || value instanceof Integer) {
+            anyValue.put("intValue", value.toString());
+        } else if (value instanceof Double || value instanceof Float) {
+            anyValue.put("doubleValue", ((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            anyValue.put("boolValue", (Boolean) value);
+        } else {
+            anyValue.put("stringValue", String.valueOf(value));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.klear.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A timed operation within a trace. Spans that are not sampled do not record anything,
+ * but may still carry the parent context so the unsampled decision propagates downstream.
+ */
+public class Span {
+
+    /** Span used when there is no trace at all. */
+    public static final Span NOOP = new Span(null, null, null, 0, 0);
+
+    private final Tracer tracer;
+    private final String name;
+    private final TraceContext context;
+    private final long parentSpanId;
+    private final long startEpochNanos;
+    private long endEpochNanos;
+    private Map<String, Object> attributes;
+
+    Span(Tracer tracer, String name, TraceContext context, long parentSpanId, long startEpochNanos) {
+        this.tracer = tracer;
+        this.name = name;
+        this.context = context;
+        this.parentSpanId = parentSpanId;
+        this.startEpochNanos = startEpochNanos;
+    }
+
+    static Span nonRecording(TraceContext context) {
+        return new Span(null, null, context, 0, 0);
+    }
+
+    public boolean isRecording() {
+        return tracer != null;
+    }
+
+    /**
+     * The context to propagate to work caused by this span, or null if there is no trace.
+     */
+    public TraceContext getContext() {
+        return context;
+    }
+
+    public Span setAttribute(String key, Object value) {
+        if (tracer != null && value != null) {
+            if (attributes == null) {
+                attributes = new LinkedHashMap<>(4);
+            }
+            attributes.put(key, value);
+        }
+        return this;
+    }
+
+    public void end() {
+        end(System.nanoTime());
+    }
+
+    /**
+     * Ends the span at a {@link System#nanoTime()} instant.
+     */
+    public void end(long nanoTime) {
+        if (tracer != null && endEpochNanos == 0) {
+            endEpochNanos = Tracer.toEpochNanos(nanoTime);
+            tracer.onEnd(this);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Parent span ID in hex, or null for a root span. */
+    public String getParentSpanId() {
+        return parentSpanId == 0 ? null : TraceContext.spanIdHex(parentSpanId);
+    }
+
+    public long getStartEpochNanos() {
+        return startEpochNanos;
+    }
+
+    public long getEndEpochNanos() {
+        return endEpochNanos;
+    }
+
+    public Map<String, Object> getAttributes() {
+        return attributes == null ? Map.of() : attributes;
+    }
+}
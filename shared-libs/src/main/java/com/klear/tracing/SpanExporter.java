@@ -0,0 +1,13 @@
+package com.klear.tracing;
+
+import java.util.List;
+
+/**
+ * Receives batches of ended spans from a {@link BatchSpanProcessor} thread.
+ */
+public interface SpanExporter {
+    void export(String serviceName, List<Span> spans);
+
+    default void shutdown() {
+    }
+}
@@ -0,0 +1,128 @@
+package com.klear.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Immutable W3C trace context: 128-bit trace ID, 64-bit span ID and the sampled flag.
+ * Travels between services as a {@code traceparent} string,
+ * e.g. {@code 00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01}.
+ */
+public final class TraceContext {
+
+    private static final int TRACEPARENT_LENGTH = 55;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final long traceIdHigh;
+    private final long traceIdLow;
+    private final long spanId;
+    private final boolean sampled;
+
+    public TraceContext(long traceIdHigh, long traceIdLow, long spanId, boolean sampled) {
+        this.traceIdHigh = traceIdHigh;
+        this.traceIdLow = traceIdLow;
+        this.spanId = spanId;
+        this.sampled = sampled;
+    }
+
+    /**
+     * Starts a new trace with random IDs.
+     */
+    public static TraceContext newRoot(boolean sampled) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long high = random.nextLong();
+        long low = random.nextLong();
+        if (high == 0 && low == 0) {
+            low = 1;
+        }
+        return new TraceContext(high, low, newSpanId(), sampled);
+    }
+
+    /**
+     * Same trace, new span ID: the context of a child span.
+     */
+    public TraceContext newChild() {
+        return new TraceContext(traceIdHigh, traceIdLow, newSpanId(), sampled);
+    }
+
+    /**
+     * Parses a {@code traceparent} value. Returns null for null, malformed or all-zero input.
+     */
+    public static TraceContext parse(String traceparent) {
+        if (traceparent == null || traceparent.length() != TRACEPARENT_LENGTH
+                || traceparent.charAt(2) != '-' || traceparent.charAt(35) != '-' || traceparent.charAt(52) != '-') {
+            return null;
+        }
+        try {
+            long high = Long.parseUnsignedLong(traceparent, 3, 19, 16);
+            long low = Long.parseUnsignedLong(traceparent, 19, 35, 16);
+            long span = Long.parseUnsignedLong(traceparent, 36, 52, 16);
+            int flags = Integer.parseInt(traceparent, 53, 55, 16);
+            if ((high == 0 && low == 0) || span == 0) {
+                return null;
+            }
+            return new TraceContext(high, low, span, (flags & 0x01) != 0);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public String toTraceparent() {
+        char[] out = new char[TRACEPARENT_LENGTH];
+        out[0] = '0';
+        out[1] = '0';
+        out[2] = '-';
+        writeHex(out, 3, traceIdHigh);
+        writeHex(out, 19, traceIdLow);
+        out[35] = '-';
+        writeHex(out, 36, spanId);
+        out[52] = '-';
+        out[53] = '0';
+        out[54] = sampled ? '1' : '0';
+        return new String(out);
+    }
+
+    public String getTraceId() {
+        char[] out = new char[32];
+        writeHex(out, 0, traceIdHigh);
+        writeHex(out, 16, traceIdLow);
+        return new String(out);
+    }
+
+    public String getSpanId() {
+        return spanIdHex(spanId);
+    }
+
+    long getSpanIdValue() {
+        return spanId;
+    }
+
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    static String spanIdHex(long spanId) {
+        char[] out = new char[16];
+        writeHex(out, 0, spanId);
+        return new String(out);
+    }
+
+    private static long newSpanId() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0);
+        return id;
+    }
+
+    private static void writeHex(char[] out, int offset, long value) {
+        for (int i = 15; i >= 0; i--) {
+            out[offset + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toTraceparent();
+    }
+}
@@ -0,0 +1,140 @@
+package com.klear.tracing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Creates spans for one service and ships them to an exporter.
+ * <p>
+ * Sampling is head-based: the service that starts a trace decides with
+ * {@code sampleRatio}, and every downstream service follows the sampled flag in the
+ * incoming {@code traceparent}. Unsampled work allocates no spans. A tracer without an
+ * exporter records nothing but still passes contexts through.
+ * <p>
+ * The current context is held per thread, so code that sends messages
+ * (e.g. {@code ServiceClient.send}) can pick it up without extra parameters.
+ */
+public class Tracer {
+
+    private static final Logger log = LoggerFactory.getLogger(Tracer.class);
+
+    public static final Tracer NOOP = new Tracer(0.0, null);
+
+    private static final ThreadLocal<TraceContext> CURRENT = new ThreadLocal<>();
+    private static final long EPOCH_NANOS_BASE = System.currentTimeMillis() * 1_000_000L;
+    private static final long NANO_TIME_BASE = System.nanoTime();
+
+    private final double sampleRatio;
+    private final BatchSpanProcessor processor;
+
+    Tracer(double sampleRatio, BatchSpanProcessor processor) {
+        this.sampleRatio = sampleRatio;
+        this.processor = processor;
+    }
+
+    /**
+     * Builds a tracer from service configuration.
+     *
+     * @param exporter {@code none}, {@code file} or {@code otlp}
+     */
+    public static Tracer create(String serviceName, double sampleRatio, String exporter,
+                                String file, String otlpEndpoint) {
+        if (exporter == null || exporter.isBlank() || exporter.equalsIgnoreCase("none")) {
+            return NOOP;
+        }
+        try {
+            SpanExporter spanExporter = switch (exporter.toLowerCase()) {
+                case "file" -> new FileSpanExporter(Path.of(file));
+                case "otlp" -> new OtlpHttpSpanExporter(otlpEndpoint);
+                default -> throw new IllegalArgumentException("Unknown tracing exporter: " + exporter);
+            };
+            log.info("Tracing enabled for {}: exporter={} sampleRatio={}", serviceName, exporter, sampleRatio);
+            return new Tracer(sampleRatio, new BatchSpanProcessor(serviceName, spanExporter));
+        } catch (IOException e) {
+            log.error("Tracing disabled for {}: cannot open {}", serviceName, file, e);
+            return NOOP;
+        }
+    }
+
+    public static Tracer create(String serviceName, double sampleRatio, SpanExporter exporter) {
+        return new Tracer(sampleRatio, new BatchSpanProcessor(serviceName, exporter));
+    }
+
+    public boolean isEnabled() {
+        return processor != null;
+    }
+
+    /**
+     * Parses an incoming traceparent, or returns null without parsing when tracing is off.
+     */
+    public TraceContext extract(String traceparent) {
+        return processor == null || traceparent == null ? null : TraceContext.parse(traceparent);
+    }
+
+    /**
+     * Continues {@code parent} if present, otherwise starts a new trace subject to sampling.
+     */
+    public Span startRootOrChild(String name, TraceContext parent) {
+        if (parent != null) {
+            return startSpan(name, parent);
+        }
+        if (processor == null || sampleRatio <= 0.0
+                || (sampleRatio < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRatio)) {
+            return Span.NOOP;
+        }
+        return new Span(this, name, TraceContext.newRoot(true), 0, toEpochNanos(System.nanoTime()));
+    }
+
+    public Span startSpan(String name, TraceContext parent) {
+        return startSpan(name, parent, System.nanoTime());
+    }
+
+    /**
+     * Starts a child span at a {@link System#nanoTime()} instant, e.g. when a message was queued.
+     */
+    public Span startSpan(String name, TraceContext parent, long startNanoTime) {
+        if (parent == null) {
+            return Span.NOOP;
+        }
+        if (processor == null || !parent.isSampled()) {
+            return Span.nonRecording(parent);
+        }
+        return new Span(this, name, parent.newChild(), parent.getSpanIdValue(), toEpochNanos(startNanoTime));
+    }
+
+    void onEnd(Span span) {
+        processor.onEnd(span);
+    }
+
+    public void shutdown() {
+        if (processor != null) {
+            processor.shutdown();
+        }
+    }
+
+    public static TraceContext currentContext() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Sets the calling thread's current context and returns the previous one, to be restored
+     * with another call when the work is done.
+     */
+    public static TraceContext makeCurrent(TraceContext context) {
+        TraceContext previous = CURRENT.get();
+        if (context == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(context);
+        }
+        return previous;
+    }
+
+    static long toEpochNanos(long nanoTime) {
+        return EPOCH_NANOS_BASE + (nanoTime - NANO_TIME_BASE);
+    }
+}
@@ -0,0 +1,140 @@
+package com.klear.communication.core;
+
+import ch.qos.logback.classic.Level;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.klear.model.order.Order;
+import com.klear.model.order.OrderStatus;
+import com.klear.model.queue.QueueItemTypes;
+import com.klear.model.trade.Trade;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures bytes allocated per trade on the BaseService receive-and-process path with
+ * {@code ThreadMXBean.getThreadAllocatedBytes}, standard versus pooled processing.
+ */
+class BaseServiceAllocationTest {
+
+    private static final int DISTINCT_MESSAGES = 4096;
+    private static final int WARMUP = 100_000;
+    private static final int MEASURED = 50_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static String[] messages;
+
+    @BeforeAll
+    static void createMessages() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        messages = new String[DISTINCT_MESSAGES];
+        for (int i = 0; i < DISTINCT_MESSAGES; i++) {
+            Order order = new Order();
+            order.setClientId("CLIENT" + (i % 100));
+            order.setStockSymbol(i % 2 == 0 ? "AAPL" : "MSFT");
+            order.setQuantity(100 + i % 50);
+            order.setPrice(150.25);
+            Trade trade = new Trade(UUID.randomUUID().toString(), order, OrderStatus.UNKNOWN);
+            messages[i] = objectMapper.writeValueAsString(new ServiceClientMessage(
+                    ServiceClientMessageTypes.SEND, "account_service_channel_RET_1", (Object) trade));
+        }
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(StubService.class)).setLevel(Level.WARN);
+    }
+
+    @Test
+    void testPooledPathAllocatesOnlyOrderIdAndReplyBytes() {
+        StubService standard = new StubService();
+        StubService pooled = new StubService();
+        pooled.enablePooledProcessing(1024);
+
+        double standardBytes = bytesPerTrade(standard);
+        double pooledBytes = bytesPerTrade(pooled);
+
+        assertEquals(WARMUP + MEASURED, pooled.processed);
+        // What remains is the order ID string (~80 B) and the reply byte[] handed to Jedis
+        // (~16 B header + message length), so allow about one message length on top.
+        int replyLength = messages[0].length();
+        assertTrue(pooledBytes < replyLength + 256,
+                "pooled path allocated " + pooledBytes + " B/trade");
+        assertTrue(pooledBytes * 5 < standardBytes,
+                "pooled " + pooledBytes + " B/trade vs standard " + standardBytes + " B/trade");
+    }
+
+    private static double bytesPerTrade(StubService service) {
+        for (int i = 0; i < WARMUP; i++) {
+            service.receiveAndProcess(messages[i % DISTINCT_MESSAGES]);
+        }
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED; i++) {
+            service.receiveAndProcess(messages[i % DISTINCT_MESSAGES]);
+        }
+        long after = THREADS.getCurrentThreadAllocatedBytes();
+        return (after - before) / (double) MEASURED;
+    }
+
+    static final class NullPublisher extends Jedis {
+        @Override
+        public long publish(String channel, String message) {
+            return 0L;
+        }
+
+        @Override
+        public long publish(byte[] channel, byte[] message) {
+            return 0L;
+        }
+    }
+
+    static final class StubService extends BaseService {
+
+        private int processed;
+
+        StubService() {
+            this.jedisPub = new NullPublisher();
+        }
+
+        void receiveAndProcess(String message) {
+            onReceive("account_service_channel_OUT", message);
+            processQueueItem(queue.poll());
+        }
+
+        @Override
+        protected String getServiceName() {
+            return "StubService";
+        }
+
+        @Override
+        protected String getChannelName() {
+            return "stub_service_channel";
+        }
+
+        @Override
+        protected String getRedisHost() {
+            return "localhost";
+        }
+
+        @Override
+        protected int getRedisPort() {
+            return 6379;
+        }
+
+        @Override
+        protected QueueItemTypes getQueueItemType() {
+            return QueueItemTypes.VALIDATION;
+        }
+
+        @Override
+        protected Trade processTrade(Trade trade) {
+            processed++;
+            trade.setValidationMessage("Account Validation Successful");
+            trade.setStatus(OrderStatus.VALIDATED);
+            return trade;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.klear.communication.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.klear.model.order.Order;
+import com.klear.model.order.OrderStatus;
+import com.klear.model.queue.QueueItemTypes;
+import com.klear.model.trade.Trade;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BaseServiceDeadlineTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testExpiredTradesFailWithoutProcessing() throws Exception {
+        for (boolean pooled : new boolean[]{false, true}) {
+            StubService service = new StubService();
+            if (pooled) {
+                service.enablePooledProcessing(16);
+            }
+            long now = System.currentTimeMillis();
+
+            service.receiveAndProcess(message("ORDER-1", now - 1_000));
+            service.receiveAndProcess(message("ORDER-2", now + 60_000));
+            service.receiveAndProcess(message("ORDER-3", 0));
+
+            assertEquals(List.of("ORDER-2", "ORDER-3"), service.processed);
+            ServiceClientMessage expired = objectMapper.readValue(service.published.get(0), ServiceClientMessage.class);
+            Trade trade = objectMapper.convertValue(expired.getPayload(), Trade.class);
+            assertEquals("ORDER-1", trade.getOrderId());
+            assertEquals(OrderStatus.FAILED, trade.getStatus());
+            assertEquals("TIMEOUT", trade.getFailureStage());
+            assertTrue(trade.getFailureReason().contains("StubService"), trade.getFailureReason());
+            assertEquals(0L, expired.getDeadline());
+            assertEquals(3, service.published.size());
+        }
+    }
+
+    private String message(String orderId, long deadline) throws Exception {
+        Order order = new Order();
+        order.setClientId("CLIENT1");
+        order.setStockSymbol("AAPL");
+        order.setQuantity(100);
+        order.setPrice(150.25);
+        ServiceClientMessage message = new ServiceClientMessage(ServiceClientMessageTypes.SEND,
+                "account_service_channel_RET_1", (Object) new Trade(orderId, order, OrderStatus.UNKNOWN));
+        message.setDeadline(deadline);
+        return objectMapper.writeValueAsString(message);
+    }
+
+    static final class CapturingPublisher extends Jedis {
+        private final List<String> published;
+
+        CapturingPublisher(List<String> published) {
+            this.published = published;
+        }
+
+        @Override
+        public long publish(String channel, String message) {
+            published.add(message);
+            return 0L;
+        }
+
+        @Override
+        public long publish(byte[] channel, byte[] message) {
+            published.add(new String(message, StandardCharsets.UTF_8));
+            return 0L;
+        }
+    }
+
+    static final class StubService extends BaseService {
+
+        private final List<String> processed = new ArrayList<>();
+        private final List<String> published = new ArrayList<>();
+
+        StubService() {
+            this.jedisPub = new CapturingPublisher(published);
+        }
+
+        void receiveAndProcess(String message) {
+            onReceive("account_service_channel_OUT", message);
+            processQueueItem(queue.poll());
+        }
+
+        List<String> processed() {
+            return processed;
+        }
+
+        List<String> published() {
+            return published;
+        }
+
+        @Override
+        protected String getServiceName() {
+            return "StubService";
+        }
+
+        @Override
+        protected String getChannelName() {
+            return "stub_service_channel";
+        }
+
+        @Override
+        protected String getRedisHost() {
+            return "localhost";
+        }
+
+        @Override
+        protected int getRedisPort() {
+            return 6379;
+        }
+
+        @Override
+        protected QueueItemTypes getQueueItemType() {
+            return QueueItemTypes.VALIDATION;
+        }
+
+        @Override
+        protected Trade processTrade(Trade trade) {
+            processed.add(trade.getOrderId());
+            trade.setStatus(OrderStatus.VALIDATED);
+            return trade;
+        }
+    }
+}
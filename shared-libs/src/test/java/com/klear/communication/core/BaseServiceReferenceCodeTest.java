@@ -0,0 +1,53 @@
+package com.klear.communication.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.klear.model.order.Order;
+import com.klear.model.order.OrderStatus;
+import com.klear.model.reference.ReferenceDictionary;
+import com.klear.model.trade.Trade;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BaseServiceReferenceCodeTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testUnknownReferenceCodeFailsAtThisStage() throws Exception {
+        for (boolean pooled : new boolean[]{false, true}) {
+            BaseServiceDeadlineTest.StubService service = new BaseServiceDeadlineTest.StubService();
+            service.enableReferenceDictionary(ReferenceDictionary.of(List.of("AAPL"), List.of("CLIENT1")));
+            if (pooled) {
+                service.enablePooledProcessing(16);
+            }
+
+            service.receiveAndProcess(message("ORDER-1", 1, 1));
+            service.receiveAndProcess(message("ORDER-2", 1, 9));
+
+            assertEquals(List.of("ORDER-1"), service.processed());
+            assertEquals(2, service.published().size());
+            ServiceClientMessage reply =
+                    objectMapper.readValue(service.published().get(1), ServiceClientMessage.class);
+            Trade trade = objectMapper.convertValue(reply.getPayload(), Trade.class);
+            assertEquals("ORDER-2", trade.getOrderId());
+            assertEquals(OrderStatus.FAILED, trade.getStatus());
+            assertEquals("VALIDATION", trade.getFailureStage());
+            assertTrue(trade.getFailureReason().startsWith("Unknown reference code"), trade.getFailureReason());
+            assertEquals(ServiceClientMessageTypes.ON_RECEIVE, reply.getType());
+        }
+    }
+
+    private String message(String orderId, int clientCode, int symbolCode) throws Exception {
+        Order order = new Order();
+        order.setClientCode(clientCode);
+        order.setSymbolCode(symbolCode);
+        order.setQuantity(100);
+        order.setPrice(150.25);
+        ServiceClientMessage message = new ServiceClientMessage(ServiceClientMessageTypes.SEND,
+                "account_service_channel_RET_1", (Object) new Trade(orderId, order, OrderStatus.UNKNOWN));
+        return objectMapper.writeValueAsString(message);
+    }
+}
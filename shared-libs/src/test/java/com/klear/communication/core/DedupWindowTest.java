@@ -0,0 +1,118 @@
+package com.klear.communication.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.klear.model.order.Order;
+import com.klear.model.order.OrderStatus;
+import com.klear.model.trade.Trade;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DedupWindowTest {
+
+    @Test
+    void testRecognisesIdsUntilTheirGenerationRotatesOut() {
+        // Four generations of 250 ms
+        DedupWindow window = new DedupWindow(1_000, 4, 100, 0);
+        assertTrue(window.firstSeen(42, 0));
+        assertFalse(window.firstSeen(42, 10));
+        assertTrue(window.firstSeen(0, 10));
+        assertTrue(window.firstSeen(0, 10));
+        assertTrue(window.firstSeen(-7, 500));
+        assertFalse(window.firstSeen(42, 700));
+        assertFalse(window.firstSeen(-7, 1_200));
+
+        // 42's generation was cleared when the window moved four generations on
+        assertTrue(window.firstSeen(42, 1_200));
+        assertTrue(window.firstSeen(99, 10_000));
+        assertTrue(window.firstSeen(-7, 10_000));
+    }
+
+    @Test
+    void testFullGenerationRotatesEarly() {
+        DedupWindow window = new DedupWindow(60_000, 2, 1_000, 0);
+        for (long id = 1; id <= 1_000; id++) {
+            assertTrue(window.firstSeen(id, 0));
+        }
+        // The next generation takes the next 1,000; the first 1,000 are still held
+        for (long id = 1_001; id <= 2_000; id++) {
+            assertTrue(window.firstSeen(id, 0));
+        }
+        assertFalse(window.firstSeen(1, 0));
+        assertFalse(window.firstSeen(2_000, 0));
+        assertTrue(window.firstSeen(2_001, 0));
+        assertTrue(window.firstSeen(1, 0));
+    }
+
+    @Test
+    void testMessageIdsIdentifyOrderAndStatus() {
+        String orderId = "6f8e3bb7-01ec-4ecf-81e7-f548be295485";
+        long validation = ServiceClientMessage.messageIdOf(orderId, OrderStatus.UNKNOWN);
+        assertEquals(validation, ServiceClientMessage.messageIdOf(new String(orderId), OrderStatus.UNKNOWN));
+        assertNotEquals(validation, ServiceClientMessage.messageIdOf(orderId, OrderStatus.VALIDATED));
+        assertNotEquals(validation, ServiceClientMessage.messageIdOf(
+                "6f8e3bb7-01ec-4ecf-81e7-f548be295486", OrderStatus.UNKNOWN));
+        assertNotEquals(0L, validation);
+        assertEquals(0L, ServiceClientMessage.messageIdOf(null, OrderStatus.UNKNOWN));
+    }
+
+    @Test
+    void testStageResendsReplyForDuplicateRequest() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (boolean pooled : new boolean[]{false, true}) {
+            BaseServiceDeadlineTest.StubService service = new BaseServiceDeadlineTest.StubService();
+            long now = System.currentTimeMillis();
+            service.enableDedup(new DedupWindow(60_000, 4, 1024, now), new ReplyCache(60_000, 1024, now));
+            if (pooled) {
+                service.enablePooledProcessing(16);
+            }
+            Order order = new Order();
+            order.setClientId("CLIENT1");
+            order.setStockSymbol("AAPL");
+            String[] messages = new String[3];
+            for (int i = 0; i < messages.length; i++) {
+                Trade trade = new Trade(i < 2 ? "ORDER-1" : "ORDER-2", order, OrderStatus.UNKNOWN);
+                ServiceClientMessage message = new ServiceClientMessage(ServiceClientMessageTypes.SEND,
+                        "account_service_channel_RET_1", (Object) trade);
+                message.setMessageId(ServiceClientMessage.messageIdOf(trade.getOrderId(), trade.getStatus()));
+                messages[i] = objectMapper.writeValueAsString(message);
+            }
+
+            service.receiveAndProcess(messages[0]);
+            // The reply to ORDER-1 is lost, so the trade service resends the request
+            service.published().clear();
+            service.receiveAndProcess(messages[1]);
+            service.receiveAndProcess(messages[2]);
+
+            assertEquals(List.of("ORDER-1", "ORDER-2"), service.processed());
+            assertEquals(2, service.published().size());
+            ServiceClientMessage reply =
+                    objectMapper.readValue(service.published().get(0), ServiceClientMessage.class);
+            assertEquals(ServiceClientMessageTypes.ON_RECEIVE, reply.getType());
+            assertEquals(ServiceClientMessage.messageIdOf("ORDER-1", OrderStatus.VALIDATED), reply.getMessageId());
+            Trade trade = objectMapper.convertValue(reply.getPayload(), Trade.class);
+            assertEquals("ORDER-1", trade.getOrderId());
+            assertEquals(OrderStatus.VALIDATED, trade.getStatus());
+            assertEquals("AAPL", trade.getOrder().getStockSymbol());
+        }
+    }
+
+    @Test
+    void testReplyCacheKeepsLatestReplyForAtLeastTheWindow() {
+        ReplyCache replies = new ReplyCache(1_000, 2, 0);
+        replies.put(new Trade("ORDER-1", null, OrderStatus.VALIDATED), 0);
+        replies.put(new Trade("ORDER-1", null, OrderStatus.EXECUTED), 10);
+        assertEquals(OrderStatus.EXECUTED, replies.get("ORDER-1", 1_500).getStatus());
+        assertNull(replies.get("ORDER-2", 1_500));
+        assertNull(replies.get("ORDER-1", 2_500));
+
+        // A full generation moves to the previous one rather than evicting the newest reply
+        replies.put(new Trade("ORDER-2", null, OrderStatus.VALIDATED), 3_000);
+        replies.put(new Trade("ORDER-3", null, OrderStatus.VALIDATED), 3_000);
+        replies.put(new Trade("ORDER-4", null, OrderStatus.VALIDATED), 3_000);
+        assertNotNull(replies.get("ORDER-2", 3_000));
+        assertNotNull(replies.get("ORDER-4", 3_000));
+    }
+}
@@ -123,6 +123,34 @@ class ServiceClientMessageTest {
         assertNotNull(deserialized.getPayload());
     }
 
+    @Test
+    void testTraceParentRoundTrip() throws Exception {
+        ServiceClientMessage original = new ServiceClientMessage(
+            ServiceClientMessageTypes.SEND,
+            "roundtrip_channel",
+            (Object) testTrade
+        );
+        original.setTraceParent("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+
+        String json = objectMapper.writeValueAsString(original);
+        ServiceClientMessage deserialized = objectMapper.readValue(json, ServiceClientMessage.class);
+
+        assertEquals(original.getTraceParent(), deserialized.getTraceParent());
+    }
+
+    @Test
+    void testTraceParentOmittedWhenAbsent() throws Exception {
+        ServiceClientMessage message = new ServiceClientMessage(
+            ServiceClientMessageTypes.SEND,
+            "channel",
+            (Object) testTrade
+        );
+
+        String json = objectMapper.writeValueAsString(message);
+
+        assertFalse(json.contains("traceParent"));
+    }
+
     @Test
     void testAllMessageTypes() {
         for (ServiceClientMessageTypes type : ServiceClientMessageTypes.values()) {
@@ -10,13 +10,15 @@ class ServiceClientMessageTypesTest {
     void testAllMessageTypes() {
         ServiceClientMessageTypes[] types = ServiceClientMessageTypes.values();
 
-        assertEquals(5, types.length);
+        assertEquals(7, types.length);
     }
 
     @Test
     void testValueOf() {
         assertEquals(ServiceClientMessageTypes.ORDER_SUBMIT, ServiceClientMessageTypes.valueOf("ORDER_SUBMIT"));
         assertEquals(ServiceClientMessageTypes.ORDER_STATUS, ServiceClientMessageTypes.valueOf("ORDER_STATUS"));
+        assertEquals(ServiceClientMessageTypes.TRADE_QUERY, ServiceClientMessageTypes.valueOf("TRADE_QUERY"));
+        assertEquals(ServiceClientMessageTypes.ANALYTICS, ServiceClientMessageTypes.valueOf("ANALYTICS"));
         assertEquals(ServiceClientMessageTypes.SEND, ServiceClientMessageTypes.valueOf("SEND"));
         assertEquals(ServiceClientMessageTypes.ON_RECEIVE, ServiceClientMessageTypes.valueOf("ON_RECEIVE"));
         assertEquals(ServiceClientMessageTypes.UNKNOWN, ServiceClientMessageTypes.valueOf("UNKNOWN"));
@@ -33,6 +35,8 @@ class ServiceClientMessageTypesTest {
     void testName() {
         assertEquals("ORDER_SUBMIT", ServiceClientMessageTypes.ORDER_SUBMIT.name());
         assertEquals("ORDER_STATUS", ServiceClientMessageTypes.ORDER_STATUS.name());
+        assertEquals("TRADE_QUERY", ServiceClientMessageTypes.TRADE_QUERY.name());
+        assertEquals("ANALYTICS", ServiceClientMessageTypes.ANALYTICS.name());
         assertEquals("SEND", ServiceClientMessageTypes.SEND.name());
         assertEquals("ON_RECEIVE", ServiceClientMessageTypes.ON_RECEIVE.name());
         assertEquals("UNKNOWN", ServiceClientMessageTypes.UNKNOWN.name());
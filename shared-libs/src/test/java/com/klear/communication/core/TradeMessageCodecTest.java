@@ -0,0 +1,245 @@
+package com.klear.communication.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.klear.model.order.Order;
+import com.klear.model.order.OrderStatus;
+import com.klear.model.order.OrderType;
+import com.klear.model.order.Side;
+import com.klear.model.reference.ReferenceDictionary;
+import com.klear.model.trade.Trade;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradeMessageCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TradeMessageCodec codec = new TradeMessageCodec();
+
+    private final ServiceClientMessage message = new ServiceClientMessage();
+    private final Trade trade = new Trade();
+    private final Order order = new Order();
+
+    private Trade newTrade() {
+        Order o = new Order();
+        o.setClientId("CLIENT123");
+        o.setStockSymbol("AAPL");
+        o.setQuantity(100);
+        o.setPrice(150.25);
+        o.setSide(Side.BUY);
+        o.setOrderType(OrderType.LIMIT);
+        Trade t = new Trade("6f8e3bb7-01ec-4ecf-81e7-f548be295485", o, OrderStatus.EXECUTED);
+        t.setExecutedPrice(150.25);
+        t.setExecutedQuantity(100);
+        t.setExecutedTimestamp(1_700_000_000_123L);
+        t.setNettedAmount(15025.0);
+        t.setValidationMessage("Account Validation Successful");
+        return t;
+    }
+
+    @Test
+    void testDecodesJacksonOutput() throws Exception {
+        ServiceClientMessage original = new ServiceClientMessage(
+                ServiceClientMessageTypes.SEND, "execution_service_channel_RET_1", (Object) newTrade());
+        original.setTraceParent("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+
+        assertTrue(codec.decode(objectMapper.writeValueAsString(original), message, trade, order));
+
+        assertEquals(ServiceClientMessageTypes.SEND, message.getType());
+        assertEquals("execution_service_channel_RET_1", message.getReturnChannel());
+        assertEquals(original.getTraceParent(), message.getTraceParent());
+        assertSame(trade, message.getPayload());
+        assertSame(order, trade.getOrder());
+        assertEquals("6f8e3bb7-01ec-4ecf-81e7-f548be295485", trade.getOrderId());
+        assertEquals("CLIENT123", order.getClientId());
+        assertEquals("AAPL", order.getStockSymbol());
+        assertEquals(100, order.getQuantity());
+        assertEquals(150.25, order.getPrice());
+        assertEquals(Side.BUY, order.getSide());
+        assertEquals(OrderType.LIMIT, order.getOrderType());
+        assertEquals(150.25, trade.getExecutedPrice());
+        assertEquals(100, trade.getExecutedQuantity());
+        assertEquals(1_700_000_000_123L, trade.getExecutedTimestamp());
+        assertEquals(15025.0, trade.getNettedAmount());
+        assertEquals(OrderStatus.EXECUTED, trade.getStatus());
+        assertEquals("Account Validation Successful", trade.getValidationMessage());
+    }
+
+    @Test
+    void testEncodedReplyMatchesJackson() throws Exception {
+        ServiceClientMessage reply = new ServiceClientMessage(
+                ServiceClientMessageTypes.ON_RECEIVE, "channel_RET_1", (Object) newTrade());
+
+        JsonNode ours = objectMapper.readTree(codec.encode(reply));
+        JsonNode jackson = objectMapper.valueToTree(reply);
+
+        // Same fields and values as Jackson, so a new Trade field that the codec misses fails here
+        assertEquals(jackson, ours);
+        Trade decoded = objectMapper.treeToValue(ours.get("payload"), Trade.class);
+        assertEquals(150.25, decoded.getExecutedPrice());
+    }
+
+    @Test
+    void testFixedPointTradeTravelsAsTicks() throws Exception {
+        Trade fixed = newTrade();
+        fixed.getOrder().setPriceTicks(15025);
+        fixed.getOrder().setPriceScale(2);
+        fixed.setExecutedPriceTicks(15025);
+        fixed.setNettedAmountTicks(1_502_500);
+        ServiceClientMessage reply = new ServiceClientMessage(ServiceClientMessageTypes.ON_RECEIVE, "c", (Object) fixed);
+
+        byte[] encoded = codec.encode(reply);
+        JsonNode payload = objectMapper.readTree(encoded).get("payload");
+        assertNull(payload.get("executedPrice"));
+        assertNull(payload.get("nettedAmount"));
+        assertNull(payload.get("order").get("price"));
+        assertEquals(15025, payload.get("order").get("priceTicks").asLong());
+        assertTrue(encoded.length < objectMapper.writeValueAsBytes(reply).length);
+
+        // Both codecs turn the ticks back into the doubles
+        Trade viaJackson = objectMapper.treeToValue(payload, Trade.class);
+        assertTrue(codec.decode(new String(encoded, StandardCharsets.UTF_8), message, trade, order));
+        for (Trade decoded : List.of(viaJackson, trade)) {
+            assertEquals(150.25, decoded.getOrder().getPrice());
+            assertEquals(2, decoded.getOrder().getPriceScale());
+            assertEquals(150.25, decoded.getExecutedPrice());
+            assertEquals(15025.0, decoded.getNettedAmount());
+            assertEquals(1_502_500, decoded.getNettedAmountTicks());
+        }
+
+        // A double-priced message afterwards leaves no fixed-point state behind
+        assertTrue(codec.decode(objectMapper.writeValueAsString(
+                new ServiceClientMessage(ServiceClientMessageTypes.SEND, "c", (Object) newTrade())), message, trade, order));
+        assertNull(order.getPriceScale());
+        assertEquals(0, trade.getExecutedPriceTicks());
+        assertEquals(150.25, trade.getExecutedPrice());
+    }
+
+    @Test
+    void testReferenceCodesReplaceNamesOnTheWire() throws Exception {
+        ReferenceDictionary dictionary = ReferenceDictionary.of(List.of("MSFT", "AAPL"), List.of("CLIENT123"));
+        TradeMessageCodec coded = new TradeMessageCodec(dictionary);
+        Trade t = newTrade();
+        dictionary.encode(t.getOrder());
+        ServiceClientMessage reply = new ServiceClientMessage(ServiceClientMessageTypes.ON_RECEIVE, "c", (Object) t);
+
+        byte[] encoded = coded.encode(reply);
+        JsonNode order = objectMapper.readTree(encoded).get("payload").get("order");
+        assertNull(order.get("clientId"));
+        assertNull(order.get("stockSymbol"));
+        assertEquals(1, order.get("clientCode").asInt());
+        assertEquals(2, order.get("symbolCode").asInt());
+        assertTrue(encoded.length < codec.encode(reply).length);
+
+        // Names come back as the dictionary's own instances
+        String json = new String(encoded, StandardCharsets.UTF_8);
+        assertTrue(coded.decode(json, message, trade, this.order));
+        assertSame(dictionary.client(1), this.order.getClientId());
+        assertSame(dictionary.symbol(2), this.order.getStockSymbol());
+        assertEquals(2, this.order.getSymbolCode());
+
+        // Without the dictionary the names cannot be recovered
+        assertFalse(codec.decode(json, message, trade, this.order));
+        ReferenceDictionary other = ReferenceDictionary.of(List.of("MSFT"), List.of("CLIENT123"));
+        assertFalse(new TradeMessageCodec(other).decode(json, message, trade, this.order));
+    }
+
+    @Test
+    void testRestingFlagRoundTrips() throws Exception {
+        Trade resting = newTrade();
+        resting.setStatus(OrderStatus.VALIDATED);
+        resting.setResting(true);
+        ServiceClientMessage reply = new ServiceClientMessage(
+                ServiceClientMessageTypes.ON_RECEIVE, "channel_RET_1", (Object) resting);
+
+        String encoded = new String(codec.encode(reply), StandardCharsets.UTF_8);
+        assertEquals(objectMapper.valueToTree(reply), objectMapper.readTree(encoded));
+        assertTrue(codec.decode(encoded, message, trade, order));
+        assertTrue(trade.isResting());
+
+        assertTrue(codec.decode(objectMapper.writeValueAsString(new ServiceClientMessage(
+                ServiceClientMessageTypes.ON_RECEIVE, "channel_RET_1", (Object) newTrade())), message, trade, order));
+        assertFalse(trade.isResting());
+    }
+
+    @Test
+    void testDecodeResetsFieldsBetweenMessages() throws Exception {
+        Trade failed = newTrade();
+        failed.setStatus(OrderStatus.FAILED);
+        failed.setFailureStage("CLEARING");
+        failed.setFailureReason("Risk limit exceeded");
+        ServiceClientMessage sent = new ServiceClientMessage(ServiceClientMessageTypes.SEND, "c", (Object) failed);
+        sent.setDeadline(1_700_000_000_500L);
+        sent.setMessageId(ServiceClientMessage.messageIdOf(failed.getOrderId(), failed.getStatus()));
+        String json = objectMapper.writeValueAsString(sent);
+        assertTrue(codec.decode(json, message, trade, order));
+        assertEquals(1_700_000_000_500L, message.getDeadline());
+        assertEquals(sent.getMessageId(), message.getMessageId());
+        assertEquals(objectMapper.readTree(json), objectMapper.readTree(codec.encode(message)));
+
+        String minimal = "{\"type\":\"SEND\",\"returnChannel\":\"c\",\"payload\":{\"orderId\":\"X\",\"order\":{\"clientId\":\"C\"}}}";
+        assertTrue(codec.decode(minimal, message, trade, order));
+
+        assertEquals("X", trade.getOrderId());
+        assertNull(trade.getStatus());
+        assertEquals("", trade.getFailureStage());
+        assertEquals("", trade.getFailureReason());
+        assertEquals(0.0, trade.getExecutedPrice());
+        assertEquals(0, order.getQuantity());
+        assertNull(order.getStockSymbol());
+        assertNull(message.getTraceParent());
+        assertEquals(0L, message.getDeadline());
+        assertEquals(0L, message.getMessageId());
+    }
+
+    @Test
+    void testEscapedAndNonAsciiStringsRoundTrip() throws Exception {
+        Trade t = newTrade();
+        t.setFailureReason("quote \" backslash \\ newline \n tab \t unicode é € 😀");
+        ServiceClientMessage original = new ServiceClientMessage(ServiceClientMessageTypes.SEND, "c", (Object) t);
+
+        assertTrue(codec.decode(objectMapper.writeValueAsString(original), message, trade, order));
+        assertEquals(t.getFailureReason(), trade.getFailureReason());
+
+        byte[] encoded = codec.encode(message);
+        Trade decoded = objectMapper.treeToValue(objectMapper.readTree(encoded).get("payload"), Trade.class);
+        assertEquals(t.getFailureReason(), decoded.getFailureReason());
+        assertTrue(new String(encoded, StandardCharsets.UTF_8).contains("é € 😀"));
+    }
+
+    @Test
+    void testDoublesRoundTripExactly() throws Exception {
+        List<Double> values = new ArrayList<>(List.of(0.0, -0.0, 0.1, 150.0, 150.25, 9999.99, 1e-5, 0.001,
+                1234567.891, 1.0E7, 123456789.123, 1.7976931348623157E308, Double.MIN_VALUE, -42.5));
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            values.add(random.nextInt(1_000_000) / 100.0);
+            values.add(random.nextDouble() * Math.pow(10, random.nextInt(12) - 4));
+        }
+        for (double value : values) {
+            Trade t = newTrade();
+            t.setNettedAmount(value);
+
+            byte[] encoded = codec.encode(new ServiceClientMessage(ServiceClientMessageTypes.SEND, "c", (Object) t));
+            assertTrue(codec.decode(new String(encoded, StandardCharsets.UTF_8), message, trade, order));
+
+            assertEquals(Double.doubleToLongBits(value), Double.doubleToLongBits(trade.getNettedAmount()),
+                    "value " + value);
+            assertEquals(value, objectMapper.readTree(encoded).get("payload").get("nettedAmount").asDouble());
+        }
+    }
+
+    @Test
+    void testMalformedInputIsRejected() {
+        assertFalse(codec.decode("", message, trade, order));
+        assertFalse(codec.decode("{\"type\":\"SEND\"", message, trade, order));
+        assertFalse(codec.decode("{\"type\":\"NOPE\"}", message, trade, order));
+        assertFalse(codec.decode("{\"payload\":\"not a trade\"}", message, trade, order));
+    }
+}
@@ -0,0 +1,66 @@
+package com.klear.logging;
+
+import com.klear.model.order.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditRecorderTest {
+
+    @Test
+    void testRecordsRoundTrip(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("AccountService.bin");
+        String orderId = UUID.randomUUID().toString();
+
+        AuditRecorder recorder = new AuditRecorder(file);
+        recorder.record(orderId, OrderStatus.VALIDATED, null);
+        recorder.record(orderId, OrderStatus.FAILED, "EXECUTION");
+        recorder.close();
+
+        assertEquals(2L * AuditRecorder.RECORD_SIZE, Files.size(file));
+        List<AuditLogReader.Entry> entries = AuditLogReader.read(file);
+        assertEquals(orderId, entries.get(0).getOrderId());
+        assertEquals(OrderStatus.VALIDATED, entries.get(0).getStatus());
+        assertNull(entries.get(0).getFailureStage());
+        assertEquals(OrderStatus.FAILED, entries.get(1).getStatus());
+        assertEquals("EXECUTION", entries.get(1).getFailureStage());
+        assertEquals(entries.get(0).getSequence() + 1, entries.get(1).getSequence());
+        assertTrue(entries.get(0).getEpochMicros() > 0);
+    }
+
+    @Test
+    void testManyRecordsAcrossBufferSwaps(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("TradeService.bin");
+        int count = 20_000;
+
+        AuditRecorder recorder = new AuditRecorder(file);
+        for (int i = 0; i < count; i++) {
+            recorder.record(UUID.randomUUID().toString(), OrderStatus.SETTLED, null);
+        }
+        recorder.close();
+
+        List<AuditLogReader.Entry> entries = AuditLogReader.read(file);
+        assertEquals(count - recorder.getDropped(), entries.size());
+        for (int i = 1; i < entries.size(); i++) {
+            assertTrue(entries.get(i).getSequence() > entries.get(i - 1).getSequence());
+        }
+    }
+
+    @Test
+    void testNonUuidOrderIdIsStoredAsHash(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("test.bin");
+
+        AuditRecorder recorder = new AuditRecorder(file);
+        recorder.record("ORDER-001", OrderStatus.CLEARED, null);
+        recorder.close();
+
+        List<AuditLogReader.Entry> entries = AuditLogReader.read(file);
+        assertEquals(new UUID(0, "ORDER-001".hashCode()).toString(), entries.get(0).getOrderId());
+    }
+}
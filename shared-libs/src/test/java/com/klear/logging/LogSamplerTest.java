@@ -0,0 +1,48 @@
+package com.klear.logging;
+
+import com.klear.model.order.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogSamplerTest {
+
+    @Test
+    void testPermitsPerKeyPerWindow() {
+        LogSampler sampler = new LogSampler(2);
+        long now = 0;
+
+        assertTrue(sampler.tryAcquire(OrderStatus.VALIDATED, now));
+        assertTrue(sampler.tryAcquire(OrderStatus.VALIDATED, now));
+        assertFalse(sampler.tryAcquire(OrderStatus.VALIDATED, now));
+        assertEquals(1, sampler.getSuppressed(OrderStatus.VALIDATED));
+
+        // Other keys have their own budget
+        assertTrue(sampler.tryAcquire(OrderStatus.FAILED, now));
+    }
+
+    @Test
+    void testWindowReopensAfterOneSecond() {
+        LogSampler sampler = new LogSampler(1);
+        long now = 0;
+
+        assertTrue(sampler.tryAcquire(OrderStatus.SETTLED, now));
+        assertFalse(sampler.tryAcquire(OrderStatus.SETTLED, now + 1));
+
+        long later = now + TimeUnit.SECONDS.toNanos(1);
+        assertTrue(sampler.tryAcquire(OrderStatus.SETTLED, later));
+        assertEquals(0, sampler.getSuppressed(OrderStatus.SETTLED));
+    }
+
+    @Test
+    void testStandardModeLogsEverything() {
+        HotPathLog hotPathLog = HotPathLog.create("test", "standard", 1, "unused");
+
+        assertSame(HotPathLog.STANDARD, hotPathLog);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(hotPathLog.shouldLog(OrderStatus.VALIDATED));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.klear.model;
+
+import com.klear.model.price.FixedPoint;
+import com.klear.model.price.PriceScales;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedPointTest {
+
+    @Test
+    void testConvertsBetweenTicksAndDoubles() {
+        assertEquals(15025, FixedPoint.toTicks(150.25, 2));
+        assertEquals(29, FixedPoint.toTicks(0.29, 2));
+        assertEquals(125, FixedPoint.toTicks(0.0125, 4));
+        assertEquals(150.25, FixedPoint.toDouble(15025, 2));
+        assertEquals(0.1, FixedPoint.toDouble(1, 1));
+        assertTrue(FixedPoint.isWholeTicks(150.25, 2));
+        assertFalse(FixedPoint.isWholeTicks(150.255, 2));
+        assertTrue(FixedPoint.isWholeTicks(100, 0));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.toTicks(1e12, 9));
+        assertThrows(IllegalArgumentException.class, () -> FixedPoint.toTicks(1, 10));
+    }
+
+    @Test
+    void testNotionalAndRescaleAreExact() {
+        // 3 * 0.1 is 0.30000000000000004 in doubles
+        assertEquals(30, FixedPoint.notional(3, 10));
+        assertEquals(0.3, FixedPoint.toDouble(FixedPoint.notional(3, 10), 2));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.notional(Long.MAX_VALUE, 2));
+
+        assertEquals(1_502_500, FixedPoint.rescale(15025, 2, 4));
+        assertEquals(1, FixedPoint.rescale(125, 4, 2));
+        assertEquals(2, FixedPoint.rescale(150, 4, 2));
+        assertEquals(1, FixedPoint.rescale(149, 4, 2));
+        assertEquals(-2, FixedPoint.rescale(-150, 4, 2));
+        assertTrue(FixedPoint.compare(15025, 2, 1_502_501, 4) < 0);
+        assertEquals(0, FixedPoint.compare(15025, 2, 1_502_500, 4));
+    }
+
+    @Test
+    void testParsesAndFormatsDecimals() {
+        assertEquals(15025, FixedPoint.parse("150.25", 2));
+        assertEquals(15020, FixedPoint.parse("150.2", 2));
+        assertEquals(15000, FixedPoint.parse("150", 2));
+        assertEquals(-5, FixedPoint.parse("-0.050", 2));
+        assertThrows(NumberFormatException.class, () -> FixedPoint.parse("150.255", 2));
+        assertThrows(NumberFormatException.class, () -> FixedPoint.parse("1.2.3", 2));
+        assertThrows(NumberFormatException.class, () -> FixedPoint.parse("-", 2));
+
+        assertEquals("150.25", FixedPoint.toString(15025, 2));
+        assertEquals("-0.05", FixedPoint.toString(-5, 2));
+        assertEquals("0.0125", FixedPoint.toString(125, 4));
+        assertEquals("7", FixedPoint.toString(7, 0));
+        assertEquals("1.00", FixedPoint.toString(100, 2));
+    }
+
+    @Test
+    void testPriceScalesFallBackToDefault() {
+        PriceScales scales = PriceScales.parse("BRK.A:0, PENNY:4", 2);
+        assertEquals(0, scales.scale("BRK.A"));
+        assertEquals(4, scales.scale("PENNY"));
+        assertEquals(2, scales.scale("AAPL"));
+        assertEquals(2, PriceScales.parse("", 2).scale("AAPL"));
+        assertThrows(IllegalArgumentException.class, () -> PriceScales.parse("AAPL", 2));
+        assertThrows(IllegalArgumentException.class, () -> PriceScales.parse("AAPL:12", 2));
+    }
+}
@@ -0,0 +1,64 @@
+package com.klear.model;
+
+import com.klear.model.order.Order;
+import com.klear.model.reference.ReferenceDictionary;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReferenceDictionaryTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testLoadsCodesFromFile() throws Exception {
+        Path file = dir.resolve("reference.txt");
+        Files.writeString(file, "# Reference data\n[symbols]\nAAPL\nMSFT\r\n\n[clients]\nCLIENT1\n  CLIENT2  \n[symbols]\nGOOG");
+
+        ReferenceDictionary dictionary = ReferenceDictionary.load(file);
+        assertEquals(3, dictionary.symbolCount());
+        assertEquals(2, dictionary.clientCount());
+        assertEquals(1, dictionary.symbolCode("AAPL"));
+        assertEquals(3, dictionary.symbolCode("GOOG"));
+        assertEquals(2, dictionary.clientCode("CLIENT2"));
+        assertEquals(0, dictionary.symbolCode("TSLA"));
+        assertEquals(0, dictionary.clientCode(null));
+        assertEquals("MSFT", dictionary.symbol(2));
+        assertNull(dictionary.symbol(0));
+        assertNull(dictionary.client(3));
+        assertEquals(dictionary.fingerprint(), ReferenceDictionary.load(file).fingerprint());
+
+        Files.writeString(file, "AAPL\n");
+        assertThrows(IOException.class, () -> ReferenceDictionary.load(file));
+        Files.writeString(file, "[symbols]\nAAPL\nAAPL\n");
+        assertThrows(IllegalArgumentException.class, () -> ReferenceDictionary.load(file));
+    }
+
+    @Test
+    void testEncodesAndResolvesOrders() {
+        ReferenceDictionary dictionary = ReferenceDictionary.of(List.of("AAPL"), List.of("CLIENT1"));
+        Order order = new Order();
+        order.setClientId("CLIENT9");
+        order.setStockSymbol("AAPL");
+        dictionary.encode(order);
+        assertEquals(0, order.getClientCode());
+        assertEquals(1, order.getSymbolCode());
+
+        // Only names that travelled as codes are filled in
+        order.setStockSymbol(null);
+        assertTrue(dictionary.resolve(order));
+        assertSame(dictionary.symbol(1), order.getStockSymbol());
+        assertEquals("CLIENT9", order.getClientId());
+
+        order.setClientId(null);
+        order.setClientCode(5);
+        assertFalse(dictionary.resolve(order));
+    }
+}
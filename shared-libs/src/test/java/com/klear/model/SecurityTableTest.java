@@ -0,0 +1,98 @@
+package com.klear.model;
+
+import com.klear.model.reference.SecuritiesMaster;
+import com.klear.model.reference.Security;
+import com.klear.model.reference.SecurityStatus;
+import com.klear.model.reference.SecurityTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SecurityTableTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testFindsRecordsBySymbol() throws Exception {
+        Path file = dir.resolve("securities.bin");
+        SecurityTable.write(file, List.of(
+                new Security("MSFT", 1, 1, 2, SecurityStatus.TRADING, 2),
+                new Security("BRK.A", 1, 1, 0, SecurityStatus.TRADING, 2),
+                new Security("AAPL", 100, 5, 2, SecurityStatus.HALTED, 1),
+                new Security("AAP", 10, 1, 2, SecurityStatus.TRADING, 2)));
+
+        SecurityTable table = SecurityTable.open(file);
+        assertEquals(4, table.size());
+        int aapl = table.find("AAPL");
+        assertEquals("AAPL", table.symbol(aapl));
+        assertEquals(100, table.lotSize(aapl));
+        assertEquals(5, table.tickSize(aapl));
+        assertEquals(2, table.priceScale(aapl));
+        assertEquals(SecurityStatus.HALTED, table.status(aapl));
+        assertEquals(1, table.settlementDays(aapl));
+        assertEquals(10, table.lotSize(table.find("AAP")));
+        assertEquals(0, table.priceScale(table.find("BRK.A")));
+        assertEquals(-1, table.find("AAPLX"));
+        assertEquals(-1, table.find("A"));
+        assertEquals(-1, table.find("ZZZZ"));
+        assertEquals(-1, table.find(null));
+
+        // 150.05 is on a 0.05 tick, 150.03 is not; prices at other scales are compared exactly
+        assertTrue(table.isOnTick(aapl, 15005, 2));
+        assertFalse(table.isOnTick(aapl, 15003, 2));
+        assertTrue(table.isOnTick(aapl, 150050, 3));
+        assertFalse(table.isOnTick(aapl, 150051, 3));
+        assertTrue(table.isOnTick(aapl, 150, 0));
+
+        assertThrows(IllegalArgumentException.class, () -> SecurityTable.write(file,
+                List.of(new Security("THIS.SYMBOL.IS.TOO.LONG", 1, 1, 2, SecurityStatus.TRADING, 2))));
+    }
+
+    @Test
+    void testRejectsDamagedFile() throws Exception {
+        Path file = dir.resolve("securities.bin");
+        SecurityTable.write(file, List.of(new Security("AAPL", 100, 1, 2, SecurityStatus.TRADING, 2)));
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(32 + 16);
+            raf.write(7);
+        }
+        assertThrows(IOException.class, () -> SecurityTable.open(file));
+
+        Files.write(file, new byte[40]);
+        assertThrows(IOException.class, () -> SecurityTable.open(file));
+    }
+
+    @Test
+    void testReloadSwapsTableAndKeepsOldOneReadable() throws Exception {
+        Path file = dir.resolve("securities.bin");
+        List<Security> securities = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            securities.add(new Security("SYM" + i, 100, 1, 2, SecurityStatus.TRADING, 2));
+        }
+        SecurityTable.write(file, securities);
+        SecuritiesMaster master = SecuritiesMaster.open(file);
+        SecurityTable before = master.current();
+
+        securities.set(42, new Security("SYM42", 100, 1, 2, SecurityStatus.HALTED, 2));
+        SecurityTable.write(file, securities);
+        master.load(file);
+
+        assertNotSame(before, master.current());
+        assertEquals(SecurityStatus.TRADING, before.status(before.find("SYM42")));
+        assertEquals(SecurityStatus.HALTED, master.current().status(master.current().find("SYM42")));
+
+        // A bad file leaves the current table in place
+        Files.write(file, new byte[8]);
+        assertThrows(IOException.class, () -> master.load(file));
+        assertEquals(1000, master.current().size());
+    }
+}
@@ -0,0 +1,50 @@
+package com.klear.tracing;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TraceContextTest {
+
+    private static final String TRACEPARENT = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+
+    @Test
+    void testParseAndFormatRoundTrip() {
+        TraceContext context = TraceContext.parse(TRACEPARENT);
+
+        assertNotNull(context);
+        assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", context.getTraceId());
+        assertEquals("00f067aa0ba902b7", context.getSpanId());
+        assertTrue(context.isSampled());
+        assertEquals(TRACEPARENT, context.toTraceparent());
+    }
+
+    @Test
+    void testUnsampledFlag() {
+        TraceContext context = TraceContext.parse("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-00");
+
+        assertNotNull(context);
+        assertFalse(context.isSampled());
+    }
+
+    @Test
+    void testInvalidInputIsRejected() {
+        assertNull(TraceContext.parse(null));
+        assertNull(TraceContext.parse(""));
+        assertNull(TraceContext.parse("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7"));
+        assertNull(TraceContext.parse("00-4bf92f3577b34da6a3ce929d0e0e473x-00f067aa0ba902b7-01"));
+        assertNull(TraceContext.parse("00-00000000000000000000000000000000-00f067aa0ba902b7-01"));
+        assertNull(TraceContext.parse("00-4bf92f3577b34da6a3ce929d0e0e4736-0000000000000000-01"));
+    }
+
+    @Test
+    void testChildKeepsTraceIdWithNewSpanId() {
+        TraceContext root = TraceContext.newRoot(true);
+        TraceContext child = root.newChild();
+
+        assertEquals(root.getTraceId(), child.getTraceId());
+        assertNotEquals(root.getSpanId(), child.getSpanId());
+        assertTrue(child.isSampled());
+        assertEquals(child.toTraceparent(), TraceContext.parse(child.toTraceparent()).toTraceparent());
+    }
+}
@@ -0,0 +1,107 @@
+package com.klear.tracing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TracerTest {
+
+    private final List<Span> exported = new CopyOnWriteArrayList<>();
+    private final SpanExporter collectingExporter = (serviceName, spans) -> exported.addAll(spans);
+
+    @Test
+    void testNoopTracerRecordsNothing() {
+        Span span = Tracer.NOOP.startRootOrChild("root", null);
+
+        assertFalse(span.isRecording());
+        assertNull(span.getContext());
+        assertNull(Tracer.NOOP.extract("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01"));
+    }
+
+    @Test
+    void testZeroSampleRatioStartsNoTrace() {
+        Tracer tracer = Tracer.create("test", 0.0, collectingExporter);
+
+        Span span = tracer.startRootOrChild("root", null);
+        span.end();
+        tracer.shutdown();
+
+        assertFalse(span.isRecording());
+        assertTrue(exported.isEmpty());
+    }
+
+    @Test
+    void testChildSpansFollowParentAndExport() {
+        Tracer tracer = Tracer.create("test", 1.0, collectingExporter);
+
+        Span root = tracer.startRootOrChild("root", null);
+        Span child = tracer.startSpan("child", tracer.extract(root.getContext().toTraceparent()));
+        child.setAttribute("orderId", "ORDER-1");
+        child.end();
+        root.end();
+        tracer.shutdown();
+
+        assertEquals(2, exported.size());
+        Span exportedChild = exported.get(0);
+        assertEquals("child", exportedChild.getName());
+        assertEquals(root.getContext().getTraceId(), exportedChild.getContext().getTraceId());
+        assertEquals(root.getContext().getSpanId(), exportedChild.getParentSpanId());
+        assertEquals("ORDER-1", exportedChild.getAttributes().get("orderId"));
+        assertTrue(exportedChild.getEndEpochNanos() >= exportedChild.getStartEpochNanos());
+        assertNull(exported.get(1).getParentSpanId());
+    }
+
+    @Test
+    void testUnsampledParentPropagatesWithoutRecording() {
+        Tracer tracer = Tracer.create("test", 1.0, collectingExporter);
+        TraceContext unsampled = TraceContext.newRoot(false);
+
+        Span span = tracer.startRootOrChild("child", unsampled);
+        span.end();
+        tracer.shutdown();
+
+        assertFalse(span.isRecording());
+        assertSame(unsampled, span.getContext());
+        assertTrue(exported.isEmpty());
+    }
+
+    @Test
+    void testCurrentContextIsRestored() {
+        TraceContext context = TraceContext.newRoot(true);
+
+        TraceContext previous = Tracer.makeCurrent(context);
+        assertSame(context, Tracer.currentContext());
+        Tracer.makeCurrent(previous);
+
+        assertNull(Tracer.currentContext());
+    }
+
+    @Test
+    void testFileExporterWritesOtlpJsonLines(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("traces.jsonl");
+        Tracer tracer = Tracer.create("AccountService", 1.0, "file", file.toString(), null);
+
+        Span span = tracer.startRootOrChild("AccountService.process", null);
+        span.setAttribute("status", "VALIDATED");
+        span.end();
+        tracer.shutdown();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(1, lines.size());
+        JsonNode resourceSpans = new ObjectMapper().readTree(lines.get(0)).get("resourceSpans").get(0);
+        assertEquals("AccountService",
+                resourceSpans.get("resource").get("attributes").get(0).get("value").get("stringValue").asText());
+        JsonNode otlpSpan = resourceSpans.get("scopeSpans").get(0).get("spans").get(0);
+        assertEquals(span.getContext().getTraceId(), otlpSpan.get("traceId").asText());
+        assertEquals("AccountService.process", otlpSpan.get("name").asText());
+        assertEquals("VALIDATED", otlpSpan.get("attributes").get(0).get("value").get("stringValue").asText());
+    }
+}
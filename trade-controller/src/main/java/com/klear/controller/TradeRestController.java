@@ -1,12 +1,22 @@
 package com.klear.controller;
 
+import com.klear.communication.core.ServiceClientMessageTypes;
+import com.klear.logging.HotPathLog;
+import com.klear.model.analytics.AnalyticsSnapshot;
 import com.klear.model.order.Order;
 import com.klear.model.order.OrderStatus;
+import com.klear.model.query.TradePage;
+import com.klear.model.query.TradeQuery;
 import com.klear.services.TradeServiceClientInterface;
 import com.klear.trade.service.client.TradeServiceClient;
+import com.klear.tracing.TraceContext;
+import com.klear.tracing.Tracer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -21,29 +31,61 @@ public class TradeRestController {
     private final ApplicationContext applicationContext;
     private final TradeServiceClientInterface tradeServiceClientInterface;
 
+    @Value("${logging_mode:standard}")
+    private String loggingMode;
+
+    @Value("${logging_sample_per_second:10}")
+    private int loggingSamplePerSecond;
+
+    @Value("${logging_audit_dir:audit}")
+    private String loggingAuditDir;
+
+    private HotPathLog hotPathLog = HotPathLog.STANDARD;
+
     @Autowired
     public TradeRestController(ApplicationContext applicationContext) {
         this.applicationContext = applicationContext;
         this.tradeServiceClientInterface = applicationContext.getBean(TradeServiceClient.class);
     }
 
+    @PostConstruct
+    public void init() {
+        this.hotPathLog = HotPathLog.create("TradeController", loggingMode, loggingSamplePerSecond, loggingAuditDir);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hotPathLog.close();
+    }
+
     /**
      * API endpoint to submit a trade order.
      *
      * @param order The trade order details (client ID, stock symbol, quantity, and price).
+     * @param traceparent Optional W3C trace context of the caller; the order's trace continues it.
      * @return Response with the unique order ID.
      */
     @PostMapping("/submit")
-    public ResponseEntity<String> submitOrder(@RequestBody Order order) {
-        log.info("Received order submission: clientId={} symbol={} qty={} price={}",
-                order.getClientId(), order.getStockSymbol(), order.getQuantity(), order.getPrice());
+    public ResponseEntity<String> submitOrder(@RequestBody Order order,
+                                              @RequestHeader(value = "traceparent", required = false) String traceparent) {
+        boolean logRequest = hotPathLog.shouldLog(ServiceClientMessageTypes.ORDER_SUBMIT);
+        if (logRequest) {
+            log.info("Received order submission: clientId={} symbol={} qty={} price={}",
+                    order.getClientId(), order.getStockSymbol(), order.getQuantity(), order.getPrice());
+        }
+        TraceContext previous = Tracer.makeCurrent(TraceContext.parse(traceparent));
         try {
             String orderId = tradeServiceClientInterface.submitOrder(order);
-            log.info("Order submitted successfully: orderId={}", orderId);
+            if (logRequest) {
+                log.info("Order submitted successfully: orderId={}", orderId);
+            }
+            hotPathLog.audit(orderId, OrderStatus.UNKNOWN, null);
             return ResponseEntity.status(HttpStatus.CREATED).body("Order submitted successfully. Order ID: " + orderId);
         } catch (Exception e) {
             log.error("Order submission failed", e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Order submission failed: " + e.getMessage());
+        } finally {
+            Tracer.makeCurrent(previous);
         }
     }
 
@@ -55,9 +97,14 @@ public class TradeRestController {
      */
     @GetMapping("/{orderId}/status")
     public ResponseEntity<String> getOrderStatus(@PathVariable String orderId) {
-        log.info("Status request: orderId={}", orderId);
+        boolean logRequest = hotPathLog.shouldLog(ServiceClientMessageTypes.ORDER_STATUS);
+        if (logRequest) {
+            log.info("Status request: orderId={}", orderId);
+        }
         OrderStatus status = tradeServiceClientInterface.getOrderStatus(orderId);
-        log.info("Status response: orderId={} status={}", orderId, status);
+        if (logRequest) {
+            log.info("Status response: orderId={} status={}", orderId, status);
+        }
 
         if (status == OrderStatus.UNKNOWN) {
             log.warn("Order not found: orderId={}", orderId);
@@ -71,4 +118,71 @@ public class TradeRestController {
 
         return ResponseEntity.ok("Order Status: " + status.name());
     }
+
+    /**
+     * API endpoint to search trades, one page at a time. Every parameter is optional.
+     *
+     * @param clientId Only this client's trades.
+     * @param symbol Only trades in this stock symbol.
+     * @param status Only trades at this status.
+     * @param failureStage Only trades that failed at this stage, e.g. CLEARING.
+     * @param open Only trades not yet settled or failed.
+     * @param since Only trades submitted at or after this epoch-millisecond time.
+     * @param until Only trades submitted at or before this epoch-millisecond time.
+     * @param after The cursor returned with the previous page.
+     * @param limit Page size, at most 1000.
+     * @return Response with the page of trades and the cursor for the next one, 0 when there is none.
+     */
+    @GetMapping
+    public ResponseEntity<TradePage> queryTrades(@RequestParam(required = false) String clientId,
+                                                 @RequestParam(required = false) String symbol,
+                                                 @RequestParam(required = false) OrderStatus status,
+                                                 @RequestParam(required = false) String failureStage,
+                                                 @RequestParam(defaultValue = "false") boolean open,
+                                                 @RequestParam(defaultValue = "0") long since,
+                                                 @RequestParam(defaultValue = "0") long until,
+                                                 @RequestParam(defaultValue = "0") long after,
+                                                 @RequestParam(defaultValue = "100") int limit) {
+        TradeQuery query = new TradeQuery();
+        query.setClientId(clientId);
+        query.setStockSymbol(symbol);
+        query.setStatus(status);
+        query.setFailureStage(failureStage);
+        query.setOpen(open);
+        query.setSinceMillis(since);
+        query.setUntilMillis(until);
+        query.setAfter(after);
+        query.setLimit(Math.max(1, Math.min(limit, TradeQuery.MAX_LIMIT)));
+        TradePage page = tradeServiceClientInterface.queryTrades(query);
+        if (page == null) {
+            page = new TradePage();
+        }
+        if (hotPathLog.shouldLog(ServiceClientMessageTypes.TRADE_QUERY)) {
+            log.info("Trade query: clientId={} symbol={} status={} failureStage={} open={} trades={}",
+                    clientId, symbol, status, failureStage, open, page.getTrades().size());
+        }
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * API endpoint for live trading figures per symbol and per client: fills, volume, notional,
+     * VWAP and failure rate, in total, over the last complete window and over a sliding window.
+     *
+     * @param symbol Only this stock symbol's figures.
+     * @param clientId Only this client's figures.
+     * @return Response with the figures as of now.
+     */
+    @GetMapping("/analytics")
+    public ResponseEntity<AnalyticsSnapshot> getAnalytics(@RequestParam(required = false) String symbol,
+                                                          @RequestParam(required = false) String clientId) {
+        AnalyticsSnapshot snapshot = tradeServiceClientInterface.getAnalytics(symbol, clientId);
+        if (snapshot == null) {
+            snapshot = new AnalyticsSnapshot();
+        }
+        if (hotPathLog.shouldLog(ServiceClientMessageTypes.ANALYTICS)) {
+            log.info("Analytics request: symbol={} clientId={} symbols={} clients={}",
+                    symbol, clientId, snapshot.getSymbols().size(), snapshot.getClients().size());
+        }
+        return ResponseEntity.ok(snapshot);
+    }
 }
@@ -2,10 +2,18 @@ package com.klear.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.klear.TradeRestControllerApplication;
+import com.klear.model.analytics.AnalyticsSnapshot;
+import com.klear.model.analytics.TradeStats;
+import com.klear.model.analytics.WindowStats;
 import com.klear.model.order.Order;
 import com.klear.model.order.OrderStatus;
+import com.klear.model.query.TradePage;
+import com.klear.model.query.TradeQuery;
+import com.klear.model.trade.Trade;
 import com.klear.services.TradeServiceClientInterface;
 import com.klear.trade.service.client.TradeServiceClient;
+import com.klear.tracing.TraceContext;
+import com.klear.tracing.Tracer;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -14,6 +22,12 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -46,6 +60,24 @@ class TradeRestControllerTest {
         verify(tradeServiceClient).submitOrder(any(Order.class));
     }
 
+    @Test
+    void testSubmitOrder_TraceparentIsCurrentDuringSubmit() throws Exception {
+        String traceparent = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+        AtomicReference<TraceContext> seen = new AtomicReference<>();
+        when(tradeServiceClient.submitOrder(any(Order.class))).thenAnswer(invocation -> {
+            seen.set(Tracer.currentContext());
+            return "ORDER-123";
+        });
+
+        mockMvc.perform(post("/api/trades/submit")
+                .header("traceparent", traceparent)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createTestOrder())))
+                .andExpect(status().isCreated());
+
+        assertEquals(traceparent, seen.get().toTraceparent());
+    }
+
     @Test
     void testSubmitOrder_Failure() throws Exception {
         Order order = createTestOrder();
@@ -97,6 +129,51 @@ class TradeRestControllerTest {
         }
     }
 
+    @Test
+    void testQueryTrades_PassesFiltersAndReturnsPage() throws Exception {
+        AtomicReference<TradeQuery> seen = new AtomicReference<>();
+        when(tradeServiceClient.queryTrades(any(TradeQuery.class))).thenAnswer(invocation -> {
+            seen.set(invocation.getArgument(0));
+            return new TradePage(List.of(new Trade("ORDER-123", createTestOrder(), OrderStatus.FAILED)), 7);
+        });
+
+        mockMvc.perform(get("/api/trades")
+                .param("clientId", "CLIENT123")
+                .param("status", "FAILED")
+                .param("failureStage", "CLEARING")
+                .param("since", "1000")
+                .param("after", "3")
+                .param("limit", "5000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.trades[0].orderId").value("ORDER-123"))
+                .andExpect(jsonPath("$.nextCursor").value(7));
+
+        TradeQuery query = seen.get();
+        assertEquals("CLIENT123", query.getClientId());
+        assertEquals(OrderStatus.FAILED, query.getStatus());
+        assertEquals("CLEARING", query.getFailureStage());
+        assertEquals(1000, query.getSinceMillis());
+        assertEquals(3, query.getAfter());
+        assertEquals(TradeQuery.MAX_LIMIT, query.getLimit());
+    }
+
+    @Test
+    void testGetAnalytics_PassesFiltersToTradeService() throws Exception {
+        WindowStats window = new WindowStats(2, 300, 45300.0, 1, 1);
+        TradeStats stats = new TradeStats(window, new WindowStats(), window);
+        Map<String, TradeStats> symbols = new TreeMap<>(Map.of("AAPL", stats));
+        Map<String, TradeStats> clients = new TreeMap<>(Map.of("CLIENT123", stats));
+        when(tradeServiceClient.getAnalytics("AAPL", null))
+                .thenReturn(new AnalyticsSnapshot(120000, 60000, 300000, symbols, clients));
+
+        mockMvc.perform(get("/api/trades/analytics").param("symbol", "AAPL"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.symbols.AAPL.total.vwap").value(151.0))
+                .andExpect(jsonPath("$.symbols.AAPL.sliding.failureRate").value(0.5))
+                .andExpect(jsonPath("$.clients.CLIENT123.total.fills").value(2));
+        verify(tradeServiceClient).getAnalytics("AAPL", null);
+    }
+
     private Order createTestOrder() {
         Order order = new Order();
         order.setClientId("CLIENT123");
@@ -1,9 +1,14 @@
 package com.klear.services;
 
+import com.klear.model.analytics.AnalyticsSnapshot;
 import com.klear.model.order.Order;
 import com.klear.model.order.OrderStatus;
+import com.klear.model.query.TradePage;
+import com.klear.model.query.TradeQuery;
 
 public interface TradeServiceClientInterface {
     String submitOrder(Order order);
     OrderStatus getOrderStatus(String orderId);
+    TradePage queryTrades(TradeQuery query);
+    AnalyticsSnapshot getAnalytics(String symbol, String clientId);
 }
@@ -1,5 +1,6 @@
 package com.klear.services;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.klear.communication.core.ServiceClientMessageTypes;
 
 /**
@@ -11,6 +12,10 @@ public class TradeServiceClientMessage {
     private String returnChannel;
     private Object payload;
 
+    /** W3C traceparent of the sending span; absent when tracing is off. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String traceParent;
+
     public TradeServiceClientMessage() {
     }
 
@@ -43,4 +48,12 @@ public class TradeServiceClientMessage {
     public void setPayload(Object payload) {
         this.payload = payload;
     }
-}
\ No newline at end of file
+
+    public String getTraceParent() {
+        return traceParent;
+    }
+
+    public void setTraceParent(String traceParent) {
+        this.traceParent = traceParent;
+    }
+}
@@ -0,0 +1,230 @@
+package com.klear.trade.analytics;
+
+import com.klear.model.analytics.AnalyticsSnapshot;
+import com.klear.model.analytics.TradeStats;
+import com.klear.model.analytics.WindowStats;
+import com.klear.model.order.Order;
+import com.klear.model.trade.Trade;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streaming per-symbol and per-client aggregates of fills, volume, notional, settlements
+ * and failures. Each symbol and client keeps running totals and a ring of tumbling
+ * windows of {@code bucketMillis}; the sliding window is the sum of the latest
+ * {@code windowBuckets} of them, the one in progress included.
+ *
+ * Every count is a {@link LongAdder} or {@link DoubleAdder}, which spread concurrent
+ * updates over striped cells, so callback threads recording the same symbol do not
+ * contend on one field. A window's counters are replaced, not cleared, when the ring
+ * comes round to it: the first update of a new window swaps in fresh counters with a
+ * compare-and-set, so no update can land in counters that are being reset. An update
+ * that arrives after its window has left the ring only counts toward the totals.
+ *
+ * A snapshot sums the cells while updates continue, so each figure is exact for some
+ * moment during the snapshot but figures may be from slightly different moments.
+ */
+public final class TradeAnalytics {
+
+    private final long bucketMillis;
+    private final int windowBuckets;
+    private final ConcurrentMap<String, Aggregate> bySymbol = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Aggregate> byClient = new ConcurrentHashMap<>();
+
+    public TradeAnalytics(long bucketMillis, int windowBuckets) {
+        if (bucketMillis <= 0 || windowBuckets <= 0) {
+            throw new IllegalArgumentException("Window and bucket count must be positive");
+        }
+        this.bucketMillis = bucketMillis;
+        this.windowBuckets = windowBuckets;
+    }
+
+    /**
+     * Records an executed trade's fill for its symbol and client.
+     */
+    public void recordExecution(Trade trade, long nowMillis) {
+        Order order = trade.getOrder();
+        if (order == null) {
+            return;
+        }
+        long bucket = nowMillis / bucketMillis;
+        int quantity = trade.getExecutedQuantity();
+        double notional = trade.getExecutedPrice() * quantity;
+        fill(aggregate(bySymbol, order.getStockSymbol()), bucket, quantity, notional);
+        fill(aggregate(byClient, order.getClientId()), bucket, quantity, notional);
+    }
+
+    /**
+     * Records an order that settled.
+     */
+    public void recordSettlement(Trade trade, long nowMillis) {
+        recordFinished(trade, nowMillis, true);
+    }
+
+    /**
+     * Records an order that failed, at any stage.
+     */
+    public void recordFailure(Trade trade, long nowMillis) {
+        recordFinished(trade, nowMillis, false);
+    }
+
+    private void recordFinished(Trade trade, long nowMillis, boolean settled) {
+        Order order = trade.getOrder();
+        if (order == null) {
+            return;
+        }
+        long bucket = nowMillis / bucketMillis;
+        finish(aggregate(bySymbol, order.getStockSymbol()), bucket, settled);
+        finish(aggregate(byClient, order.getClientId()), bucket, settled);
+    }
+
+    private static void fill(Aggregate aggregate, long bucket, int quantity, double notional) {
+        if (aggregate == null) {
+            return;
+        }
+        aggregate.total.fill(quantity, notional);
+        Counters window = aggregate.window(bucket);
+        if (window != null) {
+            window.fill(quantity, notional);
+        }
+    }
+
+    private static void finish(Aggregate aggregate, long bucket, boolean settled) {
+        if (aggregate == null) {
+            return;
+        }
+        aggregate.total.finish(settled);
+        Counters window = aggregate.window(bucket);
+        if (window != null) {
+            window.finish(settled);
+        }
+    }
+
+    /**
+     * Every symbol's and client's figures as of {@code nowMillis}, in name order.
+     */
+    public AnalyticsSnapshot snapshot(long nowMillis) {
+        return snapshot(nowMillis, null, null);
+    }
+
+    /**
+     * The figures as of {@code nowMillis} for {@code symbol} and {@code clientId}; a null
+     * name returns every symbol or client. Only the figures returned are summed.
+     */
+    public AnalyticsSnapshot snapshot(long nowMillis, String symbol, String clientId) {
+        long bucket = nowMillis / bucketMillis;
+        return new AnalyticsSnapshot(nowMillis, bucketMillis, bucketMillis * windowBuckets,
+                stats(bySymbol, symbol, bucket), stats(byClient, clientId, bucket));
+    }
+
+    private Aggregate aggregate(ConcurrentMap<String, Aggregate> aggregates, String key) {
+        if (key == null) {
+            return null;
+        }
+        Aggregate aggregate = aggregates.get(key);
+        return aggregate != null ? aggregate : aggregates.computeIfAbsent(key, k -> new Aggregate(windowBuckets));
+    }
+
+    private Map<String, TradeStats> stats(ConcurrentMap<String, Aggregate> aggregates, String key, long bucket) {
+        Map<String, TradeStats> stats = new TreeMap<>();
+        if (key != null) {
+            Aggregate aggregate = aggregates.get(key);
+            if (aggregate != null) {
+                stats.put(key, stats(aggregate, bucket));
+            }
+            return stats;
+        }
+        for (Map.Entry<String, Aggregate> entry : aggregates.entrySet()) {
+            stats.put(entry.getKey(), stats(entry.getValue(), bucket));
+        }
+        return stats;
+    }
+
+    private TradeStats stats(Aggregate aggregate, long bucket) {
+        WindowStats sliding = new WindowStats();
+        WindowStats lastWindow = new WindowStats();
+        for (int i = 0; i < aggregate.ring.length(); i++) {
+            Counters window = aggregate.ring.get(i);
+            if (window == null) {
+                continue;
+            }
+            if (window.bucket > bucket - windowBuckets && window.bucket <= bucket) {
+                window.addTo(sliding);
+            }
+            if (window.bucket == bucket - 1) {
+                window.addTo(lastWindow);
+            }
+        }
+        WindowStats total = new WindowStats();
+        aggregate.total.addTo(total);
+        return new TradeStats(total, lastWindow, sliding);
+    }
+
+    private static final class Aggregate {
+        private final Counters total = new Counters(Long.MIN_VALUE);
+        // Slot i holds the counters of the latest bucket b seen with b mod length == i
+        private final AtomicReferenceArray<Counters> ring;
+
+        Aggregate(int windowBuckets) {
+            // One more slot than the sliding window so the last complete window survives it
+            this.ring = new AtomicReferenceArray<>(windowBuckets + 1);
+        }
+
+        /**
+         * The counters of {@code bucket}, or null if the ring has moved past it.
+         */
+        Counters window(long bucket) {
+            int slot = (int) Math.floorMod(bucket, (long) ring.length());
+            while (true) {
+                Counters current = ring.get(slot);
+                if (current != null && current.bucket == bucket) {
+                    return current;
+                }
+                if (current != null && current.bucket > bucket) {
+                    return null;
+                }
+                Counters fresh = new Counters(bucket);
+                if (ring.compareAndSet(slot, current, fresh)) {
+                    return fresh;
+                }
+            }
+        }
+    }
+
+    private static final class Counters {
+        private final long bucket;
+        private final LongAdder fills = new LongAdder();
+        private final LongAdder volume = new LongAdder();
+        private final DoubleAdder notional = new DoubleAdder();
+        private final LongAdder settled = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+
+        Counters(long bucket) {
+            this.bucket = bucket;
+        }
+
+        void fill(int quantity, double amount) {
+            fills.increment();
+            volume.add(quantity);
+            notional.add(amount);
+        }
+
+        void finish(boolean settled) {
+            (settled ? this.settled : failed).increment();
+        }
+
+        void addTo(WindowStats stats) {
+            stats.setFills(stats.getFills() + fills.sum());
+            stats.setVolume(stats.getVolume() + volume.sum());
+            stats.setNotional(stats.getNotional() + notional.sum());
+            stats.setSettled(stats.getSettled() + settled.sum());
+            stats.setFailed(stats.getFailed() + failed.sum());
+        }
+    }
+}
@@ -7,14 +7,30 @@ import com.klear.communication.client.ClearingServiceClient;
 import com.klear.communication.client.ExecutionServiceClient;
 import com.klear.communication.client.SettlementServiceClient;
 import com.klear.communication.core.JedisPubSubAsync;
+import com.klear.logging.HotPathLog;
+import com.klear.model.analytics.AnalyticsQuery;
+import com.klear.model.analytics.AnalyticsSnapshot;
 import com.klear.model.order.Order;
 import com.klear.model.order.OrderStatus;
+import com.klear.model.price.FixedPoint;
+import com.klear.model.price.PriceScales;
+import com.klear.model.query.TradePage;
+import com.klear.model.query.TradeQuery;
+import com.klear.model.reference.ReferenceDictionary;
 import com.klear.model.response.SettlementResponse;
 import com.klear.model.trade.Trade;
 import com.klear.communication.core.ServiceClientCallback;
+import com.klear.communication.core.ServiceClientInterface;
 import com.klear.services.TradeServiceCallbackHandler;
 import com.klear.services.TradeServiceClientInterface;
 import com.klear.services.TradeServiceClientMessage;
+import com.klear.tracing.Span;
+import com.klear.tracing.TraceContext;
+import com.klear.tracing.Tracer;
+import com.klear.trade.analytics.TradeAnalytics;
+import com.klear.trade.state.TradeIndex;
+import com.klear.trade.state.TradeSnapshot;
+import com.klear.trade.timer.HashedWheelTimer;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,12 +43,18 @@ import redis.clients.jedis.JedisPubSub;
 
 import jakarta.annotation.PreDestroy;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class TradeService
@@ -55,7 +77,14 @@ public class TradeService
     @Autowired
     private SettlementServiceClient settlementServiceClient;
 
-    private final Map<String, Trade> concurrentTradeStatusMap = new ConcurrentHashMap<>();
+    // Each order's latest snapshot, replaced only by compare-and-set in advance()
+    private final ConcurrentMap<String, TradeSnapshot> concurrentTradeStatusMap = new ConcurrentHashMap<>();
+
+    // Numbers orders in submission order, from 1
+    private final AtomicLong submissions = new AtomicLong();
+
+    // Epoch-millisecond deadlines of in-flight orders that have one
+    private final Map<String, Long> deadlines = new ConcurrentHashMap<>();
 
     private final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -74,6 +103,91 @@ public class TradeService
     @Value("${trade_service_channel_name}")
     private String channelName;
 
+    @Value("${tracing_sample_ratio:0.0}")
+    private double tracingSampleRatio;
+
+    @Value("${tracing_exporter:none}")
+    private String tracingExporter;
+
+    @Value("${tracing_file:traces.jsonl}")
+    private String tracingFile;
+
+    @Value("${tracing_otlp_endpoint:http://localhost:4318/v1/traces}")
+    private String tracingOtlpEndpoint;
+
+    private Tracer tracer = Tracer.NOOP;
+
+    @Value("${account_ledger_enabled:false}")
+    private boolean accountLedgerEnabled;
+
+    @Value("${price_fixed_point_enabled:false}")
+    private boolean fixedPointEnabled;
+
+    @Value("${price_scales:}")
+    private String priceScalesSpec;
+
+    @Value("${price_default_scale:2}")
+    private int priceDefaultScale;
+
+    // Null unless prices are fixed-point
+    private PriceScales priceScales;
+
+    @Value("${reference_dictionary_file:}")
+    private String referenceDictionaryFile;
+
+    // Null unless client and symbol names travel as reference codes
+    private ReferenceDictionary dictionary;
+
+    @Value("${order_timeout_ms:0}")
+    private long orderTimeoutMs;
+
+    @Value("${stage_timeout_ms:0}")
+    private long stageTimeoutMs;
+
+    @Value("${stage_timeout_retries:0}")
+    private int stageTimeoutRetries;
+
+    @Value("${stage_timeout_tick_ms:10}")
+    private long stageTimeoutTickMs;
+
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    // Null unless stage timeouts are enabled; tags are the status sent at and the attempt
+    private HashedWheelTimer stageTimer;
+    private ScheduledExecutorService stageTimerExecutor;
+
+    @Value("${trade_index_enabled:false}")
+    private boolean tradeIndexEnabled;
+
+    @Value("${trade_index_bucket_ms:60000}")
+    private long tradeIndexBucketMs;
+
+    // Null unless trades are indexed for queries
+    private TradeIndex tradeIndex;
+
+    @Value("${analytics_enabled:false}")
+    private boolean analyticsEnabled;
+
+    @Value("${analytics_window_ms:60000}")
+    private long analyticsWindowMs;
+
+    @Value("${analytics_sliding_windows:5}")
+    private int analyticsSlidingWindows;
+
+    // Null unless per-symbol and per-client analytics are kept
+    private TradeAnalytics analytics;
+
+    @Value("${logging_mode:standard}")
+    private String loggingMode;
+
+    @Value("${logging_sample_per_second:10}")
+    private int loggingSamplePerSecond;
+
+    @Value("${logging_audit_dir:audit}")
+    private String loggingAuditDir;
+
+    private HotPathLog hotPathLog = HotPathLog.STANDARD;
+
     private Jedis jedisPub = null;
     private Jedis jedisSub = null;
     private JedisPubSub subscriber = null;
@@ -95,6 +209,34 @@ public class TradeService
         this.settlementServiceClient = applicationContext.getBean(SettlementServiceClient.class);
         this.settlementServiceClient.setTradeServiceCallbackHandler(this);
 
+        this.tracer = Tracer.create("TradeService", tracingSampleRatio, tracingExporter,
+                tracingFile, tracingOtlpEndpoint);
+        this.hotPathLog = HotPathLog.create("TradeService", loggingMode, loggingSamplePerSecond, loggingAuditDir);
+        if (fixedPointEnabled) {
+            enableFixedPointPrices(PriceScales.parse(priceScalesSpec, priceDefaultScale));
+        }
+        if (!referenceDictionaryFile.isEmpty()) {
+            try {
+                ReferenceDictionary loaded = ReferenceDictionary.load(Path.of(referenceDictionaryFile));
+                log.info("Loaded reference dictionary {}: {} symbols, {} clients, fingerprint {}",
+                        referenceDictionaryFile, loaded.symbolCount(), loaded.clientCount(),
+                        Long.toHexString(loaded.fingerprint()));
+                enableReferenceDictionary(loaded);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot load reference dictionary " + referenceDictionaryFile, e);
+            }
+        }
+
+        if (stageTimeoutMs > 0) {
+            startStageTimeouts();
+        }
+        if (tradeIndexEnabled) {
+            enableTradeIndex(tradeIndexBucketMs);
+        }
+        if (analyticsEnabled) {
+            enableAnalytics(new TradeAnalytics(analyticsWindowMs, analyticsSlidingWindows));
+        }
+
         this.outChannelName = this.channelName + "_OUT";
         if (this.jedisPub == null) {
             this.jedisPub = new Jedis(ipAddress, port);
@@ -121,12 +263,43 @@ public class TradeService
      * @return The current status of the order.
      */
     public OrderStatus getOrderStatus(String orderId) {
-        Trade trade = concurrentTradeStatusMap.getOrDefault(orderId, null);
-        if (trade == null) {
+        TradeSnapshot snapshot = concurrentTradeStatusMap.get(orderId);
+        if (snapshot == null) {
             return OrderStatus.UNKNOWN;
         }
-        log.debug("getOrderStatus: orderId={} status={}", orderId, trade.getStatus());
-        return trade.getStatus();
+        log.debug("getOrderStatus: orderId={} status={}", orderId, snapshot.getStatus());
+        return snapshot.getStatus();
+    }
+
+    /**
+     * Finds trades by client, symbol, status, failure stage and submission time, one page
+     * at a time. Returns an empty page unless trades are indexed.
+     *
+     * @param query The criteria, cursor and page size.
+     * @return The matching trades, in submission order.
+     */
+    public TradePage queryTrades(TradeQuery query) {
+        if (tradeIndex == null) {
+            log.warn("Trade query ignored: trade_index_enabled is false");
+            return new TradePage();
+        }
+        return tradeIndex.query(query);
+    }
+
+    /**
+     * Fills, volume, notional, VWAP and failure rates per symbol and per client. Returns an
+     * empty snapshot unless analytics are kept.
+     *
+     * @param symbol The symbol to return, or null for all of them.
+     * @param clientId The client to return, or null for all of them.
+     * @return The figures as of now.
+     */
+    public AnalyticsSnapshot getAnalytics(String symbol, String clientId) {
+        if (analytics == null) {
+            log.warn("Analytics request ignored: analytics_enabled is false");
+            return new AnalyticsSnapshot();
+        }
+        return analytics.snapshot(System.currentTimeMillis(), symbol, clientId);
     }
 
     /**
@@ -138,24 +311,220 @@ public class TradeService
     public String submitOrder(Order order) {
         String orderId = UUID.randomUUID().toString();
         Trade trade = new Trade(orderId, order, OrderStatus.UNKNOWN);
+        long sequence = submissions.incrementAndGet();
+        long submittedMillis = System.currentTimeMillis();
+
+        // The trade is complete before it is published, and not modified after
+        if (priceScales != null && !toFixedPoint(order)) {
+            trade.setStatus(OrderStatus.FAILED);
+            trade.setFailureStage("VALIDATION");
+            trade.setFailureReason("Invalid price: " + order.getPrice() + " is not a multiple of the tick "
+                    + FixedPoint.toString(1, priceScales.scale(order.getStockSymbol())) + " for "
+                    + order.getStockSymbol());
+            publish(new TradeSnapshot(trade, sequence, submittedMillis));
+            if (analytics != null) {
+                analytics.recordFailure(trade, submittedMillis);
+            }
+            hotPathLog.audit(orderId, OrderStatus.FAILED, "VALIDATION");
+            return orderId;
+        }
+        if (dictionary != null) {
+            dictionary.encode(order);
+        }
+        publish(new TradeSnapshot(trade, sequence, submittedMillis));
+        long timeoutMs = order.getTimeoutMs() > 0 ? order.getTimeoutMs() : orderTimeoutMs;
+        if (timeoutMs > 0) {
+            deadlines.put(orderId, submittedMillis + timeoutMs);
+        }
+        sendToStage(accountServiceClient, trade);
 
-        concurrentTradeStatusMap.put(orderId, trade);
-        accountServiceClient.send(trade);
-
-        log.info("Order submitted: orderId={}", orderId);
+        if (hotPathLog.shouldLog(OrderStatus.UNKNOWN)) {
+            log.info("Order submitted: orderId={}", orderId);
+        }
+        hotPathLog.audit(orderId, OrderStatus.UNKNOWN, null);
         return orderId;
     }
 
+    private void publish(TradeSnapshot snapshot) {
+        concurrentTradeStatusMap.put(snapshot.getTrade().getOrderId(), snapshot);
+        if (tradeIndex != null) {
+            tradeIndex.add(snapshot);
+        }
+    }
+
+    /**
+     * Converts every submitted order's price to ticks at its symbol's scale, so that later
+     * stages compute in fixed point. Orders priced between ticks are failed on submission.
+     */
+    protected void enableFixedPointPrices(PriceScales priceScales) {
+        this.priceScales = priceScales;
+    }
+
+    /**
+     * Sends client IDs and symbols listed in {@code dictionary} to the stages as int codes
+     * only. The trades kept here, and so everything the REST API returns, keep the names.
+     */
+    protected void enableReferenceDictionary(ReferenceDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * The trade as sent to a stage: a copy without the names that have codes, when names
+     * travel as codes.
+     */
+    private Trade outbound(Trade trade) {
+        Order order = trade.getOrder();
+        if (dictionary == null || order == null || order.getClientCode() == 0 && order.getSymbolCode() == 0) {
+            return trade;
+        }
+        Trade copy = new Trade(trade);
+        if (order.getClientCode() != 0) {
+            copy.getOrder().setClientId(null);
+        }
+        if (order.getSymbolCode() != 0) {
+            copy.getOrder().setStockSymbol(null);
+        }
+        return copy;
+    }
+
+    /**
+     * Indexes every order by client, symbol, status and submission time, in buckets of
+     * {@code bucketMillis}, for {@link #queryTrades}. Orders submitted before this are not
+     * indexed.
+     */
+    protected void enableTradeIndex(long bucketMillis) {
+        this.tradeIndex = new TradeIndex(bucketMillis, orderId -> concurrentTradeStatusMap.get(orderId));
+    }
+
+    /**
+     * Feeds every execution, settlement and failure from here on to {@code analytics}.
+     */
+    protected void enableAnalytics(TradeAnalytics analytics) {
+        this.analytics = analytics;
+    }
+
+    /**
+     * Gives every trade sent to a stage {@code timeoutMs} to get a reply. When one does
+     * not, the trade is sent to the stage again, up to {@code retries} times, and then
+     * failed at that stage. A resend carries the original message ID, so a stage with a
+     * dedup window that did get the original sends its reply again rather than processing
+     * the trade twice; without one, retries suit only stages that can safely see a trade
+     * twice. {@link #expireStageTimeouts} fires the timers that are due.
+     */
+    protected void enableStageTimeouts(HashedWheelTimer timer, long timeoutMs, int retries) {
+        this.stageTimer = timer;
+        this.stageTimeoutMs = timeoutMs;
+        this.stageTimeoutRetries = retries;
+    }
+
+    /**
+     * Handles the stage timeouts due by {@code nowMillis}. Must always be called from the
+     * same thread.
+     */
+    protected void expireStageTimeouts(long nowMillis) {
+        stageTimer.advance(nowMillis, this::onStageTimeout);
+    }
+
+    private void startStageTimeouts() {
+        long tick = Math.max(1, stageTimeoutTickMs);
+        int wheelSize = (int) Math.min(1 << 20, stageTimeoutMs / tick + 1);
+        enableStageTimeouts(new HashedWheelTimer(tick, wheelSize, 1 << 16, System.currentTimeMillis()),
+                stageTimeoutMs, stageTimeoutRetries);
+        stageTimerExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "TradeService-stage-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        stageTimerExecutor.scheduleAtFixedRate(() -> expireStageTimeouts(System.currentTimeMillis()),
+                tick, tick, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * A stage has not replied in time if the trade is still at the status it was sent at;
+     * otherwise the reply has come and the timer is stale. An order the execution stage
+     * has acknowledged as resting in its book has had its reply too.
+     */
+    private void onStageTimeout(Object orderId, int tag) {
+        TradeSnapshot snapshot = concurrentTradeStatusMap.get(orderId);
+        OrderStatus sentAt = STATUSES[tag & 0xFF];
+        if (snapshot == null || snapshot.getStatus() != sentAt || snapshot.getTrade().isResting()) {
+            return;
+        }
+        int attempt = tag >>> 8;
+        if (attempt < stageTimeoutRetries) {
+            log.warn("No reply from {} stage within {} ms, resending: orderId={} attempt={}",
+                    stageFor(sentAt), stageTimeoutMs, orderId, attempt + 2);
+            sendToStage(clientFor(sentAt), snapshot.getTrade(), attempt + 1);
+            return;
+        }
+        Trade failure = new Trade((String) orderId, null, OrderStatus.FAILED);
+        failure.setFailureStage(stageFor(sentAt));
+        failure.setFailureReason("No reply from " + stageFor(sentAt) + " stage within " + stageTimeoutMs
+                + " ms after " + (attempt + 1) + (attempt == 0 ? " attempt" : " attempts"));
+        // Fails the order only if no reply has moved it on since it was read above
+        fail(failure, sentAt);
+    }
+
+    private ServiceClientInterface clientFor(OrderStatus sentAt) {
+        return switch (sentAt) {
+            case VALIDATED -> executionServiceClient;
+            case EXECUTED -> clearingServiceClient;
+            case CLEARED -> settlementServiceClient;
+            default -> accountServiceClient;
+        };
+    }
+
+    private static String stageFor(OrderStatus sentAt) {
+        return switch (sentAt) {
+            case VALIDATED -> "EXECUTION";
+            case EXECUTED -> "CLEARING";
+            case CLEARED -> "SETTLEMENT";
+            default -> "VALIDATION";
+        };
+    }
+
+    private void sendToStage(ServiceClientInterface client, Trade trade) {
+        sendToStage(client, trade, 0);
+    }
+
+    /**
+     * Sends an order on to its next stage with the order's deadline, if it has one, and
+     * starts its stage timer. Ledger settle and release messages go through
+     * {@link ServiceClientInterface#send(Trade)} instead, since they must be applied however
+     * late they are and expect no reply.
+     */
+    private void sendToStage(ServiceClientInterface client, Trade trade, int attempt) {
+        if (stageTimer != null) {
+            stageTimer.schedule(System.currentTimeMillis() + stageTimeoutMs, trade.getOrderId(),
+                    trade.getStatus().ordinal() | attempt << 8);
+        }
+        Long deadline = deadlines.get(trade.getOrderId());
+        if (deadline == null) {
+            client.send(outbound(trade));
+        } else {
+            client.send(outbound(trade), deadline);
+        }
+    }
+
+    private boolean toFixedPoint(Order order) {
+        int scale = priceScales.scale(order.getStockSymbol());
+        if (!FixedPoint.isWholeTicks(order.getPrice(), scale)) {
+            return false;
+        }
+        order.setPriceTicks(FixedPoint.toTicks(order.getPrice(), scale));
+        order.setPriceScale(scale);
+        return true;
+    }
+
     /**
      * Callback handler used to notify the TradeService that the Settlement service has Settled a Trade.
      *
      * @param settlementResponse The settlement response.
      */
     public void onSettlement(SettlementResponse settlementResponse) {
-        String orderId = settlementResponse.getOrderId();
-        Trade trade = concurrentTradeStatusMap.get(orderId);
-        trade.setSettlementMessage(settlementResponse.getMessage());
-        trade.setStatus(OrderStatus.SETTLED);
+        Trade reply = new Trade(settlementResponse.getOrderId(), null, OrderStatus.SETTLED);
+        reply.setSettlementMessage(settlementResponse.getMessage());
+        advance(reply, null);
     }
 
     @Override
@@ -167,11 +536,27 @@ public class TradeService
                     String jsonString = objectMapper.writeValueAsString(tradeServiceClientMessage.getPayload());
                     Order order = objectMapper.readValue(jsonString, Order.class);
                     String returnChannel = tradeServiceClientMessage.getReturnChannel();
-                    String orderId = submitOrder(order);
+                    // Head sampling: continue the caller's trace, or start one subject to the sample ratio
+                    TraceContext parent = tracer.extract(tradeServiceClientMessage.getTraceParent());
+                    Span span = tracer.startRootOrChild("TradeService.submitOrder", parent);
+                    TraceContext previous = Tracer.makeCurrent(span.getContext());
+                    String orderId;
+                    try {
+                        orderId = submitOrder(order);
+                    } finally {
+                        Tracer.makeCurrent(previous);
+                    }
+                    span.setAttribute("orderId", orderId);
+                    span.setAttribute("clientId", order.getClientId());
+                    span.setAttribute("stockSymbol", order.getStockSymbol());
+                    if (span.getContext() != null) {
+                        tradeServiceClientMessage.setTraceParent(span.getContext().toTraceparent());
+                    }
                     tradeServiceClientMessage.setReturnChannel("");
                     tradeServiceClientMessage.setPayload(orderId);
                     String response = objectMapper.writeValueAsString(tradeServiceClientMessage);
                     jedisPub.publish(returnChannel, response);
+                    span.end();
                 }
                 break;
                 case ORDER_STATUS: {
@@ -185,6 +570,32 @@ public class TradeService
                     jedisPub.publish(returnChannel, response);
                 }
                 break;
+                case TRADE_QUERY: {
+                    String jsonString = objectMapper.writeValueAsString(tradeServiceClientMessage.getPayload());
+                    TradeQuery query = objectMapper.readValue(jsonString, TradeQuery.class);
+                    String returnChannel = tradeServiceClientMessage.getReturnChannel();
+                    TradePage page = queryTrades(query);
+                    tradeServiceClientMessage.setReturnChannel("");
+                    tradeServiceClientMessage.setPayload(page);
+                    String response = objectMapper.writeValueAsString(tradeServiceClientMessage);
+                    jedisPub.publish(returnChannel, response);
+                }
+                break;
+                case ANALYTICS: {
+                    String jsonString = objectMapper.writeValueAsString(tradeServiceClientMessage.getPayload());
+                    AnalyticsQuery query = objectMapper.readValue(jsonString, AnalyticsQuery.class);
+                    if (query == null) {
+                        // Clients that predate the filters send no payload and want everything
+                        query = new AnalyticsQuery();
+                    }
+                    String returnChannel = tradeServiceClientMessage.getReturnChannel();
+                    AnalyticsSnapshot analyticsSnapshot = getAnalytics(query.getSymbol(), query.getClientId());
+                    tradeServiceClientMessage.setReturnChannel("");
+                    tradeServiceClientMessage.setPayload(analyticsSnapshot);
+                    String response = objectMapper.writeValueAsString(tradeServiceClientMessage);
+                    jedisPub.publish(returnChannel, response);
+                }
+                break;
             }
         } catch (JsonProcessingException e) {
             log.error("Failed to process callback message", e);
@@ -194,74 +605,221 @@ public class TradeService
 
     @Override
     public void onValidation(Trade trade) {
-        String orderId = trade.getOrderId();
-        Trade masterTrade = concurrentTradeStatusMap.get(orderId);
-        switch (trade.getStatus()) {
-            case VALIDATED: {
-                masterTrade.setStatus(OrderStatus.VALIDATED);
-                masterTrade.setValidationMessage(trade.getValidationMessage());
-                log.info("Trade validated: orderId={}", trade.getOrderId());
-                executionServiceClient.send(masterTrade);
+        Span span = startCallbackSpan("TradeService.onValidation", trade);
+        TraceContext previous = Tracer.makeCurrent(span.getContext());
+        try {
+            String orderId = trade.getOrderId();
+            switch (trade.getStatus()) {
+                case VALIDATED: {
+                    if (trade.isResting()) {
+                        rest(orderId);
+                        break;
+                    }
+                    TradeSnapshot snapshot = advance(trade, null);
+                    if (snapshot == null) {
+                        break;
+                    }
+                    if (hotPathLog.shouldLog(OrderStatus.VALIDATED)) {
+                        log.info("Trade validated: orderId={}", trade.getOrderId());
+                    }
+                    hotPathLog.audit(orderId, OrderStatus.VALIDATED, null);
+                    sendToStage(executionServiceClient, snapshot.getTrade());
+                }
             }
+        } finally {
+            Tracer.makeCurrent(previous);
+            span.end();
         }
     }
 
     @Override
     public void onExecution(Trade trade) {
-        String orderId = trade.getOrderId();
-        Trade masterTrade = concurrentTradeStatusMap.get(orderId);
-        switch (trade.getStatus()) {
-            case EXECUTED: {
-                masterTrade.setStatus(OrderStatus.EXECUTED);
-                masterTrade.setExecutedTimestamp(trade.getExecutedTimestamp());
-                masterTrade.setExecutedPrice(trade.getExecutedPrice());
-                log.info("Trade executed: orderId={}", trade.getOrderId());
-                clearingServiceClient.send(masterTrade);
+        Span span = startCallbackSpan("TradeService.onExecution", trade);
+        TraceContext previous = Tracer.makeCurrent(span.getContext());
+        try {
+            String orderId = trade.getOrderId();
+            switch (trade.getStatus()) {
+                case EXECUTED: {
+                    TradeSnapshot snapshot = advance(trade, null);
+                    if (snapshot == null) {
+                        break;
+                    }
+                    if (hotPathLog.shouldLog(OrderStatus.EXECUTED)) {
+                        log.info("Trade executed: orderId={}", trade.getOrderId());
+                    }
+                    hotPathLog.audit(orderId, OrderStatus.EXECUTED, null);
+                    if (analytics != null) {
+                        analytics.recordExecution(snapshot.getTrade(), System.currentTimeMillis());
+                    }
+                    // The book has matched it against a counterparty, so it must go on however late
+                    deadlines.remove(orderId);
+                    sendToStage(clearingServiceClient, snapshot.getTrade());
+                }
             }
+        } finally {
+            Tracer.makeCurrent(previous);
+            span.end();
         }
     }
 
     @Override
     public void onClearing(Trade trade) {
-        String orderId = trade.getOrderId();
-        Trade masterTrade = concurrentTradeStatusMap.get(orderId);
-        switch (trade.getStatus()) {
-            case CLEARED: {
-                masterTrade.setStatus(OrderStatus.CLEARED);
-                masterTrade.setNettedAmount(trade.getNettedAmount());
-                masterTrade.setClearingMessage(trade.getClearingMessage());
-                log.info("Trade cleared: orderId={}", trade.getOrderId());
-                settlementServiceClient.send(masterTrade);
+        Span span = startCallbackSpan("TradeService.onClearing", trade);
+        TraceContext previous = Tracer.makeCurrent(span.getContext());
+        try {
+            String orderId = trade.getOrderId();
+            switch (trade.getStatus()) {
+                case CLEARED: {
+                    TradeSnapshot snapshot = advance(trade, null);
+                    if (snapshot == null) {
+                        break;
+                    }
+                    if (hotPathLog.shouldLog(OrderStatus.CLEARED)) {
+                        log.info("Trade cleared: orderId={}", trade.getOrderId());
+                    }
+                    hotPathLog.audit(orderId, OrderStatus.CLEARED, null);
+                    sendToStage(settlementServiceClient, snapshot.getTrade());
+                }
             }
+        } finally {
+            Tracer.makeCurrent(previous);
+            span.end();
         }
     }
 
     @Override
     public void onSettlement(Trade trade) {
-        String orderId = trade.getOrderId();
-        Trade masterTrade = concurrentTradeStatusMap.get(orderId);
-        switch (trade.getStatus()) {
-            case SETTLED: {
-                masterTrade.setStatus(OrderStatus.SETTLED);
-                masterTrade.setSettlementMessage(trade.getSettlementMessage());
-                log.info("Trade settled: orderId={}", trade.getOrderId());
+        Span span = startCallbackSpan("TradeService.onSettlement", trade);
+        TraceContext previous = Tracer.makeCurrent(span.getContext());
+        try {
+            String orderId = trade.getOrderId();
+            switch (trade.getStatus()) {
+                case SETTLED: {
+                    TradeSnapshot snapshot = advance(trade, null);
+                    if (snapshot == null) {
+                        break;
+                    }
+                    deadlines.remove(orderId);
+                    if (hotPathLog.shouldLog(OrderStatus.SETTLED)) {
+                        log.info("Trade settled: orderId={}", trade.getOrderId());
+                    }
+                    hotPathLog.audit(orderId, OrderStatus.SETTLED, null);
+                    if (analytics != null) {
+                        analytics.recordSettlement(snapshot.getTrade(), System.currentTimeMillis());
+                    }
+                    // The account service holds the order's cash or shares until it settles
+                    if (accountLedgerEnabled) {
+                        accountServiceClient.send(outbound(snapshot.getTrade()));
+                    }
+                }
             }
+        } finally {
+            Tracer.makeCurrent(previous);
+            span.end();
         }
     }
 
     @Override
     public void onFailure(Trade trade) {
-        String orderId = trade.getOrderId();
-        Trade masterTrade = concurrentTradeStatusMap.get(orderId);
-        if (masterTrade != null) {
-            masterTrade.setStatus(OrderStatus.FAILED);
-            masterTrade.setFailureReason(trade.getFailureReason());
-            masterTrade.setFailureStage(trade.getFailureStage());
+        Span span = startCallbackSpan("TradeService.onFailure", trade);
+        TraceContext previous = Tracer.makeCurrent(span.getContext());
+        try {
+            fail(trade, null);
+        } finally {
+            Tracer.makeCurrent(previous);
+            span.end();
+        }
+    }
+
+    /**
+     * Fails an order with {@code failure}'s stage and reason, if it is at {@code expected}
+     * or, when that is null, at any status that may still fail.
+     */
+    private void fail(Trade failure, OrderStatus expected) {
+        String orderId = failure.getOrderId();
+        TradeSnapshot snapshot = advance(failure, expected);
+        if (snapshot == null) {
+            return;
+        }
+        deadlines.remove(orderId);
+        if (hotPathLog.shouldLog(OrderStatus.FAILED)) {
             log.error("Trade failed: orderId={} stage={} reason={}",
-                    orderId, trade.getFailureStage(), trade.getFailureReason());
+                    orderId, failure.getFailureStage(), failure.getFailureReason());
+        }
+        hotPathLog.audit(orderId, OrderStatus.FAILED, failure.getFailureStage());
+        if (analytics != null) {
+            analytics.recordFailure(snapshot.getTrade(), System.currentTimeMillis());
+        }
+        // Past validation the account service holds exposure for the order; release it.
+        // An order that timed out before validation has nothing held.
+        if (!"VALIDATION".equals(failure.getFailureStage())
+                && snapshot.getPreviousStatus() != OrderStatus.UNKNOWN) {
+            accountServiceClient.send(outbound(snapshot.getTrade()));
         }
     }
 
+    /**
+     * Marks a validated order as resting in the execution stage's book, which drops its
+     * stage timer: a resting limit order has no reply until it fills, however long that
+     * takes. Ignored once the order has moved on, as when its fill overtook the
+     * acknowledgement.
+     */
+    private void rest(String orderId) {
+        while (true) {
+            TradeSnapshot current = concurrentTradeStatusMap.get(orderId);
+            if (current == null || current.getStatus() != OrderStatus.VALIDATED || current.getTrade().isResting()) {
+                return;
+            }
+            if (concurrentTradeStatusMap.replace(orderId, current, current.rest())) {
+                // A resting order may fill at any time, so its deadline no longer applies
+                deadlines.remove(orderId);
+                log.debug("Order resting in the book: orderId={}", orderId);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Moves {@code reply}'s order to the reply's status, returning the new snapshot, if the
+     * order is at {@code expected} (any status when null) and the transition table allows
+     * the move. Otherwise, as for a duplicated or late reply, returns null and changes
+     * nothing. A snapshot replaced by another thread between the read and the
+     * compare-and-set is read again, so concurrent replies for one order each see the
+     * result of the last and exactly one of any that race for the same move wins.
+     */
+    private TradeSnapshot advance(Trade reply, OrderStatus expected) {
+        String orderId = reply.getOrderId();
+        while (true) {
+            TradeSnapshot current = concurrentTradeStatusMap.get(orderId);
+            if (current == null || expected != null && current.getStatus() != expected
+                    || !TradeSnapshot.canMove(current.getStatus(), reply.getStatus())) {
+                log.debug("Ignoring {} reply: orderId={} status={}", reply.getStatus(), orderId,
+                        current == null ? null : current.getStatus());
+                return null;
+            }
+            TradeSnapshot next = current.next(reply);
+            if (concurrentTradeStatusMap.replace(orderId, current, next)) {
+                if (tradeIndex != null) {
+                    tradeIndex.moved(next);
+                }
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Opens a span for a stage reply under the context ServiceClient made current for it.
+     * The span's context stays current while the callback sends to the next stage.
+     */
+    private Span startCallbackSpan(String name, Trade trade) {
+        Span span = tracer.startSpan(name, Tracer.currentContext());
+        if (span.isRecording()) {
+            span.setAttribute("orderId", trade.getOrderId());
+            span.setAttribute("status", String.valueOf(trade.getStatus()));
+        }
+        return span;
+    }
+
     @PreDestroy
     public void shutdown() {
         log.info("Shutting down TradeService");
@@ -283,6 +841,11 @@ public class TradeService
         if (jedisSub != null) {
             jedisSub.close();
         }
+        if (stageTimerExecutor != null) {
+            stageTimerExecutor.shutdown();
+        }
+        tracer.shutdown();
+        hotPathLog.close();
         log.info("TradeService shutdown complete");
     }
 }
\ No newline at end of file
@@ -4,11 +4,17 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.klear.communication.core.ServiceClientCallback;
 import com.klear.communication.core.ServiceClientMessageTypes;
+import com.klear.model.analytics.AnalyticsQuery;
+import com.klear.model.analytics.AnalyticsSnapshot;
 import com.klear.model.order.Order;
 import com.klear.model.order.OrderStatus;
+import com.klear.model.query.TradePage;
+import com.klear.model.query.TradeQuery;
 import com.klear.services.JedisPubSubSync;
 import com.klear.services.TradeServiceClientInterface;
 import com.klear.services.TradeServiceClientMessage;
+import com.klear.tracing.TraceContext;
+import com.klear.tracing.Tracer;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,6 +50,7 @@ public class TradeServiceClient implements TradeServiceClientInterface, ServiceC
 
     private Jedis jedisPubSubmit = null;
     private Jedis jedisPubStatus = null;
+    private Jedis jedisPubQuery = null;
     private Jedis jedisSub = null;
     private JedisPubSub subscriber = null;
     private String retChannelName;
@@ -58,8 +65,11 @@ public class TradeServiceClient implements TradeServiceClientInterface, ServiceC
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     private final Object mutex = new Object();
+    private boolean replyPending;
     private String orderId;
     public OrderStatus orderStatus;
+    private TradePage tradePage;
+    private AnalyticsSnapshot analyticsSnapshot;
 
     public TradeServiceClient() {
         log.debug("TradeServiceClient created");
@@ -75,6 +85,9 @@ public class TradeServiceClient implements TradeServiceClientInterface, ServiceC
         if (this.jedisPubStatus == null) {
             this.jedisPubStatus = new Jedis(ipAddress, port);
         }
+        if (this.jedisPubQuery == null) {
+            this.jedisPubQuery = new Jedis(ipAddress, port);
+        }
         if (this.jedisSub == null) {
             this.jedisSub = new Jedis(ipAddress, port);
         }
@@ -95,21 +108,17 @@ public class TradeServiceClient implements TradeServiceClientInterface, ServiceC
         try {
             TradeServiceClientMessage tradeServiceMessage = new TradeServiceClientMessage(
                     ServiceClientMessageTypes.ORDER_SUBMIT, this.retChannelName, order);
+            TraceContext traceContext = Tracer.currentContext();
+            if (traceContext != null) {
+                tradeServiceMessage.setTraceParent(traceContext.toTraceparent());
+            }
             String message = objectMapper.writeValueAsString(tradeServiceMessage);
             log.debug("Submitting order: {}", order);
-            jedisPubSubmit.publish(this.outChannelName, message);
+            request(jedisPubSubmit, message);
         } catch (JsonProcessingException e) {
             log.error("Failed to serialize order submission", e);
         }
 
-        synchronized (mutex) {
-            try {
-                this.mutex.wait();
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }
-
         return orderId;
     }
 
@@ -120,20 +129,60 @@ public class TradeServiceClient implements TradeServiceClientInterface, ServiceC
                     ServiceClientMessageTypes.ORDER_STATUS, this.retChannelName, orderId);
             String message = objectMapper.writeValueAsString(tradeServiceMessage);
             log.debug("Getting order status: orderId={}", orderId);
-            jedisPubStatus.publish(this.outChannelName, message);
+            request(jedisPubStatus, message);
         } catch (JsonProcessingException e) {
             log.error("Failed to serialize order status request", e);
         }
 
+        return orderStatus;
+    }
+
+    @Override
+    public TradePage queryTrades(TradeQuery query) {
+        try {
+            TradeServiceClientMessage tradeServiceMessage = new TradeServiceClientMessage(
+                    ServiceClientMessageTypes.TRADE_QUERY, this.retChannelName, query);
+            String message = objectMapper.writeValueAsString(tradeServiceMessage);
+            log.debug("Querying trades: {}", message);
+            request(jedisPubQuery, message);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize trade query", e);
+        }
+
+        return tradePage;
+    }
+
+    @Override
+    public AnalyticsSnapshot getAnalytics(String symbol, String clientId) {
+        try {
+            TradeServiceClientMessage tradeServiceMessage = new TradeServiceClientMessage(
+                    ServiceClientMessageTypes.ANALYTICS, this.retChannelName, new AnalyticsQuery(symbol, clientId));
+            String message = objectMapper.writeValueAsString(tradeServiceMessage);
+            log.debug("Getting analytics: {}", message);
+            request(jedisPubQuery, message);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize analytics request", e);
+        }
+
+        return analyticsSnapshot;
+    }
+
+    /**
+     * Publishes a request and blocks until its reply has been handled.
+     * The mutex is held across the publish so a fast reply cannot notify before we wait.
+     */
+    private void request(Jedis jedisPub, String message) {
         synchronized (mutex) {
+            replyPending = true;
+            jedisPub.publish(this.outChannelName, message);
             try {
-                this.mutex.wait();
+                while (replyPending) {
+                    this.mutex.wait();
+                }
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
             }
         }
-
-        return orderStatus;
     }
 
     @Override
@@ -143,7 +192,7 @@ public class TradeServiceClient implements TradeServiceClientInterface, ServiceC
             switch (tradeServiceClientMessage.getType()) {
                 case ORDER_SUBMIT: {
                     String jsonString = objectMapper.writeValueAsString(tradeServiceClientMessage.getPayload());
-                    this.orderId = jsonString;
+                    this.orderId = objectMapper.readValue(jsonString, String.class);
                 }
                 break;
                 case ORDER_STATUS: {
@@ -152,10 +201,22 @@ public class TradeServiceClient implements TradeServiceClientInterface, ServiceC
                     this.orderStatus = OrderStatus.valueOf(status);
                 }
                 break;
+                case TRADE_QUERY: {
+                    String jsonString = objectMapper.writeValueAsString(tradeServiceClientMessage.getPayload());
+                    this.tradePage = objectMapper.readValue(jsonString, TradePage.class);
+                }
+                break;
+                case ANALYTICS: {
+                    String jsonString = objectMapper.writeValueAsString(tradeServiceClientMessage.getPayload());
+                    this.analyticsSnapshot = objectMapper.readValue(jsonString, AnalyticsSnapshot.class);
+                }
+                break;
             }
         } catch (JsonProcessingException e) {
             log.error("Failed to parse callback message", e);
             throw new RuntimeException(e);
+        } finally {
+            replyPending = false;
         }
     }
 
@@ -180,6 +241,9 @@ public class TradeServiceClient implements TradeServiceClientInterface, ServiceC
         if (jedisPubStatus != null) {
             jedisPubStatus.close();
         }
+        if (jedisPubQuery != null) {
+            jedisPubQuery.close();
+        }
         if (jedisSub != null) {
             jedisSub.close();
         }
@@ -0,0 +1,226 @@
+package com.klear.trade.state;
+
+import com.klear.model.order.Order;
+import com.klear.model.order.OrderStatus;
+import com.klear.model.query.TradePage;
+import com.klear.model.query.TradeQuery;
+import com.klear.model.trade.Trade;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+/**
+ * Secondary indexes over the trade service's orders: by client, by symbol, by status and
+ * by submission time. Each index maps an order's sequence number to its ID in a skip
+ * list, so a query seeks to its cursor and reads forward, and a page costs the same
+ * however many trades there are in all. The time index holds only the first sequence
+ * number of each time bucket and turns a time range into a sequence range on the others.
+ *
+ * Every update is a put or remove on a concurrent map; there is no lock. A query reads
+ * each order's current snapshot through {@code snapshots} and checks it against every
+ * criterion, so a status entry that is briefly out of date is never returned.
+ */
+public final class TradeIndex {
+
+    private static final OrderStatus[] OPEN = {OrderStatus.UNKNOWN, OrderStatus.VALIDATED,
+            OrderStatus.EXECUTED, OrderStatus.CLEARED};
+
+    private final long bucketMillis;
+    private final Function<String, TradeSnapshot> snapshots;
+    private final ConcurrentMap<String, ConcurrentSkipListMap<Long, String>> byClient = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentSkipListMap<Long, String>> bySymbol = new ConcurrentHashMap<>();
+    private final Map<OrderStatus, ConcurrentSkipListMap<Long, String>> byStatus = new EnumMap<>(OrderStatus.class);
+    // First sequence number submitted in each bucket of bucketMillis
+    private final ConcurrentSkipListMap<Long, Long> firstByBucket = new ConcurrentSkipListMap<>();
+
+    /**
+     * @param snapshots looks up an order's current snapshot by order ID
+     */
+    public TradeIndex(long bucketMillis, Function<String, TradeSnapshot> snapshots) {
+        if (bucketMillis <= 0) {
+            throw new IllegalArgumentException("Bucket must be positive: " + bucketMillis);
+        }
+        this.bucketMillis = bucketMillis;
+        this.snapshots = snapshots;
+        for (OrderStatus status : OrderStatus.values()) {
+            byStatus.put(status, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    /**
+     * Indexes a newly submitted order by its first snapshot.
+     */
+    public void add(TradeSnapshot snapshot) {
+        Long sequence = snapshot.getSequence();
+        Trade trade = snapshot.getTrade();
+        String orderId = trade.getOrderId();
+        Order order = trade.getOrder();
+        if (order != null && order.getClientId() != null) {
+            byClient.computeIfAbsent(order.getClientId(), k -> new ConcurrentSkipListMap<>()).put(sequence, orderId);
+        }
+        if (order != null && order.getStockSymbol() != null) {
+            bySymbol.computeIfAbsent(order.getStockSymbol(), k -> new ConcurrentSkipListMap<>()).put(sequence, orderId);
+        }
+        byStatus.get(snapshot.getStatus()).put(sequence, orderId);
+        firstByBucket.merge(snapshot.getSubmittedMillis() / bucketMillis, sequence, Math::min);
+    }
+
+    /**
+     * Moves an order to the status of {@code next}, a snapshot that has just replaced the
+     * one before it. Transitions of one order may update the index in any order: if a
+     * later one has already replaced {@code next}, it could not have removed the entry
+     * put here, so it is removed again.
+     */
+    public void moved(TradeSnapshot next) {
+        Long sequence = next.getSequence();
+        String orderId = next.getTrade().getOrderId();
+        ConcurrentSkipListMap<Long, String> current = byStatus.get(next.getStatus());
+        current.put(sequence, orderId);
+        byStatus.get(next.getPreviousStatus()).remove(sequence, orderId);
+        if (snapshots.apply(orderId) != next) {
+            current.remove(sequence, orderId);
+        }
+    }
+
+    /**
+     * One page of the trades matching {@code query}. The most selective index the query
+     * names drives the scan, in order: client, symbol, status, then the open statuses or
+     * all of them. Other criteria filter the driving index's entries, so a query for
+     * something rare within a large client's or symbol's trades reads through those.
+     */
+    public TradePage query(TradeQuery query) {
+        int limit = Math.max(1, Math.min(query.getLimit(), TradeQuery.MAX_LIMIT));
+        long from = query.getAfter();
+        long to = Long.MAX_VALUE;
+        if (query.getSinceMillis() > 0) {
+            Map.Entry<Long, Long> first = firstByBucket.ceilingEntry(query.getSinceMillis() / bucketMillis);
+            if (first == null) {
+                return new TradePage();
+            }
+            from = Math.max(from, first.getValue() - 1);
+        }
+        if (query.getUntilMillis() > 0) {
+            Map.Entry<Long, Long> next = firstByBucket.higherEntry(query.getUntilMillis() / bucketMillis);
+            if (next != null) {
+                to = next.getValue();
+            }
+        }
+        if (from >= to) {
+            return new TradePage();
+        }
+
+        List<Iterator<Map.Entry<Long, String>>> sources = new ArrayList<>();
+        for (NavigableMap<Long, String> index : drivingIndexes(query)) {
+            sources.add(index.subMap(from, false, to, false).entrySet().iterator());
+        }
+        List<Trade> trades = new ArrayList<>(Math.min(limit, 16));
+        Merge merge = new Merge(sources);
+        for (Map.Entry<Long, String> entry = merge.next(); entry != null; entry = merge.next()) {
+            TradeSnapshot snapshot = snapshots.apply(entry.getValue());
+            if (snapshot != null && matches(query, snapshot)) {
+                trades.add(snapshot.getTrade());
+                if (trades.size() == limit) {
+                    return new TradePage(trades, entry.getKey());
+                }
+            }
+        }
+        return new TradePage(trades, 0);
+    }
+
+    private List<NavigableMap<Long, String>> drivingIndexes(TradeQuery query) {
+        List<NavigableMap<Long, String>> indexes = new ArrayList<>();
+        if (query.getClientId() != null) {
+            addIfPresent(indexes, byClient.get(query.getClientId()));
+        } else if (query.getStockSymbol() != null) {
+            addIfPresent(indexes, bySymbol.get(query.getStockSymbol()));
+        } else if (query.getStatus() != null) {
+            indexes.add(byStatus.get(query.getStatus()));
+        } else {
+            for (OrderStatus status : query.isOpen() ? OPEN : OrderStatus.values()) {
+                indexes.add(byStatus.get(status));
+            }
+        }
+        return indexes;
+    }
+
+    private static void addIfPresent(List<NavigableMap<Long, String>> indexes, NavigableMap<Long, String> index) {
+        if (index != null) {
+            indexes.add(index);
+        }
+    }
+
+    private static boolean matches(TradeQuery query, TradeSnapshot snapshot) {
+        Trade trade = snapshot.getTrade();
+        Order order = trade.getOrder();
+        if (query.getClientId() != null && (order == null || !query.getClientId().equals(order.getClientId()))) {
+            return false;
+        }
+        if (query.getStockSymbol() != null
+                && (order == null || !query.getStockSymbol().equals(order.getStockSymbol()))) {
+            return false;
+        }
+        if (query.getStatus() != null && snapshot.getStatus() != query.getStatus()) {
+            return false;
+        }
+        if (query.getFailureStage() != null && !query.getFailureStage().equals(trade.getFailureStage())) {
+            return false;
+        }
+        if (query.isOpen()
+                && (snapshot.getStatus() == OrderStatus.SETTLED || snapshot.getStatus() == OrderStatus.FAILED)) {
+            return false;
+        }
+        if (query.getSinceMillis() > 0 && snapshot.getSubmittedMillis() < query.getSinceMillis()) {
+            return false;
+        }
+        return query.getUntilMillis() <= 0 || snapshot.getSubmittedMillis() <= query.getUntilMillis();
+    }
+
+    /**
+     * Reads several indexes as one, in sequence order. An order that moves from one status
+     * index to another during the scan is read once.
+     */
+    private static final class Merge {
+        private final List<Iterator<Map.Entry<Long, String>>> sources;
+        private final List<Map.Entry<Long, String>> heads;
+        private long last;
+
+        Merge(List<Iterator<Map.Entry<Long, String>>> sources) {
+            this.sources = sources;
+            this.heads = new ArrayList<>(sources.size());
+            for (Iterator<Map.Entry<Long, String>> source : sources) {
+                heads.add(source.hasNext() ? source.next() : null);
+            }
+            this.last = Long.MIN_VALUE;
+        }
+
+        Map.Entry<Long, String> next() {
+            while (true) {
+                int min = -1;
+                for (int i = 0; i < heads.size(); i++) {
+                    Map.Entry<Long, String> head = heads.get(i);
+                    if (head != null && (min < 0 || head.getKey() < heads.get(min).getKey())) {
+                        min = i;
+                    }
+                }
+                if (min < 0) {
+                    return null;
+                }
+                Map.Entry<Long, String> entry = heads.get(min);
+                Iterator<Map.Entry<Long, String>> source = sources.get(min);
+                heads.set(min, source.hasNext() ? source.next() : null);
+                if (entry.getKey() > last) {
+                    last = entry.getKey();
+                    return entry;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.klear.trade.state;
+
+import com.klear.model.order.OrderStatus;
+import com.klear.model.trade.Trade;
+
+/**
+ * One version of an order's trade. A snapshot is never modified once created: a reply
+ * moves the order on by creating the next version with {@link #next}, which the trade
+ * service then swaps in with a compare-and-set on the snapshot itself. A reader holding
+ * a snapshot therefore always sees one whole version, whatever replies arrive meanwhile.
+ *
+ * {@link #getTrade()} returns the snapshot's own trade, to be read or sent but never
+ * modified.
+ */
+public final class TradeSnapshot {
+
+    private static final boolean[][] TRANSITIONS = transitions();
+
+    private final Trade trade;
+    private final OrderStatus status;
+    private final OrderStatus previousStatus;
+    private final long version;
+    private final long sequence;
+    private final long submittedMillis;
+
+    /**
+     * The first version of a trade, which the caller hands over and must not modify after.
+     */
+    public TradeSnapshot(Trade trade) {
+        this(trade, 0, 0);
+    }
+
+    /**
+     * The first version of a trade submitted as the {@code sequence}th order, counting
+     * from 1, at {@code submittedMillis}.
+     */
+    public TradeSnapshot(Trade trade, long sequence, long submittedMillis) {
+        this(trade, null, 0, sequence, submittedMillis);
+    }
+
+    private TradeSnapshot(Trade trade, OrderStatus previousStatus, long version, long sequence,
+                          long submittedMillis) {
+        this.trade = trade;
+        this.status = trade.getStatus();
+        this.previousStatus = previousStatus;
+        this.version = version;
+        this.sequence = sequence;
+        this.submittedMillis = submittedMillis;
+    }
+
+    /**
+     * True if an order at {@code from} may move to {@code to}. Orders move forward one
+     * stage at a time, may fail at any stage, and do not move once settled or failed.
+     */
+    public static boolean canMove(OrderStatus from, OrderStatus to) {
+        return TRANSITIONS[from.ordinal()][to.ordinal()];
+    }
+
+    /**
+     * The next version, taking {@code reply}'s status and the fields that its stage fills
+     * in. The order itself is shared, since no stage changes it.
+     *
+     * @throws IllegalStateException if the transition table does not allow the move
+     */
+    public TradeSnapshot next(Trade reply) {
+        OrderStatus to = reply.getStatus();
+        if (!canMove(status, to)) {
+            throw new IllegalStateException(
+                    "Order " + trade.getOrderId() + " cannot move from " + status + " to " + to);
+        }
+        Trade copy = new Trade(trade);
+        copy.setOrder(trade.getOrder());
+        copy.setStatus(to);
+        copy.setResting(false);
+        // In fixed-point mode the next stage computes from the ticks, not the doubles
+        boolean fixedPoint = trade.getOrder() != null && trade.getOrder().getPriceScale() != null;
+        switch (to) {
+            case VALIDATED -> copy.setValidationMessage(reply.getValidationMessage());
+            case EXECUTED -> {
+                copy.setExecutedTimestamp(reply.getExecutedTimestamp());
+                copy.setExecutedPrice(reply.getExecutedPrice());
+                copy.setExecutedQuantity(reply.getExecutedQuantity());
+                if (fixedPoint) {
+                    copy.setExecutedPriceTicks(reply.getExecutedPriceTicks());
+                }
+            }
+            case CLEARED -> {
+                copy.setNettedAmount(reply.getNettedAmount());
+                copy.setClearingMessage(reply.getClearingMessage());
+                if (fixedPoint) {
+                    copy.setNettedAmountTicks(reply.getNettedAmountTicks());
+                }
+            }
+            case SETTLED -> copy.setSettlementMessage(reply.getSettlementMessage());
+            case FAILED -> {
+                copy.setFailureReason(reply.getFailureReason());
+                copy.setFailureStage(reply.getFailureStage());
+            }
+            default -> {
+            }
+        }
+        return new TradeSnapshot(copy, status, version + 1, sequence, submittedMillis);
+    }
+
+    /**
+     * The next version of a validated order that the execution stage has acknowledged as
+     * resting in its book. The status stays VALIDATED; only the trade's resting flag is set.
+     *
+     * @throws IllegalStateException if the order is not at VALIDATED
+     */
+    public TradeSnapshot rest() {
+        if (status != OrderStatus.VALIDATED) {
+            throw new IllegalStateException("Order " + trade.getOrderId() + " cannot rest at " + status);
+        }
+        Trade copy = new Trade(trade);
+        copy.setOrder(trade.getOrder());
+        copy.setResting(true);
+        return new TradeSnapshot(copy, previousStatus, version + 1, sequence, submittedMillis);
+    }
+
+    public Trade getTrade() {
+        return trade;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * The status this version moved on from, or null for the first version.
+     */
+    public OrderStatus getPreviousStatus() {
+        return previousStatus;
+    }
+
+    /**
+     * 0 for the first version, counting up by one per transition.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * The order's place in submission order, or 0 if it was not numbered.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getSubmittedMillis() {
+        return submittedMillis;
+    }
+
+    private static boolean[][] transitions() {
+        int n = OrderStatus.values().length;
+        boolean[][] table = new boolean[n][n];
+        OrderStatus[] stages = {OrderStatus.UNKNOWN, OrderStatus.VALIDATED, OrderStatus.EXECUTED,
+                OrderStatus.CLEARED, OrderStatus.SETTLED};
+        for (int i = 0; i < stages.length - 1; i++) {
+            table[stages[i].ordinal()][stages[i + 1].ordinal()] = true;
+            table[stages[i].ordinal()][OrderStatus.FAILED.ordinal()] = true;
+        }
+        return table;
+    }
+}
@@ -0,0 +1,166 @@
+package com.klear.trade.timer;
+
+import java.util.Arrays;
+
+/**
+ * Hashed timing wheel for large numbers of coarse timeouts, each a payload and an int tag.
+ *
+ * Time is cut into ticks of {@code tickMillis}, and a timer goes in the bucket for its
+ * deadline tick modulo the wheel size, so scheduling is O(1) whatever the number of
+ * timers. {@link #advance} walks only the buckets for the ticks that have passed; timers
+ * more than one revolution out stay in their bucket until their tick comes round.
+ *
+ * Timers live in parallel arrays with a free list, so a timer costs no allocation once the
+ * arrays have grown to the peak number outstanding. There is no cancel: callers check on
+ * expiry whether the timer still matters. Timers fire no earlier than their deadline and
+ * up to one tick plus the {@link #advance} period after it.
+ *
+ * {@link #schedule} may be called from any thread. {@link #advance} must always be called
+ * from the same thread, which runs the handler outside the lock.
+ */
+public final class HashedWheelTimer {
+
+    /**
+     * Receives each expired timer's payload and tag.
+     */
+    @FunctionalInterface
+    public interface ExpiryHandler {
+        void expired(Object payload, int tag);
+    }
+
+    private static final int NONE = -1;
+
+    private final long tickMillis;
+    private final int mask;
+    private final int[] buckets;
+
+    // One slot per timer; next chains a bucket's timers, or the free slots
+    private long[] deadlineTicks;
+    private int[] next;
+    private int[] tags;
+    private Object[] payloads;
+    private int used;
+    private int free = NONE;
+    private int size;
+    private long currentTick;
+
+    // Expired timers handed to the handler after the lock is released
+    private Object[] expiredPayloads = new Object[64];
+    private int[] expiredTags = new int[64];
+
+    /**
+     * @param wheelSize       buckets, rounded up to a power of two; best at least the
+     *                        usual timeout in ticks
+     * @param initialCapacity timers held before the arrays grow
+     */
+    public HashedWheelTimer(long tickMillis, int wheelSize, int initialCapacity, long nowMillis) {
+        if (tickMillis <= 0 || wheelSize <= 0 || initialCapacity <= 0) {
+            throw new IllegalArgumentException("Tick, wheel size and capacity must be positive");
+        }
+        this.tickMillis = tickMillis;
+        int capped = Math.min(wheelSize, 1 << 30);
+        int buckets = Integer.highestOneBit(capped);
+        this.buckets = new int[buckets < capped ? buckets << 1 : buckets];
+        Arrays.fill(this.buckets, NONE);
+        this.mask = this.buckets.length - 1;
+        this.deadlineTicks = new long[initialCapacity];
+        this.next = new int[initialCapacity];
+        this.tags = new int[initialCapacity];
+        this.payloads = new Object[initialCapacity];
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Adds a timer that fires once {@code deadlineMillis} has passed.
+     */
+    public synchronized void schedule(long deadlineMillis, Object payload, int tag) {
+        long tick = Math.max(Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis), currentTick + 1);
+        int slot = allocate();
+        deadlineTicks[slot] = tick;
+        tags[slot] = tag;
+        payloads[slot] = payload;
+        int bucket = (int) (tick & mask);
+        next[slot] = buckets[bucket];
+        buckets[bucket] = slot;
+        size++;
+    }
+
+    /**
+     * Fires every timer due by {@code nowMillis}.
+     *
+     * @return the number fired
+     */
+    public int advance(long nowMillis, ExpiryHandler handler) {
+        int count = 0;
+        synchronized (this) {
+            long target = nowMillis / tickMillis;
+            if (target <= currentTick) {
+                return 0;
+            }
+            long steps = Math.min(target - currentTick, buckets.length);
+            for (long tick = currentTick + 1; tick <= currentTick + steps; tick++) {
+                count = expire((int) (tick & mask), target, count);
+            }
+            currentTick = target;
+        }
+        for (int i = 0; i < count; i++) {
+            Object payload = expiredPayloads[i];
+            expiredPayloads[i] = null;
+            handler.expired(payload, expiredTags[i]);
+        }
+        return count;
+    }
+
+    /**
+     * Timers scheduled and not yet fired.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private int expire(int bucket, long target, int count) {
+        int previous = NONE;
+        int slot = buckets[bucket];
+        while (slot != NONE) {
+            int following = next[slot];
+            if (deadlineTicks[slot] <= target) {
+                if (previous == NONE) {
+                    buckets[bucket] = following;
+                } else {
+                    next[previous] = following;
+                }
+                if (count == expiredTags.length) {
+                    expiredPayloads = Arrays.copyOf(expiredPayloads, count * 2);
+                    expiredTags = Arrays.copyOf(expiredTags, count * 2);
+                }
+                expiredPayloads[count] = payloads[slot];
+                expiredTags[count] = tags[slot];
+                count++;
+                payloads[slot] = null;
+                next[slot] = free;
+                free = slot;
+                size--;
+            } else {
+                previous = slot;
+            }
+            slot = following;
+        }
+        return count;
+    }
+
+    private int allocate() {
+        if (free != NONE) {
+            int slot = free;
+            free = next[slot];
+            return slot;
+        }
+        if (used == payloads.length) {
+            int capacity = payloads.length * 2;
+            deadlineTicks = Arrays.copyOf(deadlineTicks, capacity);
+            next = Arrays.copyOf(next, capacity);
+            tags = Arrays.copyOf(tags, capacity);
+            payloads = Arrays.copyOf(payloads, capacity);
+        }
+        return used++;
+    }
+}
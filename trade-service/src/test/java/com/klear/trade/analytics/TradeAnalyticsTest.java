@@ -0,0 +1,95 @@
+package com.klear.trade.analytics;
+
+import com.klear.model.analytics.AnalyticsSnapshot;
+import com.klear.model.analytics.TradeStats;
+import com.klear.model.analytics.WindowStats;
+import com.klear.model.order.Order;
+import com.klear.model.order.OrderStatus;
+import com.klear.model.trade.Trade;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradeAnalyticsTest {
+
+    private static final long MINUTE = 60_000;
+
+    private final TradeAnalytics analytics = new TradeAnalytics(MINUTE, 3);
+
+    @Test
+    void testTotalsVwapAndFailureRatePerSymbolAndClient() {
+        analytics.recordExecution(executed("CLIENT1", "AAPL", 100, 150.0), 0);
+        analytics.recordExecution(executed("CLIENT2", "AAPL", 300, 154.0), 0);
+        analytics.recordExecution(executed("CLIENT1", "MSFT", 50, 400.0), 0);
+        analytics.recordSettlement(executed("CLIENT1", "AAPL", 100, 150.0), 0);
+        analytics.recordFailure(order("CLIENT2", "AAPL"), 0);
+        analytics.recordFailure(order("CLIENT2", "AAPL"), 0);
+
+        AnalyticsSnapshot snapshot = analytics.snapshot(0);
+        assertEquals(List.of("AAPL", "MSFT"), List.copyOf(snapshot.getSymbols().keySet()));
+        WindowStats aapl = snapshot.getSymbols().get("AAPL").getTotal();
+        assertEquals(2, aapl.getFills());
+        assertEquals(400, aapl.getVolume());
+        assertEquals(61_200.0, aapl.getNotional(), 1e-9);
+        assertEquals(153.0, aapl.getVwap(), 1e-9);
+        assertEquals(2.0 / 3, aapl.getFailureRate(), 1e-9);
+
+        WindowStats client1 = snapshot.getClients().get("CLIENT1").getTotal();
+        assertEquals(150, client1.getVolume());
+        assertEquals(0.0, client1.getFailureRate());
+        assertEquals(1.0, snapshot.getClients().get("CLIENT2").getTotal().getFailureRate());
+        assertEquals(3 * MINUTE, snapshot.getSlidingMillis());
+    }
+
+    @Test
+    void testTumblingAndSlidingWindowsRollOver() {
+        analytics.recordExecution(executed("CLIENT1", "AAPL", 10, 100.0), 0);
+        analytics.recordExecution(executed("CLIENT1", "AAPL", 20, 100.0), MINUTE);
+        analytics.recordExecution(executed("CLIENT1", "AAPL", 40, 100.0), 2 * MINUTE + 1);
+
+        TradeStats stats = analytics.snapshot(2 * MINUTE + 1).getSymbols().get("AAPL");
+        assertEquals(20, stats.getLastWindow().getVolume());
+        assertEquals(70, stats.getSliding().getVolume());
+
+        // Three minutes on, the first minute has left the sliding window but not the totals
+        analytics.recordExecution(executed("CLIENT1", "AAPL", 80, 100.0), 3 * MINUTE);
+        stats = analytics.snapshot(3 * MINUTE).getSymbols().get("AAPL");
+        assertEquals(40, stats.getLastWindow().getVolume());
+        assertEquals(140, stats.getSliding().getVolume());
+        assertEquals(150, stats.getTotal().getVolume());
+
+        // With nothing traded since, old windows drop out of both
+        stats = analytics.snapshot(10 * MINUTE).getSymbols().get("AAPL");
+        assertEquals(0, stats.getLastWindow().getVolume());
+        assertEquals(0, stats.getSliding().getVolume());
+        assertEquals(150, stats.getTotal().getVolume());
+    }
+
+    @Test
+    void testUpdateForWindowThatLeftTheRingOnlyCountsInTotal() {
+        analytics.recordExecution(executed("CLIENT1", "AAPL", 10, 100.0), 10 * MINUTE);
+        analytics.recordFailure(order("CLIENT1", "AAPL"), 6 * MINUTE);
+
+        TradeStats stats = analytics.snapshot(10 * MINUTE).getSymbols().get("AAPL");
+        assertEquals(1, stats.getTotal().getFailed());
+        assertEquals(0, stats.getSliding().getFailed());
+        assertEquals(10, stats.getSliding().getVolume());
+    }
+
+    private static Trade order(String clientId, String symbol) {
+        Order order = new Order();
+        order.setClientId(clientId);
+        order.setStockSymbol(symbol);
+        return new Trade("ORDER-" + clientId, order, OrderStatus.FAILED);
+    }
+
+    private static Trade executed(String clientId, String symbol, int quantity, double price) {
+        Trade trade = order(clientId, symbol);
+        trade.setStatus(OrderStatus.EXECUTED);
+        trade.setExecutedQuantity(quantity);
+        trade.setExecutedPrice(price);
+        return trade;
+    }
+}
@@ -1,12 +1,23 @@
 package com.klear.trade.service;
 
+import com.klear.communication.client.AccountServiceClient;
+import com.klear.communication.client.ClearingServiceClient;
+import com.klear.communication.client.ExecutionServiceClient;
+import com.klear.communication.client.SettlementServiceClient;
+import com.klear.communication.core.ServiceClientInterface;
 import com.klear.model.order.Order;
 import com.klear.model.order.OrderStatus;
+import com.klear.model.trade.Trade;
+import com.klear.trade.state.TradeSnapshot;
+import com.klear.trade.timer.HashedWheelTimer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -44,12 +55,10 @@ class TradeServiceTest {
         Field mapField = TradeService.class.getDeclaredField("concurrentTradeStatusMap");
         mapField.setAccessible(true);
         @SuppressWarnings("unchecked")
-        Map<String, com.klear.model.trade.Trade> map =
-            (Map<String, com.klear.model.trade.Trade>) mapField.get(tradeService);
+        Map<String, TradeSnapshot> map = (Map<String, TradeSnapshot>) mapField.get(tradeService);
 
-        com.klear.model.trade.Trade trade = new com.klear.model.trade.Trade(
-            "TEST-ORDER-001", testOrder, OrderStatus.VALIDATED);
-        map.put("TEST-ORDER-001", trade);
+        Trade trade = new Trade("TEST-ORDER-001", testOrder, OrderStatus.VALIDATED);
+        map.put("TEST-ORDER-001", new TradeSnapshot(trade));
 
         OrderStatus status = tradeService.getOrderStatus("TEST-ORDER-001");
         assertEquals(OrderStatus.VALIDATED, status);
@@ -60,15 +69,13 @@ class TradeServiceTest {
         Field mapField = TradeService.class.getDeclaredField("concurrentTradeStatusMap");
         mapField.setAccessible(true);
         @SuppressWarnings("unchecked")
-        Map<String, com.klear.model.trade.Trade> map =
-            (Map<String, com.klear.model.trade.Trade>) mapField.get(tradeService);
+        Map<String, TradeSnapshot> map = (Map<String, TradeSnapshot>) mapField.get(tradeService);
 
         // Test each status
         for (OrderStatus expectedStatus : OrderStatus.values()) {
             String orderId = "ORDER-" + expectedStatus.name();
-            com.klear.model.trade.Trade trade = new com.klear.model.trade.Trade(
-                orderId, testOrder, expectedStatus);
-            map.put(orderId, trade);
+            Trade trade = new Trade(orderId, testOrder, expectedStatus);
+            map.put(orderId, new TradeSnapshot(trade));
 
             OrderStatus actualStatus = tradeService.getOrderStatus(orderId);
             assertEquals(expectedStatus, actualStatus);
@@ -80,8 +87,7 @@ class TradeServiceTest {
         Field mapField = TradeService.class.getDeclaredField("concurrentTradeStatusMap");
         mapField.setAccessible(true);
         @SuppressWarnings("unchecked")
-        Map<String, com.klear.model.trade.Trade> map =
-            (Map<String, com.klear.model.trade.Trade>) mapField.get(tradeService);
+        Map<String, TradeSnapshot> map = (Map<String, TradeSnapshot>) mapField.get(tradeService);
 
         // Add multiple trades concurrently
         int numTrades = 100;
@@ -90,9 +96,8 @@ class TradeServiceTest {
         for (int i = 0; i < numTrades; i++) {
             final int index = i;
             threads[i] = new Thread(() -> {
-                com.klear.model.trade.Trade trade = new com.klear.model.trade.Trade(
-                    "CONCURRENT-" + index, testOrder, OrderStatus.VALIDATED);
-                map.put("CONCURRENT-" + index, trade);
+                Trade trade = new Trade("CONCURRENT-" + index, testOrder, OrderStatus.VALIDATED);
+                map.put("CONCURRENT-" + index, new TradeSnapshot(trade));
             });
             threads[i].start();
         }
@@ -108,4 +113,501 @@ class TradeServiceTest {
             assertEquals(OrderStatus.VALIDATED, tradeService.getOrderStatus("CONCURRENT-" + i));
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void testOnFailure_ReturnsTradeToAccountServiceAfterValidation() throws Exception {
+        List<Trade> released = new ArrayList<>();
+        stub("accountServiceClient", new AccountServiceClient() {
+            @Override
+            public void send(Trade trade) {
+                released.add(trade);
+            }
+        });
+        Field mapField = TradeService.class.getDeclaredField("concurrentTradeStatusMap");
+        mapField.setAccessible(true);
+        @SuppressWarnings("unchecked")
+        Map<String, TradeSnapshot> map = (Map<String, TradeSnapshot>) mapField.get(tradeService);
+        map.put("ORDER-1", new TradeSnapshot(new Trade("ORDER-1", testOrder, OrderStatus.VALIDATED)));
+        map.put("ORDER-2", new TradeSnapshot(new Trade("ORDER-2", testOrder, OrderStatus.UNKNOWN)));
+
+        Trade executionFailure = new Trade("ORDER-1", testOrder, OrderStatus.FAILED);
+        executionFailure.setFailureStage("EXECUTION");
+        tradeService.onFailure(executionFailure);
+        Trade validationFailure = new Trade("ORDER-2", testOrder, OrderStatus.FAILED);
+        validationFailure.setFailureStage("VALIDATION");
+        tradeService.onFailure(validationFailure);
+
+        // Only the order that passed validation holds exposure to release
+        assertEquals(1, released.size());
+        assertEquals("ORDER-1", released.get(0).getOrderId());
+        assertEquals(OrderStatus.FAILED, released.get(0).getStatus());
+        assertEquals("EXECUTION", released.get(0).getFailureStage());
+    }
+
+    @Test
+    void testOnSettlement_ReportsToAccountServiceWhenLedgerEnabled() throws Exception {
+        List<Trade> sent = new ArrayList<>();
+        stub("accountServiceClient", new AccountServiceClient() {
+            @Override
+            public void send(Trade trade) {
+                sent.add(trade);
+            }
+        });
+        Field mapField = TradeService.class.getDeclaredField("concurrentTradeStatusMap");
+        mapField.setAccessible(true);
+        @SuppressWarnings("unchecked")
+        Map<String, TradeSnapshot> map = (Map<String, TradeSnapshot>) mapField.get(tradeService);
+        map.put("ORDER-1", new TradeSnapshot(new Trade("ORDER-1", testOrder, OrderStatus.CLEARED)));
+
+        tradeService.onSettlement(new Trade("ORDER-1", testOrder, OrderStatus.SETTLED));
+        assertTrue(sent.isEmpty());
+
+        Field enabled = TradeService.class.getDeclaredField("accountLedgerEnabled");
+        enabled.setAccessible(true);
+        enabled.set(tradeService, true);
+        map.put("ORDER-1", new TradeSnapshot(new Trade("ORDER-1", testOrder, OrderStatus.CLEARED)));
+        tradeService.onSettlement(new Trade("ORDER-1", testOrder, OrderStatus.SETTLED));
+
+        assertEquals(1, sent.size());
+        assertEquals(OrderStatus.SETTLED, sent.get(0).getStatus());
+    }
+
+    @Test
+    void testSubmitOrder_SendsDeadlineFromOrderOrDefaultTimeout() throws Exception {
+        List<Long> deadlines = new ArrayList<>();
+        stub("accountServiceClient", new AccountServiceClient() {
+            @Override
+            public void send(Trade trade) {
+                deadlines.add(0L);
+            }
+
+            @Override
+            public void send(Trade trade, long deadline) {
+                deadlines.add(deadline);
+            }
+        });
+
+        long before = System.currentTimeMillis();
+        tradeService.submitOrder(new Order(testOrder));
+        Field timeout = TradeService.class.getDeclaredField("orderTimeoutMs");
+        timeout.setAccessible(true);
+        timeout.set(tradeService, 2_000L);
+        tradeService.submitOrder(new Order(testOrder));
+        Order order = new Order(testOrder);
+        order.setTimeoutMs(500);
+        String orderId = tradeService.submitOrder(order);
+        long after = System.currentTimeMillis();
+
+        assertEquals(0L, deadlines.get(0));
+        assertTrue(deadlines.get(1) >= before + 2_000 && deadlines.get(1) <= after + 2_000);
+        assertTrue(deadlines.get(2) >= before + 500 && deadlines.get(2) <= after + 500);
+
+        // Timing out before validation leaves nothing held at the account service to release
+        Trade timedOut = new Trade(orderId, order, OrderStatus.FAILED);
+        timedOut.setFailureStage("TIMEOUT");
+        tradeService.onFailure(timedOut);
+        assertEquals(3, deadlines.size());
+        assertEquals(OrderStatus.FAILED, tradeService.getOrderStatus(orderId));
+    }
+
+    @Test
+    void testStageTimeout_ResendsThenFailsTradesWithoutReply() throws Exception {
+        List<String> sent = new ArrayList<>();
+        stub("accountServiceClient", new AccountServiceClient() {
+            @Override
+            public void send(Trade trade) {
+                sent.add(trade.getOrderId() + ":" + trade.getStatus());
+            }
+        });
+        long start = System.currentTimeMillis();
+        tradeService.enableStageTimeouts(new HashedWheelTimer(10, 64, 16, start), 100, 1);
+
+        String answered = tradeService.submitOrder(new Order(testOrder));
+        String lost = tradeService.submitOrder(new Order(testOrder));
+        Field mapField = TradeService.class.getDeclaredField("concurrentTradeStatusMap");
+        mapField.setAccessible(true);
+        @SuppressWarnings("unchecked")
+        Map<String, TradeSnapshot> map = (Map<String, TradeSnapshot>) mapField.get(tradeService);
+        // A reply moves the order on, which makes its timer stale
+        map.put(answered, new TradeSnapshot(new Trade(answered, testOrder, OrderStatus.SETTLED)));
+
+        // The first expiry resends the unanswered order, the second fails it
+        tradeService.expireStageTimeouts(start + 50);
+        assertEquals(2, sent.size());
+        tradeService.expireStageTimeouts(System.currentTimeMillis() + 200);
+        assertEquals(List.of(answered + ":UNKNOWN", lost + ":UNKNOWN", lost + ":UNKNOWN"), sent);
+        assertEquals(OrderStatus.UNKNOWN, tradeService.getOrderStatus(lost));
+        tradeService.expireStageTimeouts(System.currentTimeMillis() + 400);
+        assertEquals(3, sent.size());
+        assertEquals(OrderStatus.FAILED, tradeService.getOrderStatus(lost));
+        assertEquals("VALIDATION", map.get(lost).getTrade().getFailureStage());
+        assertEquals(OrderStatus.SETTLED, tradeService.getOrderStatus(answered));
+    }
+
+    @Test
+    void testStageTimeout_DroppedForOrderRestingInTheBook() throws Exception {
+        List<String> sent = new ArrayList<>();
+        stub("accountServiceClient", new AccountServiceClient() {
+            @Override
+            public void send(Trade trade) {
+                sent.add("account:" + trade.getStatus());
+            }
+        });
+        stub("executionServiceClient", new ExecutionServiceClient() {
+            @Override
+            public void send(Trade trade) {
+                sent.add("execution:" + trade.getStatus());
+            }
+        });
+        long start = System.currentTimeMillis();
+        tradeService.enableStageTimeouts(new HashedWheelTimer(10, 64, 16, start), 100, 1);
+        String orderId = tradeService.submitOrder(new Order(testOrder));
+        tradeService.onValidation(new Trade(orderId, testOrder, OrderStatus.VALIDATED));
+
+        Trade resting = new Trade(orderId, testOrder, OrderStatus.VALIDATED);
+        resting.setResting(true);
+        tradeService.onValidation(resting);
+
+        // Neither resent nor failed, so nothing is released and no second copy reaches the book
+        tradeService.expireStageTimeouts(System.currentTimeMillis() + 1_000);
+        tradeService.expireStageTimeouts(System.currentTimeMillis() + 2_000);
+        assertEquals(List.of("account:UNKNOWN", "execution:VALIDATED"), sent);
+        assertEquals(OrderStatus.VALIDATED, tradeService.getOrderStatus(orderId));
+    }
+
+    @Test
+    void testDeadline_NotAppliedOnceOrderRestsInTheBook() throws Exception {
+        List<Long> clearingDeadlines = new ArrayList<>();
+        stub("accountServiceClient", new AccountServiceClient() {
+            @Override
+            public void send(Trade trade, long deadline) {
+            }
+        });
+        stub("executionServiceClient", new ExecutionServiceClient() {
+            @Override
+            public void send(Trade trade, long deadline) {
+            }
+        });
+        stub("clearingServiceClient", new ClearingServiceClient() {
+            @Override
+            public void send(Trade trade) {
+                clearingDeadlines.add(0L);
+            }
+
+            @Override
+            public void send(Trade trade, long deadline) {
+                clearingDeadlines.add(deadline);
+            }
+        });
+        Order order = new Order(testOrder);
+        order.setTimeoutMs(1);
+        String orderId = tradeService.submitOrder(order);
+        tradeService.onValidation(new Trade(orderId, order, OrderStatus.VALIDATED));
+        Trade resting = new Trade(orderId, order, OrderStatus.VALIDATED);
+        resting.setResting(true);
+        tradeService.onValidation(resting);
+
+        // The fill comes long after the deadline; clearing must not time the matched trade out
+        Thread.sleep(5);
+        Trade executed = new Trade(orderId, order, OrderStatus.EXECUTED);
+        executed.setExecutedQuantity(100);
+        executed.setExecutedPrice(150.00);
+        tradeService.onExecution(executed);
+
+        assertEquals(List.of(0L), clearingDeadlines);
+        assertEquals(OrderStatus.EXECUTED, tradeService.getOrderStatus(orderId));
+    }
+
+    @Test
+    void testCallbacks_IgnoreDuplicateAndStaleReplies() throws Exception {
+        List<String> sent = new ArrayList<>();
+        stub("executionServiceClient", new ExecutionServiceClient() {
+            @Override
+            public void send(Trade trade) {
+                sent.add(trade.getOrderId());
+            }
+        });
+        Field mapField = TradeService.class.getDeclaredField("concurrentTradeStatusMap");
+        mapField.setAccessible(true);
+        @SuppressWarnings("unchecked")
+        Map<String, TradeSnapshot> map = (Map<String, TradeSnapshot>) mapField.get(tradeService);
+        map.put("ORDER-1", new TradeSnapshot(new Trade("ORDER-1", testOrder, OrderStatus.UNKNOWN)));
+
+        Trade validated = new Trade("ORDER-1", testOrder, OrderStatus.VALIDATED);
+        tradeService.onValidation(validated);
+        tradeService.onValidation(validated);
+        assertEquals(List.of("ORDER-1"), sent);
+
+        // A settlement reply cannot skip execution and clearing
+        tradeService.onSettlement(new Trade("ORDER-1", testOrder, OrderStatus.SETTLED));
+        assertEquals(OrderStatus.VALIDATED, tradeService.getOrderStatus("ORDER-1"));
+
+        // Nor can a failure undo a settled trade
+        map.put("ORDER-1", new TradeSnapshot(new Trade("ORDER-1", testOrder, OrderStatus.SETTLED)));
+        Trade failed = new Trade("ORDER-1", testOrder, OrderStatus.FAILED);
+        failed.setFailureStage("SETTLEMENT");
+        tradeService.onFailure(failed);
+        assertEquals(OrderStatus.SETTLED, tradeService.getOrderStatus("ORDER-1"));
+    }
+
+    @Test
+    void testCallbacks_ConcurrentRepliesMoveEachOrderOnce() throws Exception {
+        Map<String, List<String>> sent = new ConcurrentHashMap<>();
+        stub("executionServiceClient", new ExecutionServiceClient() {
+            @Override
+            public void send(Trade trade) {
+                sent.computeIfAbsent("execution", k -> new java.util.concurrent.CopyOnWriteArrayList<>())
+                    .add(trade.getOrderId());
+            }
+        });
+        stub("clearingServiceClient", new ClearingServiceClient() {
+            @Override
+            public void send(Trade trade) {
+                sent.computeIfAbsent("clearing", k -> new java.util.concurrent.CopyOnWriteArrayList<>())
+                    .add(trade.getOrderId());
+            }
+        });
+        stub("accountServiceClient", new AccountServiceClient() {
+            @Override
+            public void send(Trade trade) {
+                sent.computeIfAbsent("account", k -> new java.util.concurrent.CopyOnWriteArrayList<>())
+                    .add(trade.getOrderId());
+            }
+        });
+        Field mapField = TradeService.class.getDeclaredField("concurrentTradeStatusMap");
+        mapField.setAccessible(true);
+        @SuppressWarnings("unchecked")
+        Map<String, TradeSnapshot> map = (Map<String, TradeSnapshot>) mapField.get(tradeService);
+        int orders = 200;
+        for (int i = 0; i < orders; i++) {
+            map.put("ORDER-" + i, new TradeSnapshot(new Trade("ORDER-" + i, testOrder, OrderStatus.UNKNOWN)));
+        }
+
+        // Every thread delivers every order's validation, then races execution against failure
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < orders; i++) {
+                    tradeService.onValidation(
+                        new Trade("ORDER-" + i, testOrder, OrderStatus.VALIDATED));
+                }
+                for (int i = 0; i < orders; i++) {
+                    Trade executed = new Trade("ORDER-" + i, testOrder, OrderStatus.EXECUTED);
+                    executed.setExecutedQuantity(100);
+                    tradeService.onExecution(executed);
+                    Trade failed = new Trade("ORDER-" + i, testOrder, OrderStatus.FAILED);
+                    failed.setFailureStage("EXECUTION");
+                    tradeService.onFailure(failed);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(orders, sent.get("execution").size());
+        assertEquals(orders, sent.get("account").size());
+        int executed = 0;
+        for (int i = 0; i < orders; i++) {
+            TradeSnapshot snapshot = map.get("ORDER-" + i);
+            assertEquals(OrderStatus.FAILED, snapshot.getStatus());
+            assertEquals("EXECUTION", snapshot.getTrade().getFailureStage());
+            if (snapshot.getPreviousStatus() == OrderStatus.EXECUTED) {
+                assertEquals(3, snapshot.getVersion());
+                assertEquals(100, snapshot.getTrade().getExecutedQuantity());
+                executed++;
+            } else {
+                assertEquals(2, snapshot.getVersion());
+            }
+        }
+        // Only orders that executed before failing went on to clearing
+        assertEquals(executed, sent.getOrDefault("clearing", List.of()).size());
+    }
+
+    @Test
+    void testQueryTrades_FindsOrdersThroughTheirLifecycle() throws Exception {
+        stub("accountServiceClient", new AccountServiceClient() {
+            @Override
+            public void send(Trade trade) {
+            }
+        });
+        com.klear.model.query.TradeQuery query = new com.klear.model.query.TradeQuery();
+        query.setClientId("CLIENT123");
+        tradeService.submitOrder(new Order(testOrder));
+        assertTrue(tradeService.queryTrades(query).getTrades().isEmpty());
+
+        tradeService.enableTradeIndex(60_000);
+        String first = tradeService.submitOrder(new Order(testOrder));
+        Order other = new Order(testOrder);
+        other.setClientId("CLIENT456");
+        other.setStockSymbol("MSFT");
+        tradeService.submitOrder(other);
+        String second = tradeService.submitOrder(new Order(testOrder));
+        Trade failed = new Trade(first, testOrder, OrderStatus.FAILED);
+        failed.setFailureStage("VALIDATION");
+        tradeService.onFailure(failed);
+
+        com.klear.model.query.TradePage page = tradeService.queryTrades(query);
+        assertEquals(List.of(first, second),
+            page.getTrades().stream().map(Trade::getOrderId).toList());
+        query.setOpen(true);
+        page = tradeService.queryTrades(query);
+        assertEquals(1, page.getTrades().size());
+        assertEquals(second, page.getTrades().get(0).getOrderId());
+
+        com.klear.model.query.TradeQuery failures = new com.klear.model.query.TradeQuery();
+        failures.setStatus(OrderStatus.FAILED);
+        failures.setSinceMillis(System.currentTimeMillis() - 3_600_000);
+        page = tradeService.queryTrades(failures);
+        assertEquals(1, page.getTrades().size());
+        assertEquals("VALIDATION", page.getTrades().get(0).getFailureStage());
+    }
+
+    @Test
+    void testAnalytics_CountsEachTransitionOnce() throws Exception {
+        stub("clearingServiceClient", new ClearingServiceClient() {
+            @Override
+            public void send(Trade trade) {
+            }
+        });
+        stub("accountServiceClient", new AccountServiceClient() {
+            @Override
+            public void send(Trade trade) {
+            }
+        });
+        assertTrue(tradeService.getAnalytics(null, null).getSymbols().isEmpty());
+
+        tradeService.enableAnalytics(new com.klear.trade.analytics.TradeAnalytics(60_000, 5));
+        Field mapField = TradeService.class.getDeclaredField("concurrentTradeStatusMap");
+        mapField.setAccessible(true);
+        @SuppressWarnings("unchecked")
+        Map<String, TradeSnapshot> map = (Map<String, TradeSnapshot>) mapField.get(tradeService);
+        map.put("ORDER-1", new TradeSnapshot(new Trade("ORDER-1", testOrder, OrderStatus.VALIDATED)));
+        map.put("ORDER-2", new TradeSnapshot(new Trade("ORDER-2", testOrder, OrderStatus.CLEARED)));
+        map.put("ORDER-3", new TradeSnapshot(new Trade("ORDER-3", testOrder, OrderStatus.VALIDATED)));
+
+        Trade executed = new Trade("ORDER-1", testOrder, OrderStatus.EXECUTED);
+        executed.setExecutedQuantity(100);
+        executed.setExecutedPrice(150.50);
+        tradeService.onExecution(executed);
+        // A duplicate delivery loses the compare-and-set and is not counted again
+        tradeService.onExecution(executed);
+        tradeService.onSettlement(new Trade("ORDER-2", testOrder, OrderStatus.SETTLED));
+        Trade failed = new Trade("ORDER-3", testOrder, OrderStatus.FAILED);
+        failed.setFailureStage("EXECUTION");
+        tradeService.onFailure(failed);
+
+        com.klear.model.analytics.WindowStats aapl =
+            tradeService.getAnalytics(null, null).getSymbols().get("AAPL").getTotal();
+        assertEquals(1, aapl.getFills());
+        assertEquals(100, aapl.getVolume());
+        assertEquals(150.50, aapl.getVwap(), 1e-9);
+        assertEquals(0.5, aapl.getFailureRate(), 1e-9);
+        com.klear.model.analytics.WindowStats client =
+            tradeService.getAnalytics(null, null).getClients().get("CLIENT123").getSliding();
+        assertEquals(1, client.getSettled());
+        assertEquals(1, client.getFailed());
+
+        // An order refused for an off-tick price counts as a failure too
+        tradeService.enableFixedPointPrices(com.klear.model.price.PriceScales.of(2));
+        Order offTick = new Order();
+        offTick.setClientId("CLIENT456");
+        offTick.setStockSymbol("MSFT");
+        offTick.setQuantity(10);
+        offTick.setPrice(400.005);
+        tradeService.submitOrder(offTick);
+
+        com.klear.model.analytics.AnalyticsSnapshot msft =
+            tradeService.getAnalytics("MSFT", "CLIENT456");
+        assertEquals(Set.of("MSFT"), msft.getSymbols().keySet());
+        assertEquals(Set.of("CLIENT456"), msft.getClients().keySet());
+        assertEquals(1, msft.getSymbols().get("MSFT").getTotal().getFailed());
+        assertEquals(1.0, msft.getClients().get("CLIENT456").getTotal().getFailureRate(), 1e-9);
+    }
+
+    @Test
+    void testAnalyticsRequestWithoutPayload_RepliesWithEverything() throws Exception {
+        List<String> published = new ArrayList<>();
+        Field pubField = TradeService.class.getDeclaredField("jedisPub");
+        pubField.setAccessible(true);
+        pubField.set(tradeService, new redis.clients.jedis.Jedis() {
+            @Override
+            public long publish(String channel, String message) {
+                published.add(channel + " " + message);
+                return 0L;
+            }
+        });
+        com.klear.trade.analytics.TradeAnalytics analytics = new com.klear.trade.analytics.TradeAnalytics(60_000, 5);
+        analytics.recordFailure(new Trade("ORDER-1", testOrder, OrderStatus.FAILED),
+            System.currentTimeMillis());
+        tradeService.enableAnalytics(analytics);
+
+        // As sent by clients from before the symbol and client filters
+        tradeService.onReceive("trade_service_channel",
+            "{\"type\":\"ANALYTICS\",\"returnChannel\":\"RET\",\"payload\":null}");
+
+        assertEquals(1, published.size());
+        assertTrue(published.get(0).startsWith("RET "), published.get(0));
+        assertTrue(published.get(0).contains("\"AAPL\""), published.get(0));
+        assertTrue(published.get(0).contains("\"CLIENT123\""), published.get(0));
+    }
+
+    @Test
+    void testFixedPointOrder_TicksReachClearingAndSettlement() throws Exception {
+        Map<String, Trade> sent = new ConcurrentHashMap<>();
+        stub("accountServiceClient", new AccountServiceClient() {
+            @Override
+            public void send(Trade trade) {
+                sent.put("account", trade);
+            }
+        });
+        stub("executionServiceClient", new ExecutionServiceClient() {
+            @Override
+            public void send(Trade trade) {
+                sent.put("execution", trade);
+            }
+        });
+        stub("clearingServiceClient", new ClearingServiceClient() {
+            @Override
+            public void send(Trade trade) {
+                sent.put("clearing", trade);
+            }
+        });
+        stub("settlementServiceClient", new SettlementServiceClient() {
+            @Override
+            public void send(Trade trade) {
+                sent.put("settlement", trade);
+            }
+        });
+        tradeService.enableFixedPointPrices(com.klear.model.price.PriceScales.of(2));
+        testOrder.setPrice(150.25);
+        String orderId = tradeService.submitOrder(testOrder);
+        assertEquals(15025, sent.get("account").getOrder().getPriceTicks());
+
+        tradeService.onValidation(
+            new Trade(orderId, sent.get("account").getOrder(), OrderStatus.VALIDATED));
+        com.klear.model.order.Order stageOrder = sent.get("execution").getOrder();
+        Trade executed = new Trade(orderId, stageOrder, OrderStatus.EXECUTED);
+        executed.setExecutedQuantity(100);
+        executed.setExecutedPriceTicks(15020);
+        tradeService.onExecution(executed);
+
+        assertEquals(15020, sent.get("clearing").getExecutedPriceTicks());
+        assertEquals(100, sent.get("clearing").getExecutedQuantity());
+
+        Trade cleared = new Trade(orderId, stageOrder, OrderStatus.CLEARED);
+        cleared.setNettedAmountTicks(1502000);
+        tradeService.onClearing(cleared);
+
+        assertEquals(15020, sent.get("settlement").getExecutedPriceTicks());
+        assertEquals(1502000, sent.get("settlement").getNettedAmountTicks());
+        assertEquals(15020.00, sent.get("settlement").getNettedAmount(), 1e-9);
+    }
+
+    private void stub(String field, ServiceClientInterface client) throws Exception {
+        Field clientField = TradeService.class.getDeclaredField(field);
+        clientField.setAccessible(true);
+        clientField.set(tradeService, client);
+    }
+}
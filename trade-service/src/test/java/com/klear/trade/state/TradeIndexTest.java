@@ -0,0 +1,130 @@
+package com.klear.trade.state;
+
+import com.klear.model.order.Order;
+import com.klear.model.order.OrderStatus;
+import com.klear.model.query.TradePage;
+import com.klear.model.query.TradeQuery;
+import com.klear.model.trade.Trade;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradeIndexTest {
+
+    private final Map<String, TradeSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final TradeIndex index = new TradeIndex(60_000, snapshots::get);
+    private long sequence;
+
+    @Test
+    void testQueriesByClientSymbolStatusAndTime() {
+        long hour = 3_600_000;
+        submit("ORDER-1", "CLIENT1", "AAPL", 10 * hour);
+        submit("ORDER-2", "CLIENT2", "AAPL", 10 * hour);
+        submit("ORDER-3", "CLIENT1", "MSFT", 11 * hour);
+        submit("ORDER-4", "CLIENT1", "AAPL", 12 * hour);
+        move("ORDER-1", OrderStatus.VALIDATED, null);
+        move("ORDER-1", OrderStatus.FAILED, "CLEARING");
+        move("ORDER-3", OrderStatus.VALIDATED, null);
+        move("ORDER-4", OrderStatus.FAILED, "CLEARING");
+        move("ORDER-2", OrderStatus.FAILED, "VALIDATION");
+
+        TradeQuery open = new TradeQuery();
+        open.setClientId("CLIENT1");
+        open.setOpen(true);
+        assertEquals(List.of("ORDER-3"), orderIds(index.query(open)));
+
+        TradeQuery symbol = new TradeQuery();
+        symbol.setStockSymbol("AAPL");
+        assertEquals(List.of("ORDER-1", "ORDER-2", "ORDER-4"), orderIds(index.query(symbol)));
+
+        TradeQuery failed = new TradeQuery();
+        failed.setStatus(OrderStatus.FAILED);
+        failed.setFailureStage("CLEARING");
+        assertEquals(List.of("ORDER-1", "ORDER-4"), orderIds(index.query(failed)));
+        failed.setSinceMillis(11 * hour);
+        assertEquals(List.of("ORDER-4"), orderIds(index.query(failed)));
+        failed.setSinceMillis(0);
+        failed.setUntilMillis(11 * hour);
+        assertEquals(List.of("ORDER-1"), orderIds(index.query(failed)));
+
+        TradeQuery validated = new TradeQuery();
+        validated.setStatus(OrderStatus.VALIDATED);
+        assertEquals(List.of("ORDER-3"), orderIds(index.query(validated)));
+
+        TradeQuery unknownClient = new TradeQuery();
+        unknownClient.setClientId("CLIENT9");
+        assertTrue(index.query(unknownClient).getTrades().isEmpty());
+    }
+
+    @Test
+    void testPagesFollowTheCursor() {
+        for (int i = 1; i <= 5; i++) {
+            submit("ORDER-" + i, "CLIENT1", "AAPL", i);
+        }
+        move("ORDER-2", OrderStatus.VALIDATED, null);
+        TradeQuery query = new TradeQuery();
+        query.setLimit(2);
+
+        TradePage first = index.query(query);
+        assertEquals(List.of("ORDER-1", "ORDER-2"), orderIds(first));
+        query.setAfter(first.getNextCursor());
+        TradePage second = index.query(query);
+        assertEquals(List.of("ORDER-3", "ORDER-4"), orderIds(second));
+        query.setAfter(second.getNextCursor());
+        TradePage last = index.query(query);
+        assertEquals(List.of("ORDER-5"), orderIds(last));
+        assertEquals(0, last.getNextCursor());
+    }
+
+    @Test
+    void testLateIndexUpdateDoesNotLeaveAStaleStatus() {
+        submit("ORDER-1", "CLIENT1", "AAPL", 0);
+        TradeSnapshot validated = snapshots.get("ORDER-1").next(reply("ORDER-1", OrderStatus.VALIDATED, null));
+        snapshots.put("ORDER-1", validated);
+        TradeSnapshot executed = validated.next(reply("ORDER-1", OrderStatus.EXECUTED, null));
+        snapshots.put("ORDER-1", executed);
+
+        // The second transition's thread updates the index before the first's
+        index.moved(executed);
+        index.moved(validated);
+
+        for (OrderStatus status : OrderStatus.values()) {
+            TradeQuery query = new TradeQuery();
+            query.setStatus(status);
+            assertEquals(status == OrderStatus.EXECUTED ? 1 : 0, index.query(query).getTrades().size(), status.name());
+        }
+        TradeQuery open = new TradeQuery();
+        open.setOpen(true);
+        assertEquals(List.of("ORDER-1"), orderIds(index.query(open)));
+    }
+
+    private void submit(String orderId, String clientId, String symbol, long submittedMillis) {
+        Order order = new Order();
+        order.setClientId(clientId);
+        order.setStockSymbol(symbol);
+        TradeSnapshot snapshot = new TradeSnapshot(new Trade(orderId, order, OrderStatus.UNKNOWN),
+                ++sequence, submittedMillis);
+        snapshots.put(orderId, snapshot);
+        index.add(snapshot);
+    }
+
+    private void move(String orderId, OrderStatus status, String failureStage) {
+        TradeSnapshot next = snapshots.get(orderId).next(reply(orderId, status, failureStage));
+        snapshots.put(orderId, next);
+        index.moved(next);
+    }
+
+    private static Trade reply(String orderId, OrderStatus status, String failureStage) {
+        Trade reply = new Trade(orderId, null, status);
+        reply.setFailureStage(failureStage);
+        return reply;
+    }
+
+    private static List<String> orderIds(TradePage page) {
+        return page.getTrades().stream().map(Trade::getOrderId).toList();
+    }
+}
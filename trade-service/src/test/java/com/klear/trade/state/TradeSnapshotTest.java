@@ -0,0 +1,96 @@
+package com.klear.trade.state;
+
+import com.klear.model.order.Order;
+import com.klear.model.order.OrderStatus;
+import com.klear.model.trade.Trade;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradeSnapshotTest {
+
+    @Test
+    void testTransitionTableMovesForwardOrFails() {
+        assertTrue(TradeSnapshot.canMove(OrderStatus.UNKNOWN, OrderStatus.VALIDATED));
+        assertTrue(TradeSnapshot.canMove(OrderStatus.VALIDATED, OrderStatus.EXECUTED));
+        assertTrue(TradeSnapshot.canMove(OrderStatus.EXECUTED, OrderStatus.CLEARED));
+        assertTrue(TradeSnapshot.canMove(OrderStatus.CLEARED, OrderStatus.SETTLED));
+        assertTrue(TradeSnapshot.canMove(OrderStatus.CLEARED, OrderStatus.FAILED));
+        assertFalse(TradeSnapshot.canMove(OrderStatus.VALIDATED, OrderStatus.VALIDATED));
+        assertFalse(TradeSnapshot.canMove(OrderStatus.VALIDATED, OrderStatus.CLEARED));
+        assertFalse(TradeSnapshot.canMove(OrderStatus.EXECUTED, OrderStatus.VALIDATED));
+        assertFalse(TradeSnapshot.canMove(OrderStatus.SETTLED, OrderStatus.FAILED));
+        assertFalse(TradeSnapshot.canMove(OrderStatus.FAILED, OrderStatus.VALIDATED));
+    }
+
+    @Test
+    void testNextLeavesTheEarlierVersionUnchanged() {
+        Order order = new Order();
+        order.setClientId("CLIENT1");
+        order.setStockSymbol("AAPL");
+        TradeSnapshot first = new TradeSnapshot(new Trade("ORDER-1", order, OrderStatus.VALIDATED));
+
+        Trade reply = new Trade("ORDER-1", null, OrderStatus.EXECUTED);
+        reply.setExecutedPrice(150.25);
+        reply.setExecutedQuantity(100);
+        reply.setClearingMessage("not taken from an execution reply");
+        TradeSnapshot second = first.next(reply);
+
+        assertEquals(OrderStatus.VALIDATED, first.getStatus());
+        assertEquals(OrderStatus.VALIDATED, first.getTrade().getStatus());
+        assertEquals(0, first.getTrade().getExecutedQuantity());
+        assertEquals(0, first.getVersion());
+        assertNull(first.getPreviousStatus());
+
+        assertEquals(OrderStatus.EXECUTED, second.getTrade().getStatus());
+        assertEquals(150.25, second.getTrade().getExecutedPrice());
+        assertEquals(100, second.getTrade().getExecutedQuantity());
+        assertEquals("", second.getTrade().getClearingMessage());
+        assertSame(order, second.getTrade().getOrder());
+        assertEquals(1, second.getVersion());
+        assertEquals(OrderStatus.VALIDATED, second.getPreviousStatus());
+
+        assertThrows(IllegalStateException.class,
+                () -> second.next(new Trade("ORDER-1", null, OrderStatus.SETTLED)));
+    }
+
+    @Test
+    void testNextCarriesTicksForFixedPointOrders() {
+        Order order = new Order();
+        order.setClientId("CLIENT1");
+        order.setStockSymbol("AAPL");
+        order.setPriceTicks(15025);
+        order.setPriceScale(2);
+        TradeSnapshot validated = new TradeSnapshot(new Trade("ORDER-1", order, OrderStatus.VALIDATED));
+
+        Trade executed = new Trade("ORDER-1", order, OrderStatus.EXECUTED);
+        executed.setExecutedQuantity(100);
+        executed.setExecutedPriceTicks(15020);
+        TradeSnapshot afterExecution = validated.next(executed);
+        assertEquals(15020, afterExecution.getTrade().getExecutedPriceTicks());
+        assertEquals(150.20, afterExecution.getTrade().getExecutedPrice(), 1e-9);
+
+        Trade cleared = new Trade("ORDER-1", order, OrderStatus.CLEARED);
+        cleared.setNettedAmountTicks(1502000);
+        TradeSnapshot afterClearing = afterExecution.next(cleared);
+        assertEquals(15020, afterClearing.getTrade().getExecutedPriceTicks());
+        assertEquals(1502000, afterClearing.getTrade().getNettedAmountTicks());
+        assertEquals(15020.00, afterClearing.getTrade().getNettedAmount(), 1e-9);
+    }
+
+    @Test
+    void testRestKeepsStatusAndNextClearsTheFlag() {
+        TradeSnapshot validated = new TradeSnapshot(new Trade("ORDER-1", new Order(), OrderStatus.VALIDATED));
+        TradeSnapshot resting = validated.rest();
+        assertTrue(resting.getTrade().isResting());
+        assertFalse(validated.getTrade().isResting());
+        assertEquals(OrderStatus.VALIDATED, resting.getStatus());
+        assertEquals(1, resting.getVersion());
+
+        Trade executed = new Trade("ORDER-1", null, OrderStatus.EXECUTED);
+        executed.setExecutedQuantity(100);
+        TradeSnapshot filled = resting.next(executed);
+        assertFalse(filled.getTrade().isResting());
+        assertThrows(IllegalStateException.class, filled::rest);
+    }
+}
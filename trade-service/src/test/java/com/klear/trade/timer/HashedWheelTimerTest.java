@@ -0,0 +1,59 @@
+package com.klear.trade.timer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedWheelTimerTest {
+
+    @Test
+    void testFiresTimersAtTheirTickAcrossRevolutions() {
+        // 8 buckets of 10 ms: one revolution is 80 ms
+        HashedWheelTimer timer = new HashedWheelTimer(10, 8, 2, 1_000);
+        List<String> fired = new ArrayList<>();
+        timer.schedule(1_025, "A", 1);
+        timer.schedule(1_105, "B", 2);   // same bucket as A, one revolution later
+        timer.schedule(1_300, "C", 3);
+        timer.schedule(900, "D", 4);     // already due: fires on the next tick
+        assertEquals(4, timer.size());
+
+        assertEquals(1, timer.advance(1_010, (payload, tag) -> fired.add(payload + ":" + tag)));
+        assertEquals(List.of("D:4"), fired);
+        timer.advance(1_029, (payload, tag) -> fired.add(payload + ":" + tag));
+        assertEquals(List.of("D:4"), fired);
+        timer.advance(1_030, (payload, tag) -> fired.add(payload + ":" + tag));
+        assertEquals(List.of("D:4", "A:1"), fired);
+        timer.advance(1_109, (payload, tag) -> fired.add(payload + ":" + tag));
+        assertEquals(List.of("D:4", "A:1"), fired);
+
+        // A jump of several revolutions visits each bucket once
+        timer.advance(5_000, (payload, tag) -> fired.add(payload + ":" + tag));
+        assertEquals(List.of("D:4", "A:1", "B:2", "C:3"), fired);
+        assertEquals(0, timer.size());
+    }
+
+    @Test
+    void testReusesSlotsAndGrows() {
+        HashedWheelTimer timer = new HashedWheelTimer(1, 64, 4, 0);
+        int[] fired = new int[1];
+        long now = 0;
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < 50; i++) {
+                // Handlers may schedule again, as a resend does
+                timer.schedule(now + 1 + i, i, i);
+            }
+            now += 100;
+            fired[0] += timer.advance(now, (payload, tag) -> {
+                assertEquals(payload, tag);
+                if (tag == 0) {
+                    timer.schedule(Long.MAX_VALUE / 2, "far", -1);
+                }
+            });
+        }
+        assertEquals(5_000, fired[0]);
+        assertEquals(100, timer.size());
+    }
+}